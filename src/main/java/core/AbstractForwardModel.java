@@ -93,6 +93,22 @@ public abstract class AbstractForwardModel {
         return _computeAvailableActions(gameState);
     }
 
+    /**
+     * Adds the currently available actions to the given (empty) buffer, for legalActionsInto().
+     * By default this adds the result of _computeAvailableActions(); games can override it to fill the buffer
+     * directly, without creating a new list each time.
+     *
+     * @param gameState   - current game state.
+     * @param actionSpace - the action space to use.
+     * @param buffer      - the list to add the actions to.
+     */
+    protected void _computeAvailableActions(AbstractGameState gameState, ActionSpace actionSpace, List<AbstractAction> buffer) {
+        if (actionSpace != null && !actionSpace.isDefault())
+            buffer.addAll(_computeAvailableActions(gameState, actionSpace));
+        else
+            buffer.addAll(_computeAvailableActions(gameState));
+    }
+
     protected abstract void endPlayerTurn(AbstractGameState state);
 
     /**
@@ -186,6 +202,55 @@ public abstract class AbstractForwardModel {
         return retValue;
     }
 
+    /* ###### Simulation API, for search algorithms ###### */
+
+    /**
+     * Applies the given action to the game state, without the bookkeeping done by next(): the state is put into
+     * simulation mode (see AbstractGameState.setSimulationMode()), so nothing is added to its history, no listeners
+     * are informed and player timers are not updated. This is intended for the copies of the state used inside a
+     * search (rollouts in particular), which never look at these.
+     *
+     * @param currentState - state to be modified by the action; this should be a copy owned by the search.
+     * @param action       - action to apply, which must be one of the actions currently available.
+     */
+    public final void simulate(AbstractGameState currentState, AbstractAction action) {
+        if (action == null)
+            throw new IllegalArgumentException("No action to simulate");
+        currentState.setSimulationMode(true);
+        _next(currentState, action);
+        currentState.advanceGameTick();
+    }
+
+    /**
+     * Computes the actions available in the state, as computeAvailableActions() does, but into the given buffer
+     * (which is cleared first) so that the same list can be reused at each step of a rollout.
+     * Player decorators are NOT applied (see hasPlayerDecorators()).
+     *
+     * @param gameState - current game state.
+     * @param buffer    - the list to fill with the available actions.
+     * @return - the buffer.
+     */
+    public final List<AbstractAction> legalActionsInto(AbstractGameState gameState, List<AbstractAction> buffer) {
+        return legalActionsInto(gameState, gameState.coreGameParameters.actionSpace, buffer);
+    }
+
+    public final List<AbstractAction> legalActionsInto(AbstractGameState gameState, ActionSpace actionSpace, List<AbstractAction> buffer) {
+        buffer.clear();
+        if (gameState.isActionInProgress())
+            buffer.addAll(gameState.actionsInProgress.peek()._computeAvailableActions(gameState, actionSpace));
+        else
+            _computeAvailableActions(gameState, actionSpace, buffer);
+        return buffer;
+    }
+
+    /**
+     * @return true if any player decorators restrict the available actions. If so computeAvailableActions()
+     * should be used rather than legalActionsInto(), which ignores them.
+     */
+    public final boolean hasPlayerDecorators() {
+        return !decorators.isEmpty();
+    }
+
     /**
      * Performs any end of game computations, as needed.
      * This should not normally need to be overriden - but can be. For example if a game is purely co-operative
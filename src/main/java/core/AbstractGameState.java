@@ -13,7 +13,9 @@ import evaluation.listeners.IGameListener;
 import evaluation.metrics.Event;
 import games.GameType;
 import utilities.ElapsedCpuChessTimer;
+import utilities.IntObjectMap;
 import utilities.Pair;
+import utilities.PersistentLog;
 
 import java.util.*;
 import java.util.function.BiFunction;
@@ -39,6 +41,9 @@ public abstract class AbstractGameState {
     // Game being played
     protected final GameType gameType = _getGameType();
     private Area allComponents;
+    // Index from component ID to component, built on the first lookup by ID (most copies made in a search never
+    // look one up). It is rebuilt when an ID is not found, in case the component was added since it was built
+    private volatile IntObjectMap<Component> componentIndex;
 
     // Game tick, number of iterations of game loop
     private int tick = 0;
@@ -55,8 +60,11 @@ public abstract class AbstractGameState {
     // A record of all actions taken to reach this game state
     // The history is stored as a list of pairs, where the first element is the player who took the action
     // this is in chronological order
-    private List<Pair<Integer, AbstractAction>> history = new ArrayList<>();
-    private List<String> historyText = new ArrayList<>();
+    // Both logs are shared with copies of the state (see PersistentLog), so copy() does not depend on their length.
+    private PersistentLog<Pair<Integer, AbstractAction>> history = new PersistentLog<>();
+    private PersistentLog<String> historyText = new PersistentLog<>();
+    // In simulation mode nothing is added to the history, and no listeners or timers are updated (see setSimulationMode())
+    private boolean simulationMode;
 
     // Status of the game, and status for each player (in cooperative games, the game status is also each player's status)
     protected CoreConstants.GameResult gameStatus;
@@ -94,8 +102,8 @@ public abstract class AbstractGameState {
         gameStatus = GAME_ONGOING;
         playerResults = new CoreConstants.GameResult[getNPlayers()];
         Arrays.fill(playerResults, GAME_ONGOING);
-        history = new ArrayList<>();
-        historyText = new ArrayList<>();
+        history = new PersistentLog<>();
+        historyText = new PersistentLog<>();
         playerTimer = new ElapsedCpuChessTimer[getNPlayers()];
         tick = 0;
         turnOwner = 0;
@@ -164,12 +172,51 @@ public abstract class AbstractGameState {
     protected void setHistoryAt(int index, Pair<Integer, AbstractAction> action) {
         history.set(index, action);
     }
+    protected final int getHistoryLength() {
+        return history.size();
+    }
+    protected final int getHistoryTextLength() {
+        return historyText.size();
+    }
+
     /**
-     * @return All actions that have been executed on this state since reset()/initialisation
+     * Removes everything added to the history after it had the given lengths, and sets the game tick back.
+     * Used when reverting a state to a checkpoint (see IUndoableForwardModel).
      */
-    public List<Pair<Integer, AbstractAction>> getHistory() { return new ArrayList<>(history);}
+    protected final void revertHistory(int tick, int historyLength, int historyTextLength) {
+        this.tick = tick;
+        history.truncate(historyLength);
+        historyText.truncate(historyTextLength);
+    }
+    /**
+     * @return All actions that have been executed on this state since reset()/initialisation. The list is
+     * unmodifiable, and is not affected by later actions.
+     */
+    public List<Pair<Integer, AbstractAction>> getHistory() { return history.snapshot();}
+
     public List<String> getHistoryAsText() {
-        return new ArrayList<>(historyText);
+        return new ArrayList<>(historyText.snapshot());
+    }
+
+    /**
+     * In simulation mode nothing more is recorded in the history of this state, or of any copy of it: the history
+     * stays as it was when the mode was set. Listeners are not informed of events and player timers are not updated,
+     * so copies share the timers rather than copying them. This is intended for the copies of the state made during
+     * a search, which do not need any of these, and it is kept by copy(). AbstractForwardModel.simulate() sets it.
+     */
+    public final void setSimulationMode(boolean simulationMode) {
+        if (this.simulationMode && !simulationMode && playerTimer != null) {
+            // the timers may be shared with other states in simulation mode
+            ElapsedCpuChessTimer[] timers = new ElapsedCpuChessTimer[playerTimer.length];
+            for (int i = 0; i < timers.length; i++)
+                timers[i] = playerTimer[i].copy();
+            playerTimer = timers;
+        }
+        this.simulationMode = simulationMode;
+    }
+
+    public final boolean isSimulationMode() {
+        return simulationMode;
     }
     public int getGameID() {
         return gameID;
@@ -222,6 +269,16 @@ public abstract class AbstractGameState {
     public Random getRnd() {
         return rnd;
     }
+
+    /**
+     * Reseeds the generator used to redeterminise copies of this state (copy(playerId)). A player that samples
+     * several determinisations of its observation can call this first, so that a seeded player sees the same
+     * determinisations each time. The main game RNG is not affected.
+     * @param seed - new seed for redeterminisationRnd
+     */
+    public void setRedeterminisationSeed(long seed) {
+        redeterminisationRnd.setSeed(seed);
+    }
     public void addListener(IGameListener listener) {
         if (!listeners.contains(listener))
             listeners.add(listener);
@@ -241,17 +298,37 @@ public abstract class AbstractGameState {
     }
     public final int getGameTick() {return tick;}
     public final Component getComponentById(int id) {
-        Component c = allComponents.getComponent(id);
+        IntObjectMap<Component> index = componentIndex;
+        Component c = index == null ? null : index.get(id);
         if (c == null) {
             try {
-                addAllComponents();
-                c = allComponents.getComponent(id);
+                c = buildComponentIndex().get(id);
             } catch (Exception ignored) {
             }  // Can crash from concurrent modifications if running with GUI TODO: this is an ugly fix
         }
         return c;
     }
 
+    // The index is filled before it is published, so that other threads reading the state never see it half built
+    private IntObjectMap<Component> buildComponentIndex() {
+        IntObjectMap<Component> old = componentIndex;
+        IntObjectMap<Component> index = new IntObjectMap<>(old == null ? 64 : old.size());
+        for (Component c : _getAllComponents())
+            indexComponent(index, c);
+        componentIndex = index;
+        return index;
+    }
+
+    // As Area.putComponent(): the component and everything it contains
+    private static void indexComponent(IntObjectMap<Component> index, Component c) {
+        if (c == null)
+            return;
+        index.put(c.getComponentID(), c);
+        if (c instanceof IComponentContainer<?> container)
+            for (Component nested : container.getComponents())
+                indexComponent(index, nested);
+    }
+
     public final Area getAllComponents() {
         addAllComponents(); // otherwise the list of allComponents is only ever updated when we copy the state!
         return allComponents;
@@ -274,6 +351,7 @@ public abstract class AbstractGameState {
     protected final void addAllComponents() {
         allComponents.clear();
         allComponents.putComponents(_getAllComponents());
+        componentIndex = null;
     }
 
     /**
@@ -314,8 +392,8 @@ public abstract class AbstractGameState {
         s.rnd = new Random(redeterminisationRnd.nextLong());
 
         if (!coreGameParameters.competitionMode) {
-            s.history = new ArrayList<>(history);
-            s.historyText = new ArrayList<>(historyText);
+            s.history = history.copy();
+            s.historyText = historyText.copy();
             // we do not copy individual actions in history, as these are now dead and should not change
             // History is for debugging and spectation of games. There is a risk that History might contain information
             // formally hidden to some participants. For this reason, in COMPETITION_MODE we explicitly do not copy
@@ -324,18 +402,24 @@ public abstract class AbstractGameState {
             // be incorporated in the game-specific data in GameState where the correct hiding protocols can be enforced.
         }
 
+        s.simulationMode = simulationMode;
+
         s.actionsInProgress = new Stack<>();
         actionsInProgress.forEach(
                 a -> s.actionsInProgress.push(a.copy())
         );
 
-        s.playerTimer = new ElapsedCpuChessTimer[getNPlayers()];
-        for (int i = 0; i < getNPlayers(); i++) {
-            s.playerTimer[i] = playerTimer[i].copy();
+        if (simulationMode) {
+            // the timers are not updated in simulation mode, so can be shared
+            s.playerTimer = playerTimer;
+        } else {
+            s.playerTimer = new ElapsedCpuChessTimer[getNPlayers()];
+            for (int i = 0; i < getNPlayers(); i++) {
+                s.playerTimer[i] = playerTimer[i].copy();
+            }
         }
 
-        // Update the list of components for ID matching in actions.
-        s.addAllComponents();
+        // The copy's index of components by ID is only built if it is needed, see getComponentById()
         return s;
     }
 
@@ -345,6 +429,8 @@ public abstract class AbstractGameState {
      * @param action The action that has just been applied (or is about to be applied) to the game state
      */
     protected final void recordAction(AbstractAction action, int player) {
+        if (simulationMode)
+            return;
         history.add(new Pair<>(player, action.copy()));
         historyText.add("Player " + player + " : " + action.getString(this));
     }
@@ -353,12 +439,14 @@ public abstract class AbstractGameState {
     // helper function to avoid time-consuming string manipulations if the message is not actually
     // going to be logged anywhere
     public void logEvent(IGameEvent event, Supplier<String> eventText) {
-        if (listeners.isEmpty() && !getCoreGameParameters().recordEventHistory)
+        if (simulationMode || (listeners.isEmpty() && !getCoreGameParameters().recordEventHistory))
             return; // to avoid expensive string manipulations
         logEvent(event, eventText.get());
     }
 
     public void logEvent(IGameEvent event, String eventText) {
+        if (simulationMode)
+            return;
         LogEvent logAction = new LogEvent(eventText);
         listeners.forEach(l -> l.onEvent(Event.createEvent(event, this, logAction)));
         if (getCoreGameParameters().recordEventHistory) {
@@ -367,6 +455,8 @@ public abstract class AbstractGameState {
     }
 
     public void logEvent(IGameEvent event) {
+        if (simulationMode)
+            return;
         LogEvent logAction = new LogEvent(event.name());
         listeners.forEach(l -> l.onEvent(Event.createEvent(event, this, logAction)));
         if (getCoreGameParameters().recordEventHistory) {
@@ -375,7 +465,8 @@ public abstract class AbstractGameState {
     }
 
     public void recordHistory(String history) {
-        historyText.add(history);
+        if (!simulationMode)
+            historyText.add(history);
     }
 
     /* Methods dealing with ExtendedActions and the actionStack */
@@ -208,6 +208,18 @@ public class Game {
      * @param newRandomSeed - random seed is updated in the game parameters object and used throughout the game.
      */
     public final void reset(List<AbstractPlayer> players, long newRandomSeed) {
+        reset(players, newRandomSeed, idFountain.incrementAndGet());
+    }
+
+    /**
+     * As {@link #reset(List, long)}, but with a game ID taken from {@link #reserveGameIDs(int)} rather than the
+     * next free one. Games run on other threads use this to get the same IDs they would have had if run in order.
+     *
+     * @param players       - new players for the game
+     * @param newRandomSeed - random seed is updated in the game parameters object and used throughout the game.
+     * @param gameID        - ID to give the game state
+     */
+    public final void reset(List<AbstractPlayer> players, long newRandomSeed, int gameID) {
         if (debug) System.out.println("Game Seed: " + newRandomSeed);
         gameState.reset(newRandomSeed);
         forwardModel.abstractSetup(gameState);
@@ -246,11 +258,20 @@ public class Game {
                 // Allow player to initialize
                 player.initializePlayer(observation);
             }
-        int gameID = idFountain.incrementAndGet();
         gameState.setGameID(gameID);
         resetStats();
     }
 
+    /**
+     * Reserves a block of consecutive game IDs.
+     *
+     * @param n - number of IDs to reserve
+     * @return the first ID in the block
+     */
+    public static int reserveGameIDs(int n) {
+        return idFountain.addAndGet(n) - n + 1;
+    }
+
     /**
      * All timers and game tick set to 0.
      */
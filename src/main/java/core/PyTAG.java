@@ -3,6 +3,7 @@ package core;
 import core.actions.AbstractAction;
 import core.actions.ActionSpace;
 import core.actions.DoNothing;
+import core.interfaces.IStateFeatureBuffer;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.ITreeActionSpace;
 import core.interfaces.IStateFeatureJSON;
@@ -18,6 +19,10 @@ import players.python.PythonAgent;
 import players.simple.RandomPlayer;
 import utilities.ActionTreeNode;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -29,7 +34,7 @@ enum FeatureExtractors {
   //  ExplodingKittens( ExplodingKittensFeatures.class, null),
     LoveLetter(LLStateFeaturesReduced.class, null),
     Stratego(StrategoFeatures.class, null),
-    SushiGo(null, SGFeatures.class),
+    SushiGo(SGFeatures.class, SGFeatures.class),
     TicTacToe(TTTFeatures.class, TTTFeatures.class),
     Diamant(DiamantFeatures.class, DiamantFeatures.class);
     Class<? extends IStateFeatureVector> stateFeatureVector;
@@ -86,6 +91,12 @@ public class PyTAG {
     private Random seedRandom; // Random used for setting the seed for each episode
     private long lastSeed;
 
+    // Direct buffers that Python can map once (see getObservationBuffer() and getActionMaskBuffer()); these are
+    // created when first requested, and then rewritten by each reset() and step()
+    private ByteBuffer observationBuffer, actionMaskBuffer;
+    private DoubleBuffer observationView;
+    private IntBuffer actionMaskView;
+
     public static String getSupportedGames(){
         /* returns the supported games with the corresponding feature extractors */
         String supportedGames = "";
@@ -167,13 +178,44 @@ public class PyTAG {
     }
 
     public double[] getObservationVector() throws Exception {
-        AbstractGameState gs = gameState.copy(gameState.getCurrentPlayer());
         if (stateVectoriser != null){
-            return stateVectoriser.doubleVector(gs, gs.getCurrentPlayer());
+            double[] retValue = new double[getObservationSpace()];
+            fillObservationVector(retValue, 0);
+            return retValue;
         }
         else throw new Exception("Observation vectoriser function is not implemented");
     }
 
+    // Writes the observation vector into part of a larger array, as getObservationVector() would return it
+    public void fillObservationVector(double[] out, int offset) {
+        fillObservationVector(DoubleBuffer.wrap(out), offset);
+    }
+
+    // Writes the observation vector into a buffer, from index onwards. If the vectoriser can fill the buffer directly
+    // (see IStateFeatureBuffer) then nothing is allocated; otherwise the state is copied for the player as usual
+    public void fillObservationVector(DoubleBuffer out, int index) {
+        int player = gameState.getCurrentPlayer();
+        if (stateVectoriser instanceof IStateFeatureBuffer) {
+            ((IStateFeatureBuffer) stateVectoriser).fill(gameState, player, out, index);
+        } else {
+            out.put(index, stateVectoriser.doubleVector(gameState.copy(player), player));
+        }
+    }
+
+    // Gets a direct buffer (in native byte order) of getObservationSpace() doubles, holding the observation vector.
+    // The same buffer is rewritten by every reset() and step(), so Python only needs to map it once
+    public ByteBuffer getObservationBuffer() throws Exception {
+        if (stateVectoriser == null)
+            throw new Exception("Observation vectoriser function is not implemented");
+        if (observationBuffer == null) {
+            observationBuffer = ByteBuffer.allocateDirect(getObservationSpace() * Double.BYTES).order(ByteOrder.nativeOrder());
+            observationView = observationBuffer.asDoubleBuffer();
+            if (gameState != null)
+                fillObservationVector(observationView, 0);
+        }
+        return observationBuffer;
+    }
+
     // Gets the action space size as an integer
     public int getActionSpace(){
         return leaves.size();
@@ -192,6 +234,36 @@ public class PyTAG {
                 .toArray();
     }
 
+    // Writes the action mask into part of a larger array, as getActionMask() would return it
+    public void fillActionMask(int[] out, int offset) {
+        for (int i = 0; i < leaves.size(); i++)
+            out[offset + i] = leaves.get(i).getValue();
+    }
+
+    public void fillActionMask(IntBuffer out, int index) {
+        for (int i = 0; i < leaves.size(); i++)
+            out.put(index + i, leaves.get(i).getValue());
+    }
+
+    // Gets a direct buffer (in native byte order) of getActionSpace() ints, holding the action mask.
+    // As for getObservationBuffer(), this is rewritten by every reset() and step(). Only available after reset()
+    public ByteBuffer getActionMaskBuffer() {
+        if (actionMaskBuffer == null) {
+            actionMaskBuffer = ByteBuffer.allocateDirect(getActionSpace() * Integer.BYTES).order(ByteOrder.nativeOrder());
+            actionMaskView = actionMaskBuffer.asIntBuffer();
+            fillActionMask(actionMaskView, 0);
+        }
+        return actionMaskBuffer;
+    }
+
+    // Rewrites the buffers that have been requested, after the state has changed
+    private void updateBuffers() {
+        if (observationView != null)
+            fillObservationVector(observationView, 0);
+        if (actionMaskView != null)
+            fillActionMask(actionMaskView, 0);
+    }
+
     // gets the whole action tree as an array (tree can be reconstructed using the getTreeShape() function)
     public int[] getActionTree() {
         return root.getActionMask();
@@ -240,6 +312,15 @@ public class PyTAG {
         this.availableActions = forwardModel.computeAvailableActions(observation);
         this.root = ((ITreeActionSpace)this.forwardModel).updateActionTree(this.root, this.gameState);
         this.leaves = root.getLeafNodes();
+        updateBuffers();
+    }
+
+    AbstractGameState getGameState() {
+        return gameState;
+    }
+
+    IStateFeatureVector getStateVectoriser() {
+        return stateVectoriser;
     }
 
     public int getPlayerID(){
@@ -324,6 +405,7 @@ public class PyTAG {
         if (isDone()){
             // check if the game has just ended
             // game is over
+            updateBuffers();
             return gameState.copy(gameState.getCurrentPlayer());
         }
 
@@ -331,6 +413,7 @@ public class PyTAG {
         boolean isTerminal = nextDecision();
         if (isTerminal){
             // game is over
+            updateBuffers();
             return gameState.copy(gameState.getCurrentPlayer());
         }
 
@@ -341,6 +424,7 @@ public class PyTAG {
         this.availableActions = forwardModel.computeAvailableActions(observation);
         this.root = ((ITreeActionSpace)this.forwardModel).updateActionTree(this.root, this.gameState);
         this.leaves = root.getLeafNodes();
+        updateBuffers();
 
         return observation;
     }
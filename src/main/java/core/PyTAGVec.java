@@ -0,0 +1,255 @@
+package core;
+
+import games.GameType;
+import players.python.PythonAgent;
+import players.simple.RandomPlayer;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * A batch of PyTAG environments of the same game, for RL training. One call to step() plays an action in every
+ * environment (on a thread pool), and the observation vectors, action masks, rewards and done flags of the whole
+ * batch are then available as flat primitive arrays, so a Python trainer fetches them with one call each rather
+ * than several calls per environment.
+ * <p>
+ * The arrays are row-major, with one row per environment: environment i has observations
+ * [i * getObservationSpace(), (i + 1) * getObservationSpace()) and action mask
+ * [i * getActionSpace(), (i + 1) * getActionSpace()). They are owned by this object and overwritten by each call
+ * to reset() or step(), so should be copied if they are needed for longer.
+ * <p>
+ * As in gym vector environments, an episode that finishes during step() is reset straight away: its reward, done
+ * flag and result are reported, but the observation and action mask are the first of the next episode.
+ * <p>
+ * The game must have a feature vector registered in FeatureExtractors, and an ITreeActionSpace forward model.
+ * Rewards are the game score of the player that chose the action (as PyTAG.getReward() for that player), and
+ * results are the value of its GameResult when the episode ends (0 otherwise).
+ */
+public class PyTAGVec {
+
+    private final PyTAG[] envs;
+    private final int observationSpace;
+    private int actionSpace;
+
+    private final ExecutorService executor; // null with a single thread
+    private final int nThreads;
+
+    private final double[] observations;
+    private final DoubleBuffer observationView; // wraps observations
+    private int[] actionMasks;
+    private final double[] rewards;
+    private final boolean[] dones;
+    private final double[] results;
+    private final int[] playerIDs;
+
+    /**
+     * @param gameToPlay          - game to play, which must support feature vectors in PyTAG
+     * @param parameterConfigFile - parameters for the game, or null for the defaults
+     * @param players             - players of each game, with PythonAgent for the players controlled by the trainer.
+     *                            Each environment plays with its own copy of these.
+     * @param nEnvs               - number of environments
+     * @param seed                - seed, from which the seed of each environment is drawn
+     * @param nThreads            - number of threads used to step the environments (including the calling thread)
+     * @param isNormalized        - passed on to PyTAG
+     */
+    public PyTAGVec(GameType gameToPlay, String parameterConfigFile, List<AbstractPlayer> players, int nEnvs,
+                    long seed, int nThreads, boolean isNormalized) throws Exception {
+        if (nEnvs < 1)
+            throw new IllegalArgumentException("At least one environment is needed");
+        Random seedRandom = new Random(seed);
+        this.envs = new PyTAG[nEnvs];
+        for (int i = 0; i < nEnvs; i++) {
+            List<AbstractPlayer> envPlayers = new ArrayList<>(players.size());
+            for (AbstractPlayer player : players)
+                envPlayers.add(player.copy());
+            envs[i] = new PyTAG(gameToPlay, parameterConfigFile, envPlayers, seedRandom.nextLong(), isNormalized);
+        }
+        if (envs[0].getStateVectoriser() == null)
+            throw new IllegalArgumentException(gameToPlay + " does not implement the state feature vector interface");
+        this.observationSpace = envs[0].getObservationSpace();
+
+        this.nThreads = Math.max(1, Math.min(nThreads, nEnvs));
+        this.executor = this.nThreads <= 1 ? null : Executors.newFixedThreadPool(this.nThreads - 1, r -> {
+            Thread thread = new Thread(r, "PyTAGVec");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.observations = new double[nEnvs * observationSpace];
+        this.observationView = DoubleBuffer.wrap(observations);
+        this.rewards = new double[nEnvs];
+        this.dones = new boolean[nEnvs];
+        this.results = new double[nEnvs];
+        this.playerIDs = new int[nEnvs];
+    }
+
+    /**
+     * Starts a new episode in every environment.
+     */
+    public void reset() {
+        run(i -> {
+            envs[i].reset();
+            rewards[i] = 0;
+            dones[i] = false;
+            results[i] = 0;
+        });
+        if (actionMasks == null) {
+            // the action tree has the same shape for all states of a game, so this is only known after the first reset
+            actionSpace = envs[0].getActionSpace();
+            actionMasks = new int[envs.length * actionSpace];
+        }
+        run(this::observe);
+    }
+
+    /**
+     * Plays one action in each environment, and then the other players until the next decision of a PythonAgent.
+     * Environments whose episode has finished are reset.
+     *
+     * @param actionIds - one action for each environment, as an index into its action mask
+     */
+    public void step(int[] actionIds) {
+        if (actionIds.length != envs.length)
+            throw new IllegalArgumentException("Expected " + envs.length + " actions, but got " + actionIds.length);
+        if (actionMasks == null)
+            throw new IllegalStateException("Need to reset the environments before calling step");
+        run(i -> {
+            PyTAG env = envs[i];
+            int player = env.getPlayerID();
+            try {
+                env.step(actionIds[i]);
+            } catch (Exception e) {
+                throw new RuntimeException("Step failed in environment " + i, e);
+            }
+            AbstractGameState state = env.getGameState();
+            rewards[i] = state.getGameScore(player);
+            dones[i] = env.isDone();
+            results[i] = dones[i] ? state.getPlayerResults()[player].value : 0;
+            if (dones[i])
+                env.reset();
+            observe(i);
+        });
+    }
+
+    // Fills the rows of the observation and action mask arrays for environment i
+    private void observe(int i) {
+        PyTAG env = envs[i];
+        playerIDs[i] = env.getPlayerID();
+        env.fillObservationVector(observationView, i * observationSpace);
+        env.fillActionMask(actionMasks, i * actionSpace);
+    }
+
+    // Runs the task for each environment; thread t handles environments t, t + nThreads, t + 2 * nThreads, ...
+    private void run(IntConsumer task) {
+        if (executor == null) {
+            for (int i = 0; i < envs.length; i++)
+                task.accept(i);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(nThreads - 1);
+        for (int t = 1; t < nThreads; t++) {
+            final int first = t;
+            futures.add(executor.submit(() -> {
+                for (int i = first; i < envs.length; i += nThreads)
+                    task.accept(i);
+            }));
+        }
+        for (int i = 0; i < envs.length; i += nThreads)
+            task.accept(i);
+        try {
+            for (Future<?> f : futures)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while stepping environments", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Environment step failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the threads used to step the environments. This object cannot be used afterwards.
+     */
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    public int getNumEnvs() {
+        return envs.length;
+    }
+
+    public int getObservationSpace() {
+        return observationSpace;
+    }
+
+    // Only known after the first reset()
+    public int getActionSpace() {
+        return actionSpace;
+    }
+
+    public double[] getObservations() {
+        return observations;
+    }
+
+    public int[] getActionMasks() {
+        return actionMasks;
+    }
+
+    public double[] getRewards() {
+        return rewards;
+    }
+
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    public double[] getResults() {
+        return results;
+    }
+
+    // The player to make the next decision in each environment
+    public int[] getPlayerIDs() {
+        return playerIDs;
+    }
+
+    public PyTAG getEnv(int i) {
+        return envs[i];
+    }
+
+    public static void main(String[] args) throws Exception {
+        int nEnvs = 8;
+        Random rnd = new Random(2466);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new PythonAgent());
+        players.add(new RandomPlayer(rnd));
+        players.add(new RandomPlayer(rnd));
+
+        PyTAGVec env = new PyTAGVec(GameType.SushiGo, null, players, nEnvs, 343, 4, true);
+        env.reset();
+        int[] actions = new int[nEnvs];
+        int episodes = 0, wins = 0;
+        while (episodes < 100) {
+            int[] masks = env.getActionMasks();
+            for (int i = 0; i < nEnvs; i++)
+                actions[i] = env.getEnv(i).sampleRNDAction(
+                        Arrays.copyOfRange(masks, i * env.getActionSpace(), (i + 1) * env.getActionSpace()), rnd);
+            env.step(actions);
+            for (int i = 0; i < nEnvs; i++) {
+                if (env.getDones()[i]) {
+                    episodes++;
+                    if (env.getResults()[i] == CoreConstants.GameResult.WIN_GAME.value) wins++;
+                }
+            }
+        }
+        env.shutdown();
+        System.out.println("Run finished won " + wins + " out of " + episodes);
+    }
+}
@@ -65,11 +65,14 @@ public abstract class StandardForwardModel extends AbstractForwardModel {
     public final void endPlayerTurn(AbstractGameState gs, int nextPlayer) {
         if (gs.getGameStatus() != GAME_ONGOING) return;
 
-        int currentPlayer = gs.getCurrentPlayer();
-        gs.getPlayerTimer()[currentPlayer].incrementTurn();
-        gs.listeners.forEach(l -> l.onEvent(Event.createEvent(TURN_OVER, gs, currentPlayer)));
-        if (gs.getCoreGameParameters().recordEventHistory) {
-            gs.recordHistory(TURN_OVER.name());
+        // in simulation mode (see AbstractForwardModel.simulate()) there are no timers or listeners to update
+        if (!gs.isSimulationMode()) {
+            int currentPlayer = gs.getCurrentPlayer();
+            gs.getPlayerTimer()[currentPlayer].incrementTurn();
+            gs.listeners.forEach(l -> l.onEvent(Event.createEvent(TURN_OVER, gs, currentPlayer)));
+            if (gs.getCoreGameParameters().recordEventHistory) {
+                gs.recordHistory(TURN_OVER.name());
+            }
         }
         gs.turnCounter++;
         gs.turnOwner = nextPlayer;
@@ -115,11 +118,13 @@ public abstract class StandardForwardModel extends AbstractForwardModel {
     public final void endRound(AbstractGameState gs, int firstPlayerOfNextRound) {
         if (gs.getGameStatus() != GAME_ONGOING) return;
 
-        int currentPlayer = gs.getCurrentPlayer();
-        gs.getPlayerTimer()[currentPlayer].incrementRound();
-        gs.listeners.forEach(l -> l.onEvent(Event.createEvent(ROUND_OVER, gs, currentPlayer)));
-        if (gs.getCoreGameParameters().recordEventHistory) {
-            gs.recordHistory(ROUND_OVER.name());
+        if (!gs.isSimulationMode()) {
+            int currentPlayer = gs.getCurrentPlayer();
+            gs.getPlayerTimer()[currentPlayer].incrementRound();
+            gs.listeners.forEach(l -> l.onEvent(Event.createEvent(ROUND_OVER, gs, currentPlayer)));
+            if (gs.getCoreGameParameters().recordEventHistory) {
+                gs.recordHistory(ROUND_OVER.name());
+            }
         }
         gs.roundCounter++;
         if (gs.getGameParameters().maxRounds != -1 && gs.roundCounter == gs.getGameParameters().maxRounds) {
@@ -0,0 +1,95 @@
+package core.actions;
+
+import core.interfaces.IActionKey;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Holds one shared instance of each immutable action of a game, made on first request, so that computing the
+ * available actions does not need to create new ones each time (see ChooseCard.of() in SushiGo). This is the
+ * counterpart for actions of FlyweightRegistry for components.
+ * <p>
+ * Each action is identified by a small non-negative int index, chosen by the game (for example from the player and
+ * the card index). Shared actions can therefore be compared by identity, or replaced by their index in arrays and
+ * maps. As an IActionKey the table gives each shared action its index as a key (other actions keep their own hash).
+ * <p>
+ * An action can only be shared if it is immutable, which means its copy() must return the action itself.
+ * The instances are shared by all games in the JVM. Thread-safe.
+ *
+ * @param <A> - type of the actions
+ */
+public class ActionTable<A extends AbstractAction> implements IActionKey {
+
+    private final IntFunction<? extends A> factory;
+    // replaced (never changed) when a new action is added, so can be read without locking
+    private volatile AbstractAction[] actions = new AbstractAction[0];
+    private final Map<AbstractAction, Integer> indices = new ConcurrentHashMap<>();
+
+    /**
+     * @param factory - creates the action for an index, the first time it is requested
+     */
+    public ActionTable(IntFunction<? extends A> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param index - index of the action
+     * @return - the shared instance of the action
+     */
+    @SuppressWarnings("unchecked")
+    public A get(int index) {
+        AbstractAction[] current = actions;
+        if (index < current.length && current[index] != null)
+            return (A) current[index];
+        return create(index);
+    }
+
+    private synchronized A create(int index) {
+        if (index < 0)
+            throw new IndexOutOfBoundsException("Negative action index " + index);
+        AbstractAction[] current = actions;
+        if (index < current.length && current[index] != null)
+            return get(index);
+        A action = factory.apply(index);
+        if (action.copy() != action)
+            throw new IllegalArgumentException(action.getClass().getSimpleName() + " is not immutable, so cannot be shared");
+        Integer previous = indices.putIfAbsent(action, index);
+        if (previous != null)
+            throw new IllegalArgumentException("Action " + action + " has indices " + previous + " and " + index);
+        AbstractAction[] updated = Arrays.copyOf(current, Math.max(current.length, index + 1));
+        updated[index] = action;
+        actions = updated;
+        return action;
+    }
+
+    /**
+     * @param action - any action (not necessarily a shared instance)
+     * @return - the index of the shared action equal to it, or -1 if there is none (yet)
+     */
+    public int indexOf(AbstractAction action) {
+        Integer index = indices.get(action);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return - the number of actions shared so far
+     */
+    public int size() {
+        return indices.size();
+    }
+
+    @Override
+    public String key(AbstractAction action) {
+        int index = indexOf(action);
+        return index >= 0 ? String.valueOf(index) : action.toString();
+    }
+
+    @Override
+    public int hash(AbstractAction action) {
+        int index = indexOf(action);
+        return index >= 0 ? index : action.hashCode();
+    }
+}
@@ -7,9 +7,12 @@ import utilities.Hash;
 import core.CoreConstants.ComponentType;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Component {
-    private static int ID = 0;  // All components receive a unique and final ID from this always increasing counter
+    // All components receive a unique and final ID from this always increasing counter. It is atomic, as games may be
+    // set up (and new components created) on several threads at once
+    private static final AtomicInteger ID = new AtomicInteger();
 
     protected transient final int componentID;  // Unique ID of this component
     protected final ComponentType type;  // Type of this component
@@ -18,14 +21,14 @@ public abstract class Component {
     protected String componentName;  // Name of this component
 
     public Component(ComponentType type, String name) {
-        this.componentID = ID++;
+        this.componentID = ID.getAndIncrement();
         this.type = type;
         this.componentName = name;
         this.properties = new HashMap<>();
     }
 
     public Component(ComponentType type) {
-        this.componentID = ID++;
+        this.componentID = ID.getAndIncrement();
         this.type = type;
         this.componentName = type.toString();
         this.properties = new HashMap<>();
@@ -52,6 +55,24 @@ public abstract class Component {
     public abstract Component copy();
     public Component copy(int playerId) { return copy(); }
 
+    /**
+     * Components that never change once created may say so, and are then shared between copies of a Deck (and so of
+     * the game state) rather than copied. Decks do not set the owner of such components, as they may be in decks
+     * of several states at once; and copy(playerId) is not called on them, so they should not hide anything in it.
+     * Their copy() should return the component itself, and their own fields should be final: the setters here
+     * throw an UnsupportedOperationException for immutable components. Shared instances of them for each value may
+     * be kept in a FlyweightRegistry.
+     * @return - true if this component is immutable, false (the default) otherwise.
+     */
+    public boolean isImmutable() {
+        return false;
+    }
+
+    private void checkMutable() {
+        if (isImmutable())
+            throw new UnsupportedOperationException(this + " is immutable");
+    }
+
     /**
      * Get and set the type of this component.
      */
@@ -76,6 +97,7 @@ public abstract class Component {
         return ownerId;
     }
     public void setOwnerId(int ownerId) {
+        checkMutable();
         this.ownerId = ownerId;
     }
 
@@ -99,6 +121,7 @@ public abstract class Component {
      * @param componentName - new name for this component.
      */
     public void setComponentName(String componentName) {
+        checkMutable();
         this.componentName = componentName;
     }
 
@@ -130,6 +153,7 @@ public abstract class Component {
      */
     public void setProperty(Property prop)
     {
+        checkMutable();
         properties.put(prop.getHashKey(), prop);
     }
 
@@ -210,10 +234,12 @@ public abstract class Component {
      */
     public void copyComponentTo(Component copyTo)
     {
-        copyTo.properties.clear();
-        for (int prop_key : this.properties.keySet()) {
-            Property newProp = this.properties.get(prop_key).copy();
-            copyTo.setProperty(newProp);
+        if (!properties.isEmpty() || !copyTo.properties.isEmpty()) {  // most components have none
+            copyTo.properties.clear();
+            for (int prop_key : this.properties.keySet()) {
+                Property newProp = this.properties.get(prop_key).copy();
+                copyTo.setProperty(newProp);
+            }
         }
         copyTo.ownerId = ownerId;
         copyTo.componentName = componentName;
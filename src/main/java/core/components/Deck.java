@@ -7,6 +7,7 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
+import utilities.RingList;
 
 import java.io.FileReader;
 import java.io.IOException;
@@ -34,7 +35,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
 
     public Deck(String name, int ownerId, VisibilityMode visibility) {
         super(CoreConstants.ComponentType.DECK, name);
-        this.components = new LinkedList<>();   // we always add new components to element 0...so an ArrayList is inefficient
+        this.components = new RingList<>();   // we always add new components to element 0, which a RingList does in constant time
         this.ownerId = ownerId;
         this.capacity = -1;
         this.visibility = visibility;
@@ -42,7 +43,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
 
     protected Deck(String name, int ownerId, int ID, VisibilityMode visibility) {
         super(CoreConstants.ComponentType.DECK, name, ID);
-        this.components = new LinkedList<>();
+        this.components = new RingList<>();
         this.capacity = -1;
         this.ownerId = ownerId;
         this.visibility = visibility;
@@ -142,9 +143,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public T pick(int idx) {
         if (!components.isEmpty() && idx < components.size() && idx >= 0) {
-            T c = components.get(idx);
-            components.remove(idx);
-            return c;
+            return components.remove(idx);
         }
         return null;
     }
@@ -204,9 +203,6 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      * @return true if within capacity, false otherwise.
      */
     public boolean add(T c) {
-        if (c != null) {
-            c.setOwnerId(ownerId);
-        }
         return add(c, 0);
     }
 
@@ -220,7 +216,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public boolean add(T c, int index) {
         if (c == null)
             throw new IllegalArgumentException("null cannot be added to a Deck");
-        c.setOwnerId(ownerId);
+        own(c);
         components.add(index, c);
         return capacity == -1 || components.size() <= capacity;
     }
@@ -257,7 +253,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public boolean add(Deck<T> d, int index) {
         components.addAll(index, d.components);
         for (T comp : d.components) {
-            comp.setOwnerId(ownerId);
+            own(comp);
         }
         return capacity == -1 || components.size() <= capacity;
     }
@@ -269,7 +265,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public boolean add(Collection<T> d, int index) {
         components.addAll(index, d);
         for (T comp : d) {
-            comp.setOwnerId(ownerId);
+            own(comp);
         }
         return capacity == -1 || components.size() <= capacity;
     }
@@ -284,7 +280,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
         // because for PartialObservableDecks we need to remove the element visibility at the correct index
         // hence we *always* only remove from a deck by index
         int index = components.indexOf(component);
-        component.setOwnerId(-1);
+        disown(component);
         if (index != -1) {
             remove(index);
             return;
@@ -300,8 +296,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public void remove(int idx) {
         if (idx >= 0 && idx < components.size()) {
-            components.get(idx).setOwnerId(-1);
-            components.remove(idx);
+            disown(components.remove(idx));
         } else {
             throw new IndexOutOfBoundsException("Index " + idx + " is out of bounds for deck of size " + components.size());
         }
@@ -321,7 +316,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public void clear() {
         for (T comp : components) {
-            comp.setOwnerId(-1);
+            disown(comp);
         }
         components.clear();
     }
@@ -368,7 +363,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public void setComponents(List<T> components) {
         this.components = components;
         for (T comp : components) {
-            comp.setOwnerId(ownerId);
+            own(comp);
         }
     }
 
@@ -402,7 +397,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      * @param component - new component.
      */
     public void setComponent(int idx, T component) {
-        component.setOwnerId(ownerId);
+        own(component);
         components.set(idx, component);
     }
 
@@ -438,9 +433,9 @@ public class Deck<T extends Component> extends Component implements IComponentCo
 
     @SuppressWarnings("unchecked")
     protected void copyTo(Deck<T> deck) {
-        List<T> newComponents = new LinkedList<>();
+        RingList<T> newComponents = new RingList<>(components.size());
         for (T c : components) {
-            newComponents.add((T) c.copy());
+            newComponents.add(c.isImmutable() ? c : (T) c.copy());
         }
         deck.components = newComponents;
         deck.capacity = capacity;
@@ -452,9 +447,9 @@ public class Deck<T extends Component> extends Component implements IComponentCo
 
     @SuppressWarnings("unchecked")
     protected void copyTo(Deck<T> deck, int playerId) {
-        List<T> newComponents = new LinkedList<>();
+        RingList<T> newComponents = new RingList<>(components.size());
         for (T c : components) {
-            newComponents.add((T) c.copy(playerId));
+            newComponents.add(c.isImmutable() ? c : (T) c.copy(playerId));
         }
         deck.components = newComponents;
         deck.capacity = capacity;
@@ -463,6 +458,17 @@ public class Deck<T extends Component> extends Component implements IComponentCo
         copyComponentTo(deck);
     }
 
+    // Immutable components may be in several decks (in copies of the state) at once, so they do not record an owner
+    private void own(T c) {
+        if (!c.isImmutable())
+            c.setOwnerId(ownerId);
+    }
+
+    private void disown(T c) {
+        if (!c.isImmutable())
+            c.setOwnerId(-1);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
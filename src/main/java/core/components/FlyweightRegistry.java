@@ -0,0 +1,53 @@
+package core.components;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Holds one shared instance of an immutable component for each distinct value, made on first request. Games whose
+ * decks hold many cards with the same value (or the same cards in every game played) can then use the shared
+ * instances rather than creating a new card each time, see FrenchCard.of().
+ * <p>
+ * The instances are shared by all games in the JVM, so several cards in a deck may be the same instance, with the same
+ * component ID. This is only safe for games that find cards in decks by index or by value (equals()), never by
+ * identity. Thread-safe.
+ *
+ * @param <K> - the value of a component, which must implement equals() and hashCode()
+ * @param <T> - type of the components
+ */
+public class FlyweightRegistry<K, T extends Component> {
+
+    private final Map<K, T> instances = new ConcurrentHashMap<>();
+    private final Function<? super K, ? extends T> factory;
+
+    /**
+     * @param factory - creates the component for a value, the first time it is requested
+     */
+    public FlyweightRegistry(Function<? super K, ? extends T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param value - value of the component
+     * @return - the shared instance for the value
+     */
+    public T get(K value) {
+        T instance = instances.get(value);
+        if (instance == null) {
+            instance = instances.computeIfAbsent(value, factory);
+            if (!instance.isImmutable())
+                throw new IllegalArgumentException(instance.getClass().getSimpleName() + " is not immutable, so cannot be shared");
+        }
+        return instance;
+    }
+
+    /**
+     * @return - all the instances made so far
+     */
+    public Collection<T> getInstances() {
+        return Collections.unmodifiableCollection(instances.values());
+    }
+}
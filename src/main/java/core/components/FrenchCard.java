@@ -32,10 +32,28 @@ public class FrenchCard extends Card {
         Spades
     }
 
+    // The 52 cards, shared by all games (decks find their cards by value), by suite * 16 + number
+    private static final FlyweightRegistry<Integer, FrenchCard> cards = new FlyweightRegistry<>(key -> {
+        Suite suite = Suite.values()[key / 16];
+        int number = key % 16;
+        for (FrenchCardType type : FrenchCardType.values())
+            if (type.number == number)
+                return new FrenchCard(type, suite);
+        return new FrenchCard(FrenchCardType.Number, suite, number);
+    });
+
     public final Suite suite;
     public final FrenchCardType type;
     public final int number;
 
+    /**
+     * @return - the card of the given type, suite and number (which is ignored for face cards and aces), shared
+     * by all games
+     */
+    public static FrenchCard of(FrenchCardType type, Suite suite, int number) {
+        return cards.get(suite.ordinal() * 16 + (type == FrenchCardType.Number ? number : type.number));
+    }
+
     public FrenchCard(FrenchCardType type, Suite suite, int number){
         super(type.toString());
         this.suite = suite;
@@ -63,10 +81,10 @@ public class FrenchCard extends Card {
             for (FrenchCard.FrenchCardType type: FrenchCard.FrenchCardType.values()) {
                 if (type == FrenchCard.FrenchCardType.Number) {
                     for (int number : numbers) {
-                        deck.add(new FrenchCard(FrenchCard.FrenchCardType.Number, suite, number));
+                        deck.add(of(FrenchCard.FrenchCardType.Number, suite, number));
                     }
                 } else {
-                    deck.add(new FrenchCard(type, suite));
+                    deck.add(of(type, suite, type.number));
                 }
             }
         }
@@ -78,6 +96,11 @@ public class FrenchCard extends Card {
         return this; // immutable
     }
 
+    @Override
+    public boolean isImmutable() {
+        return true;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(suite.ordinal(), type.ordinal(), number);
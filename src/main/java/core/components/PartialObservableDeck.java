@@ -5,6 +5,7 @@ import core.CoreConstants.VisibilityMode;
 import org.jetbrains.annotations.NotNull;
 import utilities.DeterminisationUtilities;
 import utilities.Pair;
+import utilities.RingList;
 
 import java.util.*;
 
@@ -15,7 +16,7 @@ public class PartialObservableDeck<T extends Component> extends Deck<T> {
     protected boolean[] deckVisibility;
 
     // Visibility of each component in the deck, order corresponds to order of elements in the deck;
-    protected List<boolean[]> elementVisibility = new LinkedList<>();
+    protected List<boolean[]> elementVisibility = new RingList<>();
 
     public boolean getVisibilityForPlayer(int elementIdx, int playerID) {
         return elementVisibility.get(elementIdx)[playerID];
@@ -316,8 +317,8 @@ public class PartialObservableDeck<T extends Component> extends Deck<T> {
      * @return - both lists shuffled, keeping the mapping from component to visibility at the same index.
      */
     private Pair<List<T>, List<boolean[]>> shuffleLists(List<T> comps, List<boolean[]> vis, Random rnd) {
-        List<T> tmp_components = new LinkedList<>();
-        List<boolean[]> tmp_visibility = new LinkedList<>();
+        List<T> tmp_components = new RingList<>(comps.size());
+        List<boolean[]> tmp_visibility = new RingList<>(vis.size());
 
         List<Integer> indexList = new ArrayList<>(comps.size());
         for (int i = 0; i < comps.size(); i++)
@@ -366,7 +367,7 @@ public class PartialObservableDeck<T extends Component> extends Deck<T> {
     private PartialObservableDeck<T> commonCopy(PartialObservableDeck<T> dp) {
         dp.deckVisibility = deckVisibility.clone();
 
-        ArrayList<boolean[]> newVisibility = new ArrayList<>();
+        RingList<boolean[]> newVisibility = new RingList<>(elementVisibility.size());
         for (boolean[] visibility : elementVisibility) {
             newVisibility.add(visibility.clone());
         }
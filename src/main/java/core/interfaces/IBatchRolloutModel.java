@@ -0,0 +1,32 @@
+package core.interfaces;
+
+import core.AbstractGameState;
+
+import java.util.Random;
+
+/**
+ * Implemented by forward models that can play many rollouts from the same state at once, much faster than
+ * copying the state and calling next() for every action of every rollout. This is intended for the rollout phase
+ * of a tree search: actions are chosen uniformly at random, and no history is recorded.
+ * <p>
+ * Implementations need to be safe for use by several threads at once (for example by keeping their scratch
+ * space per thread), as a forward model is shared by all the players of a game.
+ */
+public interface IBatchRolloutModel {
+
+    /**
+     * Plays nRollouts random rollouts from the state, and evaluates the state each of them ends in for every
+     * player. The state itself is not changed.
+     *
+     * @param state      - the state to roll out from
+     * @param nRollouts  - number of rollouts to play
+     * @param maxActions - maximum number of actions in each rollout (a rollout also stops at the end of the game)
+     * @param heuristic  - used to evaluate the final states
+     * @param rnd        - random number generator for the choice of actions, and any chance events
+     * @param values     - filled with the value of rollout r for player p in values[r * nPlayers + p]; this must be
+     *                   at least nRollouts * nPlayers long
+     * @return - the total number of actions played, over all rollouts
+     */
+    int batchRollout(AbstractGameState state, int nRollouts, int maxActions, IStateHeuristic heuristic,
+                     Random rnd, double[] values);
+}
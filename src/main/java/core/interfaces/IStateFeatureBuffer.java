@@ -0,0 +1,34 @@
+package core.interfaces;
+
+import core.AbstractGameState;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A feature vector that can be written into a buffer owned by the caller, so that an observation is produced at
+ * each step without allocating anything (see PyTAG.getObservationBuffer()). The buffer can be a view of a direct
+ * ByteBuffer shared with Python, or wrap a double[] (DoubleBuffer.wrap()).
+ * <p>
+ * Implementations must only use information that the player can see, as they are given the full game state rather
+ * than a copy of it for the player. They also need to be safe for use by several threads at once.
+ */
+public interface IStateFeatureBuffer extends IStateFeatureVector {
+
+    /**
+     * Writes the features, in the same order as names(), to out[index] ... out[index + names().length - 1].
+     * The position of the buffer is not changed.
+     *
+     * @param state    - the game state
+     * @param playerID - the player observing the state
+     * @param out      - the buffer to write to
+     * @param index    - index in the buffer of the first feature
+     */
+    void fill(AbstractGameState state, int playerID, DoubleBuffer out, int index);
+
+    @Override
+    default double[] doubleVector(AbstractGameState state, int playerID) {
+        double[] retValue = new double[names().length];
+        fill(state, playerID, DoubleBuffer.wrap(retValue), 0);
+        return retValue;
+    }
+}
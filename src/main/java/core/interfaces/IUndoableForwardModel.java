@@ -0,0 +1,43 @@
+package core.interfaces;
+
+import core.AbstractGameState;
+
+/**
+ * Implemented by forward models that can take a game state back to an earlier point without copying it.
+ * An agent saves a checkpoint of a state, applies actions to the state with next(), and then reverts it to the
+ * checkpoint. For a one-step lookahead this replaces a full copy() per candidate action with one checkpoint and
+ * one revert per action.
+ * <p>
+ * Reverting restores everything that next() can change, including the history, but not the position in the
+ * state's random number generator: any chance events after a revert will differ from those before it (as they
+ * would for a fresh copy()).
+ * <p>
+ * Checkpoints are not thread-safe, and a checkpoint should only be reverted to on the state it was taken from.
+ */
+public interface IUndoableForwardModel {
+
+    /**
+     * A saved point in a game. The contents are specific to the forward model that created it.
+     */
+    interface Checkpoint {
+    }
+
+    /**
+     * Saves the current contents of the state.
+     *
+     * @param state - the state to save
+     * @param reuse - a checkpoint from an earlier call to overwrite, or null. This is only reused if it is
+     *              compatible with the state (for example, if it has the same number of players).
+     * @return - the checkpoint: reuse, if that could be overwritten, or else a new one
+     */
+    Checkpoint checkpoint(AbstractGameState state, Checkpoint reuse);
+
+    /**
+     * Reverts the state to the contents saved in the checkpoint. The checkpoint is not changed, so the same state
+     * can be reverted to the same checkpoint any number of times.
+     *
+     * @param state      - the state to revert; this must be the state the checkpoint was taken from
+     * @param checkpoint - the checkpoint
+     */
+    void revert(AbstractGameState state, Checkpoint checkpoint);
+}
@@ -135,9 +135,11 @@ public abstract class TurnOrder {
     public void endPlayerTurn(AbstractGameState gameState) {
         if (gameState.getGameStatus() != GAME_ONGOING) return;
 
-        gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementTurn();
-
-        listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.TURN_OVER, gameState,getCurrentPlayer(gameState))));
+        // in simulation mode (see AbstractForwardModel.simulate()) there are no timers or listeners to update
+        if (!gameState.isSimulationMode()) {
+            gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementTurn();
+            listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.TURN_OVER, gameState, getCurrentPlayer(gameState))));
+        }
 
         turnCounter++;
         if (turnCounter >= nPlayers) endRound(gameState);
@@ -149,11 +151,13 @@ public abstract class TurnOrder {
     // helper function to avoid time-consuming string manipulations if the message is not actually
     // going to be logged anywhere
     public void logEvent(Supplier<String> eventText, AbstractGameState state) {
-        if (listeners.isEmpty() && !state.getCoreGameParameters().recordEventHistory)
+        if (state.isSimulationMode() || (listeners.isEmpty() && !state.getCoreGameParameters().recordEventHistory))
             return; // to avoid expensive string manipulations
         logEvent(eventText.get(), state);
     }
     public void logEvent(String eventText, AbstractGameState state) {
+        if (state.isSimulationMode())
+            return;
         LogEvent logAction = new LogEvent(eventText);
         listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.GAME_EVENT, state, logAction)));
         if (state.getCoreGameParameters().recordEventHistory) {
@@ -172,11 +176,12 @@ public abstract class TurnOrder {
         _endRound(gameState);
         if (gameState.getGameStatus() != GAME_ONGOING) return;
 
-        gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementRound();
-
-        listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.ROUND_OVER, gameState, getCurrentPlayer(gameState))));
-        if (gameState.getCoreGameParameters().recordEventHistory) {
-            gameState.recordHistory(Event.GameEvent.ROUND_OVER.name());
+        if (!gameState.isSimulationMode()) {
+            gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementRound();
+            listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.ROUND_OVER, gameState, getCurrentPlayer(gameState))));
+            if (gameState.getCoreGameParameters().recordEventHistory) {
+                gameState.recordHistory(Event.GameEvent.ROUND_OVER.name());
+            }
         }
 
         roundCounter++;
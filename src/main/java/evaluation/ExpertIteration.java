@@ -256,7 +256,7 @@ public class ExpertIteration {
             stateDataFilesByIteration[iter] = dataDir + File.separator + fileName;
             if (stateListener != null) {
                 stateListener.setSampleRate(sampleRate);
-                stateListener.setLogger(new FileStatsLogger(fileName, "\t", false));
+                stateListener.setLogger(new FileStatsLogger(fileName, "\t", false, true));
                 stateListener.setOutputDirectory(dataDir);
                 tournament.addListener(stateListener);
             }
@@ -284,7 +284,7 @@ public class ExpertIteration {
             };
             actionListener.setSampleRate(sampleRate);
             String fileName = String.format("Action_%s_%02d.txt", prefix, iter);
-            actionListener.setLogger(new FileStatsLogger(fileName, "\t", false));
+            actionListener.setLogger(new FileStatsLogger(fileName, "\t", false, true));
             actionListener.setOutputDirectory(dataDir);
 
             tournament.addListener(actionListener);
@@ -352,6 +352,7 @@ public class ExpertIteration {
                     loadClass(stateLearnerFile),
                     bicMultiplier,
                     bicTimer);
+            learnFromData.setNThreads((int) config.get(RunArg.nThreads));
             stateHeuristic = (IStateHeuristic) learnFromData.learn();
         }
         if (actionLearnerFile != null) {
@@ -365,6 +366,7 @@ public class ExpertIteration {
                     bicMultiplier,
                     bicTimer);
             learnFromData.setMaxRecords((int) config.get(RunArg.maxRecords));
+            learnFromData.setNThreads((int) config.get(RunArg.nThreads));
             actionHeuristic = (IActionHeuristic) learnFromData.learn();
         }
         return Pair.of(stateHeuristic, actionHeuristic);
@@ -25,6 +25,10 @@ public class ForwardModelTester {
      * <p>
      * This is a useful way of checking automatically if some copy() is not doing a full deep copy, as in this case
      * an action may (incorrectly) change the state of the historic game state from which it was copied.
+     * <p>
+     * The time taken by each copy is recorded, and the mean reported at the end. With game=all every GameType is
+     * run in turn, and the mean copy times of all of them are reported together. maxDecisions=n stops each game
+     * after n decisions (by default with game=all only, at 500, as checking the history grows with its square).
      */
 
     List<Integer> hashCodes = new ArrayList<>();
@@ -33,9 +37,45 @@ public class ForwardModelTester {
     List<AbstractGameState> stateHistory = new ArrayList<>();
     List<AbstractAction> actionHistory = new ArrayList<>();
     int decision = 0;
+    long copyNanos;
+    int nCopies;
 
     public static void main(String... args) {
-        new ForwardModelTester(args);
+        if (Utils.getArg(args, "game", "").equalsIgnoreCase("all"))
+            copyCostOfAllGames(args);
+        else
+            new ForwardModelTester(args);
+    }
+
+    /**
+     * Runs the tester on every GameType (with the other arguments as given), and reports the mean time taken to
+     * copy a state in each. Games that cannot be run with the arguments given are reported as failed.
+     */
+    public static Map<GameType, Double> copyCostOfAllGames(String... args) {
+        Map<GameType, Double> meanCopyMicros = new LinkedHashMap<>();
+        Map<GameType, String> failures = new LinkedHashMap<>();
+        for (GameType gt : GameType.values()) {
+            if (gt == GameType.GameTemplate)
+                continue;  // a template to copy from, which never ends
+            // with the number of players asked for, or as near to it as the game allows
+            int nPlayers = Math.max(gt.getMinPlayers(), Math.min(gt.getMaxPlayers(), Utils.getArg(args, "nPlayers", 2)));
+            List<String> gameArgs = new ArrayList<>();
+            for (String arg : args)
+                if (!arg.startsWith("game=") && !arg.startsWith("nPlayers="))
+                    gameArgs.add(arg);
+            gameArgs.add("game=" + gt.name());
+            gameArgs.add("nPlayers=" + nPlayers);
+            gameArgs.add("maxDecisions=" + Utils.getArg(args, "maxDecisions", 500));
+            try {
+                meanCopyMicros.put(gt, new ForwardModelTester(gameArgs.toArray(new String[0])).getMeanCopyMicros());
+            } catch (Throwable e) {
+                failures.put(gt, e.toString());
+            }
+        }
+        System.out.printf("%n%-25s %15s%n", "Game", "Copy time (us)");
+        meanCopyMicros.forEach((gt, micros) -> System.out.printf("%-25s %15.1f%n", gt.name(), micros));
+        failures.forEach((gt, error) -> System.out.printf("%-25s %15s  %s%n", gt.name(), "failed", error));
+        return meanCopyMicros;
     }
 
     public ForwardModelTester(String... args) {
@@ -48,6 +88,7 @@ public class ForwardModelTester {
         int budget = Utils.getArg(args, "budget", 50);
         String gameToRun = Utils.getArg(args, "game", "MonopolyDeal");
         int nPlayers = Utils.getArg(args, "nPlayers", 2);
+        int maxDecisions = Utils.getArg(args, "maxDecisions", Integer.MAX_VALUE);
         boolean verbose = Arrays.asList(args).contains("verbose");
         GameType gt = GameType.valueOf(gameToRun);
         long seed = Utils.getArg(args, "seed", System.currentTimeMillis());
@@ -73,7 +114,10 @@ public class ForwardModelTester {
             decision = 0;
             boolean allFine;
             do {
+                long start = System.nanoTime();
                 AbstractGameState stateCopy = game.getGameState().copy();
+                copyNanos += System.nanoTime() - start;
+                nCopies++;
                 stateHistory.add(stateCopy);
                 hashCodes.add(game.getGameState().hashCode());
                 superHashCodes.add(game.getGameState().hashCodeArray());
@@ -129,8 +173,16 @@ public class ForwardModelTester {
                 if (verbose)
                     System.out.printf("Decision %d made by player %d in Round %d (%s)%n", decision, player, currentRound, action);
 
-            } while (allFine && game.getGameState().isNotTerminal());
+            } while (allFine && game.getGameState().isNotTerminal() && decision < maxDecisions);
         }
+        System.out.printf("Mean copy time: %.1f us over %d copies%n", getMeanCopyMicros(), nCopies);
+    }
+
+    /**
+     * @return - the mean time taken by copy() of the game states, over all games run, in microseconds
+     */
+    public double getMeanCopyMicros() {
+        return nCopies == 0 ? 0.0 : copyNanos / 1000.0 / nCopies;
     }
 
     private boolean checkHistory() {
@@ -138,6 +138,14 @@ public enum RunArg {
     nPlayers("The number of players in each game. Overrides playerRange.",
             -1,
             new Usage[]{Usage.ParameterSearch, Usage.RunGames, Usage.ExpertIteration}),
+    nThreads("The number of threads used to run the games of a tournament (default is 1).\n" +
+            "\t Each thread plays whole matchups with its own copy of the game and players. Results, and the output\n" +
+            "\t of listeners that support copying, are the same as for a run with one thread.\n" +
+            "\t Other listeners, or randomGameParams, mean the games are run on one thread.\n" +
+            "\t For NTBEA this is also the number of settings evaluated concurrently on each trial.\n" +
+            "\t For ExpertIteration this is the number of candidate features evaluated concurrently when learning heuristics.",
+            1,
+            new Usage[]{Usage.RunGames, Usage.ParameterSearch, Usage.ExpertIteration}),
     discretisation("The number of discretisation levels to use in NTBEAFunctions. Default is 10.",
             10,
             new Usage[]{Usage.ParameterSearch}),
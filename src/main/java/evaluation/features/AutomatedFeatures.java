@@ -9,7 +9,6 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import utilities.JSONUtils;
 import utilities.Pair;
-import utilities.Utils;
 
 import java.util.*;
 import java.util.stream.IntStream;
@@ -381,11 +380,29 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
         return columnDetails;
     }
 
-    public List<List<Object>> processData(boolean overwriteAllFeatures, String outputFile, int maxRecords, String... inputFiles) {
-        // inputFiles contain the raw data.
-        // There can be two types of columns:
+    /**
+     * Reads the raw data from the input files, processes it (see processData(boolean, FeatureData)), and writes the
+     * result to outputFile.
+     *
+     * @param maxRecords the maximum number of rows to read, or 0 for no limit
+     * @return the processed data
+     */
+    public FeatureData processData(boolean overwriteAllFeatures, String outputFile, int maxRecords, String... inputFiles) {
+        FeatureData processed = processData(overwriteAllFeatures, FeatureData.read(maxRecords, inputFiles));
+        processed.write(outputFile);
+        return processed;
+    }
+
+    /**
+     * Works out the columns for these features from the data, updating the features to match.
+     *
+     * @param data raw data (or data that has already been processed, with some of the columns needed)
+     * @return the data with a column for each feature, plus all the other (non-feature) columns of the input
+     */
+    public FeatureData processData(boolean overwriteAllFeatures, FeatureData data) {
+        // The data can contain two types of columns:
         // 1. Columns that refer to existing featureNames. These are detected by matching the names.
-        // 2. Columns that are not features. These are copied over into the output file without becoming features.
+        // 2. Columns that are not features. These are copied over into the output without becoming features.
 
         // The point of processData is to also add in new columns for features that do not yet have columns
         // 1. Bucketing of numeric features (range features).
@@ -401,35 +418,10 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
         //          if this already exists in the data, we do not add it again
 
         List<ColumnDetails> newColumnDetails = new ArrayList<>(); // will be populated with new columns
-        Map<Integer, Integer> underlyingIndexToDataIndex = new HashMap<>();
         List<ColumnDetails> startingFeatures = getColumnDetails();
-
-        // load files...the columns should correspond to the underlying vector
-        // while allowing for additional columns (for target values)
-        Pair<List<String>, List<List<String>>> data = Utils.loadDataWithHeader("\t", inputFiles);
-        List<String> headers = data.a;
-        List<List<String>> dataRows = data.b;
-
-        // We now want to convert the dataRows into dataColumns
-        List<List<String>> dataColumns = new ArrayList<>();
-        for (int i = 0; i < headers.size(); i++) {
-            dataColumns.add(new ArrayList<>());
-        }
-        int count = 0;
-        for (List<String> row : dataRows) {
-            if (row.size() != headers.size()) {
-                System.err.println("Warning: Skipping row with inconsistent number of columns: " + row);
-                continue; // Skip rows with inconsistent number of columns
-            }
-            for (int i = 0; i < headers.size(); i++) {
-                dataColumns.get(i).add(row.get(i));
-            }
-            count++;
-            if (maxRecords > 0 && count >= maxRecords) {
-                break; // Stop processing if we reached the maximum number of records
-            }
-        }
-        List<List<?>> newDataColumns = new ArrayList<>(); // set up to take the new data (especially where we can just copy this from the old)
+        List<String> headers = data.names();
+        List<FeatureData.Column> newDataColumns = new ArrayList<>(); // set up to take the new data (especially where we can just copy this from the old)
+        Set<String> rejectedColumns = new HashSet<>(); // boolean columns that turned out to hold other values
 
         // Loop over all underlyingNames/Types to determine if the current features match with the data
         // if they do match then we can pull over the relevant details from the current set up
@@ -439,20 +431,24 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
             String columnName = underlyingNames[i];
             Class<?> columnType = underlyingTypes[i];
 
-            if (!headers.contains(columnName)) {
+            int columnIndex = data.columnIndex(columnName);
+            if (columnIndex == -1) {
              //   System.out.println("Missing column: " + columnName);
                 continue;
             }
-
-            int columnIndex = headers.indexOf(columnName);
-            underlyingIndexToDataIndex.put(i, columnIndex);
+            FeatureData.Column column = data.column(columnIndex);
 
             if (columnType.equals(Boolean.class)) {
-                // Boolean column: Just add raw column directly
+                // Boolean column: Just add raw column directly (unless it holds something other than booleans)
+                FeatureData.Column booleanColumn = validateBooleanColumnData(column);
+                if (booleanColumn == null) {
+                    rejectedColumns.add(columnName);
+                    continue;
+                }
                 newColumnDetails.add(new ColumnDetails(
                         columnName, featureType.RAW, null, null, i, columnType, null
                 ));
-                newDataColumns.add(validateBooleanColumnData(dataColumns.get(columnIndex)));
+                newDataColumns.add(booleanColumn);
             } else if (columnType.equals(Double.class) || columnType.equals(double.class) ||
                     columnType.equals(Integer.class) || columnType.equals(int.class)) {
                 // Numeric column: Check for RAW column and a RANGE column for each BUCKET
@@ -461,7 +457,7 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
                         .mapToObj(b -> columnName + "_B" + b)
                         .toList();
                 boolean copiedColumns = false;
-                if (headers.contains(columnName) && new HashSet<>(headers).containsAll(expectedBucketColumns)) {
+                if (expectedBucketColumns.stream().allMatch(data::hasColumn)) {
                     // then we can pull over the RAW and RANGE columns from the starting features
                     int finalI = i;
                     List<ColumnDetails> original = startingFeatures.stream().filter(r -> r.underlyingIndex == finalI).toList();
@@ -469,19 +465,19 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
                         for (ColumnDetails columnDetail : original) {
                             newColumnDetails.add(columnDetail);
                             if (columnDetail.type == featureType.RAW) {
-                                newDataColumns.add(dataColumns.get(columnIndex));
+                                newDataColumns.add(column);
                             } else if (columnDetail.type == featureType.RANGE) {
                                 // we need to find the range in the data
                                 int bucketIndex = Integer.parseInt(columnDetail.name.substring(columnDetail.name.indexOf("_B") + 2));
-                                newDataColumns.add(dataColumns.get(headers.indexOf(expectedBucketColumns.get(bucketIndex))));
+                                newDataColumns.add(data.column(data.columnIndex(expectedBucketColumns.get(bucketIndex))));
                             }
                         }
                         copiedColumns = true;
                     }
                 }
                 if (!copiedColumns) {
-                    List<Pair<ColumnDetails, List<?>>> missingColumns = handleMissingRawFeature(i, dataColumns.get(columnIndex));
-                    for (Pair<ColumnDetails, List<?>> missingColumn : missingColumns) {
+                    List<Pair<ColumnDetails, FeatureData.Column>> missingColumns = handleMissingRawFeature(i, column);
+                    for (Pair<ColumnDetails, FeatureData.Column> missingColumn : missingColumns) {
                         newColumnDetails.add(missingColumn.a);
                         newDataColumns.add(missingColumn.b);
                     }
@@ -503,22 +499,22 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
                     newColumnDetails.add(new ColumnDetails(
                             columnName, featureType.TARGET, null, null, i, columnType, null
                     ));
-                    newDataColumns.add(dataColumns.get(columnIndex));
+                    newDataColumns.add(column);
                     for (String expectedEnum : expectedEnums) {
                         String expectedEnumColumn = columnName + "_" + expectedEnum;
-                        int enumIndex = headers.indexOf(expectedEnumColumn);
+                        int enumIndex = data.columnIndex(expectedEnumColumn);
                         if (enumIndex == -1) {
                             throw new IllegalArgumentException("Missing column: " + expectedEnumColumn);
                         }
                         newColumnDetails.add(new ColumnDetails(
                                 expectedEnumColumn, featureType.ENUM, Enum.valueOf(enumClass, expectedEnum), null, i, Boolean.class, null
                         ));
-                        newDataColumns.add(dataColumns.get(enumIndex));
+                        newDataColumns.add(data.column(enumIndex));
                     }
                 } else {
                     // recalculate
-                    List<Pair<ColumnDetails, List<?>>> missingColumns = handleMissingEnumFeature(i, dataColumns.get(columnIndex));
-                    for (Pair<ColumnDetails, List<?>> missingColumn : missingColumns) {
+                    List<Pair<ColumnDetails, FeatureData.Column>> missingColumns = handleMissingEnumFeature(i, column);
+                    for (Pair<ColumnDetails, FeatureData.Column> missingColumn : missingColumns) {
                         newColumnDetails.add(missingColumn.a);
                         newDataColumns.add(missingColumn.b);
                     }
@@ -536,6 +532,8 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
                 List<String> componentNames = interaction.stream()
                         .map(featureNames::get)
                         .toList();
+                if (componentNames.stream().anyMatch(rejectedColumns::contains))
+                    continue;
                 String interactionName = String.join(":", componentNames);
 
                 // We now need to find the indices for the interaction in the new data.
@@ -553,42 +551,40 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
                 newColumnDetails.add(new ColumnDetails(
                         interactionName, featureType.INTERACTION, null, null, -1, Double.class, newIndices
                 ));
-                if (headers.contains(interactionName)) {
+                int interactionIndex = data.columnIndex(interactionName);
+                if (interactionIndex != -1) {
                     // just copy over
-                    int interactionIndex = headers.indexOf(interactionName);
-                    newDataColumns.add(dataColumns.get(interactionIndex));
+                    newDataColumns.add(data.column(interactionIndex));
                 } else {
                     // need to calculate this
-                    List<Double> interactionData = new ArrayList<>();
-                    for (int j = 0; j < newDataColumns.get(0).size(); j++) {
-                        double interactionValue = 1.0;
-                        for (int k = 0; k < newIndices.size(); k++) {
-                            int index = newIndices.get(k);
-                            Object valueObj = newDataColumns.get(index).get(j);
-                            double value = valueObj instanceof Number ? ((Number) valueObj).doubleValue() :
-                                    valueObj instanceof String ? Double.parseDouble((String) valueObj) : 0;
-                            interactionValue *= value;
-                        }
-                        interactionData.add(interactionValue);
+                    double[] interactionData = new double[data.rows()];
+                    Arrays.fill(interactionData, 1.0);
+                    for (int index : newIndices) {
+                        FeatureData.Column component = newDataColumns.get(index);
+                        for (int j = 0; j < interactionData.length; j++)
+                            interactionData[j] *= component.value(j);
                     }
-                    newDataColumns.add(interactionData);
+                    newDataColumns.add(FeatureData.Column.ofDoubles(interactionName, interactionData));
                 }
             }
         }
 
         // Then all other data in the input file
         // we run through all the columns (in header), and any that we have not already included in newColumns, we add in unchanged
+        Set<String> underlying = new HashSet<>(Arrays.asList(underlyingNames));
+        Set<String> included = new HashSet<>();
+        newColumnDetails.forEach(r -> included.add(r.name));
         for (int i = 0; i < headers.size(); i++) {
             String columnName = headers.get(i);
             // Skip the raw non-numeric columns
-            if (Arrays.asList(underlyingNames).contains(columnName))
+            if (underlying.contains(columnName))
                 continue;
 
-            if (newColumnDetails.stream().noneMatch(r -> r.name.equals(columnName))) {
+            if (included.add(columnName)) {
                 newColumnDetails.add(new ColumnDetails(
                         columnName, featureType.TARGET, null, null, -1, String.class, null
                 ));
-                newDataColumns.add(dataColumns.get(i));
+                newDataColumns.add(data.column(i));
             }
         }
 
@@ -608,18 +604,6 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
             }
         }
 
-        // We now have all the column, to write to file we need to convert this into a set of rows
-        List<List<Object>> newDataRows = new ArrayList<>();
-        for (int i = 0; i < newDataColumns.size(); i++) {
-            List<?> columnData = newDataColumns.get(i);
-            for (int j = 0; j < columnData.size(); j++) {
-                if (newDataRows.size() <= j) {
-                    newDataRows.add(new ArrayList<>());
-                }
-                newDataRows.get(j).add(columnData.get(j));
-            }
-        }
-
         // we also need to set the featureNames and so on from the new column details
         featureNames.clear();
         featureTypes.clear();
@@ -644,9 +628,10 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
             }
         }
 
-        Utils.writeDataWithHeader("\t", newColumnDetails.stream().map(r -> r.name).toList(),
-                newDataRows, outputFile);
-        return newDataRows;
+        List<FeatureData.Column> namedColumns = new ArrayList<>(newDataColumns.size());
+        for (int i = 0; i < newDataColumns.size(); i++)
+            namedColumns.add(newDataColumns.get(i).withName(newColumnDetails.get(i).name));
+        return new FeatureData(namedColumns);
     }
 
     public int addFeature(ColumnDetails column) {
@@ -661,42 +646,39 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
 
 
     // Stub methods for handling missing features
-    private List<Pair<ColumnDetails, List<?>>> handleMissingRawFeature(int i, List<String> columnData) {
-        List<Pair<ColumnDetails, List<?>>> newColumns = new ArrayList<>();
+    private List<Pair<ColumnDetails, FeatureData.Column>> handleMissingRawFeature(int i, FeatureData.Column columnData) {
+        List<Pair<ColumnDetails, FeatureData.Column>> newColumns = new ArrayList<>();
         String feature = underlyingNames[i];
         Class<?> columnType = underlyingTypes[i];
         Class<?> numericClass = columnType.equals(Integer.class) || columnType.equals(int.class) ?
                 Integer.class : Double.class;
         // Add RAW feature for column
         ColumnDetails newColumnDetails = new ColumnDetails(feature, featureType.RAW, null, null, i, columnType, null);
-        List<?> newColumnData = numericClass == Integer.class ?
-                columnData.stream().map(Integer::parseInt).toList() :
-                columnData.stream().map(Double::parseDouble).toList();
-        newColumns.add(Pair.of(newColumnDetails, newColumnData));
+        double[] values = new double[columnData.size()];
+        for (int row = 0; row < values.length; row++)
+            values[row] = columnData.value(row);
+        newColumns.add(Pair.of(newColumnDetails, numericClass == Integer.class ?
+                FeatureData.Column.ofInts(feature, values) : FeatureData.Column.ofDoubles(feature, values)));
         if (buckets[i] > 1) {
-            List<Pair<Number, Number>> proposedFeatureRanges = calculateFeatureRanges(columnData, buckets[i], numericClass);
+            List<Pair<Number, Number>> proposedFeatureRanges = calculateFeatureRanges(values, buckets[i], numericClass);
             for (int b = 0; b < proposedFeatureRanges.size(); b++) {
                 Pair<Number, Number> range = proposedFeatureRanges.get(b);
                 String rangeName = feature + "_B" + b;
+                double lower = range.a.doubleValue(), upper = range.b.doubleValue();
+                double[] inRange = new double[values.length];
+                for (int row = 0; row < values.length; row++)
+                    inRange[row] = values[row] >= lower && values[row] < upper ? 1 : 0;
                 newColumns.add(Pair.of(
                         new ColumnDetails(rangeName, featureType.RANGE, null, range, i, numericClass, null),
-                        columnData.stream()
-                                .map(Double::parseDouble)
-                                .map(value -> {
-                                    if (value >= range.a.doubleValue() && value < range.b.doubleValue()) {
-                                        return 1;
-                                    } else {
-                                        return 0;
-                                    }
-                                }).toList()
+                        FeatureData.Column.ofInts(rangeName, inRange)
                 ));
             }
         }
         return newColumns;
     }
 
-    private List<Pair<ColumnDetails, List<?>>> handleMissingEnumFeature(int i, List<String> columnData) {
-        List<Pair<ColumnDetails, List<?>>> newColumns = new ArrayList<>();
+    private List<Pair<ColumnDetails, FeatureData.Column>> handleMissingEnumFeature(int i, FeatureData.Column columnData) {
+        List<Pair<ColumnDetails, FeatureData.Column>> newColumns = new ArrayList<>();
         String feature = underlyingNames[i];
         Class<?> columnType = underlyingTypes[i];
         // add column for unchanged value as TARGET
@@ -711,28 +693,34 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
                 String enumName = feature + "_" + ((Enum<?>) enumValue).name();
                 newColumns.add(Pair.of(
                         new ColumnDetails(enumName, featureType.ENUM, enumValue, null, i, Boolean.class, null),
-                        columnData.stream()
-                                .map(value -> ((Enum<?>) enumValue).name().equals(value) ? 1 : 0)
-                                .toList())
+                        oneHot(enumName, columnData, ((Enum<?>) enumValue).name()))
                 );
             }
         } else {
             // Handle string features
-            Set<String> uniqueValues = new HashSet<>(columnData);
+            // (sized as new HashSet<>(allValues) would be, so that the iteration order is the same)
+            Set<String> uniqueValues = new HashSet<>(Math.max((int) (columnData.size() / .75f) + 1, 16));
+            for (int row = 0; row < columnData.size(); row++)
+                uniqueValues.add(columnData.text(row));
             if (uniqueValues.size() <= 10)
                 for (String value : uniqueValues) {
                     String enumName = feature + "_" + value;
                     newColumns.add(Pair.of(
                             new ColumnDetails(enumName, featureType.STRING, value, null, i, Boolean.class, null),
-                            columnData.stream()
-                                    .map(v -> v.equals(value) ? 1 : 0)
-                                    .toList())
+                            oneHot(enumName, columnData, value))
                     );
                 }
         }
         return newColumns;
     }
 
+    private FeatureData.Column oneHot(String name, FeatureData.Column columnData, String value) {
+        double[] values = new double[columnData.size()];
+        for (int row = 0; row < values.length; row++)
+            values[row] = value.equals(columnData.text(row)) ? 1 : 0;
+        return FeatureData.Column.ofInts(name, values);
+    }
+
 
     private <T extends Number> List<Pair<Number, Number>> calculateFeatureRanges(List<T> numericValues,
                                                                                  int buckets, List<Number> exclusions) {
@@ -824,66 +812,47 @@ public class AutomatedFeatures implements IStateFeatureVector, IActionFeatureVec
         return featureRanges;
     }
 
-    private List<Pair<Number, Number>> calculateFeatureRanges(List<String> columnData, int buckets, Class<?> clazz) {
-        List<Double> doubleValues;
-        List<Integer> integerValues;
+    private List<Pair<Number, Number>> calculateFeatureRanges(double[] columnData, int buckets, Class<?> clazz) {
+        double[] sorted = columnData.clone();
+        Arrays.sort(sorted);
         if (clazz == Double.class) {
-            doubleValues = validateDoubleColumnData(columnData);
-            Collections.sort(doubleValues);
+            List<Double> doubleValues = new ArrayList<>(sorted.length);
+            for (double value : sorted)
+                doubleValues.add(value);
             return calculateFeatureRanges(doubleValues, buckets, Collections.emptyList());
         } else if (clazz == Integer.class) {
-            integerValues = validateIntColumnData(columnData);
-            Collections.sort(integerValues);
+            List<Integer> integerValues = new ArrayList<>(sorted.length);
+            for (double value : sorted)
+                integerValues.add((int) value);
             return calculateFeatureRanges(integerValues, buckets, Collections.emptyList());
         } else {
             throw new IllegalArgumentException("Unsupported class type: " + clazz);
         }
     }
 
-    private List<Double> validateDoubleColumnData(List<String> columnData) {
-        List<Double> numericValues = new ArrayList<>();
-        for (String value : columnData) {
-            try {
-                numericValues.add(Double.parseDouble(value));
-            } catch (NumberFormatException e) {
-                System.err.println("Warning: Skipping non-numeric double value: " + value);
-                return Collections.emptyList();
-            }
-        }
-        return numericValues;
-    }
-
-    private List<Boolean> validateBooleanColumnData(List<String> columnData) {
-        List<Boolean> booleanValues = new ArrayList<>();
-        for (String value : columnData) {
+    // booleans are held as 1 (true) and 0 (false); null if the column holds any other value
+    private FeatureData.Column validateBooleanColumnData(FeatureData.Column columnData) {
+        double[] booleanValues = new double[columnData.size()];
+        for (int row = 0; row < booleanValues.length; row++) {
+            String value = columnData.text(row);
             if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
-                booleanValues.add(Boolean.parseBoolean(value));
+                booleanValues[row] = Boolean.parseBoolean(value) ? 1 : 0;
             } else {
-                Double number = Double.parseDouble(value);
-                if (number == 0.0) {
-                    booleanValues.add(false);
-                } else if (number == 1.0) {
-                    booleanValues.add(true);
+                double number;
+                try {
+                    number = columnData.value(row);
+                } catch (NumberFormatException e) {
+                    number = Double.NaN;
+                }
+                if (number == 0.0 || number == 1.0) {
+                    booleanValues[row] = number;
                 } else {
-                    System.err.println("Warning: Skipping non-boolean value: " + value);
-                    return Collections.emptyList();
+                    System.err.println("Warning: Skipping column " + columnData.name() + " with non-boolean value: " + value);
+                    return null;
                 }
             }
         }
-        return booleanValues;
-    }
-
-    private List<Integer> validateIntColumnData(List<String> columnData) {
-        List<Integer> numericValues = new ArrayList<>();
-        for (String value : columnData) {
-            try {
-                numericValues.add(Integer.parseInt(value));
-            } catch (NumberFormatException e) {
-                System.err.println("Warning: Skipping non-numeric integer value: " + value);
-                return Collections.emptyList();
-            }
-        }
-        return numericValues;
+        return FeatureData.Column.ofInts(columnData.name(), booleanValues);
     }
 
 }
@@ -0,0 +1,279 @@
+package evaluation.features;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A table of tab-delimited data (as written by FeatureListener), held by column rather than as a list of rows.
+ * Numeric columns are parsed once into a double[] (with NA as NaN); only columns with any other text keep
+ * their values as Strings (with repeated values shared). This takes a fraction of the memory of the
+ * {@code List<List<String>>} from Utils.loadDataWithHeader, and the same parsed table can be used by
+ * AutomatedFeatures.processData and the learners without going back to a file.
+ * <p>
+ * Files are read and written a line at a time, so the only limit on the size of a dataset is the memory
+ * needed for the columns themselves.
+ * <p>
+ * A FeatureData is not changed once created; the arrays returned by the column accessors must not be changed.
+ */
+public class FeatureData {
+
+    public enum ColumnType {
+        INT, DOUBLE, TEXT
+    }
+
+    /**
+     * One column. For INT and DOUBLE columns the values are in values (text is null); for TEXT columns they are
+     * in text (values is null).
+     */
+    public record Column(String name, ColumnType type, double[] values, String[] text) {
+
+        public static Column ofInts(String name, double[] values) {
+            return new Column(name, ColumnType.INT, values, null);
+        }
+
+        public static Column ofDoubles(String name, double[] values) {
+            return new Column(name, ColumnType.DOUBLE, values, null);
+        }
+
+        public static Column ofText(String name, String[] text) {
+            return new Column(name, ColumnType.TEXT, null, text);
+        }
+
+        public Column withName(String newName) {
+            return newName.equals(name) ? this : new Column(newName, type, values, text);
+        }
+
+        public int size() {
+            return values != null ? values.length : text.length;
+        }
+
+        public boolean isNumeric() {
+            return type != ColumnType.TEXT;
+        }
+
+        /**
+         * @return the value in the row as a number (text is parsed, so this throws a NumberFormatException if it
+         * is not a number)
+         */
+        public double value(int row) {
+            if (values != null) return values[row];
+            String s = text[row];
+            return s.equals(NA) ? Double.NaN : Double.parseDouble(s);
+        }
+
+        /**
+         * @return the value in the row as it is written to file
+         */
+        public String text(int row) {
+            if (text != null) return text[row];
+            return format(values[row], type);
+        }
+    }
+
+    public static final String NA = "NA";
+    static final String DELIMITER = "\t";
+
+    private final List<Column> columns;
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private final int nRows;
+
+    public FeatureData(List<Column> columns) {
+        this.columns = List.copyOf(columns);
+        this.nRows = columns.isEmpty() ? 0 : columns.get(0).size();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).size() != nRows)
+                throw new IllegalArgumentException("Column " + columns.get(i).name() + " has " +
+                        columns.get(i).size() + " rows rather than " + nRows);
+            columnIndex.putIfAbsent(columns.get(i).name(), i);
+        }
+    }
+
+    public int rows() {
+        return nRows;
+    }
+
+    public List<String> names() {
+        return columns.stream().map(Column::name).toList();
+    }
+
+    /**
+     * @return the index of the first column with the name, or -1 if there is none
+     */
+    public int columnIndex(String name) {
+        return columnIndex.getOrDefault(name, -1);
+    }
+
+    public boolean hasColumn(String name) {
+        return columnIndex.containsKey(name);
+    }
+
+    public Column column(int index) {
+        return columns.get(index);
+    }
+
+    public List<Column> columns() {
+        return columns;
+    }
+
+    static String format(double value, ColumnType type) {
+        if (Double.isNaN(value)) return NA;
+        if (type == ColumnType.INT && value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    /**
+     * Reads tab-delimited files, each with a header row. All the files must have the same header. Rows with a
+     * different number of values to the header are skipped (with a warning).
+     *
+     * @param maxRecords the maximum number of rows to read (in total), or 0 for no limit
+     * @param files      the files to read, in order
+     */
+    public static FeatureData read(int maxRecords, String... files) {
+        List<String> header = null;
+        ColumnReader[] readers = new ColumnReader[0];
+        String[] fields = new String[0];
+        int count = 0;
+        for (String file : files) {
+            if (maxRecords > 0 && count >= maxRecords)
+                break;
+            try (BufferedReader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+                String line = reader.readLine();
+                if (line == null)
+                    continue;
+                List<String> fileHeader = Arrays.asList(line.split(DELIMITER));
+                if (header == null) {
+                    header = fileHeader;
+                    readers = new ColumnReader[header.size()];
+                    for (int i = 0; i < readers.length; i++)
+                        readers[i] = new ColumnReader();
+                    fields = new String[header.size() + 1];
+                } else if (!header.equals(fileHeader)) {
+                    throw new IllegalArgumentException("File " + file + " does not have the same columns as " + files[0]);
+                }
+                while ((line = reader.readLine()) != null) {
+                    int n = split(line, fields);
+                    if (n != readers.length) {
+                        System.err.println("Warning: Skipping row with inconsistent number of columns: " + line);
+                        continue;
+                    }
+                    for (int i = 0; i < n; i++)
+                        readers[i].add(count, fields[i]);
+                    count++;
+                    if (maxRecords > 0 && count >= maxRecords)
+                        break;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new AssertionError("Problem reading file " + file);
+            }
+        }
+        List<Column> columns = new ArrayList<>();
+        for (int i = 0; i < readers.length; i++)
+            columns.add(readers[i].build(header.get(i), count));
+        return new FeatureData(columns);
+    }
+
+    // Splits the line on tabs, as String.split would (so trailing empty values are dropped). Returns the number
+    // of values, which is fields.length if there are more values than that.
+    private static int split(String line, String[] fields) {
+        int length = line.length();
+        while (length > 0 && line.charAt(length - 1) == '\t')
+            length--;
+        int n = 0, start = 0;
+        while (n < fields.length) {
+            int end = line.indexOf('\t', start);
+            if (end < 0 || end >= length) {
+                fields[n++] = line.substring(start, length);
+                break;
+            }
+            fields[n++] = line.substring(start, end);
+            start = end + 1;
+        }
+        return n;
+    }
+
+    /**
+     * Writes the table as a tab-delimited file with a header row, which can be read back with read().
+     */
+    public void write(String file) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            writer.write(String.join(DELIMITER, names()));
+            writer.newLine();
+            StringBuilder line = new StringBuilder();
+            for (int row = 0; row < nRows; row++) {
+                line.setLength(0);
+                for (int c = 0; c < columns.size(); c++) {
+                    if (c > 0) line.append(DELIMITER);
+                    line.append(columns.get(c).text(row));
+                }
+                line.append('\n');
+                writer.append(line);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AssertionError("Problem writing file " + file);
+        }
+    }
+
+    // Collects the values of one column as they are read. A column stays numeric while every value is a number
+    // (or NA); INT while all of those are whole numbers written without a decimal point.
+    private static final class ColumnReader {
+        ColumnType type = ColumnType.INT;
+        double[] values = new double[1024];
+        String[] text;
+        Map<String, String> distinct;
+
+        void add(int row, String s) {
+            if (type != ColumnType.TEXT) {
+                if (row == values.length)
+                    values = Arrays.copyOf(values, values.length * 2);
+                if (s.equals(NA)) {
+                    values[row] = Double.NaN;
+                    return;
+                }
+                if (type == ColumnType.INT && isInteger(s)) {
+                    values[row] = Long.parseLong(s);
+                    return;
+                }
+                try {
+                    values[row] = Double.parseDouble(s);
+                    type = ColumnType.DOUBLE;
+                    return;
+                } catch (NumberFormatException e) {
+                    toText(row);
+                }
+            }
+            if (row == text.length)
+                text = Arrays.copyOf(text, text.length * 2);
+            text[row] = distinct.computeIfAbsent(s, k -> k);
+        }
+
+        private static boolean isInteger(String s) {
+            int start = s.startsWith("-") ? 1 : 0;
+            if (s.length() == start || s.length() - start > 15) return false;
+            for (int i = start; i < s.length(); i++)
+                if (s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+            return true;
+        }
+
+        // whole numbers are written back without a decimal point (as they almost always were in the file), even if
+        // the column had become DOUBLE
+        private void toText(int rows) {
+            text = new String[values.length];
+            distinct = new HashMap<>();
+            for (int i = 0; i < rows; i++)
+                text[i] = distinct.computeIfAbsent(format(values[i], ColumnType.INT), k -> k);
+            type = ColumnType.TEXT;
+            values = null;
+        }
+
+        Column build(String name, int rows) {
+            return switch (type) {
+                case INT -> Column.ofInts(name, Arrays.copyOf(values, rows));
+                case DOUBLE -> Column.ofDoubles(name, Arrays.copyOf(values, rows));
+                case TEXT -> Column.ofText(name, Arrays.copyOf(text, rows));
+            };
+        }
+    }
+}
@@ -61,4 +61,24 @@ public interface IGameListener {
 
     default void init(Game game, int nPlayersPerGame, Set<String> playerNames) {}
 
+    /**
+     * Creates a listener with the same configuration as this one, but no recorded data. Tournaments running games
+     * on several threads give each batch of games its own copy, and then {@link #merge(IGameListener)} the copies
+     * back into this listener in the order the games would have been played sequentially.
+     *
+     * @return - the new listener, or null if this listener does not support being copied
+     */
+    default IGameListener emptyCopy() {
+        return null;
+    }
+
+    /**
+     * Appends the data recorded by a listener obtained from {@link #emptyCopy()} to the data in this one.
+     *
+     * @param other - copy of this listener
+     */
+    default void merge(IGameListener other) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support merging");
+    }
+
 }
@@ -47,6 +47,9 @@ public class MetricsGameListener implements IGameListener {
     String destDir = "metrics/out/"; //by default
     boolean firstReport;
 
+    // Class of the data loggers used by the metrics
+    String dataLoggerClass = DataTableSaw.class.getName();
+
     public MetricsGameListener() {
     }
 
@@ -59,18 +62,37 @@ public class MetricsGameListener implements IGameListener {
     }
 
     public MetricsGameListener(IDataLogger.ReportDestination logTo, IDataLogger.ReportType[] dataTypes, AbstractMetric[] metrics) {
+        this(logTo, dataTypes, metrics, DataTableSaw.class.getName());
+    }
+
+    /**
+     * @param dataLoggerClass - full name of the IDataLogger to record the metrics with, which needs a constructor
+     *                        taking the metric. For example evaluation.metrics.columnar.ColumnarDataLogger streams
+     *                        the data to disk, rather than keeping it all in memory as DataTableSaw (the default) does.
+     */
+    public MetricsGameListener(IDataLogger.ReportDestination logTo, IDataLogger.ReportType[] dataTypes, AbstractMetric[] metrics,
+                               String dataLoggerClass) {
         reportDestinations = Collections.singletonList(logTo);
         this.reportTypes = Arrays.asList(dataTypes);
         this.metrics = new LinkedHashMap<>();
         this.firstReport = true;
+        this.dataLoggerClass = dataLoggerClass;
         for (AbstractMetric m : metrics) {
-            m.setDataLogger(new DataTableSaw(m)); //todo this logger needs to be read from JSON
+            m.setDataLogger(createDataLogger(dataLoggerClass, m));
             this.metrics.put(m.getName(), m);
             eventsOfInterest.addAll(m.getEventTypes());
         }
         eventsOfInterest.add(Event.GameEvent.GAME_OVER);
     }
 
+    private static IDataLogger createDataLogger(String className, AbstractMetric metric) {
+        try {
+            return (IDataLogger) Class.forName(className).getConstructor(AbstractMetric.class).newInstance(metric);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Cannot create data logger " + className + " for " + metric.getName(), e);
+        }
+    }
+
     /**
      * Manages all events.
      *
@@ -138,7 +160,7 @@ public class MetricsGameListener implements IGameListener {
             for (IGameEvent event : eventsOfInterest) {
                 List<AbstractMetric> eventMetrics = new ArrayList<>();
                 for (AbstractMetric metric : metrics.values()) {
-                    if (metric.listens(event)) {
+                    if (metric.listens(event) && metric.getDataLogger() instanceof DataTableSaw) {
                         eventMetrics.add(metric);
                     }
                 }
@@ -147,6 +169,11 @@ public class MetricsGameListener implements IGameListener {
                     dataLogger.getDefaultProcessor().processRawDataToFile(dataLogger, destDir, !firstReport);
                 }
             }
+            // Other loggers cannot be joined into one table per event, so their raw data is written per metric
+            for (AbstractMetric metric : metrics.values()) {
+                if (!(metric.getDataLogger() instanceof DataTableSaw))
+                    metric.getDataProcessor().processRawDataToFile(metric.getDataLogger(), destDir, !firstReport);
+            }
             //Clean the data. We don't want to keep this in memory; instead we append after every reporting.
             for (AbstractMetric metric : metrics.values()) {
                 IDataLogger dataLogger = metric.getDataLogger();
@@ -172,6 +199,35 @@ public class MetricsGameListener implements IGameListener {
         return null;
     }
 
+    /**
+     * Subclasses do not get copied, as this creates a plain MetricsGameListener.
+     */
+    @Override
+    public IGameListener emptyCopy() {
+        if (getClass() != MetricsGameListener.class || metrics == null || reportDestinations.size() != 1)
+            return null;
+        AbstractMetric[] metricCopies = new AbstractMetric[metrics.size()];
+        int i = 0;
+        for (AbstractMetric metric : metrics.values()) {
+            metricCopies[i] = metric.copy();
+            if (metricCopies[i] == null)
+                return null;
+            i++;
+        }
+        MetricsGameListener copy = new MetricsGameListener(reportDestinations.get(0),
+                reportTypes.toArray(new IDataLogger.ReportType[0]), metricCopies, dataLoggerClass);
+        copy.destDir = destDir;
+        return copy;
+    }
+
+    @Override
+    public void merge(IGameListener other) {
+        MetricsGameListener otherListener = (MetricsGameListener) other;
+        for (AbstractMetric metric : metrics.values()) {
+            metric.merge(otherListener.metrics.get(metric.getName()));
+        }
+    }
+
     /* Getters, setters */
     public final void setGame(Game game) {
         this.game = game;
@@ -0,0 +1,197 @@
+package evaluation.loggers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the lines recorded by an asynchronous FileStatsLogger on a background thread, so that the game thread
+ * only has to add each row to a queue.
+ * <p>
+ * The queue is bounded (capacity rows), so a writer that cannot keep up slows the game thread down rather than
+ * using ever more memory. The writer thread takes rows from the queue in batches, formats them into a
+ * StringBuilder (see RowFormat), and writes them to the file through a FileChannel in large blocks. Everything
+ * taken from the queue is written before the thread waits for more, so rows reach the file soon after they are
+ * recorded without any explicit flush. flush() waits until everything queued so far has been written, and close()
+ * until everything has been written and the file is closed.
+ * <p>
+ * An error on the writer thread is reported by the next call to write() or close().
+ */
+final class AsyncStatsWriter implements Runnable {
+
+    static final int DEFAULT_CAPACITY = 4096;
+    private static final int BATCH_SIZE = 1024;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final Object CLOSE = new Object();
+
+    private final String fileName;
+    private final FileChannel channel;
+    private final RowFormat format;
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private volatile Exception error;
+    private volatile boolean closed;
+
+    // only used on the writer thread
+    private char[] chars = new char[0];
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    // as FileWriter would, we use the default charset, and replace anything that cannot be encoded
+    private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    // queued by flush(), and counted down by the writer thread once everything queued before it is in the file
+    private static final class FlushMarker {
+        final CountDownLatch written = new CountDownLatch(1);
+    }
+
+    AsyncStatsWriter(String fileName, boolean append, RowFormat format, int capacity) throws IOException {
+        this.fileName = fileName;
+        this.format = format;
+        this.channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this, "FileStatsLogger " + fileName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a line of text (which should end with a new line) to be written as it is
+     */
+    void write(String line) {
+        put(line);
+    }
+
+    /**
+     * Queues a row to be written with the RowFormat. The array must not be changed afterwards.
+     */
+    void write(Object[] row) {
+        put(row);
+    }
+
+    private void put(Object item) {
+        if (closed)
+            throw new AssertionError("Problem writing to file " + fileName + " : already closed");
+        checkError("writing to");
+        try {
+            // the timeout means we notice if the writer thread has stopped while the queue is full
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                checkError("writing to");
+                if (!thread.isAlive())
+                    throw new AssertionError("Writer thread for " + fileName + " has stopped");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits until everything queued so far has been written to the file
+     */
+    void flush() {
+        FlushMarker marker = new FlushMarker();
+        put(marker);
+        try {
+            while (!marker.written.await(100, TimeUnit.MILLISECONDS)) {
+                checkError("flushing");
+                if (!thread.isAlive())
+                    throw new AssertionError("Writer thread for " + fileName + " has stopped");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        checkError("flushing");
+    }
+
+    /**
+     * Throws an AssertionError if the writer thread has failed
+     */
+    void checkError(String action) {
+        Exception e = error;
+        if (e != null)
+            throw new AssertionError("Problem " + action + " file " + fileName + " : " + e.getMessage());
+    }
+
+    /**
+     * Writes everything queued, closes the file, and stops the writer thread.
+     */
+    void close() {
+        if (!closed && thread.isAlive())
+            put(CLOSE);
+        closed = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        checkError("closing");
+    }
+
+    @Override
+    public void run() {
+        List<Object> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder text = new StringBuilder();
+        try (channel) {
+            boolean closing = false;
+            while (!closing) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Object item : batch) {
+                    if (item == CLOSE) {
+                        closing = true;
+                        break;
+                    }
+                    if (item instanceof FlushMarker marker) {
+                        writeText(text);
+                        marker.written.countDown();
+                    } else if (item instanceof String line) {
+                        text.append(line);
+                    } else {
+                        format.appendRow(text, (Object[]) item);
+                    }
+                }
+                batch.clear();
+                writeText(text);
+            }
+        } catch (Exception e) {
+            error = e;
+        }
+    }
+
+    // encodes and writes the text, and empties it
+    private void writeText(StringBuilder text) throws IOException {
+        if (text.length() == 0)
+            return;
+        if (chars.length < text.length())
+            chars = new char[Math.max(text.length(), chars.length * 2)];
+        text.getChars(0, text.length(), chars, 0);
+        CharBuffer input = CharBuffer.wrap(chars, 0, text.length());
+        text.setLength(0);
+        CoderResult result;
+        do {
+            result = encoder.encode(input, bytes, true);
+            bytes.flip();
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+            bytes.clear();
+        } while (result.isOverflow());
+        encoder.reset();
+    }
+}
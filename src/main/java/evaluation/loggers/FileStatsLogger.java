@@ -13,6 +13,12 @@ import static java.util.stream.Collectors.toList;
 
 /**
  * A Class to log details to file for later analysis
+ * <p>
+ * By default each line is written on the thread that calls record(). In asynchronous mode record() only takes a
+ * copy of the values and queues it, and a background thread formats and writes the lines (see AsyncStatsWriter),
+ * so that the game thread is not held up by file output. In both modes processDataAndNotFinish() returns only once
+ * everything recorded has been written, and processDataAndFinish() once the file is also closed. All methods are
+ * synchronized, so one logger can be shared by games running in parallel.
  */
 public class FileStatsLogger implements IStatisticLogger {
 
@@ -20,7 +26,11 @@ public class FileStatsLogger implements IStatisticLogger {
     private String actionName;
     private final boolean append;
     private final String delimiter;
-    private FileWriter writer;
+    private final boolean asynchronous;
+    private Writer writer;
+    private AsyncStatsWriter asyncWriter;
+    private RowFormat rowFormat;
+    private final StringBuilder line = new StringBuilder();
     public String doubleFormat = "%.3g";
     public String intFormat = "%d";
     private boolean headerNeeded = true;
@@ -35,9 +45,20 @@ public class FileStatsLogger implements IStatisticLogger {
      * @param delimiter The delimiter to use in the file between data items
      */
     public FileStatsLogger(String fileName, String delimiter, boolean append) {
+        this(fileName, delimiter, append, false);
+    }
+
+    /**
+     * @param fileName     The full location of the file to write results to
+     * @param delimiter    The delimiter to use in the file between data items
+     * @param append       If true, add to the end of any existing file (without a new header)
+     * @param asynchronous If true, lines are written on a background thread
+     */
+    public FileStatsLogger(String fileName, String delimiter, boolean append, boolean asynchronous) {
         this.delimiter = delimiter;
         this.fileName = fileName;
         this.append = append;
+        this.asynchronous = asynchronous;
     }
 
     private void initialise() {
@@ -45,7 +66,12 @@ public class FileStatsLogger implements IStatisticLogger {
             File file = new File(fileName);
             if (file.exists() && append)
                 headerNeeded = false;
-            writer = new FileWriter(fileName, append);
+            // the formats are fixed from here on, as the writer thread may be using them
+            rowFormat = new RowFormat(delimiter, intFormat, doubleFormat);
+            if (asynchronous)
+                asyncWriter = new AsyncStatsWriter(fileName, append, rowFormat, AsyncStatsWriter.DEFAULT_CAPACITY);
+            else
+                writer = new BufferedWriter(new FileWriter(fileName, append), 1 << 16);
         } catch (Exception e) {
             throw new AssertionError("Problem opening file " + fileName + " : " + e.getMessage());
         }
@@ -56,10 +82,11 @@ public class FileStatsLogger implements IStatisticLogger {
     }
 
 
-    public void setOutPutDirectory(String... nestedDirectories) {
-        if (writer != null) {
+    public synchronized void setOutPutDirectory(String... nestedDirectories) {
+        if (isOpen()) {
             processDataAndFinish();
             writer = null;
+            asyncWriter = null;
         }
         String folder = Utils.createDirectory(nestedDirectories);
         this.fileName = folder + File.separator + this.fileName;
@@ -71,8 +98,8 @@ public class FileStatsLogger implements IStatisticLogger {
      * @param rawData A map of name -> value pairs
      */
     @Override
-    public void record(Map<String, ?> rawData) {
-        if (writer == null) initialise();
+    public synchronized void record(Map<String, ?> rawData) {
+        if (!isOpen()) initialise();
         // first we preprocess data to remove nesting
         // Use a LinkedHashMap to preserve order
         Map<String, Object> data = new LinkedHashMap<>();
@@ -92,7 +119,10 @@ public class FileStatsLogger implements IStatisticLogger {
                     String outputLine = String.join(delimiter, allKeys) + "\n";
                     outputLine = outputLine.replaceAll(":" + actionName + delimiter, delimiter);
                     outputLine = outputLine.replaceAll(":" + actionName + "\\n", "\n");
-                    writer.write(outputLine);
+                    if (asynchronous)
+                        asyncWriter.write(outputLine);
+                    else
+                        writer.write(outputLine);
                 }
             } else {
                 data.keySet().forEach(s -> {
@@ -102,44 +132,38 @@ public class FileStatsLogger implements IStatisticLogger {
                         }
                 );
             }
-            List<String> outputData = new ArrayList<>();
-            for (String key: allKeys) {
+            if (allKeys.isEmpty())
+                return;
+            // Integers and Doubles are kept for the RowFormat; anything else is converted to a String now, in
+            // case it is changed before an asynchronous writer gets to it
+            Object[] row = new Object[allKeys.size()];
+            int i = 0;
+            for (String key : allKeys) {
                 Object datum = data.get(key);
-                if (datum == null) {
-                    outputData.add("NA");
-                    continue;
-                }
                 // If this is a summary, then we return the single most common occurrence
-                if (datum instanceof TAGOccurrenceStatSummary) {
-                    TAGOccurrenceStatSummary summary = (TAGOccurrenceStatSummary) datum;
+                if (datum instanceof TAGOccurrenceStatSummary summary) {
                     datum = summary.getHighestOccurrence().a;
                 }
-                if (datum instanceof Integer) {
-                    outputData.add(String.format(intFormat, datum));
-                    continue;
-                }
-                if (datum instanceof Double) {
-                    outputData.add(String.format(doubleFormat, datum));
-                    continue;
-                }
-                if (datum instanceof Map) {
-                    Map<String, ?> map = (Map<String, ?>) datum;
+                if (datum instanceof Map<?, ?> map) {
                     if (map.size() == 1)
-                        outputData.add(map.values().iterator().next().toString());
+                        datum = map.values().iterator().next().toString();
                     else
-                        outputData.add(map.toString());
-                    continue;
+                        datum = map.toString();
+                } else if (datum != null && !(datum instanceof Integer) && !(datum instanceof Double)) {
+                    datum = datum.toString();
                 }
-
-                outputData.add(datum.toString());
+                row[i++] = datum;
             }
 
-            if (!outputData.isEmpty()) {
-                String outputLine = String.join(delimiter, outputData) + "\n";
-                writer.write(outputLine);
+            if (asynchronous) {
+                asyncWriter.write(row);
+            } else {
+                line.setLength(0);
+                rowFormat.appendRow(line, row);
+                writer.append(line);
             }
         } catch (IOException e) {
-            throw new AssertionError("Problem writing to file " + writer.toString() + " : " + e.getMessage());
+            throw new AssertionError("Problem writing to file " + fileName + " : " + e.getMessage());
         }
     }
 
@@ -148,11 +172,19 @@ public class FileStatsLogger implements IStatisticLogger {
         //   System.out.println("Datum ignored - FileStatsLogger only to be used with other record() : " + key);
     }
 
+    private boolean isOpen() {
+        return writer != null || asyncWriter != null;
+    }
+
     /**
-     * This just closes the file
+     * This just closes the file, once everything recorded has been written to it
      */
     @Override
-    public void processDataAndFinish() {
+    public synchronized void processDataAndFinish() {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+            return;
+        }
         if (writer == null) return;
         try {
             writer.flush();
@@ -163,8 +195,15 @@ public class FileStatsLogger implements IStatisticLogger {
         }
     }
 
+    /**
+     * This returns once everything recorded so far is in the file (which stays open)
+     */
     @Override
-    public void processDataAndNotFinish() {
+    public synchronized void processDataAndNotFinish() {
+        if (asyncWriter != null) {
+            asyncWriter.flush();
+            return;
+        }
         if (writer == null) return;
         try {
             writer.flush();
@@ -190,7 +229,7 @@ public class FileStatsLogger implements IStatisticLogger {
         if (fileParts.length != 2)
             throw new AssertionError("Filename does not conform to expected <stem>.<type>");
         String newFileName = fileParts[0] + "_" + id + "." + fileParts[1];
-        FileStatsLogger retValue = new FileStatsLogger(newFileName, delimiter, append);
+        FileStatsLogger retValue = new FileStatsLogger(newFileName, delimiter, append, asynchronous);
         retValue.actionName = id;
         return retValue;
     }
@@ -211,4 +250,8 @@ public class FileStatsLogger implements IStatisticLogger {
     public String getDelimiter() {
         return delimiter;
     }
+
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
 }
@@ -0,0 +1,155 @@
+package evaluation.loggers;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats the rows written by FileStatsLogger. The output is the same as String.format would give with the
+ * logger's intFormat and doubleFormat, but the usual formats ("%d" and "%.Ng") are written directly to a
+ * StringBuilder, without the parsing and boxing that String.format does for every value.
+ * Other formats (or locales that do not use '.' and '0') fall back to String.format.
+ * <p>
+ * A RowFormat does not change once created, so it can be shared with a background writer thread.
+ */
+final class RowFormat {
+
+    private final String delimiter;
+    private final String intFormat;
+    private final String doubleFormat;
+    private final boolean plainInt;
+    private final int doublePrecision;  // significant digits for "%.Ng", or -1 to use String.format
+
+    RowFormat(String delimiter, String intFormat, String doubleFormat) {
+        this.delimiter = delimiter;
+        this.intFormat = intFormat;
+        this.doubleFormat = doubleFormat;
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        boolean plainLocale = symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.';
+        this.plainInt = plainLocale && intFormat.equals("%d");
+        this.doublePrecision = plainLocale ? generalPrecision(doubleFormat) : -1;
+    }
+
+    // the precision of a format "%.Ng" (or "%g"), or -1 for any other format
+    static int generalPrecision(String format) {
+        if (format.equals("%g")) return 6;
+        if (format.length() < 4 || !format.startsWith("%.") || !format.endsWith("g")) return -1;
+        int precision = 0;
+        for (int i = 2; i < format.length() - 1; i++) {
+            char c = format.charAt(i);
+            if (c < '0' || c > '9' || precision > 100) return -1;
+            precision = precision * 10 + (c - '0');
+        }
+        return Math.max(precision, 1);
+    }
+
+    /**
+     * Appends one row, in which each value is null (written as NA), an Integer, a Double,
+     * or anything else (written with toString), followed by a new line.
+     */
+    void appendRow(StringBuilder sb, Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) sb.append(delimiter);
+            Object datum = row[i];
+            if (datum == null) {
+                sb.append("NA");
+            } else if (datum instanceof Integer value) {
+                if (plainInt)
+                    sb.append(value.intValue());
+                else
+                    sb.append(String.format(intFormat, value));
+            } else if (datum instanceof Double value) {
+                if (doublePrecision > 0)
+                    appendGeneral(sb, value, doublePrecision);
+                else
+                    sb.append(String.format(doubleFormat, value));
+            } else {
+                sb.append(datum);
+            }
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Appends the value as String.format("%.Ng", value) would (in a locale using '.' and '0'). This rounds the
+     * shortest decimal representation of the value (as given by Double.toString) half-up to N significant
+     * digits, and uses scientific notation if the exponent is less than -4 or at least N.
+     */
+    static void appendGeneral(StringBuilder sb, double value, int precision) {
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+            return;
+        }
+        if (Double.compare(value, 0.0) < 0)
+            sb.append('-');
+        double v = Math.abs(value);
+        if (Double.isInfinite(v)) {
+            sb.append("Infinity");
+            return;
+        }
+        if (v == 0.0) {
+            sb.append('0');
+            if (precision > 1) {
+                sb.append('.');
+                for (int i = 1; i < precision; i++) sb.append('0');
+            }
+            return;
+        }
+
+        // Significant digits, and the exponent such that v = 0.d1d2d3... x 10^exp
+        String repr = Double.toString(v);
+        char[] digits = new char[Math.max(repr.length(), precision + 1)];
+        int nDigits = 0, exp = 0, pointAt = -1;
+        int end = repr.indexOf('E');
+        if (end >= 0) {
+            exp = Integer.parseInt(repr, end + 1, repr.length(), 10);
+        } else {
+            end = repr.length();
+        }
+        for (int i = 0; i < end; i++) {
+            char c = repr.charAt(i);
+            if (c == '.') {
+                pointAt = i;
+            } else if (c != '0' || nDigits > 0) {
+                digits[nDigits++] = c;
+            } else if (pointAt >= 0) {
+                exp--;  // a leading zero after the point
+            }
+        }
+        int leadingIntegerZeros = 0;
+        for (int i = 0; i < pointAt && repr.charAt(i) == '0'; i++) leadingIntegerZeros++;
+        exp += pointAt - leadingIntegerZeros;
+
+        // round half-up to the requested number of digits
+        if (nDigits > precision) {
+            if (digits[precision] >= '5') {
+                int i = precision - 1;
+                while (i >= 0 && digits[i] == '9') digits[i--] = '0';
+                if (i < 0) {
+                    digits[0] = '1';
+                    exp++;
+                } else {
+                    digits[i]++;
+                }
+            }
+            nDigits = precision;
+        }
+        for (int i = nDigits; i < precision; i++) digits[i] = '0';
+
+        int exponent = exp - 1;
+        if (exponent < -4 || exponent >= precision) {
+            sb.append(digits[0]);
+            if (precision > 1) sb.append('.').append(digits, 1, precision - 1);
+            sb.append('e').append(exponent < 0 ? '-' : '+');
+            int magnitude = Math.abs(exponent);
+            if (magnitude < 10) sb.append('0');
+            sb.append(magnitude);
+        } else if (exp <= 0) {
+            sb.append("0.");
+            for (int i = exp; i < 0; i++) sb.append('0');
+            sb.append(digits, 0, precision);
+        } else {
+            sb.append(digits, 0, exp);
+            if (precision > exp) sb.append('.').append(digits, exp, precision - exp);
+        }
+    }
+}
@@ -254,6 +254,38 @@ public abstract class AbstractMetric {
         return dataLogger.getDefaultProcessor();
     }
 
+    /**
+     * Creates a new instance of this metric with the same arguments and event types, but no recorded data.
+     * This uses the constructors matching the ones metrics are normally built with, so subclasses with other
+     * constructors, or with state that must be shared, should override this.
+     *
+     * @return the new metric, or null if it cannot be created
+     */
+    public AbstractMetric copy() {
+        try {
+            Class<? extends AbstractMetric> clazz = getClass();
+            if (Objects.equals(eventTypes, getDefaultEventTypes())) {
+                return args == null ? clazz.getConstructor().newInstance()
+                        : clazz.getConstructor(String[].class).newInstance((Object) args);
+            }
+            Event.GameEvent[] events = eventTypes.toArray(new Event.GameEvent[0]);
+            return args == null ? clazz.getConstructor(Event.GameEvent[].class).newInstance((Object) events)
+                    : clazz.getConstructor(String[].class, Event.GameEvent[].class).newInstance(args, events);
+        } catch (ReflectiveOperationException | ArrayStoreException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends the data recorded by a copy of this metric (see {@link #copy()}) to the data of this one.
+     *
+     * @param other - copy of this metric
+     */
+    public void merge(AbstractMetric other) {
+        gamesCompleted += other.gamesCompleted;
+        dataLogger.merge(other.dataLogger);
+    }
+
     public void addColumnName(String name) {
         columnNames.add(name);
     }
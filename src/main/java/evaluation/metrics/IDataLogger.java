@@ -47,6 +47,12 @@ public interface IDataLogger
 
     void flush();
 
+    /**
+     * Appends all data in another logger of the same type, recorded for the same metric, to this one.
+     * @param other - logger to take data from
+     */
+    void merge(IDataLogger other);
+
     IDataLogger copy();
     IDataLogger emptyCopy();
     IDataLogger create();
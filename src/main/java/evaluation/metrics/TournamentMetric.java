@@ -46,6 +46,14 @@ public class TournamentMetric extends AbstractMetric {
         return wrappedMetric.getDefaultEventTypes();
     }
 
+    /**
+     * Data is kept per matchup, keyed on the player objects of each matchup, so copies cannot be merged.
+     */
+    @Override
+    public AbstractMetric copy() {
+        return null;
+    }
+
     public void reset() {
         super.reset();
         for (IDataLogger logger : dataLoggers.values()) {
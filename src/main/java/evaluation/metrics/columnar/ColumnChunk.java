@@ -0,0 +1,329 @@
+package evaluation.metrics.columnar;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The values of one column in one row group, stored in primitive arrays. A chunk is filled by a
+ * ColumnarDataLogger, written to disk once the row group is full, and then cleared to be filled again.
+ * Missing values are recorded in a separate bitmap.
+ */
+abstract class ColumnChunk {
+
+    enum Type {
+        INT(Integer.class), DOUBLE(Double.class), BOOLEAN(Boolean.class), STRING(String.class);
+
+        final Class<?> dataClass;
+
+        Type(Class<?> dataClass) {
+            this.dataClass = dataClass;
+        }
+
+        static Type of(Class<?> c) {
+            for (Type type : values())
+                if (type.dataClass == c) return type;
+            throw new AssertionError("Unknown column type " + c);
+        }
+    }
+
+    final String name;
+    final Type type;
+    int size;
+    long[] missing;
+
+    ColumnChunk(String name, Type type, int capacity) {
+        this.name = name;
+        this.type = type;
+        this.missing = new long[(capacity + 63) / 64];
+    }
+
+    static ColumnChunk create(String name, Type type, int capacity) {
+        return switch (type) {
+            case INT -> new IntChunk(name, capacity);
+            case DOUBLE -> new DoubleChunk(name, capacity);
+            case BOOLEAN -> new BooleanChunk(name, capacity);
+            case STRING -> new StringChunk(name, capacity);
+        };
+    }
+
+    /**
+     * Appends a value, or a missing value if data is null.
+     */
+    final void append(Object data) {
+        ensureCapacity(size + 1);
+        if (data == null)
+            missing[size >> 6] |= 1L << size;
+        else
+            set(size, data);
+        size++;
+    }
+
+    final boolean isMissing(int row) {
+        return (missing[row >> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return the value in the row, or null if it is missing
+     */
+    final Object get(int row) {
+        return isMissing(row) ? null : value(row);
+    }
+
+    /**
+     * Removes the first n rows (after they have been written), keeping any later ones.
+     */
+    final void removeFirst(int n) {
+        int remaining = size - n;
+        long[] oldMissing = missing;
+        missing = new long[oldMissing.length];
+        for (int i = 0; i < remaining; i++)
+            if ((oldMissing[(n + i) >> 6] & (1L << (n + i))) != 0)
+                missing[i >> 6] |= 1L << i;
+        shift(n, remaining);
+        size = remaining;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > missing.length * 64)
+            missing = Arrays.copyOf(missing, Math.max(missing.length * 2, (capacity + 63) / 64));
+        grow(capacity);
+    }
+
+    /**
+     * Writes the first n rows, in the format read by read().
+     */
+    final void write(DataOutputStream out, int n) throws IOException {
+        out.writeUTF(name);
+        out.writeByte(type.ordinal());
+        for (int i = 0; i < (n + 63) / 64; i++)
+            out.writeLong(missing[i] & (i == n / 64 ? (1L << n) - 1 : -1L));
+        writeValues(out, n);
+    }
+
+    static ColumnChunk read(DataInputStream in, int n) throws IOException {
+        String name = in.readUTF();
+        ColumnChunk chunk = create(name, Type.values()[in.readByte()], n);
+        for (int i = 0; i < (n + 63) / 64; i++)
+            chunk.missing[i] = in.readLong();
+        chunk.readValues(in, n);
+        chunk.size = n;
+        return chunk;
+    }
+
+    abstract void set(int row, Object data);
+
+    abstract Object value(int row);
+
+    abstract void grow(int capacity);
+
+    abstract void shift(int from, int n);
+
+    abstract void writeValues(DataOutputStream out, int n) throws IOException;
+
+    abstract void readValues(DataInputStream in, int n) throws IOException;
+
+    static final class IntChunk extends ColumnChunk {
+        int[] values;
+
+        IntChunk(String name, int capacity) {
+            super(name, Type.INT, capacity);
+            values = new int[capacity];
+        }
+
+        @Override
+        void set(int row, Object data) {
+            values[row] = ((Number) data).intValue();
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        void grow(int capacity) {
+            if (capacity > values.length)
+                values = Arrays.copyOf(values, Math.max(values.length * 2, capacity));
+        }
+
+        @Override
+        void shift(int from, int n) {
+            System.arraycopy(values, from, values, 0, n);
+        }
+
+        @Override
+        void writeValues(DataOutputStream out, int n) throws IOException {
+            for (int i = 0; i < n; i++)
+                out.writeInt(values[i]);
+        }
+
+        @Override
+        void readValues(DataInputStream in, int n) throws IOException {
+            for (int i = 0; i < n; i++)
+                values[i] = in.readInt();
+        }
+    }
+
+    static final class DoubleChunk extends ColumnChunk {
+        double[] values;
+
+        DoubleChunk(String name, int capacity) {
+            super(name, Type.DOUBLE, capacity);
+            values = new double[capacity];
+        }
+
+        @Override
+        void set(int row, Object data) {
+            values[row] = ((Number) data).doubleValue();
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        void grow(int capacity) {
+            if (capacity > values.length)
+                values = Arrays.copyOf(values, Math.max(values.length * 2, capacity));
+        }
+
+        @Override
+        void shift(int from, int n) {
+            System.arraycopy(values, from, values, 0, n);
+        }
+
+        @Override
+        void writeValues(DataOutputStream out, int n) throws IOException {
+            for (int i = 0; i < n; i++)
+                out.writeDouble(values[i]);
+        }
+
+        @Override
+        void readValues(DataInputStream in, int n) throws IOException {
+            for (int i = 0; i < n; i++)
+                values[i] = in.readDouble();
+        }
+    }
+
+    // stored as a bitmap, like the missing values
+    static final class BooleanChunk extends ColumnChunk {
+        long[] values;
+
+        BooleanChunk(String name, int capacity) {
+            super(name, Type.BOOLEAN, capacity);
+            values = new long[(capacity + 63) / 64];
+        }
+
+        @Override
+        void set(int row, Object data) {
+            if ((Boolean) data)
+                values[row >> 6] |= 1L << row;
+            else
+                values[row >> 6] &= ~(1L << row);
+        }
+
+        @Override
+        Object value(int row) {
+            return (values[row >> 6] & (1L << row)) != 0;
+        }
+
+        @Override
+        void grow(int capacity) {
+            if (capacity > values.length * 64)
+                values = Arrays.copyOf(values, Math.max(values.length * 2, (capacity + 63) / 64));
+        }
+
+        @Override
+        void shift(int from, int n) {
+            long[] old = values;
+            values = new long[old.length];
+            for (int i = 0; i < n; i++)
+                if ((old[(from + i) >> 6] & (1L << (from + i))) != 0)
+                    values[i >> 6] |= 1L << i;
+        }
+
+        @Override
+        void writeValues(DataOutputStream out, int n) throws IOException {
+            for (int i = 0; i < (n + 63) / 64; i++)
+                out.writeLong(values[i]);
+        }
+
+        @Override
+        void readValues(DataInputStream in, int n) throws IOException {
+            for (int i = 0; i < (n + 63) / 64; i++)
+                values[i] = in.readLong();
+        }
+    }
+
+    // dictionary encoded; the dictionary only covers one row group, so it cannot grow without limit
+    static final class StringChunk extends ColumnChunk {
+        int[] codes;
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+        StringChunk(String name, int capacity) {
+            super(name, Type.STRING, capacity);
+            codes = new int[capacity];
+        }
+
+        @Override
+        void set(int row, Object data) {
+            String s = data.toString();
+            Integer code = dictionaryCodes.get(s);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(s);
+                dictionaryCodes.put(s, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        Object value(int row) {
+            return dictionary.get(codes[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            if (capacity > codes.length)
+                codes = Arrays.copyOf(codes, Math.max(codes.length * 2, capacity));
+        }
+
+        @Override
+        void shift(int from, int n) {
+            // re-encode the remaining rows, so that the dictionary only holds their values
+            List<String> oldDictionary = dictionary;
+            int[] oldCodes = Arrays.copyOfRange(codes, from, from + n);
+            dictionary = new ArrayList<>();
+            dictionaryCodes = new HashMap<>();
+            for (int i = 0; i < n; i++)
+                if (!isMissing(i))
+                    set(i, oldDictionary.get(oldCodes[i]));
+        }
+
+        @Override
+        void writeValues(DataOutputStream out, int n) throws IOException {
+            out.writeInt(dictionary.size());
+            for (String s : dictionary)
+                out.writeUTF(s);
+            for (int i = 0; i < n; i++)
+                out.writeInt(codes[i]);
+        }
+
+        @Override
+        void readValues(DataInputStream in, int n) throws IOException {
+            int dictionarySize = in.readInt();
+            for (int i = 0; i < dictionarySize; i++)
+                dictionary.add(in.readUTF());
+            for (int i = 0; i < n; i++)
+                codes[i] = in.readInt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package evaluation.metrics.columnar;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summary statistics of one column, updated as each value is added, so that no raw data needs to be kept.
+ * Numeric (and boolean, as 0/1) columns keep the count, mean, variance (by Welford's method), min and max.
+ * String columns keep a count per value, for up to MAX_CATEGORIES distinct values; any others are counted together.
+ */
+class ColumnSummary {
+
+    static final int MAX_CATEGORIES = 100;
+    static final String OTHER = "(other)";
+
+    final String name;
+    final ColumnChunk.Type type;
+    long n, missing;
+    double mean, m2;
+    double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    final Map<String, Long> counts = new TreeMap<>();
+
+    ColumnSummary(String name, ColumnChunk.Type type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    void add(Object data) {
+        if (data == null) {
+            missing++;
+            return;
+        }
+        if (type == ColumnChunk.Type.STRING) {
+            n++;
+            String s = data.toString();
+            if (counts.containsKey(s) || counts.size() < MAX_CATEGORIES)
+                counts.merge(s, 1L, Long::sum);
+            else
+                counts.merge(OTHER, 1L, Long::sum);
+            return;
+        }
+        double x = data instanceof Boolean ? ((Boolean) data ? 1 : 0) : ((Number) data).doubleValue();
+        n++;
+        double delta = x - mean;
+        mean += delta / n;
+        m2 += delta * (x - mean);
+        if (x < min) min = x;
+        if (x > max) max = x;
+    }
+
+    /**
+     * Adds the values summarised by another summary of the same column.
+     */
+    void add(ColumnSummary other) {
+        missing += other.missing;
+        if (type == ColumnChunk.Type.STRING) {
+            n += other.n;
+            for (Map.Entry<String, Long> e : other.counts.entrySet()) {
+                if (counts.containsKey(e.getKey()) || counts.size() < MAX_CATEGORIES)
+                    counts.merge(e.getKey(), e.getValue(), Long::sum);
+                else
+                    counts.merge(OTHER, e.getValue(), Long::sum);
+            }
+            return;
+        }
+        if (other.n == 0) return;
+        long total = n + other.n;
+        double delta = other.mean - mean;
+        mean += delta * other.n / total;
+        m2 += other.m2 + delta * delta * n * other.n / total;
+        n = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    double sd() {
+        return n > 1 ? Math.sqrt(m2 / (n - 1)) : 0.0;
+    }
+
+    ColumnSummary copy() {
+        ColumnSummary copy = new ColumnSummary(name, type);
+        copy.add(this);
+        return copy;
+    }
+}
@@ -0,0 +1,232 @@
+package evaluation.metrics.columnar;
+
+import core.Game;
+import evaluation.metrics.AbstractMetric;
+import evaluation.metrics.IDataLogger;
+import evaluation.metrics.IDataProcessor;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A data logger that streams data to disk, so that its memory use does not grow with the number of games played
+ * (unlike DataTableSaw, which keeps all data in memory until it is reported).
+ * <p>
+ * Values are stored by column in primitive arrays (see ColumnChunk), with no boxing. Every rowGroupSize rows
+ * these are appended to a temporary file as a row group (see RowGroup for the format) and cleared. Summaries
+ * of the metric's own columns are updated as each value is added (see ColumnSummary), so reports do not need to
+ * read the raw data back; only the raw data report does, one row group at a time.
+ * <p>
+ * To use it, give its class name to MetricsGameListener, which otherwise uses DataTableSaw.
+ */
+public class ColumnarDataLogger implements IDataLogger {
+
+    public static final int DEFAULT_ROW_GROUP_SIZE = 1024;
+
+    final AbstractMetric metric;
+    final int rowGroupSize;
+
+    // columns in the order they were added, with the chunk holding the current row group for each
+    private final Map<String, ColumnChunk> columns = new LinkedHashMap<>();
+    private ColumnChunk[] columnArray = new ColumnChunk[0];
+    final Map<String, ColumnSummary> summaries = new LinkedHashMap<>();
+    private int fullColumns;
+
+    private File file;  // created when the first row group is written
+    private long rowsWritten;
+
+    public ColumnarDataLogger(AbstractMetric metric) {
+        this(metric, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    public ColumnarDataLogger(AbstractMetric metric, int rowGroupSize) {
+        if (rowGroupSize < 1)
+            throw new IllegalArgumentException("Row groups need at least one row");
+        this.metric = metric;
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    @Override
+    public void reset() {
+        discardData();
+        columns.clear();
+        columnArray = new ColumnChunk[0];
+        summaries.clear();
+    }
+
+    @Override
+    public void init(Game game, int nPlayersPerGame, Set<String> playerNames) {
+        for (Map.Entry<String, Class<?>> entry : metric.getDefaultColumns().entrySet())
+            addColumn(entry.getKey(), entry.getValue());
+
+        Map<String, Class<?>> metricColumns = metric.getColumns(nPlayersPerGame, playerNames);
+        for (Map.Entry<String, Class<?>> entry : metricColumns.entrySet()) {
+            if (addColumn(entry.getKey(), entry.getValue())) {
+                summaries.put(entry.getKey(), new ColumnSummary(entry.getKey(), ColumnChunk.Type.of(entry.getValue())));
+                // Keep the name of the column
+                metric.addColumnName(entry.getKey());
+            }
+        }
+    }
+
+    private boolean addColumn(String name, Class<?> type) {
+        if (columns.containsKey(name))
+            return false;
+        // Rows before this column existed are missing in it. This only happens with data from several player
+        // counts; it is simplest to start a new row group, as the columns are in the header of each one
+        if (rowsInProgress() > 0)
+            writeRowGroup(rowsInProgress());
+        columns.put(name, ColumnChunk.create(name, ColumnChunk.Type.of(type), rowGroupSize));
+        columnArray = columns.values().toArray(new ColumnChunk[0]);
+        return true;
+    }
+
+    @Override
+    public void addData(String columnName, Object data) {
+        ColumnChunk column = columns.get(columnName);
+        if (column == null)
+            throw new IllegalArgumentException("Unknown column " + columnName + " for " + metric.getName());
+        column.append(data);
+        ColumnSummary summary = summaries.get(columnName);
+        if (summary != null)
+            summary.add(data);
+        if (column.size == rowGroupSize && ++fullColumns == columnArray.length)
+            writeRowGroup(rowGroupSize);
+    }
+
+    // number of complete rows not yet written
+    private int rowsInProgress() {
+        int rows = Integer.MAX_VALUE;
+        for (ColumnChunk column : columnArray)
+            rows = Math.min(rows, column.size);
+        return columnArray.length == 0 ? 0 : rows;
+    }
+
+    private void writeRowGroup(int nRows) {
+        try {
+            if (file == null)
+                file = createFile();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                RowGroup.write(out, columnArray, nRows);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing metric data for " + metric.getName(), e);
+        }
+        rowsWritten += nRows;
+        fullColumns = 0;
+        for (ColumnChunk column : columnArray) {
+            column.removeFirst(nRows);
+            if (column.size >= rowGroupSize)
+                fullColumns++;
+        }
+    }
+
+    private File createFile() throws IOException {
+        File f = File.createTempFile("TAG-" + metric.getName() + "-", ".rowgroups");
+        f.deleteOnExit();
+        return f;
+    }
+
+    /**
+     * Writes any complete rows still held in memory, so that the file holds all the data.
+     *
+     * @return the file holding the data, or null if there is none
+     */
+    public File finishRowGroup() {
+        int rows = rowsInProgress();
+        if (rows > 0)
+            writeRowGroup(rows);
+        return file;
+    }
+
+    /**
+     * @return the number of rows recorded
+     */
+    public long getRowCount() {
+        return rowsWritten + rowsInProgress();
+    }
+
+    private void discardData() {
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+        rowsWritten = 0;
+        fullColumns = 0;
+        for (ColumnChunk column : columnArray)
+            column.removeFirst(column.size);
+    }
+
+    @Override
+    public IDataProcessor getDefaultProcessor() {
+        return new ColumnarDataProcessor();
+    }
+
+    /**
+     * Discards all data recorded so far, including the summaries, as DataTableSaw does.
+     */
+    @Override
+    public void flush() {
+        discardData();
+        for (Map.Entry<String, ColumnSummary> entry : summaries.entrySet())
+            entry.setValue(new ColumnSummary(entry.getKey(), entry.getValue().type));
+    }
+
+    /**
+     * Appends the other logger's data. Its row groups are copied to the end of this logger's file as they are,
+     * after writing any rows in progress in either logger.
+     */
+    @Override
+    public void merge(IDataLogger other) {
+        ColumnarDataLogger otherLogger = (ColumnarDataLogger) other;
+        for (ColumnChunk column : otherLogger.columnArray)
+            if (!columns.containsKey(column.name))
+                addColumn(column.name, column.type.dataClass);
+        finishRowGroup();
+        File otherFile = otherLogger.finishRowGroup();
+        if (otherFile != null) {
+            try {
+                if (file == null)
+                    file = createFile();
+                try (OutputStream out = Files.newOutputStream(file.toPath(), StandardOpenOption.APPEND)) {
+                    Files.copy(otherFile.toPath(), out);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error merging metric data for " + metric.getName(), e);
+            }
+            rowsWritten += otherLogger.rowsWritten;
+        }
+        for (ColumnSummary summary : otherLogger.summaries.values()) {
+            ColumnSummary mine = summaries.get(summary.name);
+            if (mine == null)
+                summaries.put(summary.name, summary.copy());
+            else
+                mine.add(summary);
+        }
+    }
+
+    @Override
+    public IDataLogger copy() {
+        ColumnarDataLogger copy = (ColumnarDataLogger) emptyCopy();
+        copy.merge(this);
+        return copy;
+    }
+
+    @Override
+    public IDataLogger emptyCopy() {
+        ColumnarDataLogger copy = new ColumnarDataLogger(metric, rowGroupSize);
+        for (ColumnChunk column : columnArray)
+            copy.columns.put(column.name, ColumnChunk.create(column.name, column.type, rowGroupSize));
+        copy.columnArray = copy.columns.values().toArray(new ColumnChunk[0]);
+        for (ColumnSummary summary : summaries.values())
+            copy.summaries.put(summary.name, new ColumnSummary(summary.name, summary.type));
+        return copy;
+    }
+
+    @Override
+    public IDataLogger create() {
+        return new ColumnarDataLogger(metric, rowGroupSize);
+    }
+}
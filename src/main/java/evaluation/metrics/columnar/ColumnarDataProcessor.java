@@ -0,0 +1,138 @@
+package evaluation.metrics.columnar;
+
+import evaluation.metrics.IDataLogger;
+import evaluation.metrics.IDataProcessor;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static utilities.Utils.createDirectory;
+
+/**
+ * Reports the data recorded by a ColumnarDataLogger. Raw data is written as CSV (with the same name as
+ * TableSawDataProcessor uses), reading the logger's file one row group at a time. Summaries come from the
+ * statistics the logger keeps as data is added. Plots are not supported.
+ */
+public class ColumnarDataProcessor implements IDataProcessor {
+
+    @Override
+    public void processRawDataToConsole(IDataLogger logger) {
+        ColumnarDataLogger cdl = (ColumnarDataLogger) logger;
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out));
+        System.out.println();
+        writeCsv(cdl, out, true);
+        out.flush();
+    }
+
+    @Override
+    public void processRawDataToFile(IDataLogger logger, String folderName, boolean append) {
+        ColumnarDataLogger cdl = (ColumnarDataLogger) logger;
+        File file = new File(folderName + "/" + cdl.metric.getName() + ".csv");
+        boolean headerNeeded = !append || !file.exists();
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file, append)))) {
+            writeCsv(cdl, out, headerNeeded);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeCsv(ColumnarDataLogger logger, PrintWriter out, boolean header) {
+        File file = logger.finishRowGroup();
+        if (file == null)
+            return;
+        // the columns of the first row group are used for all; any others (only possible after merging data for
+        // different player counts) are left out
+        List<String> columns = new ArrayList<>();
+        boolean[] first = {header};
+        RowGroup.read(file, group -> {
+            if (columns.isEmpty()) {
+                for (int c = 0; c < group.getColumnCount(); c++)
+                    columns.add(group.getColumnName(c));
+            }
+            if (first[0]) {
+                out.println(String.join(",", columns.stream().map(ColumnarDataProcessor::csvValue).toList()));
+                first[0] = false;
+            }
+            int[] index = new int[columns.size()];
+            Map<String, Integer> groupColumns = new HashMap<>();
+            for (int c = 0; c < group.getColumnCount(); c++)
+                groupColumns.put(group.getColumnName(c), c);
+            for (int c = 0; c < index.length; c++)
+                index[c] = groupColumns.getOrDefault(columns.get(c), -1);
+            StringBuilder sb = new StringBuilder();
+            for (int row = 0; row < group.getRowCount(); row++) {
+                sb.setLength(0);
+                for (int c = 0; c < index.length; c++) {
+                    if (c > 0) sb.append(',');
+                    Object value = index[c] < 0 ? null : group.get(index[c], row);
+                    if (value != null) sb.append(csvValue(value));
+                }
+                out.println(sb);
+            }
+        });
+    }
+
+    private static String csvValue(Object value) {
+        String s = value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+            return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    // one row per numeric column, then one row per value of each string column
+    private List<String> summaryLines(ColumnarDataLogger logger) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Column,Value,Count,Missing,Mean,SD,Min,Max");
+        for (ColumnSummary summary : logger.summaries.values()) {
+            if (summary.n == 0 && summary.missing == 0) continue;
+            if (summary.type == ColumnChunk.Type.STRING) {
+                for (Map.Entry<String, Long> e : summary.counts.entrySet())
+                    lines.add(String.join(",", csvValue(summary.name), csvValue(e.getKey()),
+                            String.valueOf(e.getValue()), String.valueOf(summary.missing), "", "", "", ""));
+            } else {
+                boolean any = summary.n > 0;
+                lines.add(String.join(",", csvValue(summary.name), "", String.valueOf(summary.n),
+                        String.valueOf(summary.missing),
+                        any ? String.valueOf(summary.mean) : "", any ? String.valueOf(summary.sd()) : "",
+                        any ? String.valueOf(summary.min) : "", any ? String.valueOf(summary.max) : ""));
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public void processSummaryToConsole(IDataLogger logger) {
+        ColumnarDataLogger cdl = (ColumnarDataLogger) logger;
+        System.out.println();
+        System.out.println(cdl.metric.getName());
+        for (String line : summaryLines(cdl))
+            System.out.println(line);
+    }
+
+    @Override
+    public void processSummaryToFile(IDataLogger logger, String folderName) {
+        ColumnarDataLogger cdl = (ColumnarDataLogger) logger;
+        String folder = folderName + "/summaries/" + cdl.metric.getName();
+        if (!new File(folder).exists())
+            createDirectory(folder);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(folder + "/Summary.csv")))) {
+            for (String line : summaryLines(cdl))
+                out.println(line);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void processPlotToConsole(IDataLogger logger) {
+        System.out.println("Plot report to console not implemented yet");
+    }
+
+    @Override
+    public void processPlotToFile(IDataLogger logger, String folderName) {
+        System.out.println("Plot reports are not supported by " + getClass().getSimpleName());
+    }
+}
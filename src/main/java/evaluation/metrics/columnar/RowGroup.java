@@ -0,0 +1,79 @@
+package evaluation.metrics.columnar;
+
+import java.io.*;
+import java.util.function.Consumer;
+
+/**
+ * One row group of a file written by ColumnarDataLogger. The file is a sequence of row groups, each of which is
+ * self-contained:
+ * <pre>
+ *   int nRows, int nColumns
+ *   for each column: UTF name, byte type, missing bitmap (longs), then the values:
+ *     INT - nRows ints; DOUBLE - nRows doubles; BOOLEAN - bitmap (longs);
+ *     STRING - int dictionary size, UTF dictionary entries, nRows int codes into the dictionary
+ * </pre>
+ * Files can therefore be appended to each other, and are read one row group at a time (see read()).
+ */
+public class RowGroup {
+
+    private final int nRows;
+    private final ColumnChunk[] columns;
+
+    private RowGroup(int nRows, ColumnChunk[] columns) {
+        this.nRows = nRows;
+        this.columns = columns;
+    }
+
+    static void write(DataOutputStream out, ColumnChunk[] columns, int nRows) throws IOException {
+        out.writeInt(nRows);
+        out.writeInt(columns.length);
+        for (ColumnChunk column : columns)
+            column.write(out, nRows);
+    }
+
+    /**
+     * Reads the row groups in a file in order, holding only one in memory at a time.
+     *
+     * @param file     - file written by ColumnarDataLogger
+     * @param consumer - called with each row group
+     */
+    public static void read(File file, Consumer<RowGroup> consumer) {
+        if (!file.exists())
+            return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int nRows;
+                try {
+                    nRows = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                ColumnChunk[] columns = new ColumnChunk[in.readInt()];
+                for (int i = 0; i < columns.length; i++)
+                    columns[i] = ColumnChunk.read(in, nRows);
+                consumer.accept(new RowGroup(nRows, columns));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading " + file, e);
+        }
+    }
+
+    public int getRowCount() {
+        return nRows;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public String getColumnName(int column) {
+        return columns[column].name;
+    }
+
+    /**
+     * @return the value (Integer, Double, Boolean or String), or null if it is missing
+     */
+    public Object get(int column, int row) {
+        return columns[column].get(row);
+    }
+}
@@ -125,6 +125,14 @@ public class DataTableSaw implements IDataLogger {
         this.data = data.emptyCopy();
     }
 
+    @Override
+    public void merge(IDataLogger other) {
+        Table otherData = ((DataTableSaw) other).data;
+        for (Column<?> column : otherData.columns()) {
+            ((Column<Object>) data.column(column.name())).append((Column<Object>) column);
+        }
+    }
+
     @Override
     public IDataLogger copy() {
         return new DataTableSaw(metric, data.copy());
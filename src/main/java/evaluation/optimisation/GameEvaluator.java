@@ -13,19 +13,26 @@ import games.GameType;
 import players.IAnyTimePlayer;
 
 import java.util.*;
-import java.util.stream.IntStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static evaluation.optimisation.NTBEAParameters.Mode.CoopNTBEA;
 import static evaluation.optimisation.NTBEAParameters.Mode.StableNTBEA;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Game Evaluator is used for NTBEA optimisation of parameters. It implements the SolutionEvaluator interface.
  * On each NTBEA trial the evaluate(int[] settings) function is called with the set of parameters to try next.
  * The meaning of these settings is encapsulated in the AgentSearchSpace, as this will vary with whatever is being
  * optimised.
+ * <p>
+ * If params.nThreads is more than 1, then evaluateAll() plays the games of several evaluations concurrently.
+ * Everything that uses the random number generator (seeds, opponents, player instantiation) is still done in order
+ * on the calling thread, so the results are the same as for sequential calls to evaluate(). The threads are kept
+ * for later calls until close().
  */
-public class GameEvaluator implements SolutionEvaluator {
+public class GameEvaluator implements SolutionEvaluator, AutoCloseable {
 
     NTBEAParameters params;
     public boolean debug = false;
@@ -40,6 +47,14 @@ public class GameEvaluator implements SolutionEvaluator {
     IStateHeuristic stateHeuristic;
     IGameHeuristic gameHeuristic;
     List<IGameListener> listeners = new ArrayList<>();
+    ExecutorService executor;
+
+    /**
+     * One game of an evaluation, with the players and seed already chosen.
+     * teamIndex is -99 if we are not tuning a player.
+     */
+    record PlannedGame(Game game, List<AbstractPlayer> players, long seed, int teamIndex, boolean tuningGame) {
+    }
 
     /**
      * GameEvaluator
@@ -90,6 +105,67 @@ public class GameEvaluator implements SolutionEvaluator {
      */
     @Override
     public double evaluate(int[] settings) {
+        List<PlannedGame> games = planEvaluation(settings);
+        double retValue = 0.0;
+        for (PlannedGame plannedGame : games)
+            retValue += playGame(plannedGame) / games.size();
+        return retValue;
+    }
+
+    /**
+     * Evaluates all the settings, playing the games on params.nThreads threads.
+     * The results are the same as calling evaluate() on each of the settings in turn.
+     */
+    @Override
+    public double[] evaluateAll(List<int[]> solutions) {
+        if (params.nThreads <= 1 || solutions.size() <= 1)
+            return SolutionEvaluator.super.evaluateAll(solutions);
+        if (executor == null)
+            executor = Executors.newFixedThreadPool(params.nThreads, r -> {
+                Thread thread = new Thread(r, "GameEvaluator");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        List<List<Future<Double>>> futures = new ArrayList<>(solutions.size());
+        for (int[] settings : solutions) {
+            List<Future<Double>> gameFutures = new ArrayList<>();
+            for (PlannedGame plannedGame : planEvaluation(settings))
+                gameFutures.add(executor.submit(() -> playGame(plannedGame)));
+            futures.add(gameFutures);
+        }
+        double[] results = new double[solutions.size()];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                List<Future<Double>> gameFutures = futures.get(i);
+                for (Future<Double> f : gameFutures)
+                    results[i] += f.get() / gameFutures.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during parallel evaluation", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Parallel evaluation game failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Shuts down the threads used by evaluateAll(). They are started again if evaluateAll() is called after this.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Sets up the games for one evaluation of the settings. This is where all random choices are made, so it
+     * must be called in the same order as a sequential run would call evaluate().
+     */
+    private List<PlannedGame> planEvaluation(int[] settings) {
         if (debug)
             System.out.printf("Starting evaluation %d of %s at %tT%n", nEvals,
                     Arrays.toString(settings), System.currentTimeMillis());
@@ -97,7 +173,7 @@ public class GameEvaluator implements SolutionEvaluator {
         boolean tuningPlayer = configuredThing instanceof AbstractPlayer;
         boolean tuningGame = configuredThing instanceof Game;
 
-        Game newGame = tuningGame ? (Game) configuredThing : game.createGameInstance(nPlayers, gameParams);
+        Game newGame = tuningGame ? (Game) configuredThing : createGame();
         // we assign one player to each team (the default for a game is each player being their own team of 1)
         int nTeams = newGame.getGameState().getNTeams();
 
@@ -112,36 +188,44 @@ public class GameEvaluator implements SolutionEvaluator {
             throw new AssertionError("StableNTBEA mode requires tuning of player");
         int gamesToRun = params.mode == StableNTBEA ? nTeams : 1;
         long seed = rnd.nextLong();
-        double retValue = 0.0;
+        List<PlannedGame> games = new ArrayList<>(gamesToRun);
         for (int loop = 0; loop < gamesToRun; loop++) {
             int thisTeamIndex = teamIndex == -99 ? -99 : (teamIndex + loop) % nTeams;
             List<AbstractPlayer> allPlayers = setupPlayers(thisTeamIndex, nTeams, settings);
+            // each game needs its own Game if they are to be run concurrently
+            Game gameToRun = loop == 0 ? newGame : createGame();
+            games.add(new PlannedGame(gameToRun, allPlayers, seed, thisTeamIndex, tuningGame));
+        }
 
-            // always reset the random seed for each new game
-            newGame.reset(allPlayers, seed);
-            newGame.run();
+        nEvals++;
+        return games;
+    }
+
+    private Game createGame() {
+        return game.createGameInstance(nPlayers, gameParams == null ? null : gameParams.copy());
+    }
 
-            int playerOnTeam = -1;
-            for (int p = 0; p < newGame.getGameState().getNPlayers(); p++) {
-                if (newGame.getGameState().getTeam(p) == thisTeamIndex) {
-                    playerOnTeam = p;
-                }
+    private double playGame(PlannedGame plannedGame) {
+        Game newGame = plannedGame.game();
+        // always reset the random seed for each new game
+        newGame.reset(plannedGame.players(), plannedGame.seed());
+        newGame.run();
+
+        int playerOnTeam = -1;
+        for (int p = 0; p < newGame.getGameState().getNPlayers(); p++) {
+            if (newGame.getGameState().getTeam(p) == plannedGame.teamIndex()) {
+                playerOnTeam = p;
             }
-            if (tuningPlayer && playerOnTeam == -1)
-                throw new AssertionError("No Player found on team " + thisTeamIndex);
-            retValue += (tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerOnTeam)) / gamesToRun;
         }
-
-        nEvals++;
-        return retValue;
+        if (plannedGame.teamIndex() != -99 && playerOnTeam == -1)
+            throw new AssertionError("No Player found on team " + plannedGame.teamIndex());
+        return plannedGame.tuningGame() ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerOnTeam);
     }
 
     private List<AbstractPlayer> setupPlayers(int teamIndex, int nTeams, int[] settings) {
         List<AbstractPlayer> allPlayers = new ArrayList<>(nPlayers);
-        // create a random permutation of opponents - this is used if we want to avoid opponent duplicates
+        // if we want to avoid opponent duplicates we cycle through them in order
         // if we allow duplicates, then we randomise them all independently
-        List<Integer> opponentOrdering = IntStream.range(0, opponents.size()).boxed().collect(toList());
-        Collections.shuffle(opponentOrdering);
         int count = 0;
         for (int i = 0; i < nTeams; i++) {
             if (params.mode != CoopNTBEA && i != teamIndex) {
@@ -157,6 +157,16 @@ public class NTBEA {
      * @return
      */
     public Pair<Object, int[]> run() {
+        try {
+            return runAllIterations();
+        } finally {
+            // the threads used to play evaluation games in parallel are not needed once the search is over
+            if (evaluator instanceof GameEvaluator gameEvaluator)
+                gameEvaluator.close();
+        }
+    }
+
+    private Pair<Object, int[]> runAllIterations() {
 
         for (currentIteration = 0; currentIteration < params.repeats; currentIteration++) {
             // Check for existence of the output file. If it already exists, then we
@@ -213,6 +223,7 @@ public class NTBEA {
                 config.put(RunArg.budget, params.budget);
                 config.put(RunArg.verbose, false);
                 config.put(RunArg.destDir, params.destDir);
+                config.put(RunArg.nThreads, params.nThreads);
                 RoundRobinTournament tournament = new RoundRobinTournament(players, game, nPlayers, params.gameParams, config);
                 createListeners().forEach(tournament::addListener);
                 tournament.run();
@@ -371,8 +382,7 @@ public class NTBEA {
 
     protected Pair<Double, Double> evaluateWinner(int[] winnerSettings) {
 
-        double[] results = IntStream.range(0, params.evalGames)
-                .mapToDouble(answer -> evaluator.evaluate(winnerSettings)).toArray();
+        double[] results = evaluator.evaluateAll(Collections.nCopies(params.evalGames, winnerSettings));
         Arrays.sort(results);
         double avg = Arrays.stream(results).average().orElse(0.0);
         double stdErr = Math.sqrt(Arrays.stream(results).map(d -> Math.pow(d - avg, 2.0)).sum()) / (params.evalGames - 1.0);
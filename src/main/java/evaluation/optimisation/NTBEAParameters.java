@@ -59,6 +59,7 @@ public class NTBEAParameters extends TunableParameters<NTBEA> {
     public boolean byTeam = false;
     public GameType gameType;
     public int nPlayers;
+    public int nThreads = 1;
 
     public NTBEAParameters() {
         addTunableParameter("iterations", 1000);
@@ -146,6 +147,7 @@ public class NTBEAParameters extends TunableParameters<NTBEA> {
         byTeam = (boolean) args.get(RunArg.byTeam);
         gameType = GameType.valueOf(args.get(RunArg.game).toString());
         nPlayers = (int) args.get(RunArg.nPlayers);
+        nThreads = (int) args.getOrDefault(RunArg.nThreads, 1);
         gameParams = args.get(RunArg.gameParams).equals("") ? null :
                 AbstractParameters.createFromFile(gameType, (String) args.get(RunArg.gameParams));
 
@@ -231,6 +233,7 @@ public class NTBEAParameters extends TunableParameters<NTBEA> {
         ntp.gameType = gameType;
         ntp.nPlayers = nPlayers;
         ntp.logFile = logFile;
+        ntp.nThreads = nThreads;
         return ntp;
     }
 
@@ -245,7 +248,8 @@ public class NTBEAParameters extends TunableParameters<NTBEA> {
                     destDir.equals(parameters.destDir) &&
                     gameType.equals(parameters.gameType) &&
                     logFile.equals(parameters.logFile) &&
-                    nPlayers == parameters.nPlayers;
+                    nPlayers == parameters.nPlayers &&
+                    nThreads == parameters.nThreads;
         }
         return false;
     }
@@ -3,7 +3,9 @@ package evaluation.optimisation.ntbea;
 import evaluation.optimisation.NTBEAParameters;
 import utilities.StatSummary;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -18,23 +20,36 @@ public class NTupleBanditEA {
     // they are only explored IN THE FITNESS LANDSCAPE MODEL, not by sampling the fitness function
     int nNeighbours;
     int nSamples = 1;
+    // the number of points evaluated together on each step; the current point plus the next best neighbours
+    int batchSize = 1;
 
     public NTupleBanditEA(LandscapeModel model, NTBEAParameters params) {
         landscapeModel = model;
         this.nNeighbours = params.neighbourhoodSize;
         this.nSamples = params.evaluationsPerTrial;
+        this.batchSize = Math.max(1, params.nThreads);
+        this.rnd = new Random(params.seed);
     }
 
-    StatSummary fitness(SolutionEvaluator evaluator, int[] sol) {
-        StatSummary ss = new StatSummary();
-        for (int i = 0; i < nSamples; i++) {
-            double fitness = evaluator.evaluate(sol);
-            ss.add(fitness);
+    // evaluates each point nSamples times, with all the evaluations passed to the evaluator together
+    double[] fitness(SolutionEvaluator evaluator, List<int[]> points) {
+        List<int[]> solutions = new ArrayList<>(points.size() * nSamples);
+        for (int[] point : points) {
+            for (int i = 0; i < nSamples; i++)
+                solutions.add(point);
         }
-        return ss;
+        double[] results = evaluator.evaluateAll(solutions);
+        double[] retValue = new double[points.size()];
+        for (int p = 0; p < points.size(); p++) {
+            StatSummary ss = new StatSummary();
+            for (int i = 0; i < nSamples; i++)
+                ss.add(results[p * nSamples + i]);
+            retValue[p] = ss.mean();
+        }
+        return retValue;
     }
 
-    Random rnd = new Random();
+    Random rnd;
     SolutionEvaluator evaluator;
 
     public void runTrial(SolutionEvaluator evaluator, int nEvals) {
@@ -48,26 +63,32 @@ public class NTupleBanditEA {
         // then each time around the loop try the following
         // create a neighbourhood set of points and pick the best one that combines its exploitation and evaluation scores
 
-        int[] p = SearchSpaceUtil.randomPoint(searchSpace);
-
-        for (int i = 0; i < nEvals; i++) {
-            // each time around the loop we make one fitness evaluation of p
-            // and add this NEW information to the memory
-            double fitness;
-            if (nSamples == 1) {
-                fitness = evaluator.evaluate(p);
-            } else {
-                fitness = fitness(evaluator, p).mean();
+        int[] p = SearchSpaceUtil.randomPoint(searchSpace, rnd);
+        List<int[]> runnersUp = new ArrayList<>();
+
+        int i = 0;
+        while (i < nEvals) {
+            // each time around the loop we make one fitness evaluation of p (and of the runners-up from the
+            // last neighbourhood if batchSize > 1) and add this NEW information to the memory
+            List<int[]> batch = new ArrayList<>(batchSize);
+            batch.add(p);
+            for (int[] point : runnersUp) {
+                if (batch.size() >= Math.min(batchSize, nEvals - i))
+                    break;
+                batch.add(point);
             }
-
-            landscapeModel.addPoint(p, fitness);
+            double[] fitness = fitness(evaluator, batch);
+            for (int b = 0; b < batch.size(); b++)
+                landscapeModel.addPoint(batch.get(b), fitness[b]);
+            i += batch.size();
 
             // and then explore the neighbourhood around p, balancing exploration and exploitation
             // we currently hardcode one mutation function to randomly change one setting at a time
+            // the best neighbour becomes the next p, and the next best ones (if any) are evaluated with it
 
             int nDims = searchSpace.nDims();
-            double bestSoFar = Double.NEGATIVE_INFINITY;
-            int[] settingToTryNext = new int[0];
+            List<int[]> best = new ArrayList<>(batchSize);
+            List<Double> bestUpperBounds = new ArrayList<>(batchSize);
             for (int n = 0; n < nNeighbours; n++) {
                 int[] pp = Arrays.copyOf(p, p.length);
                 boolean mutation = false;
@@ -86,15 +107,26 @@ public class NTupleBanditEA {
                 }
 
                 double estimatedUpperBound = landscapeModel.getUpperBound(pp);
-                if (estimatedUpperBound > bestSoFar) {
-                    settingToTryNext = pp;
-                    bestSoFar = estimatedUpperBound;
+                // the bound can be NaN once a tuple is well sampled; such points are never picked
+                if (!(estimatedUpperBound > Double.NEGATIVE_INFINITY) || best.stream().anyMatch(x -> Arrays.equals(x, pp)))
+                    continue;
+                // insert after any equal values, so that the first of equal neighbours is preferred
+                int pos = 0;
+                while (pos < best.size() && !(estimatedUpperBound > bestUpperBounds.get(pos)))
+                    pos++;
+                if (pos < batchSize) {
+                    best.add(pos, pp);
+                    bestUpperBounds.add(pos, estimatedUpperBound);
+                    if (best.size() > batchSize) {
+                        best.remove(batchSize);
+                        bestUpperBounds.remove(batchSize);
+                    }
                 }
             }
 
-            if (settingToTryNext.length == 0)
-                settingToTryNext = p;
-            p = settingToTryNext;
+            if (!best.isEmpty())
+                p = best.get(0);
+            runnersUp = best.isEmpty() ? new ArrayList<>() : best.subList(1, best.size());
         }
     }
 }
@@ -19,6 +19,10 @@ public class SearchSpaceUtil {
     static Random random = new Random();
 
     public static int[] randomPoint(SearchSpace space) {
+        return randomPoint(space, random);
+    }
+
+    public static int[] randomPoint(SearchSpace space, Random random) {
 
         int[] p = new int[space.nDims()];
         for (int i = 0; i < p.length; i++) {
@@ -1,5 +1,7 @@
 package evaluation.optimisation.ntbea;
 
+import java.util.List;
+
 public interface SolutionEvaluator {
     /**
      * Created by simonmarklucas on 06/08/2016.
@@ -21,6 +23,20 @@ public interface SolutionEvaluator {
     double evaluate(int[] solution);
     // has the algorithm found the optimal solution?
 
+    /**
+     * Evaluates several sets of parameter settings. Implementations may run the evaluations concurrently, but the
+     * results must be the same as calling evaluate() on each solution in turn.
+     *
+     * @param solutions The settings to evaluate, in the order evaluate() would be called.
+     * @return The result for each solution, in the same order.
+     */
+    default double[] evaluateAll(List<int[]> solutions) {
+        double[] results = new double[solutions.size()];
+        for (int i = 0; i < results.length; i++)
+            results[i] = evaluate(solutions.get(i));
+        return results;
+    }
+
     /**
      * @return TThe search space being used
      */
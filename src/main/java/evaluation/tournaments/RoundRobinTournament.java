@@ -1,7 +1,9 @@
 package evaluation.tournaments;
 
+import core.AbstractGameState;
 import core.AbstractParameters;
 import core.AbstractPlayer;
+import core.Game;
 import evaluation.RunArg;
 import evaluation.listeners.IGameListener;
 import evaluation.listeners.TournamentMetricsGameListener;
@@ -15,6 +17,10 @@ import utilities.*;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -56,6 +62,42 @@ public class RoundRobinTournament extends AbstractTournament {
     String seedFile;
     Random seedRnd;
 
+    // Number of threads to run matchups on. If parallel, evaluateMatchUp() queues matchups in pendingMatchUps
+    // which are then run together, and recorded in the order they were queued.
+    int nThreads;
+    List<MatchUp> pendingMatchUps;
+    Set<String> agentNames;
+
+    /**
+     * One call to evaluateMatchUp(), with everything a worker thread needs to play its games.
+     */
+    record MatchUp(List<Integer> agentIDs, List<AbstractPlayer> players, List<Integer> seeds, int firstGameID) {
+    }
+
+    /**
+     * The parts of a finished game that the tournament statistics use, so the game state can be reused.
+     */
+    record GameOutcome(GameResult[] results, int[] ordinals, double[] scores, int[] teams) {
+        static GameOutcome of(AbstractGameState state) {
+            int n = state.getNPlayers();
+            int[] ordinals = new int[n];
+            double[] scores = new double[n];
+            int[] teams = new int[n];
+            for (int p = 0; p < n; p++) {
+                ordinals[p] = state.getOrdinalPosition(p);
+                scores[p] = state.getGameScore(p);
+                teams[p] = state.getTeam(p);
+            }
+            return new GameOutcome(state.getPlayerResults().clone(), ordinals, scores, teams);
+        }
+    }
+
+    /**
+     * The games of one matchup as played on a worker thread, with the listener copies that recorded them.
+     */
+    record MatchUpResult(List<GameOutcome> outcomes, List<IGameListener> listeners) {
+    }
+
     /**
      * Create a round robin tournament, which plays all agents against all others.
      *
@@ -151,6 +193,7 @@ public class RoundRobinTournament extends AbstractTournament {
         this.randomSeed = ((Number) config.getOrDefault(RunArg.seed, System.currentTimeMillis())).longValue();
         this.seedRnd = new Random(randomSeed);
         this.randomGameParams = (boolean) config.getOrDefault(RunArg.randomGameParams, false);
+        this.nThreads = (int) config.getOrDefault(RunArg.nThreads, 1);
 
         this.name = String.format("Game: %s, Players: %d, Mode: %s, TotalGames: %d, GamesPerMatchup: %d",
                 gameToPlay.name(), playersPerGame, tournamentMode, actualGames, gamesPerMatchup);
@@ -168,7 +211,7 @@ public class RoundRobinTournament extends AbstractTournament {
         if (verbose)
             System.out.println("Playing " + game.getGameType().name());
 
-        Set<String> agentNames = agents.stream()
+        agentNames = agents.stream()
                 //           .peek(a -> System.out.println(a.toString()))
                 .map(AbstractPlayer::toString).collect(Collectors.toSet());
 
@@ -177,6 +220,8 @@ public class RoundRobinTournament extends AbstractTournament {
             game.addListener(gameTracker);
         }
 
+        pendingMatchUps = canRunInParallel() ? new ArrayList<>() : null;
+
         LinkedList<Integer> matchUp = new LinkedList<>();
         // add outer loop if we have tournamentSeeds enabled; if not this will just run once
         List<Integer> allSeeds = new ArrayList<>(gameSeeds);
@@ -192,6 +237,10 @@ public class RoundRobinTournament extends AbstractTournament {
             }
             createAndRunMatchUp(matchUp);
         }
+        if (pendingMatchUps != null) {
+            runPendingMatchUps();
+            pendingMatchUps = null;
+        }
         reportResults();
 
         for (IGameListener listener : listeners)
@@ -331,15 +380,16 @@ public class RoundRobinTournament extends AbstractTournament {
         for (int agentID : agentIDsInThisGame)
             matchUpPlayers.add(this.agents.get(agentID).copy());
 
-        if (verbose) {
-            StringBuffer sb = new StringBuffer();
-            sb.append("[");
-            for (int agentID : agentIDsInThisGame)
-                sb.append(this.agents.get(agentID).toString()).append(",");
-            sb.setCharAt(sb.length() - 1, ']');
-            System.out.println(sb);
+        if (pendingMatchUps != null) {
+            // the game IDs are reserved now so that they match those of a sequential run
+            pendingMatchUps.add(new MatchUp(new ArrayList<>(agentIDsInThisGame), matchUpPlayers,
+                    new ArrayList<>(seeds.subList(0, nGames)), Game.reserveGameIDs(nGames)));
+            return;
         }
 
+        if (verbose)
+            printMatchUp(agentIDsInThisGame);
+
         // TODO : Not sure this is the ideal place for this...ask Raluca
         Set<String> agentNames = agents.stream().map(AbstractPlayer::toString).collect(Collectors.toSet());
         for (IGameListener listener : listeners) {
@@ -361,72 +411,166 @@ public class RoundRobinTournament extends AbstractTournament {
             }
 
             game.run();  // Always running tournaments without visuals
-            GameResult[] results = game.getGameState().getPlayerResults();
-
-            int numDraws = 0;
-            for (int j = 0; j < matchUpPlayers.size(); j++) {
-                nGamesPlayed[agentIDsInThisGame.get(j)] += 1;
-                for (int k = 0; k < matchUpPlayers.size(); k++) {
-                    if (k != j) {
-                        nGamesPlayedPerOpponent[agentIDsInThisGame.get(j)][agentIDsInThisGame.get(k)] += 1;
-                    }
+            recordGame(agentIDsInThisGame, GameOutcome.of(game.getGameState()));
+        }
+    }
+
+    /**
+     * Games can only be run in parallel if every listener can be copied for each matchup and merged back,
+     * and the game parameters do not change between games.
+     */
+    private boolean canRunInParallel() {
+        if (nThreads <= 1)
+            return false;
+        if (randomGameParams) {
+            System.out.println("randomGameParams is set, so the tournament will run on one thread");
+            return false;
+        }
+        for (IGameListener listener : listeners) {
+            if (listener.emptyCopy() == null) {
+                System.out.println(listener.getClass().getSimpleName() + " cannot be copied, so the tournament will run on one thread");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plays all queued matchups on a pool of nThreads workers, each with its own Game. The results and the
+     * listener copies for each matchup are then recorded in the order the matchups were queued, which makes
+     * the statistics and listener output independent of the number of threads.
+     */
+    private void runPendingMatchUps() {
+        AbstractParameters gameParams = game.getGameState().getGameParameters();
+        ThreadLocal<Game> workerGame = ThreadLocal.withInitial(() ->
+                game.getGameType().createGameInstance(nPlayers, gameParams.copy()));
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<MatchUpResult>> futures = new ArrayList<>(pendingMatchUps.size());
+            for (MatchUp matchUp : pendingMatchUps)
+                futures.add(executor.submit(() -> playMatchUp(workerGame.get(), matchUp)));
+
+            for (int m = 0; m < pendingMatchUps.size(); m++) {
+                MatchUp matchUp = pendingMatchUps.get(m);
+                MatchUpResult result = futures.get(m).get();
+                if (verbose)
+                    printMatchUp(matchUp.agentIDs());
+                for (GameOutcome outcome : result.outcomes())
+                    recordGame(matchUp.agentIDs(), outcome);
+                for (int i = 0; i < listeners.size(); i++)
+                    listeners.get(i).merge(result.listeners().get(i));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running tournament", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error running tournament matchup", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MatchUpResult playMatchUp(Game workerGame, MatchUp matchUp) {
+        List<IGameListener> listenerCopies = new ArrayList<>(listeners.size());
+        workerGame.clearListeners();
+        for (IGameListener listener : listeners) {
+            IGameListener copy = listener.emptyCopy();
+            copy.init(workerGame, nPlayers, agentNames);
+            workerGame.addListener(copy);
+            listenerCopies.add(copy);
+        }
+
+        List<GameOutcome> outcomes = new ArrayList<>(matchUp.seeds().size());
+        for (int i = 0; i < matchUp.seeds().size(); i++) {
+            workerGame.reset(matchUp.players(), matchUp.seeds().get(i), matchUp.firstGameID() + i);
+            workerGame.run();
+            outcomes.add(GameOutcome.of(workerGame.getGameState()));
+        }
+        return new MatchUpResult(outcomes, listenerCopies);
+    }
+
+    private void printMatchUp(List<Integer> agentIDsInThisGame) {
+        StringBuffer sb = new StringBuffer();
+        sb.append("[");
+        for (int agentID : agentIDsInThisGame)
+            sb.append(this.agents.get(agentID).toString()).append(",");
+        sb.setCharAt(sb.length() - 1, ']');
+        System.out.println(sb);
+    }
+
+    /**
+     * Adds the result of one game to the tournament statistics.
+     *
+     * @param agentIDsInThisGame - IDs of agents that played the game, in player (or team) order.
+     * @param outcome            - results of the game.
+     */
+    private void recordGame(List<Integer> agentIDsInThisGame, GameOutcome outcome) {
+        GameResult[] results = outcome.results();
+        int nPlayersInGame = results.length;
+
+        int numDraws = 0;
+        for (int j = 0; j < agentIDsInThisGame.size(); j++) {
+            nGamesPlayed[agentIDsInThisGame.get(j)] += 1;
+            for (int k = 0; k < agentIDsInThisGame.size(); k++) {
+                if (k != j) {
+                    nGamesPlayedPerOpponent[agentIDsInThisGame.get(j)][agentIDsInThisGame.get(k)] += 1;
                 }
+            }
 
-                // now we need to be careful if we have a team game, as the agents are indexed by Team, not player
-                if (byTeam) {
-                    for (int player = 0; player < game.getGameState().getNPlayers(); player++) {
-                        if (game.getGameState().getTeam(player) == j) {
-                            numDraws += updatePoints(results, agentIDsInThisGame, agentIDsInThisGame.get(j), player);
-                            break; // we stop after one player on the team to avoid double counting
-                        }
+            // now we need to be careful if we have a team game, as the agents are indexed by Team, not player
+            if (byTeam) {
+                for (int player = 0; player < nPlayersInGame; player++) {
+                    if (outcome.teams()[player] == j) {
+                        numDraws += updatePoints(outcome, agentIDsInThisGame, agentIDsInThisGame.get(j), player);
+                        break; // we stop after one player on the team to avoid double counting
                     }
-                } else {
-                    numDraws += updatePoints(results, agentIDsInThisGame, agentIDsInThisGame.get(j), j);
                 }
+            } else {
+                numDraws += updatePoints(outcome, agentIDsInThisGame, agentIDsInThisGame.get(j), j);
             }
+        }
 
-            if (numDraws > 0) {
-                double pointsPerDraw = 1.0 / numDraws;
-                for (int j = 0; j < matchUpPlayers.size(); j++) {
-                    if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDsInThisGame.get(j)] += pointsPerDraw;
-                    if (results[j] == GameResult.DRAW_GAME)
-                        pointsPerPlayerSquared[agentIDsInThisGame.get(j)] += pointsPerDraw * pointsPerDraw;
-                }
+        if (numDraws > 0) {
+            double pointsPerDraw = 1.0 / numDraws;
+            for (int j = 0; j < agentIDsInThisGame.size(); j++) {
+                if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDsInThisGame.get(j)] += pointsPerDraw;
+                if (results[j] == GameResult.DRAW_GAME)
+                    pointsPerPlayerSquared[agentIDsInThisGame.get(j)] += pointsPerDraw * pointsPerDraw;
             }
+        }
 
-            if (verbose) {
-                StringBuffer sb = new StringBuffer();
-                sb.append("[");
-                for (int j = 0; j < matchUpPlayers.size(); j++) {
-                    for (int player = 0; player < game.getGameState().getNPlayers(); player++) {
-                        if (game.getGameState().getTeam(player) == j) {
-                            sb.append(results[player]).append(",");
-                            break; // we stop after one player on the team to avoid double counting
-                        }
+        if (verbose) {
+            StringBuffer sb = new StringBuffer();
+            sb.append("[");
+            for (int j = 0; j < agentIDsInThisGame.size(); j++) {
+                for (int player = 0; player < nPlayersInGame; player++) {
+                    if (outcome.teams()[player] == j) {
+                        sb.append(results[player]).append(",");
+                        break; // we stop after one player on the team to avoid double counting
                     }
                 }
-                sb.setCharAt(sb.length() - 1, ']');
-                System.out.println(sb);
             }
-
+            sb.setCharAt(sb.length() - 1, ']');
+            System.out.println(sb);
         }
-        totalGamesRun += nGames;
+        totalGamesRun++;
     }
 
-    private int updatePoints(GameResult[] results, List<Integer> matchUpPlayers, int j, int player) {
+    private int updatePoints(GameOutcome outcome, List<Integer> matchUpPlayers, int j, int player) {
         // j is the index of the agent in the matchup; player is the corresponding player number in the game
-        int ordinalPos = game.getGameState().getOrdinalPosition(player);
+        GameResult[] results = outcome.results();
+        int ordinalPos = outcome.ordinals()[player];
         rankPerPlayer[j] += ordinalPos;
         rankPerPlayerSquared[j] += ordinalPos * ordinalPos;
 
-        for (int playerPos = 0; playerPos < game.getGameState().getNPlayers(); playerPos++) {
+        for (int playerPos = 0; playerPos < results.length; playerPos++) {
             if (playerPos != player) {
-                int ordinalOther = game.getGameState().getOrdinalPosition(playerPos);
+                int ordinalOther = outcome.ordinals()[playerPos];
                 ordinalDeltaPerOpponent[j][matchUpPlayers.get(playerPos)] += ordinalOther - ordinalPos;
             }
         }
 
-        scorePerPlayer[j] += game.getGameState().getGameScore(player);
+        scorePerPlayer[j] += outcome.scores()[player];
 
         if (results[player] == GameResult.WIN_GAME) {
             pointsPerPlayer[j] += 1;
@@ -159,9 +159,10 @@ public class ColtExpressTurnOrder extends TurnOrder {
         ColtExpressGameState cegs = (ColtExpressGameState) gameState;
         if (gameState.getGameStatus() != GAME_ONGOING) return;
 
-        gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementTurn();
-
-        listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.TURN_OVER, gameState, getCurrentPlayer(gameState))));
+        if (!gameState.isSimulationMode()) {
+            gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementTurn();
+            listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.TURN_OVER, gameState, getCurrentPlayer(gameState))));
+        }
 
         turnCounter++;
         ColtExpressGamePhase phase = (ColtExpressGamePhase) cegs.getGamePhase();
@@ -48,13 +48,11 @@ public class ExplodingKittensForwardModel extends StandardForwardModel {
 
             // Add defuse card
             ExplodingKittensCard defuse = new ExplodingKittensCard(DEFUSE);
-            defuse.setOwnerId(i);
             playerCards.add(defuse);
 
             // Add N random cards from the deck
             for (int j = 0; j < ekp.nCardsPerPlayer; j++) {
                 ExplodingKittensCard c = ekgs.drawPile.draw();
-                c.setOwnerId(i);
                 playerCards.add(c);
             }
         }
@@ -119,7 +117,6 @@ public class ExplodingKittensForwardModel extends StandardForwardModel {
                         ekgs.currentPlayerTurnsLeft = 1;  // force end of player turn later
                     }
                 } else {
-                    card.setOwnerId(currentPlayer);
                     ekgs.playerHandCards.get(currentPlayer).add(card);
                 }
             }
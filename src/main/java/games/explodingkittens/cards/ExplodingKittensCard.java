@@ -86,7 +86,7 @@ public class ExplodingKittensCard extends Card {
         }
     }
 
-    public CardType cardType;
+    public final CardType cardType;
 
     public ExplodingKittensCard(CardType cardType) {
         super(cardType.toString());
@@ -103,6 +103,11 @@ public class ExplodingKittensCard extends Card {
         return this; // immutable
     }
 
+    @Override
+    public boolean isImmutable() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return cardType.name();
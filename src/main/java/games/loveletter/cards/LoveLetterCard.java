@@ -22,6 +22,11 @@ public class LoveLetterCard extends Card {
 
     @Override
     public LoveLetterCard copy() {
-        return new LoveLetterCard(cardType, componentID);
+        return this; // immutable
+    }
+
+    @Override
+    public boolean isImmutable() {
+        return true;
     }
 }
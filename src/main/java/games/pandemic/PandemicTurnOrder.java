@@ -46,7 +46,8 @@ public class PandemicTurnOrder extends ReactiveTurnOrder {
     public void endPlayerTurn(AbstractGameState gameState) {
         if (gameState.getGameStatus() != GAME_ONGOING) return;
 
-        gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementTurn();
+        if (!gameState.isSimulationMode())
+            gameState.getPlayerTimer()[getCurrentPlayer(gameState)].incrementTurn();
 
         turnCounter++;
         if (turnCounter >= nPlayers) endRound(gameState);
@@ -0,0 +1,165 @@
+package games.sushigo;
+
+import core.interfaces.IStateHeuristic;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Plays a batch of SushiGo rollouts from the same state in lockstep, on packed states (see SGPackedState).
+ * <p>
+ * The start state is packed once per batch, and each rollout starts from an array copy of it; the packed states,
+ * the action buffer and the array of results are all kept between batches, so a batch allocates nothing once the
+ * engine has seen a state of the same size. All rollouts then advance one action at a time, through the packed
+ * rules of SGForwardModel, until each has played maxActions actions or reached the end of the game. Nothing is
+ * recorded on the way: there is no history, and no action objects are created.
+ * <p>
+ * rollout() and rolloutAllPlayers() evaluate the final states with the given heuristic, which is given an
+ * SGGameState that each final state is written into in turn. A caller that can evaluate packed states directly
+ * uses play() instead, which returns the final packed states.
+ * <p>
+ * An engine is not thread-safe: use one per search thread (SGForwardModel keeps one per thread for its
+ * IBatchRolloutModel implementation).
+ */
+public class SGBatchRollout {
+
+    /**
+     * Chooses the actions of a rollout. Actions are encoded as in SGPackedState.action(), and only the first
+     * nActions entries of the array are valid.
+     */
+    public interface Policy {
+        int chooseAction(SGPackedState state, int[] actions, int nActions, Random rnd);
+    }
+
+    public static final Policy RANDOM = (state, actions, nActions, rnd) -> actions[rnd.nextInt(nActions)];
+
+    private final SGForwardModel fm;
+    // Reshuffles the discard pile in all rollouts of a batch; reseeded from the caller's generator for each batch
+    private final Random shuffleRnd = new Random();
+    private SGPackedState start;
+    private SGPackedState[] batch = new SGPackedState[0];
+    private int[] actions = new int[0];
+    private double[] values = new double[0];
+    private SGGameState scratch;  // for heuristics that cannot read packed states
+    private int actionsPlayed;
+
+    public SGBatchRollout(SGForwardModel fm) {
+        this.fm = fm;
+    }
+
+    /**
+     * Plays nRollouts rollouts from the state, and evaluates their final states for one player.
+     *
+     * @param state      - state to roll out from, which is not changed
+     * @param nRollouts  - number of rollouts
+     * @param maxActions - maximum number of actions in each rollout
+     * @param policy     - chooses the actions (for all players)
+     * @param heuristic  - evaluates the final states
+     * @param playerId   - player to evaluate the final states for
+     * @param rnd        - random number generator for the policy and for reshuffles
+     * @return - the value of rollout i in entry i. The array is reused by the next batch.
+     */
+    public double[] rollout(SGGameState state, int nRollouts, int maxActions, Policy policy,
+                            IStateHeuristic heuristic, int playerId, Random rnd) {
+        play(state, nRollouts, maxActions, policy, rnd);
+        double[] result = values(nRollouts);
+        for (int i = 0; i < nRollouts; i++)
+            result[i] = heuristic.evaluateState(unpack(state, batch[i]), playerId);
+        return result;
+    }
+
+    /**
+     * As rollout(), but evaluates the final states for every player.
+     *
+     * @return - the value of rollout i for player p in entry i * nPlayers + p. The array is reused by the next batch.
+     */
+    public double[] rolloutAllPlayers(SGGameState state, int nRollouts, int maxActions, Policy policy,
+                                      IStateHeuristic heuristic, Random rnd) {
+        play(state, nRollouts, maxActions, policy, rnd);
+        int nPlayers = state.getNPlayers();
+        double[] result = values(nRollouts * nPlayers);
+        for (int i = 0; i < nRollouts; i++) {
+            SGGameState finalState = unpack(state, batch[i]);
+            for (int p = 0; p < nPlayers; p++)
+                result[i * nPlayers + p] = heuristic.evaluateState(finalState, p);
+        }
+        return result;
+    }
+
+    /**
+     * @return - the number of actions played in the last batch, over all its rollouts
+     */
+    public int getActionsPlayed() {
+        return actionsPlayed;
+    }
+
+    /**
+     * Plays nRollouts rollouts from the state, without evaluating them.
+     *
+     * @param state      - state to roll out from, which is not changed
+     * @param nRollouts  - number of rollouts
+     * @param maxActions - maximum number of actions in each rollout
+     * @param policy     - chooses the actions (for all players)
+     * @param rnd        - random number generator for the policy and for reshuffles
+     * @return - the final state of rollout i in entry i; entries from nRollouts on are not part of this batch.
+     * The array and the states are reused by the next batch.
+     */
+    public SGPackedState[] play(SGGameState state, int nRollouts, int maxActions, Policy policy, Random rnd) {
+        prepare(state, nRollouts);
+        shuffleRnd.setSeed(rnd.nextLong());
+        actionsPlayed = 0;
+        int active = nRollouts;
+        for (int step = 0; step < maxActions && active > 0; step++) {
+            active = 0;
+            for (int i = 0; i < nRollouts; i++) {
+                SGPackedState s = batch[i];
+                if (s.terminal)
+                    continue;
+                int nActions = fm.computeAvailableActions(s, actions);
+                fm.next(s, policy.chooseAction(s, actions, nActions, rnd));
+                actionsPlayed++;
+                if (!s.terminal)
+                    active++;
+            }
+        }
+        return batch;
+    }
+
+    // Packs the state, and copies it into the first nRollouts states of the batch
+    private void prepare(SGGameState state, int nRollouts) {
+        if (start == null || !start.fits(state) || !sameParameters(start.params, state.getGameParameters())) {
+            start = SGPackedState.allocate(state, shuffleRnd);
+            batch = new SGPackedState[0];
+            actions = new int[start.maxActions()];
+        }
+        start.readFrom(state);
+        if (batch.length < nRollouts) {
+            int old = batch.length;
+            batch = Arrays.copyOf(batch, nRollouts);
+            for (int i = old; i < nRollouts; i++)
+                batch[i] = start.copy();
+        }
+        for (int i = 0; i < nRollouts; i++)
+            start.copyInto(batch[i]);
+    }
+
+    private static boolean sameParameters(SGParameters packed, Object params) {
+        // each copy of a game state has its own copy of the parameters
+        return packed == params || packed.equals(params);
+    }
+
+    private double[] values(int n) {
+        if (values.length < n)
+            values = new double[n];
+        return values;
+    }
+
+    // Writes a final state into the scratch game state, for a heuristic that cannot read packed states
+    private SGGameState unpack(SGGameState state, SGPackedState finalState) {
+        if (scratch == null || scratch.getNPlayers() != state.getNPlayers()
+                || !sameParameters(finalState.params, scratch.getGameParameters()))
+            scratch = (SGGameState) state.copy();
+        finalState.writeTo(scratch);
+        return scratch;
+    }
+}
@@ -0,0 +1,78 @@
+package games.sushigo;
+
+import core.CoreConstants;
+import core.components.Deck;
+import core.interfaces.IUndoableForwardModel;
+import games.sushigo.actions.ChooseCard;
+import games.sushigo.cards.SGCard;
+
+/**
+ * A saved SushiGo game state, for SGForwardModel.checkpoint() and revert().
+ * <p>
+ * Cards are immutable (SGCard.copy() returns the card itself), so the decks are saved as arrays of references to
+ * the same cards, in order, and a reverted state is equal to the state that was saved. The arrays grow as needed,
+ * so after the first few saves a checkpoint is overwritten without allocating.
+ */
+@SuppressWarnings("unchecked")
+class SGCheckpoint implements IUndoableForwardModel.Checkpoint {
+
+    final int nPlayers;
+
+    // SGForwardModel rotates hands by replacing the Deck objects, so the decks themselves are saved as well
+    final Deck<SGCard>[] handDecks;
+    final SGCard[][] hands, played;
+    final int[] handSize, playedSize;
+    SGCard[] drawPile = new SGCard[0], discardPile = new SGCard[0];
+    int drawSize, discardSize;
+
+    // [player * N_CARD_TYPES + type], as SGGameState.getPlayedCardTypeCounts()
+    final int[] playedTypes, playedTypesAllGame, pointsPerType;
+    final int[] score;
+
+    // at most two choices per player per turn
+    final ChooseCard[] choices;
+    final int[] nChoices;
+    int inProgressChoice;  // index in choices of the chopsticks choice awaiting its second card, or -1
+
+    int nCardsInHand, deckRotations;
+    int roundCounter, turnCounter, turnOwner, firstPlayer;
+    CoreConstants.GameResult gameStatus;
+    final CoreConstants.GameResult[] playerResults;
+    int tick, historyLength, historyTextLength;
+
+    SGCheckpoint(int nPlayers) {
+        this.nPlayers = nPlayers;
+        handDecks = new Deck[nPlayers];
+        hands = new SGCard[nPlayers][0];
+        played = new SGCard[nPlayers][0];
+        handSize = new int[nPlayers];
+        playedSize = new int[nPlayers];
+        playedTypes = new int[nPlayers * SGGameState.N_CARD_TYPES];
+        playedTypesAllGame = new int[nPlayers * SGGameState.N_CARD_TYPES];
+        pointsPerType = new int[nPlayers * SGGameState.N_CARD_TYPES];
+        score = new int[nPlayers];
+        choices = new ChooseCard[nPlayers * 2];
+        nChoices = new int[nPlayers];
+        playerResults = new CoreConstants.GameResult[nPlayers];
+    }
+
+    /**
+     * Copies the cards of the deck into the array (top first), replacing the array if it is too small.
+     *
+     * @return - the array holding the cards
+     */
+    static SGCard[] save(Deck<SGCard> deck, SGCard[] into) {
+        int size = deck.getSize();
+        if (into.length < size)
+            into = new SGCard[Math.max(size, into.length * 2)];
+        for (int i = 0; i < size; i++)
+            into[i] = deck.get(i);
+        return into;
+    }
+
+    static void restore(Deck<SGCard> deck, SGCard[] from, int size) {
+        deck.clear();
+        for (int i = 0; i < size; i++)
+            deck.addToBottom(from[i]);
+    }
+}
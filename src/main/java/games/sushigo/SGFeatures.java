@@ -2,19 +2,55 @@ package games.sushigo;
 
 import core.AbstractGameState;
 import core.interfaces.IStateFeatureJSON;
-import core.interfaces.IStateFeatureVector;
+import core.interfaces.IStateFeatureBuffer;
+import games.GameType;
 import games.sushigo.cards.SGCard;
 import org.json.simple.JSONObject;
-import utilities.Pair;
 
-import java.util.Arrays;
+import java.nio.DoubleBuffer;
 import java.util.List;
 
-public class SGFeatures implements IStateFeatureVector, IStateFeatureJSON {
+/**
+ * Features of a SushiGo state, from the point of view of one player. The vector has a fixed length whatever
+ * the number of players, so that it can be used with PyTAG: other players are ordered by their position
+ * relative to the observing player (the next player to the left first), and padded with zeros up to the
+ * maximum number of players.
+ * <p>
+ * The features are written straight into a buffer by fill(), which allocates nothing and only reads what the player
+ * can see, so PyTAG can update a shared observation buffer at each step without copying the state.
+ */
+public class SGFeatures implements IStateFeatureBuffer, IStateFeatureJSON {
+
+    static final int MAX_PLAYERS = GameType.SushiGo.getMaxPlayers();
+    // round, cards in hand, chopsticks pending, deck rotations; then counts in hand per card code; then per player
+    // (relative order) counts of played card types, and score
+    static final int HAND = 4;
+    static final int PLAYERS = HAND + SGPackedState.N_CODES;
+    static final int PER_PLAYER = SGPackedState.N_TYPES + 1;
+    static final String[] NAMES = createNames();
+
+    private static String[] createNames() {
+        String[] names = new String[PLAYERS + MAX_PLAYERS * PER_PLAYER];
+        names[0] = "Round";
+        names[1] = "CardsInHand";
+        names[2] = "ChopsticksPending";
+        names[3] = "DeckRotations";
+        for (int code = 0; code < SGPackedState.N_CODES; code++)
+            names[HAND + code] = "Hand:" + SGPackedState.card(code);
+        SGCard.SGCardType[] types = SGPackedState.TYPES;
+        for (int p = 0; p < MAX_PLAYERS; p++) {
+            String prefix = p == 0 ? "Own" : "Opp" + p;
+            int offset = PLAYERS + p * PER_PLAYER;
+            for (int t = 0; t < types.length; t++)
+                names[offset + t] = prefix + ":Played:" + types[t].name();
+            names[offset + types.length] = prefix + ":Score";
+        }
+        return names;
+    }
 
     @Override
     public String[] names() {
-        return new String[0];
+        return NAMES.clone();
     }
 
     @Override
@@ -38,65 +74,27 @@ public class SGFeatures implements IStateFeatureVector, IStateFeatureJSON {
     }
 
     @Override
-    public double[] doubleVector(AbstractGameState state, int playerID) {
-        /* Normalised by default */
-        // todo would be better in SGParameters -> at least generating a list of strings
+    public void fill(AbstractGameState state, int playerID, DoubleBuffer out, int index) {
         SGGameState sggs = (SGGameState) state;
-        int maxCardsInHand = ((SGParameters)sggs.getGameParameters()).nCards;
-        int nUnique = Arrays.stream(SGCard.SGCardType.values()).map(e -> e.getIconCountVariation().length).mapToInt(i -> i).sum();
-        String uniqueCards[] = new String[nUnique];
-        int counter = 0;
-        for (SGCard.SGCardType cardType: SGCard.SGCardType.values()){
-            if (cardType.getIconCountVariation().length == 1){
-                uniqueCards[counter] = cardType.name();
-                counter ++;
-            } else {
-                for (int i = 0; i < cardType.getIconCountVariation().length; i++) {
-                    uniqueCards[counter] = cardType.name() + "-" + cardType.getIconCountVariation()[i];
-                    counter++;
-                }
-            }
-        }
-        /* state representation */
-        // rounds
-        // cards in hand
-        // player score
-
-        // encode player hand - note that this could be one hot encoded
-        int playerHand[] = new int[maxCardsInHand];
-        List<SGCard> cardsInHand = sggs.playerHands.get(playerID).getComponents();
-        for (int i = 0; i < cardsInHand.size(); i++){
-            playerHand[i] = Arrays.asList(uniqueCards).indexOf(cardsInHand.get(i).toString());
+        for (int i = 0; i < NAMES.length; i++)
+            out.put(index + i, 0.0);
+        List<SGCard> hand = sggs.getPlayerHands().get(playerID).getComponents();
+        out.put(index, sggs.getRoundCounter());
+        out.put(index + 1, hand.size());
+        out.put(index + 2, sggs.isActionInProgress() ? 1 : 0);
+        out.put(index + 3, sggs.deckRotations);
+        for (int c = 0; c < hand.size(); c++) {
+            int i = index + HAND + SGPackedState.codeOf(hand.get(c));
+            out.put(i, out.get(i) + 1);
         }
-
-        // played cards
-        for (int i = 0; i < sggs.getNPlayers(); i++){
-            List<SGCard> playedCards = sggs.getPlayedCards().get(i).getComponents();
-//            Arrays.asList(uniqueCards).indexOf(cardsInHand.get(i).toString());
+        SGCard.SGCardType[] types = SGPackedState.TYPES;
+        int nPlayers = sggs.getNPlayers();
+        for (int p = 0; p < nPlayers; p++) {
+            int player = (playerID + p) % nPlayers;
+            int start = index + PLAYERS + p * PER_PLAYER;
+            for (int t = 0; t < types.length; t++)
+                out.put(start + t, sggs.playedCardTypes[player].get(types[t]).getValue());
+            out.put(start + types.length, sggs.playerScore[player].getValue());
         }
-
-        // todo this is not finished
-        return new double[0];
     }
-
-//    public int[] encodeCardType(List<SGCard> deck){
-//        int nUnique = (int) Arrays.stream(SGCard.SGCardType.values()).map(e -> e.getIconCountVariation().length).count();
-//        String uniqueCards[] = new String[nUnique];
-//        int counter = 0;
-//        for (SGCard.SGCardType cardType: SGCard.SGCardType.values()){
-//            for (int i = 0; i < cardType.getIconCountVariation().length; i++){
-//                uniqueCards[counter] = cardType.name() + cardType.getIconCountVariation()[i];
-//                counter ++;
-//            }
-//        }
-//        // todo need to encode different variants correctly
-//        for (SGCard cards: deck){
-//            cards.getType();
-//        }
-//        for (Pair<SGCard.SGCardType, Integer> types : ((SGParameters) getGameParameters()).nCardsPerType.keySet()){
-//
-//        }
-//        return new int[0];
-//    }
-
 }
@@ -4,9 +4,13 @@ import core.AbstractGameState;
 import core.CoreConstants;
 import core.StandardForwardModel;
 import core.actions.AbstractAction;
+import core.actions.ActionSpace;
 import core.components.Counter;
 import core.components.Deck;
+import core.interfaces.IBatchRolloutModel;
+import core.interfaces.IStateHeuristic;
 import core.interfaces.ITreeActionSpace;
+import core.interfaces.IUndoableForwardModel;
 import games.sushigo.actions.ChooseCard;
 import games.sushigo.cards.SGCard;
 import utilities.ActionTreeNode;
@@ -17,7 +21,10 @@ import java.util.*;
 import static games.sushigo.cards.SGCard.SGCardType.*;
 
 @SuppressWarnings("unchecked")
-public class SGForwardModel extends StandardForwardModel implements ITreeActionSpace {
+public class SGForwardModel extends StandardForwardModel implements ITreeActionSpace, IUndoableForwardModel, IBatchRolloutModel {
+
+    // Batch rollout engines, one per thread as the forward model is shared by all players
+    private final ThreadLocal<SGBatchRollout> batchRollouts = ThreadLocal.withInitial(() -> new SGBatchRollout(this));
 
     @Override
     protected void _setup(AbstractGameState firstState) {
@@ -27,9 +34,9 @@ public class SGForwardModel extends StandardForwardModel implements ITreeActionS
         gs.deckRotations = 0;
         gs.playerScore = new Counter[firstState.getNPlayers()];
         gs.cardChoices = new ArrayList<>(firstState.getNPlayers());
-        gs.playedCardTypes = new HashMap[firstState.getNPlayers()];
-        gs.playedCardTypesAllGame = new HashMap[firstState.getNPlayers()];
-        gs.pointsPerCardType = new HashMap[firstState.getNPlayers()];
+        gs.playedCardTypes = new EnumMap[firstState.getNPlayers()];
+        gs.playedCardTypesAllGame = new EnumMap[firstState.getNPlayers()];
+        gs.pointsPerCardType = new EnumMap[firstState.getNPlayers()];
         gs.playedCards = new ArrayList<>();
 
         // Setup draw & discard piles
@@ -44,9 +51,9 @@ public class SGForwardModel extends StandardForwardModel implements ITreeActionS
             gs.playerScore[i] = new Counter(0, 0, Integer.MAX_VALUE, "Player " + i + " score");
             gs.playerHands.add(new Deck<>("Player " + i + " hand", CoreConstants.VisibilityMode.VISIBLE_TO_OWNER));
             gs.playedCards.add(new Deck<>("Player " + i + " played cards", CoreConstants.VisibilityMode.VISIBLE_TO_ALL));
-            gs.playedCardTypes[i] = new HashMap<>();
-            gs.playedCardTypesAllGame[i] = new HashMap<>();
-            gs.pointsPerCardType[i] = new HashMap<>();
+            gs.playedCardTypes[i] = new EnumMap<>(SGCard.SGCardType.class);
+            gs.playedCardTypesAllGame[i] = new EnumMap<>(SGCard.SGCardType.class);
+            gs.pointsPerCardType[i] = new EnumMap<>(SGCard.SGCardType.class);
             for (SGCard.SGCardType type: SGCard.SGCardType.values()) {
                 gs.playedCardTypes[i].put(type, new Counter(0, 0, Integer.MAX_VALUE, "Played cards " + type.name()));
                 gs.playedCardTypesAllGame[i].put(type, new Counter(0, 0, Integer.MAX_VALUE, "Played cards (all) " + type.name()));
@@ -74,6 +81,7 @@ public class SGForwardModel extends StandardForwardModel implements ITreeActionS
         for (Pair<SGCard.SGCardType, Integer> p: parameters.nCardsPerType.keySet()) {
             int count = parameters.nCardsPerType.get(p);
             for (int i = 0; i < count; i++) {
+                // a card of its own for each physical card, so that each has its own component ID
                 gs.drawPile.add(new SGCard(p.a, p.b));
             }
         }
@@ -185,9 +193,10 @@ public class SGForwardModel extends StandardForwardModel implements ITreeActionS
         for (int i = 0; i < gs.getNPlayers(); i++) {
             Deck<SGCard> hand = gs.getPlayerHands().get(i);
             for (ChooseCard cc: gs.cardChoices.get(i)) {
+                // by index, as a state written from an SGPackedState may hold the same card instance more than once
                 SGCard cardToReveal = hand.get(cc.cardIdx);
 
-                hand.remove(cardToReveal);
+                hand.remove(cc.cardIdx);
                 gs.playedCards.get(i).add(cardToReveal);
                 gs.playedCardTypes[i].get(cardToReveal.type).increment(cardToReveal.count);
                 gs.playedCardTypesAllGame[i].get(cardToReveal.type).increment(cardToReveal.count);
@@ -215,16 +224,18 @@ public class SGForwardModel extends StandardForwardModel implements ITreeActionS
      */
     private void removeUsedChopsticks(SGGameState gs, int playerId) {
         gs.playedCardTypes[playerId].get(SGCard.SGCardType.Chopsticks).decrement(1);
-        SGCard chopsticks = null;
-        for (SGCard card: gs.playedCards.get(playerId).getComponents()) {
-            if (card.type == Chopsticks) {
-                chopsticks = card;
+        Deck<SGCard> played = gs.playedCards.get(playerId);
+        int chopsticksIdx = -1;
+        for (int i = 0; i < played.getSize(); i++) {
+            if (played.get(i).type == Chopsticks) {
+                chopsticksIdx = i;
                 break;
             }
         }
-        if (chopsticks == null)
+        if (chopsticksIdx == -1)
             throw new IllegalStateException("Used Chopsticks when none were available");
-        gs.playedCards.get(playerId).remove(chopsticks);
+        SGCard chopsticks = played.get(chopsticksIdx);
+        played.remove(chopsticksIdx);
         gs.getPlayerHands().get(playerId).add(chopsticks);
     }
 
@@ -256,20 +267,346 @@ public class SGForwardModel extends StandardForwardModel implements ITreeActionS
 
     @Override
     protected List<AbstractAction> _computeAvailableActions(AbstractGameState gameState) {
-        SGGameState sggs = (SGGameState) gameState;
         List<AbstractAction> actions = new ArrayList<>();
+        _computeAvailableActions(gameState, null, actions);
+        return actions;
+    }
 
+    @Override
+    protected void _computeAvailableActions(AbstractGameState gameState, ActionSpace actionSpace, List<AbstractAction> actions) {
+        SGGameState sggs = (SGGameState) gameState;
         int currentPlayer = sggs.getCurrentPlayer();
         Deck<SGCard> currentPlayerHand = sggs.getPlayerHands().get(currentPlayer);
         for (int i = 0; i < currentPlayerHand.getSize(); i++) {
             // All players can do is choose a card in hand to play.
-            actions.add(new ChooseCard(currentPlayer, i, false));
+            actions.add(ChooseCard.of(currentPlayer, i, false));
             if (sggs.playedCardTypes[currentPlayer].get(Chopsticks).getValue() > 0 && currentPlayerHand.getSize() > 1) {
                 // If the player played chopsticks in a previous round, then they can choose to use the chopsticks now (and will choose one extra card in hand)
-                actions.add(new ChooseCard(currentPlayer, i, true));
+                actions.add(ChooseCard.of(currentPlayer, i, true));
+            }
+        }
+    }
+
+    /* Checkpoints (IUndoableForwardModel) */
+
+    @Override
+    public Checkpoint checkpoint(AbstractGameState state, Checkpoint reuse) {
+        SGGameState gs = (SGGameState) state;
+        SGCheckpoint checkpoint = reuse instanceof SGCheckpoint c && c.nPlayers == gs.getNPlayers() ?
+                c : new SGCheckpoint(gs.getNPlayers());
+        gs.saveCheckpoint(checkpoint);
+        return checkpoint;
+    }
+
+    @Override
+    public void revert(AbstractGameState state, Checkpoint checkpoint) {
+        ((SGGameState) state).revertTo((SGCheckpoint) checkpoint);
+    }
+
+    /**
+     * Plays the rollouts on packed states, with an SGBatchRollout engine kept for the calling thread.
+     */
+    @Override
+    public int batchRollout(AbstractGameState state, int nRollouts, int maxActions, IStateHeuristic heuristic,
+                            Random rnd, double[] values) {
+        SGBatchRollout engine = batchRollouts.get();
+        double[] result = engine.rolloutAllPlayers((SGGameState) state, nRollouts, maxActions, SGBatchRollout.RANDOM, heuristic, rnd);
+        System.arraycopy(result, 0, values, 0, nRollouts * state.getNPlayers());
+        return engine.getActionsPlayed();
+    }
+
+    /* Packed state. These methods implement the same rules as above on an SGPackedState, without any
+     * of the bookkeeping (history, listeners, timers) of the main game loop. */
+
+    /**
+     * Fills the buffer with the encoded actions available in the packed state (see SGPackedState.action()).
+     * The order of actions is the same as for _computeAvailableActions().
+     *
+     * @param s       - packed state
+     * @param actions - buffer to fill, of size at least s.maxActions()
+     * @return - the number of actions available
+     */
+    public int computeAvailableActions(SGPackedState s, int[] actions) {
+        int player = s.turnOwner;
+        int handSize = s.getHandSize(player);
+        int n = 0;
+        if (s.isChopsticksPending()) {
+            // Second card picked with chopsticks, different from that already selected
+            int idxSelected = SGPackedState.actionCardIdx(s.choices[player * 2]);
+            for (int i = 0; i < handSize; i++) {
+                if (i != idxSelected)
+                    actions[n++] = SGPackedState.action(i, false);
+            }
+            if (n == 0)
+                throw new AssertionError("No actions");
+            return n;
+        }
+        boolean chopsticks = s.playedTypes[player * SGPackedState.N_TYPES + Chopsticks.ordinal()] > 0 && handSize > 1;
+        for (int i = 0; i < handSize; i++) {
+            actions[n++] = SGPackedState.action(i, false);
+            if (chopsticks)
+                actions[n++] = SGPackedState.action(i, true);
+        }
+        return n;
+    }
+
+    /**
+     * Applies the encoded action to the packed state, for the current player.
+     * This follows ChooseCard.execute() and _afterAction() (including the extended action sequence for chopsticks).
+     *
+     * @param s      - packed state, modified in place
+     * @param action - encoded action
+     */
+    public void next(SGPackedState s, int action) {
+        if (s.terminal)
+            throw new IllegalStateException("Game is over");
+        int player = s.turnOwner;
+        s.choices[player * 2 + s.nChoices[player]++] = action;
+        if (SGPackedState.actionUsesChopsticks(action))
+            return;  // the same player now picks a second card
+
+        // Check if all players made their choice
+        int nextPlayer = player;
+        do {
+            nextPlayer = (nextPlayer + 1) % s.nPlayers;
+        } while (nextPlayer != player && s.nChoices[nextPlayer] > 0);
+
+        if (nextPlayer == player) {
+            revealCards(s);
+            if (isRoundOver(s)) {
+                // as endRound(gs) in StandardForwardModel
+                s.roundCounter++;
+                s.turnCounter = 0;
+                s.turnOwner = s.firstPlayer;
+                _endRound(s);
+                Arrays.fill(s.nChoices, 0);
+                if (s.roundCounter >= s.params.nRounds) {
+                    scorePuddings(s);
+                    s.terminal = true;
+                    return;
+                }
+                _startRound(s);
+                return;
+            }
+            // Rotate hands for next player turns: player p receives the hand of player p + 1
+            s.deckRotations++;
+            s.handOffset = (s.handOffset + 1) % s.nPlayers;
+            Arrays.fill(s.nChoices, 0);
+        }
+        s.turnCounter++;
+        s.turnOwner = nextPlayer;
+    }
+
+    void revealCards(SGPackedState s) {
+        for (int i = 0; i < s.nPlayers; i++) {
+            int base = s.slot(i) * s.maxHand;
+            for (int k = 0; k < s.nChoices[i]; k++) {
+                int action = s.choices[i * 2 + k];
+                int code = removeFromHand(s, i, SGPackedState.actionCardIdx(action));
+                int type = SGPackedState.CODE_TYPE[code];
+                s.played[i * SGPackedState.N_CODES + code]++;
+                s.playedTypes[i * SGPackedState.N_TYPES + type] += SGPackedState.CODE_COUNT[code];
+                s.playedTypesAllGame[i * SGPackedState.N_TYPES + type] += SGPackedState.CODE_COUNT[code];
+
+                onReveal(s, i, SGPackedState.TYPES[type]);
+
+                if (SGPackedState.actionUsesChopsticks(action)) {
+                    // Put chopsticks back in the player's hand
+                    int chopIdx = i * SGPackedState.N_TYPES + Chopsticks.ordinal();
+                    s.playedTypes[chopIdx] = SGPackedState.clampedAdd(s.playedTypes[chopIdx], -1);
+                    int chopCode = SGPackedState.TYPE_FIRST_CODE[Chopsticks.ordinal()];
+                    if (s.played[i * SGPackedState.N_CODES + chopCode] == 0)
+                        throw new IllegalStateException("Used Chopsticks when none were available");
+                    s.played[i * SGPackedState.N_CODES + chopCode]--;
+                    int size = s.handSize[s.slot(i)]++;
+                    System.arraycopy(s.hands, base, s.hands, base + 1, size);
+                    s.hands[base] = chopCode;
+                }
+            }
+        }
+        int expectedPlayerCards = s.getHandSize(0);
+        for (int i = 1; i < s.nPlayers; i++) {
+            if (s.getHandSize(i) != expectedPlayerCards) {
+                throw new AssertionError("Player " + i + " has " + s.getHandSize(i) + " cards, expected " + expectedPlayerCards);
+            }
+        }
+    }
+
+    private int removeFromHand(SGPackedState s, int player, int idx) {
+        int slot = s.slot(player);
+        int base = slot * s.maxHand;
+        int size = s.handSize[slot];
+        if (idx < 0 || idx >= size)
+            throw new IndexOutOfBoundsException("Index " + idx + " is out of bounds for hand of size " + size);
+        int code = s.hands[base + idx];
+        System.arraycopy(s.hands, base + idx + 1, s.hands, base + idx, size - idx - 1);
+        s.handSize[slot] = size - 1;
+        return code;
+    }
+
+    /**
+     * Equivalent of SGCardType.onReveal() for the packed state
+     */
+    private void onReveal(SGPackedState s, int p, SGCard.SGCardType type) {
+        SGParameters params = s.params;
+        int count = s.playedTypes[p * SGPackedState.N_TYPES + type.ordinal()];
+        switch (type) {
+            case Tempura:
+                if (count % 2 == 0)
+                    addPlayerScore(s, p, params.valueTempuraPair, Tempura);
+                break;
+            case Sashimi:
+                if (count % 3 == 0)
+                    addPlayerScore(s, p, params.valueSashimiTriple, Sashimi);
+                break;
+            case Dumpling:
+                int idx = Math.min(count, params.valueDumpling.length) - 1;
+                addPlayerScore(s, p, params.valueDumpling[idx], Dumpling);
+                break;
+            case SquidNigiri:
+                addPlayerScore(s, p, nigiriValue(s, p, params.valueSquidNigiri), SquidNigiri);
+                break;
+            case SalmonNigiri:
+                addPlayerScore(s, p, nigiriValue(s, p, params.valueSalmonNigiri), SalmonNigiri);
+                break;
+            case EggNigiri:
+                addPlayerScore(s, p, nigiriValue(s, p, params.valueEggNigiri), EggNigiri);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private int nigiriValue(SGPackedState s, int p, int value) {
+        int wasabiIdx = p * SGPackedState.N_TYPES + Wasabi.ordinal();
+        if (s.playedTypes[wasabiIdx] > 0) {
+            s.playedTypes[wasabiIdx]--;
+            return value * s.params.multiplierWasabi;
+        }
+        return value;
+    }
+
+    private void addPlayerScore(SGPackedState s, int p, int amount, SGCard.SGCardType fromType) {
+        s.score[p] = SGPackedState.clampedAdd(s.score[p], amount);
+        int idx = p * SGPackedState.N_TYPES + fromType.ordinal();
+        s.pointsPerType[idx] = SGPackedState.clampedAdd(s.pointsPerType[idx], amount);
+    }
+
+    boolean isRoundOver(SGPackedState s) {
+        for (int slot = 0; slot < s.nPlayers; slot++) {
+            if (s.handSize[slot] > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Maki scoring and discard of played cards, as _endRound()
+     */
+    void _endRound(SGPackedState s) {
+        // Maki: players with the most rolls share the top score, second most share second score if no tie for most
+        int most = 0, secondMost = 0;
+        int mostPlayers = 0, secondPlayers = 0;  // bitmasks of players
+        for (int i = 0; i < s.nPlayers; i++) {
+            int nMakiRolls = s.playedTypes[i * SGPackedState.N_TYPES + Maki.ordinal()];
+            if (nMakiRolls > most) {
+                secondMost = most;
+                secondPlayers = mostPlayers;
+                most = nMakiRolls;
+                mostPlayers = 1 << i;
+            } else if (nMakiRolls == most && nMakiRolls != 0) mostPlayers |= 1 << i;
+            else if (nMakiRolls > secondMost) {
+                secondMost = nMakiRolls;
+                secondPlayers = 1 << i;
+            } else if (nMakiRolls == secondMost && nMakiRolls != 0) secondPlayers |= 1 << i;
+        }
+        if (mostPlayers != 0) {
+            int mostScore = s.params.valueMakiMost / Integer.bitCount(mostPlayers);
+            for (int i = 0; i < s.nPlayers; i++)
+                if ((mostPlayers & (1 << i)) != 0) addPlayerScore(s, i, mostScore, Maki);
+        }
+        if (secondPlayers != 0 && Integer.bitCount(mostPlayers) == 1) {
+            int secondScore = s.params.valueMakiSecond / Integer.bitCount(secondPlayers);
+            for (int i = 0; i < s.nPlayers; i++)
+                if ((secondPlayers & (1 << i)) != 0) addPlayerScore(s, i, secondScore, Maki);
+        }
+
+        // Played cards that are discarded between rounds go in the discard pile
+        for (int i = 0; i < s.nPlayers; i++) {
+            for (int code = 0; code < SGPackedState.N_CODES; code++) {
+                int n = s.played[i * SGPackedState.N_CODES + code];
+                int type = SGPackedState.CODE_TYPE[code];
+                if (n > 0 && SGPackedState.TYPES[type].isDiscardedBetweenRounds()) {
+                    s.discard[code] += n;
+                    s.played[i * SGPackedState.N_CODES + code] = 0;
+                    s.playedTypes[i * SGPackedState.N_TYPES + type] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws new hands, as _startRound()
+     */
+    void _startRound(SGPackedState s) {
+        for (int i = 0; i < s.nPlayers; i++) {
+            int slot = s.slot(i);
+            int base = slot * s.maxHand;
+            for (int j = 0; j < s.nCardsInHand; j++) {
+                if (s.drawSize == 0) {
+                    // Reshuffle discard into draw pile
+                    for (int code = 0; code < SGPackedState.N_CODES; code++) {
+                        for (int k = 0; k < s.discard[code]; k++)
+                            s.drawPile[s.drawSize++] = code;
+                        s.discard[code] = 0;
+                    }
+                    if (s.drawSize == 0)
+                        throw new IllegalStateException("No cards left to draw");
+                    for (int k = s.drawSize - 1; k > 0; k--) {
+                        int swap = s.rnd.nextInt(k + 1);
+                        int tmp = s.drawPile[k];
+                        s.drawPile[k] = s.drawPile[swap];
+                        s.drawPile[swap] = tmp;
+                    }
+                }
+                int size = s.handSize[slot]++;
+                System.arraycopy(s.hands, base, s.hands, base + 1, size);
+                s.hands[base] = s.drawPile[--s.drawSize];
+            }
+        }
+        s.deckRotations = 0;
+    }
+
+    /**
+     * End of game pudding scoring, as SGCardType.Pudding.onGameEnd()
+     */
+    void scorePuddings(SGPackedState s) {
+        int puddingIdx = Pudding.ordinal();
+        int best = s.playedTypes[puddingIdx];
+        int worst = best;
+        int mostPlayers = 0, leastPlayers = 0;
+        for (int i = 0; i < s.nPlayers; i++) {
+            int nPuddings = s.playedTypes[i * SGPackedState.N_TYPES + puddingIdx];
+            if (nPuddings > best) {
+                best = nPuddings;
+                mostPlayers = 1 << i;
+            } else if (nPuddings == best && nPuddings != 0) mostPlayers |= 1 << i;
+            if (nPuddings < worst) {
+                worst = nPuddings;
+                leastPlayers = 1 << i;
+            } else if (nPuddings == worst) leastPlayers |= 1 << i;
+        }
+        if (best > worst) {
+            if (mostPlayers != 0) {
+                int mostScore = s.params.valuePuddingMost / Integer.bitCount(mostPlayers);
+                for (int i = 0; i < s.nPlayers; i++)
+                    if ((mostPlayers & (1 << i)) != 0) addPlayerScore(s, i, mostScore, Pudding);
+            }
+            if (leastPlayers != 0 && s.nPlayers > 2) {
+                int leastScore = s.params.valuePuddingLeast / Integer.bitCount(leastPlayers);
+                for (int i = 0; i < s.nPlayers; i++)
+                    if ((leastPlayers & (1 << i)) != 0) addPlayerScore(s, i, leastScore, Pudding);
             }
         }
-        return actions;
     }
 
     @Override
@@ -305,10 +642,10 @@ public class SGForwardModel extends StandardForwardModel implements ITreeActionS
         // normal action selection
         for (int i = 0; i < currentPlayerHand.getSize(); i++) {
             // All players can do is choose a card in hand to play.
-            playNode.findChildrenByName(String.valueOf(i)).setAction(new ChooseCard(currentPlayer, i, false));
+            playNode.findChildrenByName(String.valueOf(i)).setAction(ChooseCard.of(currentPlayer, i, false));
             if (sggs.playedCardTypes[currentPlayer].get(Chopsticks).getValue() > 0 && currentPlayerHand.getSize() > 1) {
                 // If the player played chopsticks in a previous round, then they can choose to use the chopsticks now (and will choose one extra card in hand)
-                chopsticksNode.findChildrenByName(String.valueOf(i)).setAction(new ChooseCard(currentPlayer, i, true));
+                chopsticksNode.findChildrenByName(String.valueOf(i)).setAction(ChooseCard.of(currentPlayer, i, true));
             }
         }
         return root;
@@ -3,6 +3,7 @@ package games.sushigo;
 import core.AbstractGameState;
 import core.AbstractParameters;
 import core.components.*;
+import core.interfaces.IExtendedSequence;
 import games.GameType;
 import games.sushigo.actions.ChooseCard;
 import games.sushigo.cards.SGCard;
@@ -11,6 +12,9 @@ import java.util.*;
 
 @SuppressWarnings("unchecked")
 public class SGGameState extends AbstractGameState {
+    private static final SGCard.SGCardType[] CARD_TYPES = SGCard.SGCardType.values();
+    public static final int N_CARD_TYPES = CARD_TYPES.length;
+
     List<Deck<SGCard>> playerHands;
     Deck<SGCard> drawPile;
     Deck<SGCard> discardPile;
@@ -22,8 +26,8 @@ public class SGGameState extends AbstractGameState {
     Counter[] playerScore;
 
     // For statistics, not changed between rounds
-    HashMap<SGCard.SGCardType, Counter>[] playedCardTypesAllGame;
-    HashMap<SGCard.SGCardType, Counter>[] pointsPerCardType;
+    Map<SGCard.SGCardType, Counter>[] playedCardTypesAllGame;
+    Map<SGCard.SGCardType, Counter>[] pointsPerCardType;
 
     int deckRotations = 0;
 
@@ -61,16 +65,16 @@ public class SGGameState extends AbstractGameState {
         SGGameState copy = new SGGameState(gameParameters.copy(), getNPlayers());
 
         copy.playerScore = new Counter[getNPlayers()];
-        copy.playedCardTypes = new HashMap[getNPlayers()];
-        copy.playedCardTypesAllGame = new HashMap[getNPlayers()];
-        copy.pointsPerCardType = new HashMap[getNPlayers()];
+        copy.playedCardTypes = new EnumMap[getNPlayers()];
+        copy.playedCardTypesAllGame = new EnumMap[getNPlayers()];
+        copy.pointsPerCardType = new EnumMap[getNPlayers()];
         copy.playedCards = new ArrayList<>();
         for (int i = 0; i < getNPlayers(); i++) {
             copy.playedCards.add(playedCards.get(i).copy());
             copy.playerScore[i] = playerScore[i].copy();
-            copy.playedCardTypes[i] = new HashMap<>();
-            copy.playedCardTypesAllGame[i] = new HashMap<>();
-            copy.pointsPerCardType[i] = new HashMap<>();
+            copy.playedCardTypes[i] = new EnumMap<>(SGCard.SGCardType.class);
+            copy.playedCardTypesAllGame[i] = new EnumMap<>(SGCard.SGCardType.class);
+            copy.pointsPerCardType[i] = new EnumMap<>(SGCard.SGCardType.class);
             for (SGCard.SGCardType ct : playedCardTypes[i].keySet()) {
                 copy.playedCardTypes[i].put(ct, playedCardTypes[i].get(ct).copy());
                 copy.playedCardTypesAllGame[i].put(ct, playedCardTypesAllGame[i].get(ct).copy());
@@ -177,6 +181,103 @@ public class SGGameState extends AbstractGameState {
         return cardChoices;
     }
 
+    /**
+     * Sets the turn-order state directly; used when unpacking an SGPackedState.
+     */
+    void setTurnCounters(int roundCounter, int turnCounter, int turnOwner, int firstPlayer) {
+        this.roundCounter = roundCounter;
+        this.turnCounter = turnCounter;
+        this.turnOwner = turnOwner;
+        this.firstPlayer = firstPlayer;
+    }
+
+    /**
+     * Saves everything that SGForwardModel.next() can change into the checkpoint.
+     */
+    void saveCheckpoint(SGCheckpoint c) {
+        for (int p = 0; p < getNPlayers(); p++) {
+            c.handDecks[p] = playerHands.get(p);
+            c.hands[p] = SGCheckpoint.save(playerHands.get(p), c.hands[p]);
+            c.handSize[p] = playerHands.get(p).getSize();
+            c.played[p] = SGCheckpoint.save(playedCards.get(p), c.played[p]);
+            c.playedSize[p] = playedCards.get(p).getSize();
+            c.score[p] = playerScore[p].getValue();
+            c.playerResults[p] = playerResults[p];
+            List<ChooseCard> chosen = cardChoices.get(p);
+            c.nChoices[p] = chosen.size();
+            for (int i = 0; i < chosen.size(); i++)
+                c.choices[p * 2 + i] = chosen.get(i).copy();
+        }
+        getPlayedCardTypeCounts(c.playedTypes);
+        getPlayedCardTypeCountsAllGame(c.playedTypesAllGame);
+        fillCounts(pointsPerCardType, c.pointsPerType);
+        c.drawPile = SGCheckpoint.save(drawPile, c.drawPile);
+        c.drawSize = drawPile.getSize();
+        c.discardPile = SGCheckpoint.save(discardPile, c.discardPile);
+        c.discardSize = discardPile.getSize();
+
+        c.inProgressChoice = -1;
+        if (isActionInProgress()) {
+            // the only extended sequence in SushiGo is a chopsticks choice, waiting for the second card
+            List<ChooseCard> chosen = cardChoices.get(turnOwner);
+            Stack<IExtendedSequence> inProgress = getActionsInProgress();
+            if (inProgress.size() > 1 || chosen.isEmpty() || inProgress.peek() != chosen.get(0))
+                throw new IllegalStateException("Cannot checkpoint action in progress: " + inProgress.peek());
+            c.inProgressChoice = turnOwner * 2;
+        }
+        c.nCardsInHand = nCardsInHand;
+        c.deckRotations = deckRotations;
+        c.roundCounter = roundCounter;
+        c.turnCounter = turnCounter;
+        c.turnOwner = turnOwner;
+        c.firstPlayer = firstPlayer;
+        c.gameStatus = gameStatus;
+        c.tick = getGameTick();
+        c.historyLength = getHistoryLength();
+        c.historyTextLength = getHistoryTextLength();
+    }
+
+    /**
+     * Reverts this state to the contents of a checkpoint taken from it with saveCheckpoint().
+     */
+    void revertTo(SGCheckpoint c) {
+        for (int p = 0; p < getNPlayers(); p++) {
+            playerHands.set(p, c.handDecks[p]);
+            SGCheckpoint.restore(c.handDecks[p], c.hands[p], c.handSize[p]);
+            SGCheckpoint.restore(playedCards.get(p), c.played[p], c.playedSize[p]);
+            playerScore[p].setValue(c.score[p]);
+            playerResults[p] = c.playerResults[p];
+            for (SGCard.SGCardType type : CARD_TYPES) {
+                int idx = p * N_CARD_TYPES + type.ordinal();
+                playedCardTypes[p].get(type).setValue(c.playedTypes[idx]);
+                playedCardTypesAllGame[p].get(type).setValue(c.playedTypesAllGame[idx]);
+                pointsPerCardType[p].get(type).setValue(c.pointsPerType[idx]);
+            }
+            List<ChooseCard> chosen = cardChoices.get(p);
+            chosen.clear();
+            for (int i = 0; i < c.nChoices[p]; i++)
+                chosen.add(c.choices[p * 2 + i].copy());  // so that the saved copy is never changed
+        }
+        SGCheckpoint.restore(drawPile, c.drawPile, c.drawSize);
+        SGCheckpoint.restore(discardPile, c.discardPile, c.discardSize);
+
+        getActionsInProgress().clear();
+        if (c.inProgressChoice >= 0)
+            setActionInProgress(cardChoices.get(c.inProgressChoice / 2).get(0));
+        nCardsInHand = c.nCardsInHand;
+        deckRotations = c.deckRotations;
+        setTurnCounters(c.roundCounter, c.turnCounter, c.turnOwner, c.firstPlayer);
+        gameStatus = c.gameStatus;
+        revertHistory(c.tick, c.historyLength, c.historyTextLength);
+    }
+
+    /**
+     * A new Random branched from the redeterminisation RNG (so that the main game RNG stream is not affected)
+     */
+    Random branchRnd() {
+        return new Random(redeterminisationRnd.nextLong());
+    }
+
     @Override
     protected double _getHeuristicScore(int playerId) {
         if (isNotTerminal())
@@ -226,6 +327,39 @@ public class SGGameState extends AbstractGameState {
         return playedCardTypes[player].get(cardType);
     }
 
+    /**
+     * Flat view of getPlayedCardTypes(): fills counts[p * N_CARD_TYPES + type.ordinal()] with the number of
+     * cards of each type played by each player p in the current round.
+     *
+     * @param counts - array of at least nPlayers * N_CARD_TYPES entries to fill, or null to allocate one
+     * @return - the filled array
+     */
+    public int[] getPlayedCardTypeCounts(int[] counts) {
+        return fillCounts(playedCardTypes, counts);
+    }
+
+    /**
+     * As getPlayedCardTypeCounts(), but over the whole game.
+     */
+    public int[] getPlayedCardTypeCountsAllGame(int[] counts) {
+        return fillCounts(playedCardTypesAllGame, counts);
+    }
+
+    private int[] fillCounts(Map<SGCard.SGCardType, Counter>[] counters, int[] counts) {
+        int nPlayers = getNPlayers();
+        if (counts == null)
+            counts = new int[nPlayers * N_CARD_TYPES];
+        for (int p = 0; p < nPlayers; p++) {
+            // the maps are EnumMaps, so these lookups are array reads
+            Map<SGCard.SGCardType, Counter> map = counters[p];
+            for (SGCard.SGCardType type : CARD_TYPES) {
+                Counter c = map.get(type);
+                counts[p * N_CARD_TYPES + type.ordinal()] = c == null ? 0 : c.getValue();
+            }
+        }
+        return counts;
+    }
+
     /**
      * The Deck of all played cards
      */
@@ -249,6 +383,22 @@ public class SGGameState extends AbstractGameState {
         }};
     }
 
+    /**
+     * 64-bit hash of the full state for transposition tables (see SGZobrist). States that differ only in the order
+     * of cards in hands, or in which copy of a card was chosen, have the same hash.
+     */
+    public long getZobristHash() {
+        return SGZobrist.hash(this, -1);
+    }
+
+    /**
+     * As getZobristHash(), but only of what the given player can see: the same for all redeterminisations of the
+     * state for that player.
+     */
+    public long getZobristHash(int playerId) {
+        return SGZobrist.hash(this, playerId);
+    }
+
     @Override
     public boolean _equals(Object o) {
         if (this == o) return true;
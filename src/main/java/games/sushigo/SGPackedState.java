@@ -0,0 +1,537 @@
+package games.sushigo;
+
+import core.CoreConstants;
+import core.components.Deck;
+import games.sushigo.actions.ChooseCard;
+import games.sushigo.cards.SGCard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static games.sushigo.cards.SGCard.SGCardType.*;
+
+/**
+ * A compact, primitive-array representation of a SushiGo game state, intended for use in search (e.g. MCTS rollouts)
+ * where the cost of copying an SGGameState (Decks, Counters and HashMaps for every player) dominates.
+ * <p>
+ * Cards are represented by a small integer code (one per card type and icon count, so Maki-1, Maki-2 and Maki-3 are
+ * separate codes). Hands and the draw pile are arrays of codes, while played cards and the discard pile only need to be
+ * held as counts per code. Copying is a handful of System.arraycopy calls, and copyInto() allows a pre-allocated
+ * state to be re-used so that no allocation at all is needed in a rollout.
+ * <p>
+ * The rules are implemented in SGForwardModel, see next(SGPackedState, int) and computeAvailableActions(SGPackedState, int[]).
+ * Actions are encoded as ints, see action(int, boolean).
+ * <p>
+ * Conversion to and from SGGameState is via fromGameState() and writeTo(), so the normal SGGameState API remains
+ * available whenever it is needed. Game history, ticks and timers are not represented in the packed state.
+ * The maxRounds and timeoutRounds of AbstractParameters are not supported (SushiGo uses SGParameters.nRounds).
+ */
+public class SGPackedState {
+
+    static final SGCard.SGCardType[] TYPES = SGCard.SGCardType.values();
+    public static final int N_TYPES = TYPES.length;
+    public static final int N_CODES;
+    // code -> card type ordinal, and code -> number of icons on the card
+    static final int[] CODE_TYPE;
+    static final int[] CODE_COUNT;
+    // first code for each card type (indexed by ordinal)
+    static final int[] TYPE_FIRST_CODE;
+    // Shared immutable card instances, one per code. SGCard.copy() already returns 'this', so sharing is safe.
+    private static final SGCard[] CARDS;
+
+    static {
+        SGCard.SGCardType[] types = TYPES;
+        int nCodes = 0;
+        for (SGCard.SGCardType type : types) nCodes += type.getIconCountVariation().length;
+        N_CODES = nCodes;
+        CODE_TYPE = new int[nCodes];
+        CODE_COUNT = new int[nCodes];
+        TYPE_FIRST_CODE = new int[types.length];
+        CARDS = new SGCard[nCodes];
+        int code = 0;
+        for (SGCard.SGCardType type : types) {
+            TYPE_FIRST_CODE[type.ordinal()] = code;
+            for (int count : type.getIconCountVariation()) {
+                CODE_TYPE[code] = type.ordinal();
+                CODE_COUNT[code] = count;
+                CARDS[code] = new SGCard(type, count);
+                code++;
+            }
+        }
+    }
+
+    final SGParameters params;
+    final int nPlayers;
+    final int maxHand;
+    // Used only to reshuffle the discard pile into the draw pile. This is shared between copies.
+    final Random rnd;
+
+    // Hands are stored in slots of maxHand codes; the hand of player p is in slot (p + handOffset) % nPlayers.
+    // This means that rotating hands between players is just an increment of handOffset.
+    final int[] hands;
+    final int[] handSize;  // indexed by slot
+    int handOffset;
+
+    final int[] played;  // [player * N_CODES + code] - count of cards in the played area
+    final int[] playedTypes;  // [player * N_TYPES + type] - as SGGameState.playedCardTypes
+    final int[] playedTypesAllGame;  // [player * N_TYPES + type] - as SGGameState.playedCardTypesAllGame
+    final int[] pointsPerType;  // [player * N_TYPES + type] - as SGGameState.pointsPerCardType
+    final int[] score;
+
+    // top of the draw pile is drawPile[drawSize - 1]
+    final int[] drawPile;
+    int drawSize;
+    final int[] discard;  // count per code
+
+    final int[] choices;  // [player * 2 + i] - encoded actions chosen this turn (at most two, if chopsticks are used)
+    final int[] nChoices;
+
+    int nCardsInHand, deckRotations;
+    int roundCounter, turnCounter, turnOwner, firstPlayer;
+    boolean terminal;
+
+    SGPackedState(SGParameters params, int nPlayers, int maxHand, int totalCards, Random rnd) {
+        this.params = params;
+        this.nPlayers = nPlayers;
+        this.maxHand = maxHand;
+        this.rnd = rnd;
+        hands = new int[nPlayers * maxHand];
+        handSize = new int[nPlayers];
+        played = new int[nPlayers * N_CODES];
+        playedTypes = new int[nPlayers * N_TYPES];
+        playedTypesAllGame = new int[nPlayers * N_TYPES];
+        pointsPerType = new int[nPlayers * N_TYPES];
+        score = new int[nPlayers];
+        drawPile = new int[totalCards];
+        discard = new int[N_CODES];
+        choices = new int[nPlayers * 2];
+        nChoices = new int[nPlayers];
+    }
+
+    /**
+     * Creates a packed copy of the given game state. This is a full copy; if a redeterminised state is
+     * required then call gs.copy(playerId) first, and pack that.
+     *
+     * @param gs - game state to pack
+     * @return - a new packed state
+     */
+    public static SGPackedState fromGameState(SGGameState gs) {
+        SGPackedState s = allocate(gs, gs.branchRnd());
+        s.readFrom(gs);
+        return s;
+    }
+
+    /**
+     * Creates an empty packed state with room for the contents of the given game state.
+     */
+    static SGPackedState allocate(SGGameState gs, Random rnd) {
+        int nPlayers = gs.getNPlayers();
+        int maxHand = gs.nCardsInHand + 1;
+        int totalCards = gs.drawPile.getSize() + gs.discardPile.getSize();
+        for (int p = 0; p < nPlayers; p++) {
+            maxHand = Math.max(maxHand, gs.playerHands.get(p).getSize() + 1);
+            totalCards += gs.playerHands.get(p).getSize() + gs.playedCards.get(p).getSize();
+        }
+        return new SGPackedState((SGParameters) gs.getGameParameters(), nPlayers, maxHand, totalCards, rnd);
+    }
+
+    /**
+     * @return - true if readFrom() can be used to overwrite this with the contents of the given game state
+     */
+    boolean fits(SGGameState gs) {
+        if (gs.getNPlayers() != nPlayers)
+            return false;
+        int totalCards = gs.drawPile.getSize() + gs.discardPile.getSize();
+        for (int p = 0; p < nPlayers; p++) {
+            if (gs.playerHands.get(p).getSize() > maxHand)
+                return false;
+            totalCards += gs.playerHands.get(p).getSize() + gs.playedCards.get(p).getSize();
+        }
+        return totalCards <= drawPile.length;
+    }
+
+    /**
+     * Overwrites this with the contents of the given game state, without allocating anything. This must fit the
+     * state (see fits()).
+     */
+    void readFrom(SGGameState gs) {
+        Arrays.fill(played, 0);
+        Arrays.fill(discard, 0);
+        handOffset = 0;
+        for (int p = 0; p < nPlayers; p++) {
+            Deck<SGCard> hand = gs.playerHands.get(p);
+            for (int i = 0; i < hand.getSize(); i++)
+                hands[p * maxHand + i] = codeOf(hand.get(i));
+            handSize[p] = hand.getSize();
+            Deck<SGCard> playedDeck = gs.playedCards.get(p);
+            for (int i = 0; i < playedDeck.getSize(); i++)
+                played[p * N_CODES + codeOf(playedDeck.get(i))]++;
+            for (SGCard.SGCardType type : TYPES) {
+                int idx = p * N_TYPES + type.ordinal();
+                playedTypes[idx] = gs.playedCardTypes[p].get(type).getValue();
+                playedTypesAllGame[idx] = gs.playedCardTypesAllGame[p].get(type).getValue();
+                pointsPerType[idx] = gs.pointsPerCardType[p].get(type).getValue();
+            }
+            score[p] = gs.playerScore[p].getValue();
+            List<ChooseCard> chosen = gs.cardChoices.get(p);
+            nChoices[p] = chosen.size();
+            for (int i = 0; i < chosen.size(); i++)
+                choices[p * 2 + i] = action(chosen.get(i).cardIdx, chosen.get(i).useChopsticks);
+        }
+        drawSize = gs.drawPile.getSize();
+        for (int i = 0; i < drawSize; i++)
+            drawPile[drawSize - 1 - i] = codeOf(gs.drawPile.get(i));
+        Deck<SGCard> discardPile = gs.discardPile;
+        for (int i = 0; i < discardPile.getSize(); i++)
+            discard[codeOf(discardPile.get(i))]++;
+
+        nCardsInHand = gs.nCardsInHand;
+        deckRotations = gs.deckRotations;
+        roundCounter = gs.getRoundCounter();
+        turnCounter = gs.getTurnCounter();
+        turnOwner = gs.getTurnOwner();
+        firstPlayer = gs.getFirstPlayer();
+        terminal = !gs.isNotTerminal();
+    }
+
+    /**
+     * Writes the contents of this packed state into the given SGGameState, replacing its SushiGo-specific contents.
+     * The target is typically a copy of the state this was packed from (so that the core parameters, timers and
+     * so on are set up). Cards are the shared immutable instances from card(code).
+     * Game history is not modified.
+     *
+     * @param gs - game state to overwrite
+     */
+    public void writeTo(SGGameState gs) {
+        if (gs.getNPlayers() != nPlayers)
+            throw new IllegalArgumentException("Packed state has " + nPlayers + " players, target has " + gs.getNPlayers());
+        for (int p = 0; p < nPlayers; p++) {
+            Deck<SGCard> hand = gs.playerHands.get(p);
+            hand.clear();
+            int slot = slot(p);
+            for (int i = handSize[slot] - 1; i >= 0; i--)
+                hand.add(CARDS[hands[slot * maxHand + i]]);
+            Deck<SGCard> playedDeck = gs.playedCards.get(p);
+            playedDeck.clear();
+            for (int code = 0; code < N_CODES; code++)
+                for (int i = 0; i < played[p * N_CODES + code]; i++)
+                    playedDeck.add(CARDS[code]);
+            for (SGCard.SGCardType type : SGCard.SGCardType.values()) {
+                int idx = p * N_TYPES + type.ordinal();
+                gs.playedCardTypes[p].get(type).setValue(playedTypes[idx]);
+                gs.playedCardTypesAllGame[p].get(type).setValue(playedTypesAllGame[idx]);
+                gs.pointsPerCardType[p].get(type).setValue(pointsPerType[idx]);
+            }
+            gs.playerScore[p].setValue(score[p]);
+            List<ChooseCard> chosen = gs.cardChoices.get(p);
+            chosen.clear();
+            for (int i = 0; i < nChoices[p]; i++)
+                chosen.add(toAction(choices[p * 2 + i], p));
+        }
+        gs.drawPile.clear();
+        for (int i = 0; i < drawSize; i++)
+            gs.drawPile.add(CARDS[drawPile[i]]);
+        gs.discardPile.clear();
+        for (int code = 0; code < N_CODES; code++)
+            for (int i = 0; i < discard[code]; i++)
+                gs.discardPile.add(CARDS[code]);
+
+        gs.nCardsInHand = nCardsInHand;
+        gs.deckRotations = deckRotations;
+        gs.setTurnCounters(roundCounter, turnCounter, turnOwner, firstPlayer);
+        gs.getActionsInProgress().clear();
+        if (isChopsticksPending()) {
+            // the chopsticks choice is an extended action sequence awaiting the second card
+            List<ChooseCard> chosen = gs.cardChoices.get(turnOwner);
+            chosen.set(0, chosen.get(0).startChopsticks());
+            gs.setActionInProgress(chosen.get(0));
+        }
+        if (terminal) {
+            gs.setGameStatus(CoreConstants.GameResult.GAME_END);
+            boolean drawn = false;
+            int nFirst = 0;
+            for (int p = 0; p < nPlayers; p++)
+                if (getOrdinalPosition(p) == 1) nFirst++;
+            if (nFirst > 1) drawn = true;
+            for (int p = 0; p < nPlayers; p++) {
+                int o = getOrdinalPosition(p);
+                gs.setPlayerResult(o == 1 ? (drawn ? CoreConstants.GameResult.DRAW_GAME : CoreConstants.GameResult.WIN_GAME)
+                        : CoreConstants.GameResult.LOSE_GAME, p);
+            }
+        } else {
+            gs.setGameStatus(CoreConstants.GameResult.GAME_ONGOING);
+            for (int p = 0; p < nPlayers; p++)
+                gs.setPlayerResult(CoreConstants.GameResult.GAME_ONGOING, p);
+        }
+    }
+
+    /**
+     * @return - a copy of this state. All arrays are copied; parameters and the random number generator are shared.
+     */
+    public SGPackedState copy() {
+        SGPackedState copy = new SGPackedState(params, nPlayers, maxHand, drawPile.length, rnd);
+        copyInto(copy);
+        return copy;
+    }
+
+    /**
+     * Copies this state into a previously allocated state (which must have come from copy() of this state, or
+     * of a state packed from the same game). No allocation takes place.
+     *
+     * @param target - state to overwrite
+     */
+    public void copyInto(SGPackedState target) {
+        if (target.nPlayers != nPlayers || target.maxHand != maxHand || target.drawPile.length < drawSize)
+            throw new IllegalArgumentException("Target packed state has incompatible dimensions");
+        System.arraycopy(hands, 0, target.hands, 0, hands.length);
+        System.arraycopy(handSize, 0, target.handSize, 0, handSize.length);
+        System.arraycopy(played, 0, target.played, 0, played.length);
+        System.arraycopy(playedTypes, 0, target.playedTypes, 0, playedTypes.length);
+        System.arraycopy(playedTypesAllGame, 0, target.playedTypesAllGame, 0, playedTypesAllGame.length);
+        System.arraycopy(pointsPerType, 0, target.pointsPerType, 0, pointsPerType.length);
+        System.arraycopy(score, 0, target.score, 0, score.length);
+        System.arraycopy(drawPile, 0, target.drawPile, 0, drawSize);
+        System.arraycopy(discard, 0, target.discard, 0, discard.length);
+        System.arraycopy(choices, 0, target.choices, 0, choices.length);
+        System.arraycopy(nChoices, 0, target.nChoices, 0, nChoices.length);
+        target.handOffset = handOffset;
+        target.drawSize = drawSize;
+        target.nCardsInHand = nCardsInHand;
+        target.deckRotations = deckRotations;
+        target.roundCounter = roundCounter;
+        target.turnCounter = turnCounter;
+        target.turnOwner = turnOwner;
+        target.firstPlayer = firstPlayer;
+        target.terminal = terminal;
+    }
+
+    /* Action encoding */
+
+    /**
+     * @param cardIdx       - index of the card in hand
+     * @param useChopsticks - true if chopsticks are used to pick a second card
+     * @return - encoded action, as used by SGForwardModel.next(SGPackedState, int)
+     */
+    public static int action(int cardIdx, boolean useChopsticks) {
+        return (cardIdx << 1) | (useChopsticks ? 1 : 0);
+    }
+
+    public static int actionCardIdx(int action) {
+        return action >> 1;
+    }
+
+    public static boolean actionUsesChopsticks(int action) {
+        return (action & 1) == 1;
+    }
+
+    public static int action(ChooseCard cc) {
+        return action(cc.cardIdx, cc.useChopsticks);
+    }
+
+    public static ChooseCard toAction(int action, int playerId) {
+        return ChooseCard.of(playerId, actionCardIdx(action), actionUsesChopsticks(action));
+    }
+
+    /* Card codes */
+
+    public static int codeOf(SGCard card) {
+        int first = TYPE_FIRST_CODE[card.type.ordinal()];
+        int[] variation = card.type.getIconCountVariation();
+        for (int i = 0; i < variation.length; i++)
+            if (variation[i] == card.count) return first + i;
+        throw new IllegalArgumentException("Unexpected icon count " + card.count + " for " + card.type);
+    }
+
+    /**
+     * @return - the shared (immutable) card instance for the given code
+     */
+    public static SGCard card(int code) {
+        return CARDS[code];
+    }
+
+    public static SGCard.SGCardType cardType(int code) {
+        return TYPES[CODE_TYPE[code]];
+    }
+
+    /* Accessors, mirroring SGGameState */
+
+    int slot(int playerId) {
+        return (playerId + handOffset) % nPlayers;
+    }
+
+    public int getNPlayers() {
+        return nPlayers;
+    }
+
+    public SGParameters getGameParameters() {
+        return params;
+    }
+
+    public boolean isNotTerminal() {
+        return !terminal;
+    }
+
+    public int getCurrentPlayer() {
+        return turnOwner;
+    }
+
+    public int getRoundCounter() {
+        return roundCounter;
+    }
+
+    public int getTurnCounter() {
+        return turnCounter;
+    }
+
+    public int getDeckRotations() {
+        return deckRotations;
+    }
+
+    public int getPlayerScore(int playerId) {
+        return score[playerId];
+    }
+
+    /**
+     * @return - the size of buffer needed by SGForwardModel.computeAvailableActions(SGPackedState, int[])
+     */
+    public int maxActions() {
+        return 2 * maxHand;
+    }
+
+    public int getHandSize(int playerId) {
+        return handSize[slot(playerId)];
+    }
+
+    /**
+     * @return - the code of the card at index idx of the player's hand (same ordering as the Deck in SGGameState)
+     */
+    public int getHandCard(int playerId, int idx) {
+        int slot = slot(playerId);
+        if (idx < 0 || idx >= handSize[slot])
+            throw new IndexOutOfBoundsException("Index " + idx + " is out of bounds for hand of size " + handSize[slot]);
+        return hands[slot * maxHand + idx];
+    }
+
+    /**
+     * Number of times a card type has been played by the player in the current round (as SGGameState.getPlayedCardTypes())
+     */
+    public int getPlayedCardTypes(SGCard.SGCardType type, int playerId) {
+        return playedTypes[playerId * N_TYPES + type.ordinal()];
+    }
+
+    /**
+     * Number of times a card type has been played by the player over the whole game
+     */
+    public int getPlayedCardTypesAllGame(SGCard.SGCardType type, int playerId) {
+        return playedTypesAllGame[playerId * N_TYPES + type.ordinal()];
+    }
+
+    public int getPointsPerCardType(SGCard.SGCardType type, int playerId) {
+        return pointsPerType[playerId * N_TYPES + type.ordinal()];
+    }
+
+    /**
+     * @return - true if the current player has chosen a card using chopsticks, and has yet to pick the second card
+     */
+    /**
+     * Card type counts for the current round, in the same layout as SGGameState.getPlayedCardTypeCounts().
+     * This is the internal array, and must not be modified.
+     */
+    public int[] getPlayedCardTypeCounts() {
+        return playedTypes;
+    }
+
+    /**
+     * Card type counts over the whole game, in the same layout as SGGameState.getPlayedCardTypeCountsAllGame().
+     * This is the internal array, and must not be modified.
+     */
+    public int[] getPlayedCardTypeCountsAllGame() {
+        return playedTypesAllGame;
+    }
+
+    public boolean isChopsticksPending() {
+        return nChoices[turnOwner] == 1 && actionUsesChopsticks(choices[turnOwner * 2]);
+    }
+
+    /**
+     * @return - the list of cards in a player's hand, as shared card instances
+     */
+    public List<SGCard> getPlayerHand(int playerId) {
+        List<SGCard> retValue = new ArrayList<>(getHandSize(playerId));
+        for (int i = 0; i < getHandSize(playerId); i++)
+            retValue.add(CARDS[getHandCard(playerId, i)]);
+        return retValue;
+    }
+
+    /**
+     * As AbstractGameState.getOrdinalPosition(), using score with the number of puddings as tie-break
+     */
+    public int getOrdinalPosition(int playerId) {
+        int ordinal = 1;
+        int pudding = Pudding.ordinal();
+        for (int i = 0; i < nPlayers; i++) {
+            if (score[i] > score[playerId])
+                ordinal++;
+            else if (score[i] == score[playerId] &&
+                    playedTypes[i * N_TYPES + pudding] > playedTypes[playerId * N_TYPES + pudding])
+                ordinal++;
+        }
+        return ordinal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SGPackedState that)) return false;
+        if (nPlayers != that.nPlayers || drawSize != that.drawSize || nCardsInHand != that.nCardsInHand ||
+                deckRotations != that.deckRotations || roundCounter != that.roundCounter ||
+                turnCounter != that.turnCounter || turnOwner != that.turnOwner || firstPlayer != that.firstPlayer ||
+                terminal != that.terminal)
+            return false;
+        for (int p = 0; p < nPlayers; p++) {
+            int size = getHandSize(p);
+            if (size != that.getHandSize(p)) return false;
+            for (int i = 0; i < size; i++)
+                if (getHandCard(p, i) != that.getHandCard(p, i)) return false;
+            // entries past nChoices are stale
+            if (nChoices[p] != that.nChoices[p]) return false;
+            for (int i = 0; i < nChoices[p]; i++)
+                if (choices[p * 2 + i] != that.choices[p * 2 + i]) return false;
+        }
+        return Arrays.equals(played, that.played) && Arrays.equals(playedTypes, that.playedTypes) &&
+                Arrays.equals(playedTypesAllGame, that.playedTypesAllGame) && Arrays.equals(pointsPerType, that.pointsPerType) &&
+                Arrays.equals(score, that.score) && Arrays.equals(discard, that.discard) &&
+                Arrays.equals(drawPile, 0, drawSize, that.drawPile, 0, drawSize);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(score);
+        result = 31 * result + Arrays.hashCode(played);
+        result = 31 * result + Arrays.hashCode(playedTypes);
+        result = 31 * result + Arrays.hashCode(nChoices);
+        for (int p = 0; p < nPlayers; p++)
+            for (int i = 0; i < getHandSize(p); i++)
+                result = 31 * result + getHandCard(p, i);
+        result = 31 * result + roundCounter * 1000 + turnCounter;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Round ").append(roundCounter).append(", turn ").append(turnCounter)
+                .append(", player ").append(turnOwner).append(terminal ? " (terminal)" : "").append("\n");
+        for (int p = 0; p < nPlayers; p++) {
+            sb.append("Player ").append(p).append(" score ").append(score[p]).append(" hand ").append(getPlayerHand(p)).append("\n");
+        }
+        return sb.toString();
+    }
+
+    // Counters in SGGameState are clamped at zero, and so are these
+    static int clampedAdd(int value, int amount) {
+        return Math.max(0, value + amount);
+    }
+}
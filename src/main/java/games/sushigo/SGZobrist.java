@@ -0,0 +1,91 @@
+package games.sushigo;
+
+import core.components.Counter;
+import core.components.Deck;
+import games.sushigo.actions.ChooseCard;
+import games.sushigo.cards.SGCard;
+
+/**
+ * Zobrist-style hash of an SGGameState, for transposition tables (see SGGameState.getZobristHash()).
+ * <p>
+ * The hash is the XOR of one 64-bit key per feature of the state: the cards (type and Maki icon count) in each
+ * hand, the played card counts of each player for the round (which include the unused Wasabi) and puddings over
+ * the game, the scores, the card choices waiting to be revealed, and the round and player to move. Hands and
+ * choices are hashed as multisets, by adding the keys of their cards (so that duplicates do not cancel out): states
+ * reached by picking different copies of the same card, or with hands in a different order, hash the same, as they
+ * have the same future.
+ * <p>
+ * Keys are derived from the feature with a fixed mixing function rather than read from random tables, so there is
+ * no bound on player counts, card counts or scores. A state is hashed in one pass over its cards, with no
+ * allocation.
+ */
+public final class SGZobrist {
+
+    // feature kinds
+    private static final int HAND = 1, HAND_SIZE = 2, PLAYED = 3, PUDDINGS = 4, SCORE = 5, CHOICE = 6,
+            ROUND = 7, TURN_OWNER = 8, ROTATIONS = 9, IN_PROGRESS = 10, TERMINAL = 11, N_PLAYERS = 12;
+    private static final long SEED = 0x5D1C0FFEE5EEDL;
+
+    private SGZobrist() {
+    }
+
+    /**
+     * @param state    - state to hash
+     * @param playerId - player whose view is hashed: hands of other players that the player cannot see are hashed
+     *                 by size only, and the choices of other players are left out (copy(playerId) hides them).
+     *                 -1 hashes the full state.
+     * @return - 64-bit hash of the state
+     */
+    public static long hash(SGGameState state, int playerId) {
+        int nPlayers = state.getNPlayers();
+        long h = key(N_PLAYERS, 0, nPlayers);
+        h ^= key(ROUND, 0, state.getRoundCounter());
+        h ^= key(TURN_OWNER, 0, state.getCurrentPlayer());
+        h ^= key(ROTATIONS, 0, state.deckRotations);
+        if (state.isActionInProgress())
+            h ^= key(IN_PROGRESS, 0, 1);
+        if (!state.isNotTerminal())
+            h ^= key(TERMINAL, 0, 1);
+
+        for (int p = 0; p < nPlayers; p++) {
+            Deck<SGCard> hand = state.playerHands.get(p);
+            if (playerId == -1 || state.isHandKnown(playerId, p)) {
+                long cards = 0;
+                for (int i = 0; i < hand.getSize(); i++)
+                    cards += key(HAND, p, SGPackedState.codeOf(hand.get(i)));
+                h ^= cards;
+            } else {
+                h ^= key(HAND_SIZE, p, hand.getSize());
+            }
+
+            for (SGCard.SGCardType type : SGPackedState.TYPES) {
+                Counter n = state.playedCardTypes[p].get(type);
+                if (n != null && n.getValue() != 0)
+                    h ^= key(PLAYED, p * SGGameState.N_CARD_TYPES + type.ordinal(), n.getValue());
+            }
+            Counter puddings = state.playedCardTypesAllGame[p].get(SGCard.SGCardType.Pudding);
+            h ^= key(PUDDINGS, p, puddings == null ? 0 : puddings.getValue());
+            h ^= key(SCORE, p, state.playerScore[p].getValue());
+
+            if (playerId == -1 || playerId == p) {
+                long chosen = 0;
+                for (ChooseCard cc : state.cardChoices.get(p))
+                    chosen += key(CHOICE, p * 2 + (cc.useChopsticks ? 1 : 0), SGPackedState.codeOf(hand.get(cc.cardIdx)));
+                h ^= chosen;
+            }
+        }
+        return h;
+    }
+
+    // Key for a feature: the kind, the index within the kind (player, card...), and its value
+    private static long key(int kind, int index, int value) {
+        return mix(SEED + ((long) kind << 56) + ((long) index << 32) + (value & 0xFFFFFFFFL));
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
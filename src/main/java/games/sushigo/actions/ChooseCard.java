@@ -2,6 +2,7 @@ package games.sushigo.actions;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import core.actions.ActionTable;
 import core.components.Card;
 import core.components.Deck;
 import core.interfaces.IExtendedSequence;
@@ -11,23 +12,69 @@ import games.sushigo.cards.SGCard;
 import java.util.*;
 
 public class ChooseCard extends AbstractAction implements IExtendedSequence {
+    // Hand indices up to this have a shared instance in TABLE
+    public static final int MAX_SHARED_CARD_IDX = 127;
+    /**
+     * The shared instances of all the actions, see of() and index()
+     */
+    public static final ActionTable<ChooseCard> TABLE = new ActionTable<>(
+            i -> new ChooseCard(i / (2 * (MAX_SHARED_CARD_IDX + 1)), (i / 2) % (MAX_SHARED_CARD_IDX + 1), i % 2 == 1));
+
     public final int playerId;
     public final int cardIdx;
     public final boolean useChopsticks;
 
+    // Only the copy of a chopsticks choice that is waiting for the second card (see execute()) changes, so all
+    // other instances are immutable
+    private final boolean inProgress;
     boolean chopstickChooseDone;
 
     public ChooseCard(int playerId, int cardIdx, boolean useChopsticks) {
+        this(playerId, cardIdx, useChopsticks, false);
+    }
+
+    private ChooseCard(int playerId, int cardIdx, boolean useChopsticks, boolean inProgress) {
         this.playerId = playerId;
         this.cardIdx = cardIdx;
         this.useChopsticks = useChopsticks;
+        this.inProgress = inProgress;
+    }
+
+    /**
+     * @return - the shared instance of the action, which can be used in place of new ChooseCard(...)
+     */
+    public static ChooseCard of(int playerId, int cardIdx, boolean useChopsticks) {
+        if (cardIdx > MAX_SHARED_CARD_IDX)
+            return new ChooseCard(playerId, cardIdx, useChopsticks);
+        return TABLE.get(index(playerId, cardIdx, useChopsticks));
+    }
+
+    /**
+     * @return - the index of the action in TABLE
+     */
+    public static int index(int playerId, int cardIdx, boolean useChopsticks) {
+        return (playerId * (MAX_SHARED_CARD_IDX + 1) + cardIdx) * 2 + (useChopsticks ? 1 : 0);
+    }
+
+    /**
+     * @return - a new copy of this chopsticks choice, to go on the stack of actions in progress until the second
+     * card has been chosen
+     */
+    public ChooseCard startChopsticks() {
+        if (!useChopsticks)
+            throw new IllegalStateException("Not a chopsticks choice: " + this);
+        return new ChooseCard(playerId, cardIdx, true, true);
     }
 
     @Override
     public boolean execute(AbstractGameState gs) {
-        ((SGGameState) gs).addCardChoice(this, gs.getCurrentPlayer());
         if (useChopsticks) {
-            gs.setActionInProgress(this);
+            // this action is not changed, so that it can be shared (see of())
+            ChooseCard inProgress = startChopsticks();
+            ((SGGameState) gs).addCardChoice(inProgress, gs.getCurrentPlayer());
+            gs.setActionInProgress(inProgress);
+        } else {
+            ((SGGameState) gs).addCardChoice(this, gs.getCurrentPlayer());
         }
         return true;
     }
@@ -44,7 +91,7 @@ public class ChooseCard extends AbstractAction implements IExtendedSequence {
             // All players can do is choose a card in hand to play. Cannot chain chopsticks, only 1 per turn can be used.
             // So all of these actions can only be 'useChopsticks = false'
             if (idxSelected != i) {
-                actions.add(new ChooseCard(playerId, i, false));
+                actions.add(of(playerId, i, false));
             }
         }
         if (actions.isEmpty())
@@ -69,12 +116,12 @@ public class ChooseCard extends AbstractAction implements IExtendedSequence {
 
     @Override
     public ChooseCard copy() {
-        if (useChopsticks) {
-            ChooseCard retValue = new ChooseCard(playerId, cardIdx, useChopsticks);
+        if (inProgress) {
+            ChooseCard retValue = new ChooseCard(playerId, cardIdx, useChopsticks, true);
             retValue.chopstickChooseDone = chopstickChooseDone;
             return retValue;
         }
-        return this; // immutable if not using chopsticks
+        return this; // immutable unless in progress
     }
 
     @Override
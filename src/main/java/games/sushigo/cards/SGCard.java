@@ -239,6 +239,11 @@ public class SGCard extends Card {
         return this; // immutable
     }
 
+    @Override
+    public boolean isImmutable() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return type.toString() + (count > 1 ? "-" + count : "");
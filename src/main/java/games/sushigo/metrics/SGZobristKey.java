@@ -0,0 +1,17 @@
+package games.sushigo.metrics;
+
+import core.AbstractGameState;
+import core.interfaces.IStateKey;
+import games.sushigo.SGGameState;
+
+/**
+ * State key for MCGS (MCTSParams.MCGSStateKey) from the Zobrist hash of what the player can see. Unlike
+ * AllKnownCardsKey this includes scores, pending choices and the point in the round, and the key is a single Long,
+ * which is cheap to hash and compare in the transposition map.
+ */
+public class SGZobristKey implements IStateKey {
+    @Override
+    public Long getKey(AbstractGameState state, int playerId) {
+        return ((SGGameState) state).getZobristHash(playerId);
+    }
+}
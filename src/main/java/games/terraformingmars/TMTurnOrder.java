@@ -31,7 +31,8 @@ public class TMTurnOrder extends AlternatingTurnOrder {
 
         if (gameState.getGameStatus() != GAME_ONGOING) return;
 
-        listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.TURN_OVER, gameState, turnOwner)));
+        if (!gameState.isSimulationMode())
+            listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.TURN_OVER, gameState, turnOwner)));
 
         if (nActionsTaken == nActionsPerPlayer || passed[turnOwner]) {
             nActionsTaken = 0;
@@ -59,7 +59,12 @@ public class UnoCard extends Card {
 
     @Override
     public Card copy() {
-        return new UnoCard(type, color, number, drawN, componentID);
+        return this; // immutable
+    }
+
+    @Override
+    public boolean isImmutable() {
+        return true;
     }
 
     public boolean isPlayable(UnoGameState gameState) {
@@ -14,6 +14,29 @@ public class AMAF_Params extends PlayerParameters {
     public double epsilon = 1e-6; // small numeric noise used in UCT
     public double biasWeight = 0.1; // default progressive-bias weight (for AMAF)
     public IStateHeuristic heuristic = new GroupAAHeuristic(); // default to your heuristic
+    public boolean packedRollouts = true; // run rollouts on SGPackedState when playing SushiGo with GroupAAHeuristic
+    public int rolloutBatchSize = 1; // packed rollouts played (in lockstep, see SGBatchRollout) and averaged per iteration
+
+    // Parallel search: with nThreads > 1 the search runs on a thread pool owned by the agent
+    public enum ParallelMode {
+        ROOT, // one tree per thread, each on its own determinisation, merged by visit count at the root
+        TREE  // all threads search one shared tree, with virtual loss to spread them over different paths
+    }
+    public int nThreads = 1;
+    public ParallelMode parallelMode = ParallelMode.ROOT;
+    public int virtualLoss = 1; // visits counted as losses on a path while an iteration is in progress (TREE only)
+    public int heuristicCacheSize = 0; // entries in the agent's global heuristic cache, 0 for none
+    // Determinisation ensemble: with more than 1, that many trees are searched, each on its own determinisation of
+    // the observation, and merged by visit count at the root. The trees are spread over the nThreads threads
+    // (in ROOT mode there are always at least nThreads trees; TREE mode searches the observation only)
+    public int determinisations = 1;
+    // entries in the agent's transposition table, 0 for none: a state reached by different paths in the tree
+    // (e.g. by picking either of two identical cards) is then searched as one node
+    public int transpositionTableSize = 0;
+    // Tree reuse: start each decision from the node of the previous tree reached by the actions played since
+    public boolean reuseTree = false;
+    public int reuseDepth = 3; // levels of the old tree kept below the new root
+    public int reuseMaxNodes = 100000; // if more nodes than this would be kept, the deepest levels are dropped
 
     // NEW: rollout policy and exploration inside rollout (epsilon-greedy)
     public GroupAARolloutPolicy rolloutPolicy = null; // default to null => use RandomPlayer or fallback
@@ -27,6 +50,17 @@ public class AMAF_Params extends PlayerParameters {
         // Keep heuristic tunable (defaults to GroupAAHeuristic)
         addTunableParameter("biasWeight", biasWeight, Arrays.asList(0.0, 0.01, 0.05, 0.1, 0.2));
         addTunableParameter("heuristic", this.heuristic);
+        addTunableParameter("packedRollouts", true);
+        addTunableParameter("rolloutBatchSize", 1, Arrays.asList(1, 2, 4, 8, 16));
+        addTunableParameter("nThreads", 1);
+        addTunableParameter("parallelMode", ParallelMode.ROOT, Arrays.asList(ParallelMode.values()));
+        addTunableParameter("virtualLoss", 1, Arrays.asList(0, 1, 3, 10));
+        addTunableParameter("heuristicCacheSize", 0, Arrays.asList(0, 1 << 12, 1 << 16));
+        addTunableParameter("determinisations", 1, Arrays.asList(1, 2, 4, 8, 16));
+        addTunableParameter("transpositionTableSize", 0, Arrays.asList(0, 1 << 14, 1 << 18));
+        addTunableParameter("reuseTree", false);
+        addTunableParameter("reuseDepth", 3, Arrays.asList(1, 2, 3, 5, 10));
+        addTunableParameter("reuseMaxNodes", 100000);
 
         // New tunables for rollout policy
         // We store identifier strings or objects; here we expose policy object directly (simplest)
@@ -44,6 +78,17 @@ public class AMAF_Params extends PlayerParameters {
         epsilon = (double) getParameterValue("epsilon");
         biasWeight = (double) getParameterValue("biasWeight");
         heuristic = (IStateHeuristic) getParameterValue("heuristic");
+        packedRollouts = (boolean) getParameterValue("packedRollouts");
+        rolloutBatchSize = (int) getParameterValue("rolloutBatchSize");
+        nThreads = (int) getParameterValue("nThreads");
+        parallelMode = (ParallelMode) getParameterValue("parallelMode");
+        virtualLoss = (int) getParameterValue("virtualLoss");
+        heuristicCacheSize = (int) getParameterValue("heuristicCacheSize");
+        determinisations = (int) getParameterValue("determinisations");
+        transpositionTableSize = (int) getParameterValue("transpositionTableSize");
+        reuseTree = (boolean) getParameterValue("reuseTree");
+        reuseDepth = (int) getParameterValue("reuseDepth");
+        reuseMaxNodes = (int) getParameterValue("reuseMaxNodes");
 
         // read rollout extras (safely)
         Object rp = getParameterValue("rolloutPolicy");
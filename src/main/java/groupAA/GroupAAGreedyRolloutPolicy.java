@@ -2,6 +2,9 @@ package groupAA;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import core.interfaces.IUndoableForwardModel;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGPackedState;
 import players.PlayerParameters;
 
 import java.util.List;
@@ -14,10 +17,21 @@ public class GroupAAGreedyRolloutPolicy implements GroupAARolloutPolicy {
 
     private final SushiGoAgentGroupAA player;
     private final AMAF_Params params;
+    private SGPackedState scratch; // reused by the packed lookahead
+    private IUndoableForwardModel.Checkpoint checkpoint; // reused by the lookahead, if the forward model supports it
+    private final GroupAASearchStats stats; // may be null
 
     public GroupAAGreedyRolloutPolicy(SushiGoAgentGroupAA player) {
+        this(player, null);
+    }
+
+    /**
+     * @param stats - heuristic calls and time are added to these, if not null
+     */
+    public GroupAAGreedyRolloutPolicy(SushiGoAgentGroupAA player, GroupAASearchStats stats) {
         this.player = player;
         this.params = player.getParameters();
+        this.stats = stats;
     }
 
     //does a cheap single-step (single simulation) greedy lookahead
@@ -28,24 +42,78 @@ public class GroupAAGreedyRolloutPolicy implements GroupAARolloutPolicy {
             return null;
         }
 
+        // If the forward model supports it, each action is applied to the state itself and then undone,
+        // instead of being applied to a new copy of the state
+        IUndoableForwardModel undo = checkpoint(state);
         AbstractAction best = null;
         double bestScore = -Double.MAX_VALUE;
         for (AbstractAction a : actions) { //for every candidate action
             try {
-                AbstractGameState copy = state.copy();
-                player.getForwardModel().next(copy, a.copy()); //it simulates one step
-                double score = params.getStateHeuristic().evaluateState(copy, playerId); //evaluates the child state with the heuristic
+                AbstractGameState next = undo != null ? state : state.copy();
+                player.getForwardModel().next(next, a.copy()); //it simulates one step
+                long start = System.nanoTime();
+                double score = params.getStateHeuristic().evaluateState(next, playerId); //evaluates the child state with the heuristic
+                countHeuristic(start);
                 score = utilities.Utils.noise(score, params.epsilon, rnd.nextDouble()); //adding exploration (epsilon) noise to the score
                 if (score > bestScore) {
                     bestScore = score;
                     best = a;
-                    LOGGER.info("Selected action leading to better heuristic value");
                 }
             } catch (Throwable ignored) {
                 if (best == null)
                     best = a;
+            } finally {
+                if (undo != null)
+                    undo.revert(state, checkpoint);
             }
         }
         return best != null ? best : actions.get(rnd.nextInt(actions.size())); //returns the action with the best heuristic score
     }
-}
\ No newline at end of file
+
+    //same greedy lookahead on a packed state, reusing a single scratch copy for every candidate
+    @Override
+    public int chooseAction(SGPackedState state, int[] actions, int nActions, int playerId, Random rnd) {
+        if (!(params.getStateHeuristic() instanceof GroupAAHeuristic))
+            return GroupAARolloutPolicy.super.chooseAction(state, actions, nActions, playerId, rnd);
+        GroupAAHeuristic heuristic = (GroupAAHeuristic) params.getStateHeuristic();
+        SGForwardModel fm = (SGForwardModel) player.getForwardModel();
+        if (scratch == null || scratch.getNPlayers() != state.getNPlayers())
+            scratch = state.copy();
+
+        int best = actions[0];
+        double bestScore = -Double.MAX_VALUE;
+        for (int i = 0; i < nActions; i++) {
+            state.copyInto(scratch);
+            fm.next(scratch, actions[i]);
+            long start = System.nanoTime();
+            double score = heuristic.evaluateState(scratch, playerId);
+            countHeuristic(start);
+            score = utilities.Utils.noise(score, params.epsilon, rnd.nextDouble());
+            if (score > bestScore) {
+                bestScore = score;
+                best = actions[i];
+            }
+        }
+        return best;
+    }
+
+    // Saves the state into the reusable checkpoint and returns the forward model to undo with, or null if the
+    // forward model cannot undo actions from this state
+    private IUndoableForwardModel checkpoint(AbstractGameState state) {
+        if (!(player.getForwardModel() instanceof IUndoableForwardModel undo))
+            return null;
+        try {
+            checkpoint = undo.checkpoint(state, checkpoint);
+            return undo;
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private void countHeuristic(long startNanos) {
+        if (stats != null) {
+            stats.heuristicNanos += System.nanoTime() - startNanos;
+            stats.heuristicCalls++;
+        }
+    }
+}
@@ -1,21 +1,26 @@
 package groupAA;
 
-import java.util.*;
-
 import core.AbstractGameState;
-import core.components.Counter;
-import core.interfaces.IStateHeuristic;
 import core.components.Deck;
 import games.sushigo.cards.SGCard;
 import games.sushigo.SGGameState;
+import games.sushigo.SGPackedState;
 import org.json.simple.JSONObject;
 import games.sushigo.SGParameters;
 
-public class GroupAAHeuristic implements IStateHeuristic {
+public class GroupAAHeuristic implements SGPackedHeuristic {
 
     // Tweak this to control how strongly the heuristic maps to [-1,1]
     private static final double MAX_POSSIBLE = 40.0;
 
+    // Tuned probabilities of turning an incomplete combo into points later in the round
+    private static final double PROB_TEMPURA_PAIR = 0.4;      // one card away from a pair; 0.4 is conservative
+    private static final double PROB_SASHIMI_TRIPLE = 0.25;   // harder to finish a triplet -> lower probability
+    private static final double PROB_NEXT_DUMPLING = 0.3;     // conservative
+    private static final double PROB_NIGIRI_ON_WASABI = 0.5;  // chance we get a nigiri to use an unused wasabi on
+    // Chance that the current pudding standing holds until the end of the game (tunable)
+    private static final double PROB_PUDDING_STANDING = 0.2;
+
     // No-arg constructor (used by default)
     public GroupAAHeuristic() {
         System.out.println("GroupAAHeuristic initialized (no-arg constructor)");
@@ -27,138 +32,139 @@ public class GroupAAHeuristic implements IStateHeuristic {
         // Optional: parse fields from JSON if needed in the future
     }
 
+    // Scratch arrays for the flat card counts, one pair per thread as the heuristic is shared by search threads
+    private final ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(() -> new int[2][0]);
+
     @Override
     public double evaluateState(AbstractGameState gs, int playerId) {
         SGGameState state = (SGGameState) gs;
-        double raw = state.getPlayerScore()[playerId].getValue();
-
-        int nPlayers = state.getNPlayers();
-
-        Map<SGCard.SGCardType, Counter>[] played = state.getPlayedCardTypes(); //contains counts of cards played this round per player for calculating the estimated value of this state with complete/incomplete combo sets.
-        Map<SGCard.SGCardType, Counter>[] pointsPerType = state.getPointsPerCardType(); //contains points already awarded for each card type for calculating the estimated value of this state with complete/incomplete combo sets.
-
-        // Use counts as fallbacks when counters are missing
-        int tempuraCount = safeGetCounter(played, playerId, SGCard.SGCardType.Tempura);
-        int sashimiCount = safeGetCounter(played, playerId, SGCard.SGCardType.Sashimi);
-        int dumplingCount = safeGetCounter(played, playerId, SGCard.SGCardType.Dumpling);
-        int wasabiCount = safeGetCounter(played, playerId, SGCard.SGCardType.Wasabi);
-        int eggNigiri = safeGetCounter(played, playerId, SGCard.SGCardType.EggNigiri);
-        int salmonNigiri = safeGetCounter(played, playerId, SGCard.SGCardType.SalmonNigiri);
-        int squidNigiri = safeGetCounter(played, playerId, SGCard.SGCardType.SquidNigiri);
-
-
-        double potential = 0.0; //estimate value from incomplete combo sets to guide the towards complete combo sets
-
-        // Tempura: if odd (one-away from pair) estimate probability of completing the pair
-        int tempuraRemainder = tempuraCount % 2;
-        if (tempuraRemainder == 1) {
-            // one card away -> chance to complete in future (tune probability, 0.4 is conservative)
-            double probComplete = 0.4;
-            int pairValue = ((SGParameters) state.getGameParameters()).valueTempuraPair;
-            potential += probComplete * pairValue;
+        int[][] counts = scratch.get();
+        int size = state.getNPlayers() * SGGameState.N_CARD_TYPES;
+        if (counts[0].length < size) {
+            counts[0] = new int[size];
+            counts[1] = new int[size];
         }
+        return evaluateCounts((SGParameters) state.getGameParameters(), state.getNPlayers(), state.isNotTerminal(),
+                playerId, state.getPlayerScore()[playerId].getValue(),
+                state.getPlayedCardTypeCounts(counts[0]), state.getPlayedCardTypeCountsAllGame(counts[1]));
+    }
 
-        // Sashimi: similar logic for triplets
-        int sashimiRemainder = sashimiCount % 3;
-        if (sashimiRemainder != 0) {
-            double probComplete = 0.25; // harder to finish a triplet -> lower probability
-            int tripleValue = ((SGParameters) state.getGameParameters()).valueSashimiTriple;
-            potential += probComplete * tripleValue;
-        }
+    /**
+     * Evaluates a packed SushiGo state (as used in packed rollouts). This gives exactly the same value as
+     * evaluateState() on the equivalent SGGameState.
+     */
+    @Override
+    public double evaluateState(SGPackedState state, int playerId) {
+        return evaluateCounts(state.getGameParameters(), state.getNPlayers(), state.isNotTerminal(), playerId,
+                state.getPlayerScore(playerId), state.getPlayedCardTypeCounts(), state.getPlayedCardTypeCountsAllGame());
+    }
 
-        // Dumpling: engine already awards dumpling points on reveal. We estimate marginal value to next threshold.
-        int[] dumplingVals = ((SGParameters) state.getGameParameters()).valueDumpling;
+    /**
+     * The heuristic itself, over flat card counts indexed by [player * SGGameState.N_CARD_TYPES + type.ordinal()].
+     * This follows the original evaluation over the counter maps of SGGameState (kept as MapBasedHeuristic in the
+     * tests) step by step, including the order of floating point operations, but with plain loops in place of map
+     * lookups and streams.
+     */
+    private double evaluateCounts(SGParameters params, int nPlayers, boolean notTerminal, int playerId, int score,
+                                  int[] played, int[] playedAllGame) {
+        final int stride = SGGameState.N_CARD_TYPES;
+        final int me = playerId * stride;
+        double raw = score;
+
+        int tempuraCount = played[me + SGCard.SGCardType.Tempura.ordinal()];
+        int sashimiCount = played[me + SGCard.SGCardType.Sashimi.ordinal()];
+        int dumplingCount = played[me + SGCard.SGCardType.Dumpling.ordinal()];
+        int wasabiCount = played[me + SGCard.SGCardType.Wasabi.ordinal()];
+        int eggNigiri = played[me + SGCard.SGCardType.EggNigiri.ordinal()];
+        int salmonNigiri = played[me + SGCard.SGCardType.SalmonNigiri.ordinal()];
+        int squidNigiri = played[me + SGCard.SGCardType.SquidNigiri.ordinal()];
+
+        // Estimated value of incomplete combo sets, to guide the search towards completing them
+        double potential = 0.0;
+        if (tempuraCount % 2 == 1)
+            potential += PROB_TEMPURA_PAIR * params.valueTempuraPair;
+        if (sashimiCount % 3 != 0)
+            potential += PROB_SASHIMI_TRIPLE * params.valueSashimiTriple;
+        // Dumplings are scored on reveal, so only the marginal value of the next one counts
+        int[] dumplingVals = params.valueDumpling;
         int nextDIdx = Math.min(dumplingCount, dumplingVals.length - 1);
-        // compute current dumpling points already awarded for current count via pointsPerType if present
-        int awardedDumplingPoints = safeGetPoints(pointsPerType, playerId, SGCard.SGCardType.Dumpling);
         int theoreticalNext = (nextDIdx + 1 < dumplingVals.length) ? dumplingVals[nextDIdx + 1] : dumplingVals[dumplingVals.length - 1];
-        int currentTheoretical = dumplingVals[Math.max(0, nextDIdx)];
-        int marginal = theoreticalNext - currentTheoretical;
-        if (marginal > 0) {
-            double prob = 0.3; // conservative
-            potential += prob * marginal;
-        }
-
-        // Wasabi + nigiri: engine consumes wasabi on reveal; remaining wasabi indicates unused boosting potential
+        int marginal = theoreticalNext - dumplingVals[Math.max(0, nextDIdx)];
+        if (marginal > 0)
+            potential += PROB_NEXT_DUMPLING * marginal;
+        // Unused wasabi is worth (multiplier - 1) times the average nigiri played so far (2 if none)
         int totalNigiri = eggNigiri + salmonNigiri + squidNigiri;
-        // estimate average nigiri value (fallback 2)
         double avgNigiriValue = 1.0 * eggNigiri + 2.0 * salmonNigiri + 3.0 * squidNigiri;
         avgNigiriValue = totalNigiri > 0 ? (avgNigiriValue / totalNigiri) : 2.0;
-        // engine parameter multiplier (usually 3)
-        int wasabiMultiplier = ((SGParameters) state.getGameParameters()).multiplierWasabi;
-        // only add extra value for *unused* wasabi (wasabiCount is unused wasabi tokens)
-        if (wasabiCount > 0) {
-            // potential extra from each wasabi ≈ (multiplier-1)*avgNigiriValue * probability we get a nigiri to use it
-            double probGetNigiri = 0.5;
-            potential += wasabiCount * (wasabiMultiplier - 1) * avgNigiriValue * probGetNigiri;
-        }
+        if (wasabiCount > 0)
+            potential += wasabiCount * (params.multiplierWasabi - 1) * avgNigiriValue * PROB_NIGIRI_ON_WASABI;
 
-        // Maki and Pudding - use engine counters across players (they are relative)
-        int[] makiCounts = new int[nPlayers];
-        int[] puddingCounts = new int[nPlayers];
+        // Maki standings this round: the highest count and how many share it, then the same for the second highest
+        final int maki = SGCard.SGCardType.Maki.ordinal();
+        int myMaki = played[me + maki];
+        int max1 = 0, topCount = 0;
         for (int p = 0; p < nPlayers; p++) {
-            makiCounts[p] = safeGetCounter(played, p, SGCard.SGCardType.Maki);
-            puddingCounts[p] = safeGetCounter(state.getPlayedCardTypesAllGame(), p, SGCard.SGCardType.Pudding);
+            int m = played[p * stride + maki];
+            if (m > max1) {
+                max1 = m;
+                topCount = 1;
+            } else if (m == max1) {
+                topCount++;
+            }
         }
-
-        // Maki expected reward (if round not yet scored, estimate expected reward at round end)
-        // Use actual game parameters to compute top/second splitting
         double myMakiReward = 0.0;
-        int myMaki = makiCounts[playerId];
-        int max1 = Arrays.stream(makiCounts).max().orElse(0);
-        long topCount = Arrays.stream(makiCounts).filter(x -> x == max1).count();
         if (myMaki == max1 && max1 > 0) {
-            int mostScore = ((SGParameters) state.getGameParameters()).valueMakiMost;
-            myMakiReward = (double) mostScore / Math.max(1, topCount);
+            myMakiReward = (double) params.valueMakiMost / Math.max(1, topCount);
         } else {
-            int max2 = Arrays.stream(makiCounts).filter(x -> x < max1).max().orElse(0);
-            long secondCount = Arrays.stream(makiCounts).filter(x -> x == max2).count();
+            int max2 = 0, secondCount = 0;
+            for (int p = 0; p < nPlayers; p++) {
+                int m = played[p * stride + maki];
+                if (m < max1) {
+                    if (m > max2) {
+                        max2 = m;
+                        secondCount = 1;
+                    } else if (m == max2) {
+                        secondCount++;
+                    }
+                }
+            }
             if (myMaki == max2 && max2 > 0) {
-                int secondScore = ((SGParameters) state.getGameParameters()).valueMakiSecond;
-                myMakiReward = (double) secondScore / Math.max(1, secondCount);
+                myMakiReward = (double) params.valueMakiSecond / Math.max(1, secondCount);
             }
         }
 
-        // Pudding: use all-game counters. If terminal, the engine will have applied pudding scoring to playerScore; if not terminal,
-        // we add an expected pudding reward (small) to account for potential end-of-game pudding outcome.
+        // Pudding standings over the whole game; once the game is over they are already in the score
         double myPuddingReward = 0.0;
-        int myPuddings = puddingCounts[playerId];
-        if (state.isNotTerminal()) {
-            // add a small expected-value for puddings (tunable)
-            // compute relative standing
-            int maxP = Arrays.stream(puddingCounts).max().orElse(0);
-            int minP = Arrays.stream(puddingCounts).min().orElse(0);
+        if (notTerminal) {
+            final int pudding = SGCard.SGCardType.Pudding.ordinal();
+            int myPuddings = playedAllGame[me + pudding];
+            int maxP = Integer.MIN_VALUE, minP = Integer.MAX_VALUE, nMax = 0, nMin = 0;
+            for (int p = 0; p < nPlayers; p++) {
+                int pud = playedAllGame[p * stride + pudding];
+                if (pud > maxP) {
+                    maxP = pud;
+                    nMax = 1;
+                } else if (pud == maxP) {
+                    nMax++;
+                }
+                if (pud < minP) {
+                    minP = pud;
+                    nMin = 1;
+                } else if (pud == minP) {
+                    nMin++;
+                }
+            }
             if (myPuddings == maxP && maxP > 0) {
-                myPuddingReward += ((double) ((SGParameters) state.getGameParameters()).valuePuddingMost) / Math.max(1, Arrays.stream(puddingCounts).filter(x -> x == maxP).count()) * 0.2; // 20% chance
-            } else if (myPuddings == minP && state.getNPlayers() > 2) {
-                myPuddingReward -= ((double) ((SGParameters) state.getGameParameters()).valuePuddingLeast) / Math.max(1, Arrays.stream(puddingCounts).filter(x -> x == minP).count()) * 0.2;
+                myPuddingReward += ((double) params.valuePuddingMost) / Math.max(1, nMax) * PROB_PUDDING_STANDING;
+            } else if (myPuddings == minP && nPlayers > 2) {
+                myPuddingReward -= ((double) params.valuePuddingLeast) / Math.max(1, nMin) * PROB_PUDDING_STANDING;
             }
         }
 
-        // Combine base + expected potentials + maki/pudding expected
         raw += potential + myMakiReward + myPuddingReward;
-
         return normalize(raw);
     }
 
-    private int safeGetCounter(Map<SGCard.SGCardType, Counter>[] played, int player, SGCard.SGCardType type) {
-        try {
-            if (played == null || played[player] == null || played[player].get(type) == null) return 0;
-            return played[player].get(type).getValue();
-        } catch (Throwable t) {
-            return 0;
-        }
-    }
-
-    private int safeGetPoints(Map<SGCard.SGCardType, Counter>[] pointsPerType, int player, SGCard.SGCardType type) {
-        try {
-            if (pointsPerType == null || pointsPerType[player] == null || pointsPerType[player].get(type) == null) return 0;
-            return pointsPerType[player].get(type).getValue();
-        } catch (Throwable t) {
-            return 0;
-        }
-    }
-
     private double normalize(double raw) {
         final double MAX_POSSIBLE = 40.0; // tune to your game length and scoring range
         double clipped = Math.max(-MAX_POSSIBLE, Math.min(MAX_POSSIBLE, raw));
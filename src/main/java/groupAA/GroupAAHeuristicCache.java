@@ -0,0 +1,92 @@
+package groupAA;
+
+import core.components.Counter;
+import games.sushigo.SGGameState;
+import games.sushigo.cards.SGCard;
+
+import java.util.Map;
+
+/**
+ * Bounded cache of GroupAAHeuristic values, shared by all search threads of an agent and kept between decisions.
+ * <p>
+ * Entries are keyed by a 64-bit hash of exactly the parts of an SGGameState that GroupAAHeuristic reads (scores,
+ * this round's played card counts, pudding counts and whether the game is over) plus the player. The table is
+ * direct-mapped: each key has one slot, and a new entry simply replaces whatever was there. Keys are not
+ * verified beyond the 64-bit hash, so a collision would return the value of a different state.
+ */
+class GroupAAHeuristicCache {
+
+    private record Entry(long key, double value) {
+    }
+
+    private final Entry[] table;
+    private final int mask;
+
+    /**
+     * @param capacity - maximum number of entries, rounded up to a power of two
+     */
+    GroupAAHeuristicCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        table = new Entry[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return - the cached value, or NaN if there is none
+     */
+    double get(long key) {
+        // a single read of the slot, so a concurrent put() cannot give us a mismatched key and value
+        Entry e = table[index(key)];
+        return e != null && e.key == key ? e.value : Double.NaN;
+    }
+
+    void put(long key, double value) {
+        table[index(key)] = new Entry(key, value);
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Hash of everything GroupAAHeuristic uses to evaluate the state for the given player.
+     */
+    static long key(SGGameState state, int playerId) {
+        int nPlayers = state.getNPlayers();
+        long h = mix(state.isNotTerminal() ? 1 : 2, playerId);
+        h = mix(h, nPlayers);
+        h = mix(h, state.getPlayerScore()[playerId].getValue());
+        Map<SGCard.SGCardType, Counter> mine = state.getPlayedCardTypes()[playerId];
+        h = mix(h, value(mine, SGCard.SGCardType.Tempura));
+        h = mix(h, value(mine, SGCard.SGCardType.Sashimi));
+        h = mix(h, value(mine, SGCard.SGCardType.Dumpling));
+        h = mix(h, value(mine, SGCard.SGCardType.Wasabi));
+        h = mix(h, value(mine, SGCard.SGCardType.EggNigiri));
+        h = mix(h, value(mine, SGCard.SGCardType.SalmonNigiri));
+        h = mix(h, value(mine, SGCard.SGCardType.SquidNigiri));
+        for (int p = 0; p < nPlayers; p++) {
+            h = mix(h, value(state.getPlayedCardTypes()[p], SGCard.SGCardType.Maki));
+            h = mix(h, value(state.getPlayedCardTypesAllGame()[p], SGCard.SGCardType.Pudding));
+        }
+        // final avalanche (from MurmurHash3)
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long mix(long h, int value) {
+        return (h + value) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int value(Map<SGCard.SGCardType, Counter> counters, SGCard.SGCardType type) {
+        Counter c = counters == null ? null : counters.get(type);
+        return c == null ? 0 : c.getValue();
+    }
+}
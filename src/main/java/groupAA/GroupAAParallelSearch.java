@@ -0,0 +1,167 @@
+package groupAA;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static utilities.Utils.noise;
+
+/**
+ * Multi-tree and multi-threaded search for SushiGoAgentGroupAA, used when AMAF_Params.nThreads > 1 or
+ * AMAF_Params.determinisations > 1.
+ * <p>
+ * ROOT (determinisation ensemble): max(nThreads, determinisations) trees are built, each from its own
+ * determinisation of the observed state, and dealt out to the threads; each thread searches its trees in turn,
+ * one iteration at a time. The trees share the iteration and FM-call budgets, and the action with the most visits
+ * summed over all trees is chosen. The determinisations are all sampled before the search starts, on the calling
+ * thread and from the agent's RNG, so a seeded agent searches the same ensemble every time.
+ * <p>
+ * TREE: all threads search the same tree. Node statistics are updated atomically, expansion is done under the
+ * node's lock, and a virtual loss is added along each path in progress so threads spread over the tree.
+ * <p>
+ * In both modes the calling thread does its share of the search. BUDGET_TIME is the CPU time of each thread, so
+ * the decision takes the same wall-clock time as a single-threaded search.
+ */
+class GroupAAParallelSearch {
+
+    private final SushiGoAgentGroupAA player;
+    private final ExecutorService executor; // null with a single thread
+    private final int nThreads;
+
+    // Kept between searches, and only replaced when the ensemble size changes
+    private GroupAATreeNode[] roots = new GroupAATreeNode[0];
+    private Random[] treeRnds = new Random[0];
+
+    // stats from the last search
+    private GroupAASearchStats lastStats = new GroupAASearchStats();
+
+    GroupAAParallelSearch(SushiGoAgentGroupAA player, int nThreads) {
+        this.player = player;
+        this.nThreads = nThreads;
+        this.executor = nThreads <= 1 ? null : Executors.newFixedThreadPool(nThreads - 1, r -> {
+            Thread thread = new Thread(r, "GroupAA-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    int getNThreads() {
+        return nThreads;
+    }
+
+    AbstractAction search(AbstractGameState gameState) {
+        AMAF_Params params = player.getParameters();
+        return params.parallelMode == AMAF_Params.ParallelMode.TREE && nThreads > 1 ?
+                treeParallel(gameState, params.virtualLoss) :
+                ensemble(gameState, Math.max(nThreads, params.determinisations));
+    }
+
+    private AbstractAction ensemble(AbstractGameState gameState, int nTrees) {
+        AtomicInteger iterations = new AtomicInteger();
+        AtomicInteger fmCalls = new AtomicInteger();
+        if (roots.length != nTrees) {
+            roots = new GroupAATreeNode[nTrees];
+            treeRnds = new Random[nTrees];
+            for (int i = 0; i < nTrees; i++)
+                treeRnds[i] = new Random();
+        }
+
+        // Sample the whole batch up front. The seeds are drawn on the calling thread, so a seeded agent still
+        // searches reproducibly
+        long start = System.nanoTime();
+        gameState.setRedeterminisationSeed(player.getRnd().nextLong());
+        for (int i = 0; i < nTrees; i++) {
+            treeRnds[i].setSeed(player.getRnd().nextLong());
+            AbstractGameState determinisation = gameState.copy(player.getPlayerID());
+            roots[i] = new GroupAATreeNode(player, null, determinisation, treeRnds[i], fmCalls);
+        }
+        long determinisationNanos = System.nanoTime() - start;
+
+        GroupAATreeNode.Worker[] workers = new GroupAATreeNode.Worker[nThreads];
+        for (int i = 0; i < nThreads; i++)
+            workers[i] = new GroupAATreeNode.Worker(player, new Random(player.getRnd().nextLong()));
+        // thread i searches trees i, i + nThreads, i + 2 * nThreads, ...
+        run(i -> GroupAATreeNode.mctsSearch(roots, i, nThreads, workers[i], iterations, 0));
+        collectStats(workers, fmCalls.get());
+        lastStats.determinisations = nTrees;
+        lastStats.determinisationNanos = determinisationNanos;
+
+        // Merge in a fixed order, so that ties are broken the same way as in a single tree
+        Map<AbstractAction, Integer> visits = new LinkedHashMap<>();
+        for (GroupAATreeNode root : roots)
+            root.addChildVisits(visits);
+        AbstractAction bestAction = null;
+        double bestValue = -Double.MAX_VALUE;
+        for (Map.Entry<AbstractAction, Integer> entry : visits.entrySet()) {
+            double value = noise(entry.getValue(), player.getParameters().epsilon, player.getRnd().nextDouble());
+            if (value > bestValue) {
+                bestValue = value;
+                bestAction = entry.getKey();
+            }
+        }
+        // the trees are not needed after the decision
+        Arrays.fill(roots, null);
+        if (bestAction == null)
+            throw new AssertionError("Unexpected - no selection made.");
+        return bestAction;
+    }
+
+    private AbstractAction treeParallel(AbstractGameState gameState, int virtualLoss) {
+        AtomicInteger iterations = new AtomicInteger();
+        GroupAATreeNode root = new GroupAATreeNode(player, null, gameState, player.getRnd());
+        GroupAATreeNode.Worker[] workers = new GroupAATreeNode.Worker[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            workers[i] = new GroupAATreeNode.Worker(player, new Random(player.getRnd().nextLong()));
+            workers[i].sharedTree = true;
+        }
+        run(i -> root.mctsSearch(workers[i], iterations, virtualLoss));
+        collectStats(workers, root.getFmCalls());
+        return root.bestAction();
+    }
+
+    // Runs task 0 on the calling thread and the others on the pool, and waits for all of them
+    private void run(java.util.function.IntConsumer task) {
+        List<Future<?>> futures = new ArrayList<>(nThreads - 1);
+        for (int i = 1; i < nThreads; i++) {
+            final int id = i;
+            futures.add(executor.submit(() -> task.accept(id)));
+        }
+        task.accept(0);
+        try {
+            for (Future<?> f : futures)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during parallel search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Parallel search thread failed", e.getCause());
+        }
+    }
+
+    private void collectStats(GroupAATreeNode.Worker[] workers, int fmCalls) {
+        lastStats = new GroupAASearchStats();
+        for (GroupAATreeNode.Worker worker : workers)
+            lastStats.add(worker.stats);
+        lastStats.fmCalls = fmCalls;
+    }
+
+    GroupAASearchStats getLastStats() {
+        return lastStats;
+    }
+
+    int getLastIterations() {
+        return lastStats.iterations;
+    }
+
+    int getLastFmCalls() {
+        return lastStats.fmCalls;
+    }
+
+    void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+}
@@ -2,6 +2,8 @@ package groupAA;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import games.sushigo.SGPackedState;
+
 import java.util.List;
 import java.util.Random;
 
@@ -12,4 +14,12 @@ public interface GroupAARolloutPolicy {
             int playerId, Random rnd
             //c
     );
-}
\ No newline at end of file
+
+    /**
+     * Chooses an action in a packed SushiGo rollout. Actions are encoded as in SGPackedState.action(), and only
+     * the first nActions entries of the array are valid. Defaults to a uniformly random choice.
+     */
+    default int chooseAction(SGPackedState state, int[] actions, int nActions, int playerId, Random rnd) {
+        return actions[rnd.nextInt(nActions)];
+    }
+}
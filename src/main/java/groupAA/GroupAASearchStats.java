@@ -0,0 +1,60 @@
+package groupAA;
+
+/**
+ * Counters for one GroupAA decision. Each search thread fills its own instance, and these are added together
+ * at the end of a parallel search.
+ */
+public class GroupAASearchStats {
+
+    public int iterations;
+    public int fmCalls; // taken from the tree's shared counter, so not added by add()
+    // heuristic evaluations actually computed: at expansion, at the end of rollouts, and in greedy rollout steps
+    public int heuristicCalls;
+    public long heuristicNanos;
+    // UCB reads of the heuristic value stored on a child node (a read, not an evaluation: each state is evaluated
+    // once, at expansion, and counted in heuristicCalls or globalCacheHits)
+    public long storedValueReads;
+    // lookups in the agent's global heuristic cache (only when AMAF_Params.heuristicCacheSize > 0)
+    public int globalCacheHits, globalCacheMisses;
+    // wall-clock time of the search, added over threads
+    public long searchNanos;
+    // visits and nodes already in the tree at the start of the search, kept from the previous decision
+    // (only when AMAF_Params.reuseTree is set)
+    public int reusedVisits, reusedNodes;
+    // determinisations sampled for an ensemble search, and the time taken to sample them (on the calling thread,
+    // before the search starts)
+    public int determinisations;
+    // expansions that linked to a node already in the tree for the same state (only with a transposition table)
+    public int transpositions;
+    public long determinisationNanos;
+
+    public void add(GroupAASearchStats other) {
+        iterations += other.iterations;
+        heuristicCalls += other.heuristicCalls;
+        heuristicNanos += other.heuristicNanos;
+        storedValueReads += other.storedValueReads;
+        globalCacheHits += other.globalCacheHits;
+        globalCacheMisses += other.globalCacheMisses;
+        searchNanos += other.searchNanos;
+        reusedVisits += other.reusedVisits;
+        reusedNodes += other.reusedNodes;
+        determinisations += other.determinisations;
+        transpositions += other.transpositions;
+        determinisationNanos += other.determinisationNanos;
+    }
+
+    /**
+     * @return - fraction of the search time spent computing heuristic values
+     */
+    public double heuristicTimeFraction() {
+        return searchNanos == 0 ? 0.0 : (double) heuristicNanos / searchNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("iterations=%d, fmCalls=%d, heuristicCalls=%d, heuristicTime=%.1f%%, storedValueReads=%d, globalCacheHits=%d/%d, reusedVisits=%d, reusedNodes=%d, determinisations=%d (%.2fms), transpositions=%d",
+                iterations, fmCalls, heuristicCalls, 100.0 * heuristicTimeFraction(), storedValueReads,
+                globalCacheHits, globalCacheHits + globalCacheMisses, reusedVisits, reusedNodes,
+                determinisations, determinisationNanos / 1e6, transpositions);
+    }
+}
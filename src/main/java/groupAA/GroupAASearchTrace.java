@@ -0,0 +1,58 @@
+package groupAA;
+
+import core.actions.AbstractAction;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in hook for following the GroupAA search step by step, set with SushiGoAgentGroupAA.setSearchTrace().
+ * The search makes no calls at all (and builds no strings) when no trace is set.
+ * <p>
+ * In a parallel search the methods are called from all search threads.
+ */
+public interface GroupAASearchTrace {
+
+    /** A child has been chosen by UCB during selection. */
+    default void onSelect(int depth, AbstractAction action, double ucbValue) {
+    }
+
+    /** A new node has been added to the tree for the given action. */
+    default void onExpand(int depth, AbstractAction action) {
+    }
+
+    /** A rollout from a node at the given depth has finished with the given value. */
+    default void onRollout(int depth, int rolloutLength, double value) {
+    }
+
+    /** A search has finished after the given number of iterations. */
+    default void onSearchEnd(int iterations, int fmCalls) {
+    }
+
+    /**
+     * A trace that logs every step, as the agent used to do unconditionally.
+     */
+    static GroupAASearchTrace logTo(Logger logger, Level level) {
+        return new GroupAASearchTrace() {
+            @Override
+            public void onSelect(int depth, AbstractAction action, double ucbValue) {
+                logger.log(level, "Selecting best action at depth " + depth + ": " + action + " (" + ucbValue + ")");
+            }
+
+            @Override
+            public void onExpand(int depth, AbstractAction action) {
+                logger.log(level, "Expanding node at depth " + depth + " with " + action);
+            }
+
+            @Override
+            public void onRollout(int depth, int rolloutLength, double value) {
+                logger.log(level, "Rollout of " + rolloutLength + " steps from depth " + depth + ": " + value);
+            }
+
+            @Override
+            public void onSearchEnd(int iterations, int fmCalls) {
+                logger.log(level, "Search finished after " + iterations + " iterations and " + fmCalls + " FM calls");
+            }
+        };
+    }
+}
@@ -1,85 +1,143 @@
 package groupAA;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
-import java.util.logging.Logger;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGBatchRollout;
+import games.sushigo.SGPackedState;
 import players.PlayerConstants;
 import players.PlayerParameters;
 import players.simple.RandomPlayer;
 import utilities.ElapsedCpuTimer;
+import utilities.TranspositionTable;
 
-import static java.util.stream.Collectors.toList;
 import static players.PlayerConstants.*;
 import core.interfaces.IStateHeuristic;
+import core.interfaces.IUndoableForwardModel;
 import static utilities.Utils.noise;
 
 
 class GroupAATreeNode {
 
-    private static final Logger LOGGER = Logger.getLogger(GroupAATreeNode.class.getName());
+    // Node statistics are updated atomically, so that several threads can search the same tree
+    private static final VarHandle N, T;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            N = lookup.findVarHandle(GroupAATreeNode.class, "n", int.class);
+            T = lookup.findVarHandle(GroupAATreeNode.class, "t", double.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final AbstractAction[] NO_ACTIONS = new AbstractAction[0];
 
     GroupAATreeNode root; //root node of the tree
-    GroupAATreeNode parent; //parent of the current node
-    Map<AbstractAction, GroupAATreeNode> children = new HashMap<>(); //children of current node
-    final int depth; //depth of current node
+    GroupAATreeNode parent; //parent through which the node was first reached (with a transposition table, nodes may have several)
+    // Available actions and their child nodes (null until expanded), guarded by this node's lock
+    private AbstractAction[] actions;
+    private GroupAATreeNode[] children;
+    // Random permutation of action indices, created on first expansion; the first nExpanded have children
+    private int[] expansionOrder;
+    private int nExpanded;
+    int depth; //depth of current node (changed only when the tree is re-rooted)
     private double t; //total value of this node
     private int n; //no.of times current node is visited
-    private int fmCalls; //no.of Forward Model calls and state copies up until current node
+    private double heuristicValue; //heuristic value of this node's state, computed once at expansion
+    private final AtomicInteger fmCalls; //no.of Forward Model calls and state copies in this tree (shared by all nodes, and by all trees in a root-parallel search)
 
     private SushiGoAgentGroupAA player;
     private Random rand;
-    private RandomPlayer randomPlayer = new RandomPlayer();
 
     private AbstractGameState state; //current state for this current node
-    private GroupAARolloutPolicy rolloutPolicy;
 
     protected GroupAATreeNode(SushiGoAgentGroupAA player, GroupAATreeNode  parent,
                               AbstractGameState state, Random rand) {
+        this(player, parent, state, rand, parent == null ? new AtomicInteger() : parent.fmCalls);
+    }
+
+    protected GroupAATreeNode(SushiGoAgentGroupAA player, GroupAATreeNode  parent,
+                              AbstractGameState state, Random rand, AtomicInteger fmCalls) {
         this.player = player;
         this.root = parent == null ? this : parent.root;
         this.parent = parent;
         depth = parent != null ? parent.depth + 1 : 0;
-        this.fmCalls = 0;
+        this.fmCalls = fmCalls;
         t = 0.0; //init total value of this node as 0
         setState(state); //setting current state
         this.rand = rand;
-        this.rolloutPolicy = new GroupAAGreedyRolloutPolicy(player);
-        randomPlayer.setForwardModel(player.getForwardModel());
-        LOGGER.info("GroupAATreeNode initialized!");
     }
 
-    private AbstractAction ucb() {
+    /**
+     * Everything a single search thread needs that cannot be shared with other threads: its random number
+     * generator, its rollout policy (which keeps scratch state) and its rollout buffers.
+     */
+    static class Worker {
+        final Random rnd;
+        final GroupAARolloutPolicy rolloutPolicy;
+        final RandomPlayer randomPlayer = new RandomPlayer();
+        final GroupAASearchStats stats = new GroupAASearchStats();
+        int[] packedActions;
+        SGBatchRollout batchRollout; // created on first use
+        final SGBatchRollout.Policy batchPolicy;
+        // Nodes on the path of the current iteration, from the root, for the backup
+        GroupAATreeNode[] path = new GroupAATreeNode[16];
+        int pathLength;
+        // Set when other threads search the same tree: node states must then never be changed, even temporarily
+        boolean sharedTree;
+        IUndoableForwardModel.Checkpoint rolloutCheckpoint;
+        // With leanSimulation, states are advanced with simulate() and rollout actions computed into this list
+        // (null if not used, as the lean simulation API ignores player decorators)
+        final List<AbstractAction> simulationActions;
+
+        Worker(SushiGoAgentGroupAA player, Random rnd) {
+            this.rnd = rnd;
+            this.rolloutPolicy = new GroupAAGreedyRolloutPolicy(player, stats);
+            randomPlayer.setForwardModel(player.getForwardModel());
+            simulationActions = player.getParameters().leanSimulation && !player.getForwardModel().hasPlayerDecorators() ?
+                    new ArrayList<>() : null;
+            int playerId = player.getPlayerID();
+            batchPolicy = (state, actions, nActions, r) -> rolloutPolicy.chooseAction(state, actions, nActions, playerId, r);
+        }
+
+        void addToPath(GroupAATreeNode node) {
+            if (pathLength == path.length)
+                path = Arrays.copyOf(path, path.length * 2);
+            path[pathLength++] = node;
+        }
+    }
+
+    //Returns the index of the child with the highest UCB value
+    private int ucb(Worker worker) {
         // Find child with highest UCB value, maximising for ourselves and minimizing for opponent
-        AbstractAction bestAction = null;
+        int bestIdx = -1;
         double bestValue = -Double.MAX_VALUE;
         AMAF_Params params = player.getParameters();
+        // If 'we' are taking a turn we use classic UCB, else opponent tries to minimize
+        boolean iAmMoving = state.getCurrentPlayer() == player.getPlayerID();
+        double logVisits = Math.log(this.n + 1.0);
 
-        LOGGER.info("Performing selection using UCB with progressive bias");
-
-        for (AbstractAction action : children.keySet()) {
-            GroupAATreeNode child = children.get(action);
+        for (int i = 0; i < children.length; i++) {
+            GroupAATreeNode child = children[i];
             if (child == null)
                 throw new AssertionError("Should not be here");
-            else if (bestAction == null)
-                bestAction = action;
+            else if (bestIdx == -1)
+                bestIdx = i;
 
             // Find child value (average reward)
             double hvVal = child.t;
             double childValue = hvVal / (child.n + params.epsilon);
 
-            // Heuristic progressive-bias: evaluate child's state using configured heuristic
-            double heuristicBias = 0.0;
-            try {
-                // access child's state (allowed since same class)
-                IStateHeuristic h = params.getStateHeuristic();
-                if (h != null && child.state != null) {
-                    heuristicBias = h.evaluateState(child.state, player.getPlayerID());
-                }
-            } catch (Throwable e) {
-                // swallow; keep heuristicBias = 0
-            }
+            // Heuristic progressive-bias: the child's state was evaluated once, when it was expanded
+            double heuristicBias = child.heuristicValue;
 
             // Decay bias as child gets visited: effective weight = biasWeight / (1 + visits)
             double biasWeight = params.biasWeight; // default set in AMAF_Params
@@ -89,96 +147,147 @@ class GroupAATreeNode {
             double mixedValue = (1.0 - effectiveBias) * childValue + effectiveBias * heuristicBias;
 
             // default to standard UCB exploration term
-            double explorationTerm = params.K * Math.sqrt(Math.log(this.n + 1.0) / (child.n + params.epsilon));
+            double explorationTerm = params.K * Math.sqrt(logVisits / (child.n + params.epsilon));
 
-            // If 'we' are taking a turn we use classic UCB, else opponent tries to minimize
-            boolean iAmMoving = state.getCurrentPlayer() == player.getPlayerID();
             double uctValue = iAmMoving ? mixedValue : -mixedValue;
             uctValue += explorationTerm;
 
             // Apply small noise to break ties randomly
-            uctValue = noise(uctValue, params.epsilon, player.getRnd().nextDouble());
+            uctValue = noise(uctValue, params.epsilon, worker.rnd.nextDouble());
 
             if (uctValue > bestValue) {
-                bestAction = action;
-                LOGGER.info("Selecting best action: " + bestAction);
+                bestIdx = i;
                 bestValue = uctValue;
             }
         }
 
-        if (bestAction == null)
+        if (bestIdx == -1)
             throw new AssertionError("We have a null value in UCT : shouldn't really happen!");
+        worker.stats.storedValueReads += children.length;
 
-        root.fmCalls++;  // log one iteration complete
-        return bestAction;
+        GroupAASearchTrace trace = player.getSearchTrace();
+        if (trace != null)
+            trace.onSelect(depth, actions[bestIdx], bestValue);
+
+        fmCalls.incrementAndGet();  // log one iteration complete
+        return bestIdx;
     }
 
 
-    void mctsSearch() {
-        PlayerParameters params = player.getParameters();
+    GroupAASearchStats mctsSearch() {
+        Worker worker = new Worker(player, rand);
+        mctsSearch(worker, new AtomicInteger(), 0);
+        worker.stats.fmCalls = fmCalls.get();
+        return worker.stats;
+    }
+
+    /**
+     * Runs search iterations from this node until the budget runs out. Several threads may call this on the
+     * same tree at once (shared-tree parallelisation), each with its own worker.
+     *
+     * @param worker      - per-thread search context
+     * @param iterations  - iteration count shared by all threads searching under the same budget
+     * @param virtualLoss - visits (each counted as a loss) added to nodes on the path of an iteration in progress,
+     *                    0 when searching alone
+     */
+    void mctsSearch(Worker worker, AtomicInteger iterations, int virtualLoss) {
+        mctsSearch(new GroupAATreeNode[]{this}, 0, 1, worker, iterations, virtualLoss);
+    }
+
+    /**
+     * Runs search iterations on the trees roots[first], roots[first + step], ... in turn, one iteration on each,
+     * until the budget runs out. This is how one thread searches its share of the trees in a determinisation
+     * ensemble. The trees must share their FM-call counter, as the budget is checked on the first of them.
+     */
+    static void mctsSearch(GroupAATreeNode[] roots, int first, int step, Worker worker, AtomicInteger iterations,
+                           int virtualLoss) {
+        if (first >= roots.length)
+            return;
+        GroupAATreeNode root = roots[first];
+        PlayerParameters params = root.player.getParameters();
+        PlayerConstants budgetType = params.budgetType;
 
         // Variables for tracking time budget
         double avgTimeTaken;
-        double acumTimeTaken = 0;
         long remaining;
         int remainingLimit = params.breakMS;
+        // CPU time of the current thread, so in parallel searches each thread gets the full time budget
         ElapsedCpuTimer elapsedTimer = new ElapsedCpuTimer();
-        if (params.budgetType == BUDGET_TIME) {
+        if (budgetType == BUDGET_TIME) {
             elapsedTimer.setMaxTimeMillis(params.budget);
         }
 
-        // Tracking number of iterations for iteration budget
+        // Tracking number of iterations for this thread, used for the average time per iteration
         int numIters = 0;
+        long startNanos = System.nanoTime();
 
         boolean stop = false;
+        int current = first;
 
-        LOGGER.info("SushiGoAgentGroupAA performing search iteration: " + numIters+1);
         while (!stop) {
-            // New timer for this iteration
-            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
-
+            GroupAATreeNode tree = roots[current];
             // Selection + expansion: navigate tree until a node not fully expanded is found, add a new node to the tree
-            GroupAATreeNode selected = treePolicy();
+            GroupAATreeNode selected = tree.treePolicy(worker, virtualLoss);
             // Monte carlo rollout: return value of MC rollout from the newly added node
-            double delta = selected.rollOut();
+            double delta = selected.rollOut(worker);
             // Back up the value of the rollout through the tree
-            selected.backUp(delta);
+            backUp(worker, delta, virtualLoss);
             // Finished iteration
             numIters++;
+            int totalIters = iterations.incrementAndGet();
+            current += step;
+            if (current >= roots.length)
+                current = first;
 
             // Check stopping condition
-            PlayerConstants budgetType = params.budgetType;
             if (budgetType == BUDGET_TIME) {
                 // Time budget
-                acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
-                avgTimeTaken = acumTimeTaken / numIters;
+                avgTimeTaken = (double) elapsedTimer.elapsedMillis() / numIters;
                 remaining = elapsedTimer.remainingTimeMillis();
                 stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
             } else if (budgetType == BUDGET_ITERATIONS) {
                 // Iteration budget
-                stop = numIters >= params.budget;
+                stop = totalIters >= params.budget;
             } else if (budgetType == BUDGET_FM_CALLS) {
                 // FM calls budget
-                stop = fmCalls > params.budget;
+                stop = root.fmCalls.get() > params.budget;
             }
         }
+
+        worker.stats.iterations += numIters;
+        worker.stats.searchNanos += System.nanoTime() - startNanos;
+        GroupAASearchTrace trace = root.player.getSearchTrace();
+        if (trace != null)
+            trace.onSearchEnd(numIters, root.fmCalls.get());
     }
 
-    private GroupAATreeNode treePolicy() {
+    private GroupAATreeNode treePolicy(Worker worker, int virtualLoss) {
         GroupAATreeNode currentNode = this;
+        int maxTreeDepth = player.getParameters().maxTreeDepth;
+        worker.pathLength = 0;
+        worker.addToPath(this);
 
-        LOGGER.info("---------Performing tree policy - selection then expansion----------");
         //keep iterating while the state reached is not terminal and the depth of the tree is not exceeded
-        while (currentNode.state.isNotTerminal() && currentNode.depth < player.getParameters().maxTreeDepth) {
-            if (!currentNode.unexpandedActions().isEmpty()) {
-                // We have an unexpanded action
-                currentNode = currentNode.expand();
-                return currentNode;
-            } else {
-                // Move to next child given by UCT function
-                AbstractAction actionChosen = currentNode.ucb();
-                currentNode = currentNode.children.get(actionChosen);
+        while (currentNode.state.isNotTerminal() && currentNode.depth < maxTreeDepth) {
+            GroupAATreeNode next;
+            boolean expanded;
+            // the children are only read and written with the node's lock held
+            synchronized (currentNode) {
+                expanded = currentNode.nExpanded < currentNode.children.length;
+                if (expanded) {
+                    // We have an unexpanded action
+                    next = currentNode.expand(worker);
+                } else {
+                    // Move to next child given by UCT function
+                    next = currentNode.children[currentNode.ucb(worker)];
+                }
             }
+            if (virtualLoss > 0)
+                next.addVirtualLoss(currentNode, virtualLoss);
+            worker.addToPath(next);
+            currentNode = next;
+            if (expanded)
+                return currentNode;
         }
         return currentNode;
     }
@@ -186,32 +295,66 @@ class GroupAATreeNode {
     private void setState(AbstractGameState newState) {
         state = newState;
         if (newState.isNotTerminal())
-            for (AbstractAction action : player.getForwardModel().computeAvailableActions(state, player.getParameters().actionSpace)) {
-                children.put(action, null); // mark a new node to be expanded
-            }
-    }
-
-    private List<AbstractAction> unexpandedActions() {
-        return children.keySet().stream().filter(a -> children.get(a) == null).collect(toList());
+            actions = player.getForwardModel().computeAvailableActions(state, player.getParameters().actionSpace).toArray(NO_ACTIONS);
+        else
+            actions = NO_ACTIONS;
+        children = new GroupAATreeNode[actions.length];
     }
 
     //Expands the node by creating a new random child node and adding to the tree.
-    private GroupAATreeNode expand() {
-        // Find random child not already created
-        Random r = new Random(player.getParameters().getRandomSeed());
-        // pick a random unchosen action
-        List<AbstractAction> notChosen = unexpandedActions();
-        AbstractAction chosen = notChosen.get(r.nextInt(notChosen.size()));
+    private GroupAATreeNode expand(Worker worker) {
+        // Children are expanded in a random order, drawn once for each node
+        if (expansionOrder == null) {
+            expansionOrder = new int[actions.length];
+            for (int i = 0; i < expansionOrder.length; i++) {
+                int j = worker.rnd.nextInt(i + 1);
+                expansionOrder[i] = expansionOrder[j];
+                expansionOrder[j] = i;
+            }
+        }
+        int chosen = expansionOrder[nExpanded];
 
         // copy the current state and advance it using the chosen action
         // we first copy the action so that the one stored in the node will not have any state changes
         AbstractGameState nextState = state.copy();
-        advance(nextState, chosen.copy());
+        nextState.setSimulationMode(true);  // the search never reads the history
+        advance(worker, nextState, actions[chosen].copy());
+
+        // If the state has already been reached by another path in this tree, that node becomes a child here too
+        TranspositionTable<GroupAATreeNode> table = player.getTranspositionTable();
+        long key = 0;
+        if (table != null && nextState instanceof SGGameState sgs) {
+            key = sgs.getZobristHash();
+            GroupAATreeNode existing = table.get(key);
+            if (existing != null && existing.root == root && existing.depth == depth + 1) {
+                children[chosen] = existing;
+                nExpanded++;
+                worker.stats.transpositions++;
+                GroupAASearchTrace trace = player.getSearchTrace();
+                if (trace != null)
+                    trace.onExpand(depth, actions[chosen]);
+                return existing;
+            }
+        }
 
         // then instantiate a new node
         GroupAATreeNode tn = new GroupAATreeNode(player, this, nextState, rand);
-        LOGGER.info("Expanding node");
-        children.put(chosen, tn);
+        try {
+            tn.heuristicValue = evaluate(worker, nextState);
+        } catch (Throwable e) {
+            // swallow; the progressive bias is then 0
+            tn.heuristicValue = 0.0;
+        }
+        children[chosen] = tn;
+        nExpanded++;
+        if (table != null && nextState instanceof SGGameState) {
+            // nodes nearer the root are worth more, as more of the search passes through them
+            table.put(key, tn, -tn.depth);
+        }
+
+        GroupAASearchTrace trace = player.getSearchTrace();
+        if (trace != null)
+            trace.onExpand(depth, actions[chosen]);
         return tn;
     }
 
@@ -221,39 +364,174 @@ class GroupAATreeNode {
      * @param gs  - current game state
      * @param act - action to apply
      */
-    private void advance(AbstractGameState gs, AbstractAction act) {
-        player.getForwardModel().next(gs, act);
-        root.fmCalls++;
+    private void advance(Worker worker, AbstractGameState gs, AbstractAction act) {
+        if (worker.simulationActions != null)
+            player.getForwardModel().simulate(gs, act);
+        else
+            player.getForwardModel().next(gs, act);
+        fmCalls.incrementAndGet();
     }
 
     //Performs the rollout phase in MCTS
-    private double rollOut() {
-        int rolloutDepth = 0; // counting from end of tree
+    private double rollOut(Worker worker) {
+        if (usePackedRollout())
+            return player.getParameters().rolloutBatchSize > 1 ? batchRollOut(worker) : packedRollOut(worker);
+
+        // If the forward model supports it, the rollout is played on this node's state, which is then reverted,
+        // rather than on a copy
+        IUndoableForwardModel undo = worker.sharedTree ? null : checkpoint(worker);
+        AbstractGameState rolloutState = undo != null ? state : state.copy();
+        if (undo == null)
+            rolloutState.setSimulationMode(true);
+        try {
+            return rollOut(worker, rolloutState);
+        } finally {
+            if (undo != null)
+                undo.revert(state, worker.rolloutCheckpoint);
+        }
+    }
 
-        LOGGER.info("-------Performing rollout policy--------");
+    private double rollOut(Worker worker, AbstractGameState rolloutState) {
+        int rolloutDepth = 0; // counting from end of tree
 
         // If rollouts are enabled, select actions for the rollout in line with the rollout policy
-        AbstractGameState rolloutState = state.copy();
         if (player.getParameters().rolloutLength > 0) {
             while (!finishRollout(rolloutState, rolloutDepth)) {
-                List<AbstractAction> availableActions = player.getForwardModel().computeAvailableActions(rolloutState, player.getParameters().actionSpace); //for one simulation-step lookahead
+                List<AbstractAction> availableActions = worker.simulationActions != null ?
+                        player.getForwardModel().legalActionsInto(rolloutState, player.getParameters().actionSpace, worker.simulationActions) :
+                        player.getForwardModel().computeAvailableActions(rolloutState, player.getParameters().actionSpace); //for one simulation-step lookahead
                 AbstractAction next;
-                if (rolloutPolicy != null) {
-                    LOGGER.info("Performing rollout using heuristic");
-                    next = rolloutPolicy.chooseAction(rolloutState, availableActions, player.getPlayerID(), rand);
+                if (worker.rolloutPolicy != null) {
+                    next = worker.rolloutPolicy.chooseAction(rolloutState, availableActions, player.getPlayerID(), worker.rnd);
+                } else if (worker.simulationActions != null) {
+                    next = worker.randomPlayer.getAction(rolloutState, availableActions);
                 } else { //if the rolloutPolicy (heuristic rollout policy) is not defined then fallback to random rollout
-                    LOGGER.info("Performing random rollout");
+                    RandomPlayer randomPlayer = worker.randomPlayer;
                     next = randomPlayer.getAction(rolloutState, randomPlayer.getForwardModel().computeAvailableActions(rolloutState, randomPlayer.parameters.actionSpace));
                 }
                 if (next == null) break;
-                advance(rolloutState, next);
+                advance(worker, rolloutState, next);
                 rolloutDepth++;
             }
         }
         // Evaluate final state and return normalised score
-        double value = player.getParameters().getStateHeuristic().evaluateState(rolloutState, player.getPlayerID());
+        double value = evaluate(worker, rolloutState);
+        return checkRolloutValue(value, rolloutDepth);
+    }
+
+    //Saves this node's state into the worker's checkpoint; returns the forward model to revert with, or null if it can't
+    private IUndoableForwardModel checkpoint(Worker worker) {
+        if (!(player.getForwardModel() instanceof IUndoableForwardModel undo))
+            return null;
+        try {
+            worker.rolloutCheckpoint = undo.checkpoint(state, worker.rolloutCheckpoint);
+            return undo;
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    //Packed rollouts need the plain SushiGo rules (no decorators) and a heuristic that can read packed states
+    private boolean usePackedRollout() {
+        AMAF_Params params = player.getParameters();
+        return params.packedRollouts && state instanceof SGGameState
+                && player.getForwardModel() instanceof SGForwardModel
+                && params.getStateHeuristic() instanceof GroupAAHeuristic;
+    }
+
+    //Same rollout as rollOut(), but played out on an SGPackedState, which is much cheaper to copy and advance
+    private double packedRollOut(Worker worker) {
+        AMAF_Params params = player.getParameters();
+        SGForwardModel fm = (SGForwardModel) player.getForwardModel();
+        SGPackedState rolloutState = SGPackedState.fromGameState((SGGameState) state);
+        if (worker.packedActions == null || worker.packedActions.length < rolloutState.maxActions())
+            worker.packedActions = new int[rolloutState.maxActions()];
+        int[] actions = worker.packedActions;
+
+        int rolloutDepth = 0;
+        while (rolloutDepth < params.rolloutLength && rolloutState.isNotTerminal()) {
+            int nActions = fm.computeAvailableActions(rolloutState, actions);
+            int next;
+            if (worker.rolloutPolicy != null)
+                next = worker.rolloutPolicy.chooseAction(rolloutState, actions, nActions, player.getPlayerID(), worker.rnd);
+            else
+                next = actions[worker.rnd.nextInt(nActions)];
+            fm.next(rolloutState, next);
+            fmCalls.incrementAndGet();
+            rolloutDepth++;
+        }
+        long start = System.nanoTime();
+        double value = ((GroupAAHeuristic) params.getStateHeuristic()).evaluateState(rolloutState, player.getPlayerID());
+        worker.stats.heuristicNanos += System.nanoTime() - start;
+        worker.stats.heuristicCalls++;
+        return checkRolloutValue(value, rolloutDepth);
+    }
+
+    //Plays rolloutBatchSize packed rollouts at once, and returns their mean value
+    private double batchRollOut(Worker worker) {
+        AMAF_Params params = player.getParameters();
+        if (worker.batchRollout == null)
+            worker.batchRollout = new SGBatchRollout((SGForwardModel) player.getForwardModel());
+        int nRollouts = params.rolloutBatchSize;
+        IStateHeuristic heuristic = params.getStateHeuristic();
+        long start = System.nanoTime();
+        double value = 0;
+        if (heuristic instanceof SGPackedHeuristic packed) {
+            SGPackedState[] finalStates = worker.batchRollout.play((SGGameState) state, nRollouts,
+                    params.rolloutLength, worker.batchPolicy, worker.rnd);
+            for (int i = 0; i < nRollouts; i++)
+                value += packed.evaluateState(finalStates[i], player.getPlayerID());
+        } else {
+            double[] values = worker.batchRollout.rollout((SGGameState) state, nRollouts, params.rolloutLength,
+                    worker.batchPolicy, heuristic, player.getPlayerID(), worker.rnd);
+            for (int i = 0; i < nRollouts; i++)
+                value += values[i];
+        }
+        int actionsPlayed = worker.batchRollout.getActionsPlayed();
+        fmCalls.addAndGet(actionsPlayed);
+        worker.stats.heuristicCalls += nRollouts;
+        worker.stats.heuristicNanos += System.nanoTime() - start;
+        return checkRolloutValue(value / nRollouts, actionsPlayed / nRollouts);
+    }
+
+    /**
+     * Evaluates a state with the configured heuristic (0 if there is none), going through the agent's global
+     * heuristic cache if it has one, and counts the time taken.
+     */
+    private double evaluate(Worker worker, AbstractGameState gs) {
+        IStateHeuristic h = player.getParameters().getStateHeuristic();
+        if (h == null)
+            return 0.0;
+        GroupAASearchStats stats = worker.stats;
+        long start = System.nanoTime();
+        try {
+            GroupAAHeuristicCache cache = player.getHeuristicCache();
+            if (cache != null && gs instanceof SGGameState sgs && h instanceof GroupAAHeuristic) {
+                long key = GroupAAHeuristicCache.key(sgs, player.getPlayerID());
+                double value = cache.get(key);
+                if (!Double.isNaN(value)) {
+                    stats.globalCacheHits++;
+                    return value;
+                }
+                stats.globalCacheMisses++;
+                value = h.evaluateState(gs, player.getPlayerID());
+                stats.heuristicCalls++;
+                cache.put(key, value);
+                return value;
+            }
+            stats.heuristicCalls++;
+            return h.evaluateState(gs, player.getPlayerID());
+        } finally {
+            stats.heuristicNanos += System.nanoTime() - start;
+        }
+    }
+
+    private double checkRolloutValue(double value, int rolloutDepth) {
         if (Double.isNaN(value))
             throw new AssertionError("Illegal heuristic value - should be a number");
+        GroupAASearchTrace trace = player.getSearchTrace();
+        if (trace != null)
+            trace.onRollout(depth, rolloutDepth, value);
         return value;
     }
 
@@ -266,24 +544,125 @@ class GroupAATreeNode {
         return !rollerState.isNotTerminal();
     }
 
-    private void backUp(double result) {
-        GroupAATreeNode currentNode = this;
-        while (currentNode != null) {
-            currentNode.n++;
-            currentNode.t += result;
-            currentNode = currentNode.parent;
+    // Value that counts as a loss for whoever chooses this node from the given parent, so other threads are steered elsewhere
+    private double virtualLossValue(GroupAATreeNode from, int virtualLoss) {
+        return from.state.getCurrentPlayer() == player.getPlayerID() ? -virtualLoss : virtualLoss;
+    }
+
+    private void addVirtualLoss(GroupAATreeNode from, int virtualLoss) {
+        N.getAndAdd(this, virtualLoss);
+        T.getAndAdd(this, virtualLossValue(from, virtualLoss));
+    }
+
+    // Backs up the value along the worker's path, which is the way the iteration came down (with a transposition
+    // table a node can have several parents)
+    private static void backUp(Worker worker, double result, int virtualLoss) {
+        GroupAATreeNode[] path = worker.path;
+        for (int i = worker.pathLength - 1; i >= 0; i--) {
+            GroupAATreeNode currentNode = path[i];
+            if (virtualLoss > 0 && i > 0) {
+                // every node below the root on this path had a virtual loss added by treePolicy()
+                N.getAndAdd(currentNode, 1 - virtualLoss);
+                T.getAndAdd(currentNode, result - currentNode.virtualLossValue(path[i - 1], virtualLoss));
+            } else {
+                N.getAndAdd(currentNode, 1);
+                T.getAndAdd(currentNode, result);
+            }
         }
     }
 
+    /**
+     * Visit counts of the root's children, added into the given map. Used to merge the trees of a
+     * root-parallel search.
+     */
+    void addChildVisits(Map<AbstractAction, Integer> visits) {
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != null)
+                visits.merge(actions[i], children[i].n, Integer::sum);
+        }
+    }
+
+    int getVisits() {
+        return n;
+    }
+
+    AbstractGameState getState() {
+        return state;
+    }
+
+    /**
+     * @return - the child reached with the given action, or null if it has not been expanded or the action is
+     * not available here
+     */
+    GroupAATreeNode childFor(AbstractAction action) {
+        for (int i = 0; i < actions.length; i++) {
+            if (actions[i].equals(action))
+                return children[i];
+        }
+        return null;
+    }
+
+    /**
+     * Makes this node the root of the tree for a new search from the given state, which should be an observation
+     * of the same game position as this node's state. The subtree is kept down to reuseDepth levels below this
+     * node, and fewer if that would be more than maxNodes nodes; nodes on the deepest level kept lose their
+     * children, and are expanded again by the new search.
+     *
+     * @return - the number of nodes kept, or 0 if the actions available in the new state differ from those of
+     * this node (in which case the node is not changed, and should not be reused)
+     */
+    int reRoot(AbstractGameState newState, int reuseDepth, int maxNodes) {
+        List<AbstractAction> available = player.getForwardModel().computeAvailableActions(newState, player.getParameters().actionSpace);
+        if (!available.equals(Arrays.asList(actions)))
+            return 0;
+        state = newState;
+        parent = null;
+        fmCalls.set(0);
+
+        // Walk the tree level by level until the depth or node limit is reached. With a transposition table a
+        // node may be the child of several nodes on the level above, and is only counted once
+        List<GroupAATreeNode> level = new ArrayList<>();
+        level.add(this);
+        Set<GroupAATreeNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int kept = 0;
+        for (int d = 0; !level.isEmpty(); d++) {
+            List<GroupAATreeNode> next = new ArrayList<>();
+            for (GroupAATreeNode node : level) {
+                node.root = this;
+                node.depth = d;
+                for (GroupAATreeNode child : node.children)
+                    if (child != null && seen.add(child)) next.add(child);
+            }
+            kept += level.size();
+            if (d == reuseDepth || kept + next.size() > maxNodes) {
+                for (GroupAATreeNode node : level)
+                    node.dropChildren();
+                break;
+            }
+            level = next;
+        }
+        return kept;
+    }
+
+    private void dropChildren() {
+        children = new GroupAATreeNode[actions.length];
+        expansionOrder = null;
+        nExpanded = 0;
+    }
+
+    int getFmCalls() {
+        return fmCalls.get();
+    }
+
     //Calculates the best action from the root according to the most visited node
     AbstractAction bestAction() {
 
         double bestValue = -Double.MAX_VALUE;
         AbstractAction bestAction = null;
 
-        for (AbstractAction action : children.keySet()) {
-            if (children.get(action) != null) {
-                GroupAATreeNode childNode = children.get(action);
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != null) {
+                GroupAATreeNode childNode = children[i];
                 double childValue = childNode.n;
 
                 // Apply small noise to break ties randomly
@@ -292,7 +671,7 @@ class GroupAATreeNode {
                 // Save best value (highest visit count)
                 if (childValue > bestValue) {
                     bestValue = childValue;
-                    bestAction = action;
+                    bestAction = actions[i];
                 }
             }
         }
@@ -304,4 +683,4 @@ class GroupAATreeNode {
         return bestAction;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package groupAA;
+
+import core.interfaces.IStateHeuristic;
+import games.sushigo.SGPackedState;
+
+/**
+ * A SushiGo heuristic that can also evaluate packed states directly. The agent's packed rollouts (see
+ * SGBatchRollout.play()) then end without converting the final state back into an SGGameState. The two
+ * evaluateState() methods must agree on the value of a state.
+ */
+public interface SGPackedHeuristic extends IStateHeuristic {
+
+    /**
+     * @param state    - packed state to evaluate
+     * @param playerId - id of the player we're evaluating the game for
+     * @return - value of the state, as evaluateState(AbstractGameState, int) would give for the same state
+     */
+    double evaluateState(SGPackedState state, int playerId);
+}
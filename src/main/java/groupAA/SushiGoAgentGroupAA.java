@@ -3,6 +3,14 @@ package groupAA;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
+import core.components.Deck;
+import games.sushigo.SGGameState;
+import games.sushigo.cards.SGCard;
+import utilities.Pair;
+import utilities.TranspositionTable;
+
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.logging.Logger;
 
@@ -10,6 +18,15 @@ public class SushiGoAgentGroupAA extends AbstractPlayer {
 
     private static final Logger LOGGER = Logger.getLogger(SushiGoAgentGroupAA.class.getName());
 
+    private GroupAAParallelSearch parallelSearch; // created on first use when nThreads > 1 or determinisations > 1
+    private GroupAASearchTrace searchTrace; // opt-in, null means no tracing
+    private GroupAAHeuristicCache heuristicCache; // kept between decisions, null when heuristicCacheSize is 0
+    private TranspositionTable<GroupAATreeNode> transpositionTable; // null when transpositionTableSize is 0
+    private GroupAASearchStats lastSearchStats;
+    // the tree of the previous decision and the action chosen from it, kept when reuseTree is set
+    private GroupAATreeNode lastRoot;
+    private Pair<Integer, AbstractAction> lastAction;
+
     public SushiGoAgentGroupAA(AMAF_Params params) {
         super(params, "GroupAA MCTS Agent");
         initRandom();
@@ -52,10 +69,149 @@ public class SushiGoAgentGroupAA extends AbstractPlayer {
 
     @Override
     public AbstractAction _getAction(AbstractGameState gameState, java.util.List<AbstractAction> actions) {
-        GroupAATreeNode node = new GroupAATreeNode(this, null, gameState, this.rnd);
-        LOGGER.info("SushiGoAgentGroupAA performing search and finding the best action for this gameState: " + gameState.toString());
-        node.mctsSearch();
-        return node.bestAction();
+        int cacheSize = getParameters().heuristicCacheSize;
+        if (cacheSize <= 0)
+            heuristicCache = null;
+        else if (heuristicCache == null || heuristicCache.capacity() < cacheSize)
+            heuristicCache = new GroupAAHeuristicCache(cacheSize);
+        int tableSize = getParameters().transpositionTableSize;
+        if (tableSize <= 0)
+            transpositionTable = null;
+        else if (transpositionTable == null || transpositionTable.capacity() < tableSize)
+            transpositionTable = new TranspositionTable<>(tableSize);
+        if (transpositionTable != null)
+            // nodes of earlier trees are only found again if they were kept by tree reuse
+            transpositionTable.nextGeneration();
+
+        LOGGER.fine(() -> "SushiGoAgentGroupAA performing search and finding the best action for this gameState: " + gameState);
+        AbstractAction bestAction;
+        int nThreads = Math.max(1, getParameters().nThreads);
+        if (nThreads > 1 || getParameters().determinisations > 1) {
+            if (parallelSearch == null || parallelSearch.getNThreads() != nThreads) {
+                if (parallelSearch != null) parallelSearch.shutdown();
+                parallelSearch = new GroupAAParallelSearch(this, nThreads);
+            }
+            bestAction = parallelSearch.search(gameState);
+            lastRoot = null; // tree reuse is only done by the single-tree search
+            lastSearchStats = parallelSearch.getLastStats();
+        } else {
+            AMAF_Params params = getParameters();
+            GroupAATreeNode node = params.reuseTree ? reusableRoot(gameState) : null;
+            int reusedVisits = 0, reusedNodes = 0;
+            if (node != null) {
+                reusedVisits = node.getVisits();
+                reusedNodes = node.reRoot(gameState, params.reuseDepth, params.reuseMaxNodes);
+                if (reusedNodes == 0) {
+                    node = null;
+                    reusedVisits = 0;
+                }
+            }
+            if (node == null)
+                node = new GroupAATreeNode(this, null, gameState, this.rnd);
+            lastSearchStats = node.mctsSearch();
+            lastSearchStats.reusedVisits = reusedVisits;
+            lastSearchStats.reusedNodes = reusedNodes;
+            bestAction = node.bestAction();
+            lastRoot = params.reuseTree ? node : null;
+        }
+        LOGGER.fine(() -> "Search stats: " + lastSearchStats);
+        // the game may change the action it is given (chopsticks), so the one in the tree is kept intact
+        bestAction = bestAction.copy();
+        lastAction = new Pair<>(getPlayerID(), bestAction.copy());
+        return bestAction;
+    }
+
+    /**
+     * Follows the actions played since our last decision down the previous tree. Returns the node reached, if
+     * its state shows the same position as the new observation (see samePosition()), or null.
+     */
+    private GroupAATreeNode reusableRoot(AbstractGameState gameState) {
+        if (lastRoot == null || lastAction == null)
+            return null;
+        // the history is empty in competition mode, and then there is nothing to follow
+        List<Pair<Integer, AbstractAction>> history = gameState.getHistory();
+        int start = history.lastIndexOf(lastAction);
+        if (start < 0)
+            return null;
+        GroupAATreeNode node = lastRoot;
+        for (int i = start; i < history.size() && node != null; i++)
+            node = node.childFor(history.get(i).b);
+        if (node == null || node == lastRoot || !samePosition(node.getState(), gameState, getPlayerID()))
+            return null;
+        return node;
+    }
+
+    /**
+     * Whether a state in the tree shows the same position as the observed state, as far as the player can see:
+     * the same hand, the same cards played and scores, and the same point in the game. Hidden hands of other
+     * players may differ, as they are redeterminised. The tree states are built from an earlier determinisation,
+     * so this fails whenever a card we could not see then has since been played, or passed to us.
+     */
+    static boolean samePosition(AbstractGameState treeState, AbstractGameState observed, int playerId) {
+        if (!(treeState instanceof SGGameState tree) || !(observed instanceof SGGameState obs))
+            return false;
+        if (tree.getNPlayers() != obs.getNPlayers() || tree.getCurrentPlayer() != obs.getCurrentPlayer()
+                || tree.getRoundCounter() != obs.getRoundCounter() || tree.getTurnCounter() != obs.getTurnCounter()
+                || tree.getCardChoices().get(playerId).size() != obs.getCardChoices().get(playerId).size())
+            return false;
+        if (!Arrays.equals(tree.getPlayedCardTypeCounts(null), obs.getPlayedCardTypeCounts(null))
+                || !Arrays.equals(tree.getPlayedCardTypeCountsAllGame(null), obs.getPlayedCardTypeCountsAllGame(null)))
+            return false;
+        for (int p = 0; p < tree.getNPlayers(); p++)
+            if (tree.getPlayerScore()[p].getValue() != obs.getPlayerScore()[p].getValue())
+                return false;
+        Deck<SGCard> treeHand = tree.getPlayerHands().get(playerId), obsHand = obs.getPlayerHands().get(playerId);
+        if (treeHand.getSize() != obsHand.getSize())
+            return false;
+        for (int i = 0; i < treeHand.getSize(); i++) {
+            SGCard a = treeHand.get(i), b = obsHand.get(i);
+            if (a.type != b.type || a.count != b.count)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets a hook that is called at each step of the search (selection, expansion, rollout), e.g.
+     * GroupAASearchTrace.logTo(logger, Level.INFO) to log the search. Pass null to switch tracing off.
+     */
+    public void setSearchTrace(GroupAASearchTrace searchTrace) {
+        this.searchTrace = searchTrace;
+    }
+
+    public GroupAASearchTrace getSearchTrace() {
+        return searchTrace;
+    }
+
+    GroupAAHeuristicCache getHeuristicCache() {
+        return heuristicCache;
+    }
+
+    TranspositionTable<GroupAATreeNode> getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * @return - counters from the most recent decision (iterations, heuristic calls and time, cache hits)
+     */
+    public GroupAASearchStats getLastSearchStats() {
+        return lastSearchStats;
+    }
+
+    @Override
+    public void finalizePlayer(AbstractGameState gameState) {
+        // release the search threads; they are created again if this agent plays another game
+        if (parallelSearch != null) {
+            parallelSearch.shutdown();
+            parallelSearch = null;
+        }
+        // cached values are only valid for one set of game parameters
+        heuristicCache = null;
+        // the table is kept for the next game, but not the trees of this one
+        if (transpositionTable != null)
+            transpositionTable.clear();
+        lastRoot = null;
+        lastAction = null;
     }
 
     @Override
@@ -30,6 +30,9 @@ public class PlayerParameters extends TunableParameters<AbstractPlayer> {
     // Action space type for this player
     public ActionSpace actionSpace = new ActionSpace();
     public IPlayerDecorator decorator = null;
+    // If true, search algorithms that support it advance their copies of the state with the forward model's
+    // simulate() and legalActionsInto(), without history, listeners or timers. Ignored if there are player decorators.
+    public boolean leanSimulation = false;
 
     public PlayerParameters() {
         addTunableParameter("budgetType", PlayerConstants.BUDGET_FM_CALLS, Arrays.asList(PlayerConstants.values()));
@@ -42,6 +45,7 @@ public class PlayerParameters extends TunableParameters<AbstractPlayer> {
         addTunableParameter("resetSeedEachGame", false);
         addTunableParameter("epsilon", 1e-6);
         addTunableParameter("actionRestriction", IPlayerDecorator.class);
+        addTunableParameter("leanSimulation", false);
     }
 
     @Override
@@ -64,6 +68,7 @@ public class PlayerParameters extends TunableParameters<AbstractPlayer> {
                                         (ActionSpace.Flexibility) getParameterValue("actionSpaceFlexibility"),
                                         (ActionSpace.Context) getParameterValue("actionSpaceContext"));
         decorator = (IPlayerDecorator) getParameterValue("actionRestriction");
+        leanSimulation = (boolean) getParameterValue("leanSimulation");
     }
 
     @Override
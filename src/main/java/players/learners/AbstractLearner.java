@@ -3,14 +3,13 @@ package players.learners;
 import core.interfaces.IActionFeatureVector;
 import core.interfaces.ILearner;
 import core.interfaces.IStateFeatureVector;
-import utilities.Pair;
-import utilities.Utils;
+import evaluation.features.FeatureData;
 
 import java.util.*;
 
 import static java.util.stream.Collectors.toList;
 
-public abstract class AbstractLearner implements ILearner {
+public abstract class AbstractLearner implements ILearner, Cloneable {
 
     protected double[][] dataArray;
     protected String[] header;
@@ -95,6 +94,30 @@ public abstract class AbstractLearner implements ILearner {
         return this;
     }
 
+    /**
+     * Learns from data that has already been loaded (for example by AutomatedFeatures.processData), rather than
+     * from files.
+     */
+    public abstract Object learnFrom(FeatureData data);
+
+    /**
+     * @return a learner with the same settings (and feature vectors), but none of the data. Copies can learn
+     * concurrently, on different threads.
+     */
+    public AbstractLearner copy() {
+        try {
+            AbstractLearner copy = (AbstractLearner) super.clone();
+            copy.dataArray = null;
+            copy.header = null;
+            copy.target = null;
+            copy.currentScore = null;
+            copy.descriptions = null;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     public int featureCount() {
         int stateCount = stateFeatureVector == null ? 0 : stateFeatureVector.names().length;
         int actionCount = actionFeatureVector == null ? 0 : actionFeatureVector.names().length;
@@ -102,9 +125,11 @@ public abstract class AbstractLearner implements ILearner {
     }
 
     protected void loadData(String... files) {
+        loadData(FeatureData.read(0, files));
+    }
 
-        Pair<List<String>, List<List<String>>> rawData = Utils.loadDataWithHeader("\t", files);
-        header = rawData.a.toArray(new String[0]);
+    protected void loadData(FeatureData rawData) {
+        header = rawData.names().toArray(new String[0]);
 
         String[] specialColumns = {"GameID", "Player", "Turn", "Round", "Tick", "CurrentScore", "Win", "Ordinal",
                 "FinalScore", "FinalScoreAdv", "TotalRounds", "PlayerCount", "TotalTurns", "TotalTicks",
@@ -139,19 +164,28 @@ public abstract class AbstractLearner implements ILearner {
         // TODO: discounting should really use TICKS as more reliably generic across games, even if it
         // does not map in the same way all the time
 
-        dataArray = new double[rawData.b.size()][];
-        target = new double[rawData.b.size()][1];
-        currentScore = new double[rawData.b.size()][1];
+        int targetIndex = indexForSpecialColumns.getOrDefault(targetType.header, -1);
+        if (targetIndex == -1) {
+            throw new IllegalArgumentException("Target " + targetType.header + " not found in data");
+        }
+        FeatureData.Column totalTurnsColumn = rawData.column(indexForSpecialColumns.get("TotalTurns"));
+        FeatureData.Column turnColumn = rawData.column(indexForSpecialColumns.get("Turn"));
+        FeatureData.Column playerCountColumn = rawData.column(indexForSpecialColumns.get("PlayerCount"));
+        FeatureData.Column targetColumn = rawData.column(targetIndex);
+        FeatureData.Column currentScoreColumn = rawData.column(indexForSpecialColumns.get("CurrentScore"));
+        // the order of the data in the regression data is the same as the order in the names() of the feature vector
+        FeatureData.Column[] featureColumns = Arrays.stream(descriptions)
+                .filter(h -> indexForDescriptions.get(h) != null)
+                .map(h -> rawData.column(indexForDescriptions.get(h)))
+                .toArray(FeatureData.Column[]::new);
+
+        dataArray = new double[rawData.rows()][];
+        target = new double[rawData.rows()][1];
+        currentScore = new double[rawData.rows()][1];
         for (int i = 0; i < dataArray.length; i++) {
-            List<String> allData = rawData.b.get(i);
             // calculate the number of turns from this point until the end of the game
-            double turns = Double.parseDouble(allData.get(indexForSpecialColumns.get("TotalTurns"))) -
-                    Double.parseDouble(allData.get(indexForSpecialColumns.get("Turn")));
-            double playerCount = Double.parseDouble(allData.get(indexForSpecialColumns.get("PlayerCount")));
-            int targetIndex = indexForSpecialColumns.getOrDefault(targetType.header, -1);
-            if (targetIndex == -1) {
-                throw new IllegalArgumentException("Target " + targetType.header + " not found in data");
-            }
+            double turns = totalTurnsColumn.value(i) - turnColumn.value(i);
+            double playerCount = playerCountColumn.value(i);
             // discount target (towards expected result where relevant)
             double expectedAverage = 0.0;
             if (targetType == Target.WIN_MEAN)
@@ -160,9 +194,9 @@ public abstract class AbstractLearner implements ILearner {
                 expectedAverage = (1.0 + playerCount) / 2.0;
 
             if (targetType == Target.SCORE_DELTA)
-                target[i][0] = Double.parseDouble(allData.get(targetIndex)) * Math.pow(gamma, turns);
+                target[i][0] = targetColumn.value(i) * Math.pow(gamma, turns);
             else {
-                target[i][0] = (Double.parseDouble(allData.get(targetIndex)) - expectedAverage) * Math.pow(gamma, turns) + expectedAverage;
+                target[i][0] = (targetColumn.value(i) - expectedAverage) * Math.pow(gamma, turns) + expectedAverage;
             }
 
             if (targetType == Target.ORDINAL || targetType == Target.ORD_MEAN)
@@ -170,18 +204,12 @@ public abstract class AbstractLearner implements ILearner {
             if (targetType == Target.ORD_MEAN_SCALE || targetType == Target.ORD_SCALE)
                 target[i][0] = (playerCount - target[i][0]) / (playerCount - 1.0);  // scale to [0, 1]
 
-            currentScore[i][0] = Double.parseDouble(allData.get(indexForSpecialColumns.get("CurrentScore")));
+            currentScore[i][0] = currentScoreColumn.value(i);
             double[] regressionData = new double[descriptions.length + 1];
             regressionData[0] = 1.0; // the bias term
             // then copy the rest of the data into the regression data
-            // the order of the data in the regression data is the same as the order in the names() of the feature vector
-            int j = 1;
-            for (String h : descriptions) {
-                if (indexForDescriptions.get(h) != null) {
-                    regressionData[j] = Double.parseDouble(allData.get(indexForDescriptions.get(h)));
-                    j++;
-                }
-            }
+            for (int j = 0; j < featureColumns.length; j++)
+                regressionData[j + 1] = featureColumns[j].value(i);
             dataArray[i] = regressionData;
         }
     }
@@ -3,6 +3,7 @@ package players.learners;
 import com.globalmentor.apache.hadoop.fs.BareLocalFileSystem;
 import core.interfaces.IActionFeatureVector;
 import core.interfaces.IStateFeatureVector;
+import evaluation.features.FeatureData;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
@@ -23,11 +24,12 @@ public abstract class ApacheLearner extends AbstractLearner {
     Dataset<Row> apacheData;
     boolean debug = false;
 
+    // local[*] uses all cores, so that copies of a learner fitting models on different threads run in parallel
     static SparkSession spark = SparkSession
             .builder()
             .appName("Java Spark SQL basic example")
             //     .config("spark.driver.memory", "1g")
-            .master("local").getOrCreate();
+            .master("local[*]").getOrCreate();
     static {
         // And the hack to get this to work on Windows (without the Winutils.exe and hadoop.dll nightmare)
         spark.sparkContext().hadoopConfiguration().setClass("fs.file.impl", BareLocalFileSystem.class, FileSystem.class);
@@ -47,6 +49,16 @@ public abstract class ApacheLearner extends AbstractLearner {
     @Override
     public Object learnFrom(String... files) {
         loadData(files);
+        return learnFromLoadedData();
+    }
+
+    @Override
+    public Object learnFrom(FeatureData data) {
+        loadData(data);
+        return learnFromLoadedData();
+    }
+
+    private Object learnFromLoadedData() {
         // first add the target to the data array so that we can convert to an apache dataset (we just add on the target)
         double[][] apacheDataArray = new double[dataArray.length][dataArray[0].length];
         for (int i = 0; i < dataArray.length; i++) {
@@ -3,6 +3,7 @@ package players.learners;
 import core.interfaces.*;
 import org.json.simple.JSONObject;
 import evaluation.features.AutomatedFeatures;
+import evaluation.features.FeatureData;
 import players.heuristics.GLMHeuristic;
 import utilities.JSONUtils;
 import utilities.Utils;
@@ -10,6 +11,10 @@ import utilities.Utils;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -31,6 +36,8 @@ public class LearnFromData {
     String data;
     boolean debug = false;
     int maxRecords = 10000;
+    int nThreads = 1;
+    private ExecutorService executor;
 
 
     public static void main(String[] args) {
@@ -66,9 +73,11 @@ public class LearnFromData {
         }
 
         String outputFileName = Utils.getArg(args, "output", "LearnedHeuristic.json");
+        int nThreads = Utils.getArg(args, "nThreads", 1);
 
         LearnFromData learnFromData = new LearnFromData(data, stateFeatures, actionFeatures,
                 outputFileName, learner, 3, 30);
+        learnFromData.setNThreads(nThreads);
         learnFromData.learn();
     }
 
@@ -97,7 +106,7 @@ public class LearnFromData {
 
         AutomatedFeatures asf = new AutomatedFeatures(stateFeatures, actionFeatures);
         // construct the output file by adding _ASF before the suffix (which can be anything)
-        List<List<Object>> convertedData = asf.processData(true, convertedDataFile, maxRecords, dataFiles);
+        FeatureData convertedData = asf.processData(true, convertedDataFile, maxRecords, dataFiles);
 
         // this will have created the raw data from which we now learn
         // whichever of state/action features is not null will prompt the type of Heuristic learned
@@ -107,10 +116,18 @@ public class LearnFromData {
             learner.setStateFeatureVector(asf);
         // this creates the extended AutomatedFeatures, and fits to this; before considering any interactions, bucketing or pruning
         int startingFeatureCount = learner.featureCount();
-        Object learnedThing = learner.learnFrom(convertedDataFile);
+        Object learnedThing = learner.learnFrom(convertedData);
 
         // we are now in a position to modify the features in a loop
-        learnedThing = improveModel(learnedThing, learner, convertedData.size(), convertedDataFile);
+        try {
+            learnedThing = improveModel(learnedThing, learner, convertedData,
+                    new File(convertedDataFile).getAbsoluteFile().getParent());
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
 
         if (learnedThing instanceof IToJSON toJSON) {
             JSONObject json = toJSON.toJSON();
@@ -134,16 +151,26 @@ public class LearnFromData {
         }
         long endTime = System.currentTimeMillis();
         System.out.printf("Learned heuristic in %d minutes with %d -> %d features and %d rows%n",
-                (endTime - startTime) / 60000, startingFeatureCount, learner.featureCount(), convertedData.size());
+                (endTime - startTime) / 60000, startingFeatureCount, learner.featureCount(), convertedData.rows());
         return learnedThing;
     }
 
+    /**
+     * Improves the model one change of features at a time, adopting in each iteration the single change (bucketing
+     * a feature, adding an interaction, or removing a feature) that most improves the BIC, until none does.
+     * <p>
+     * All the candidate changes of an iteration are independent, so they are evaluated together, on nThreads
+     * threads (each with its own copy of the learner). Bucketing candidates are evaluated first, as which
+     * interactions are considered depends on whether bucketing of their features is settled.
+     * All the data stays in memory: each candidate is processed from the data of the current iteration.
+     */
     private Object improveModel(Object startingHeuristic,
                                 AbstractLearner learner,
-                                int n,
-                                String... dataFiles) {
+                                FeatureData data,
+                                String dataDirectory) {
 
         long startTime = System.currentTimeMillis();
+        int n = data.rows();
         if (startingHeuristic instanceof GLMHeuristic glm) {
             AutomatedFeatures asf = (AutomatedFeatures) (learner.getActionFeatureVector() != null ? learner.getActionFeatureVector() : learner.getStateFeatureVector());
             String bestFeatureDescription = "";
@@ -155,10 +182,6 @@ public class LearnFromData {
             List<String> excludedInteractionFeatures = new ArrayList<>();
             List<String> featuresToKeep = new ArrayList<>();
             int iteration = 0;
-            String dataDirectory = dataFiles[0].substring(0, dataFiles[0].lastIndexOf(File.separator));
-            String outputFile = dataDirectory + File.separator + "ImproveModel_tmp.txt";
-
-            String[] rawData = dataFiles;
             AutomatedFeatures bestFeatures;
 
             // we check for any zero coefficients in startingHeuristic
@@ -178,6 +201,38 @@ public class LearnFromData {
                 if (debug)
                     System.out.printf("Iteration %d, current feature count %d / %d%n", iteration, asf.names().length, learner.featureCount());
                 baseBIC = bestBIC;  // reset baseline
+
+                // First we consider more buckets for each RAW feature
+                List<Candidate> bucketCandidates = new ArrayList<>();
+                for (int i = 0; i < asf.names().length; i++) {
+                    String firstFeature = asf.names()[i];
+                    if (asf.getFeatureType(i) == RAW && !excludedBucketFeatures.contains(firstFeature)) {
+                        // once a feature is below the base AIC, we save time by not checking it for bucketing again
+                        AutomatedFeatures adjustedASF = asf.copy();
+                        int underlyingIndex = asf.getUnderlyingIndex(i);
+                        adjustedASF.setBuckets(underlyingIndex, asf.getBuckets(underlyingIndex) + BUCKET_INCREMENT);
+                        bucketCandidates.add(new Candidate(CandidateType.BUCKETS, firstFeature,
+                                firstFeature + " (Buckets: " + adjustedASF.getBuckets(underlyingIndex) + ")", adjustedASF));
+                    }
+                }
+                List<FeatureAnalysisResult> bucketResults = evaluate(bucketCandidates, data, learner, n);
+                for (int c = 0; c < bucketCandidates.size(); c++) {
+                    Candidate candidate = bucketCandidates.get(c);
+                    FeatureAnalysisResult result = bucketResults.get(c);
+                    if (result.newBIC < bestBIC) {
+                        bestBIC = result.newBIC;
+                        bestFeatures = result.adjustedASF;
+                        startingHeuristic = result.newHeuristic;
+                        bestFeatureDescription = candidate.description;
+                    } else if (result.newBIC > baseBIC) {
+                        if (debug)
+                            System.out.println("Excluding feature " + candidate.description + " as it did not improve BIC");
+                        excludedBucketFeatures.add(candidate.feature);
+                    }
+                }
+
+                // Then interactions and removals
+                List<Candidate> candidates = new ArrayList<>();
                 for (int i = 0; i < asf.names().length; i++) {
 
                     String firstFeature = asf.names()[i];
@@ -189,26 +244,6 @@ public class LearnFromData {
                         if (!excludedBucketFeatures.contains(underlyingFeature))
                             continue;  // we only consider RANGE features for interactions once the bucketing is fixed
                     }
-                    if (type1 == AutomatedFeatures.featureType.RAW && !excludedBucketFeatures.contains(firstFeature)) {
-                        // once a feature is below the base AIC, we save time by not checking it for bucketing again
-                        AutomatedFeatures adjustedASF = asf.copy();
-                        int underlyingIndex = asf.getUnderlyingIndex(i);
-                        adjustedASF.setBuckets(underlyingIndex, asf.getBuckets(underlyingIndex) + BUCKET_INCREMENT);
-
-                        FeatureAnalysisResult result = processNewFeature(adjustedASF, outputFile, rawData, learner, n);
-
-                        if (result.newBIC < bestBIC) {
-                            bestBIC = result.newBIC;
-                            bestFeatures = result.adjustedASF;
-                            startingHeuristic = result.newHeuristic;
-                            bestFeatureDescription = firstFeature + " (Buckets: " + result.adjustedASF.getBuckets(underlyingIndex) + ")";
-                        } else if (result.newBIC > baseBIC) {
-                            if (debug)
-                                System.out.println("Excluding feature " + firstFeature + " with buckets " +
-                                        adjustedASF.getBuckets(underlyingIndex) + " as it did not improve BIC");
-                            excludedBucketFeatures.add(firstFeature);
-                        }
-                    }
 
                     for (int j = i; j < asf.names().length; j++) {
                         String secondFeature = asf.names()[j];
@@ -241,24 +276,7 @@ public class LearnFromData {
                         // Consider the interaction of features
                         AutomatedFeatures adjustedASF = asf.copy();
                         adjustedASF.addInteraction(i, j);
-                        FeatureAnalysisResult result = processNewFeature(adjustedASF, outputFile, rawData, learner, n);
-
-                        if (debug)
-                            System.out.printf("\tConsidered interaction: %s, new BIC: %.2f%n", interactionName, result.newBIC);
-//                        System.out.printf("\tCoefficients: %s%n",
-//                                result.newHeuristic.coefficients() != null ?
-//                                        Arrays.stream(result.newHeuristic.coefficients()).mapToObj(d -> String.format("%.2f", d)).collect(joining("|")) : "[]");
-
-                        if (result.newBIC < bestBIC) {
-                            bestBIC = result.newBIC;
-                            bestFeatures = result.adjustedASF;
-                            startingHeuristic = result.newHeuristic;
-                            bestFeatureDescription = interactionName;
-                        } else if (result.newBIC > baseBIC) {
-                            // if an interaction worsens the BIC, then we exclude it from future consideration
-                            // on the basis that this is *unlikely* to improve in future iterations [although it might]
-                            excludedInteractionFeatures.add(interactionName);
-                        }
+                        candidates.add(new Candidate(CandidateType.INTERACTION, interactionName, interactionName, adjustedASF));
                     }
 
                     // Then consider removing this feature (if it is not part of an interaction, and we have finished bucketing)
@@ -269,22 +287,29 @@ public class LearnFromData {
 
                     AutomatedFeatures adjustedASF = asf.copy();
                     adjustedASF.removeFeature(i);
+                    candidates.add(new Candidate(CandidateType.REMOVAL, featureToRemove,
+                            String.format("Removed Feature %s", featureToRemove), adjustedASF));
+                }
 
-                    // we always use the data file from this iteration of building the model (as this has all the data)
-                    FeatureAnalysisResult result = processNewFeature(adjustedASF, outputFile, new String[0], learner, n);
-
+                List<FeatureAnalysisResult> results = evaluate(candidates, data, learner, n);
+                for (int c = 0; c < candidates.size(); c++) {
+                    Candidate candidate = candidates.get(c);
+                    FeatureAnalysisResult result = results.get(c);
                     if (debug)
-                        System.out.printf("\tConsidered feature removal: %s, new BIC: %.2f%n", featureToRemove, result.newBIC);
-//                    System.out.printf("\tCoefficients: %s%n",
-//                            result.newHeuristic.coefficients() != null ?
-//                                    Arrays.stream(result.newHeuristic.coefficients()).mapToObj(d -> String.format("%.2f", d)).collect(joining("|")) : "[]");
+                        System.out.printf("\tConsidered %s: %s, new BIC: %.2f%n",
+                                candidate.type == CandidateType.REMOVAL ? "feature removal" : "interaction",
+                                candidate.feature, result.newBIC);
                     if (result.newBIC < bestBIC) {
                         bestBIC = result.newBIC;
                         bestFeatures = result.adjustedASF;
                         startingHeuristic = result.newHeuristic;
-                        bestFeatureDescription = String.format("Removed Feature %s", featureToRemove);
-                    } else if (result.newBIC > baseBIC + bicMultiplier * asf.names().length) {
-                        featuresToKeep.add(featureToRemove);
+                        bestFeatureDescription = candidate.description;
+                    } else if (candidate.type == CandidateType.INTERACTION && result.newBIC > baseBIC) {
+                        // if an interaction worsens the BIC, then we exclude it from future consideration
+                        // on the basis that this is *unlikely* to improve in future iterations [although it might]
+                        excludedInteractionFeatures.add(candidate.feature);
+                    } else if (candidate.type == CandidateType.REMOVAL && result.newBIC > baseBIC + bicMultiplier * asf.names().length) {
+                        featuresToKeep.add(candidate.feature);
                     }
                 }
 
@@ -293,14 +318,14 @@ public class LearnFromData {
                     // otherwise processNewData will keep adding it back in
                     excludedFeatures.add(bestFeatureDescription.substring(bestFeatureDescription.lastIndexOf("is ") + 3));
                 }
-                // We then also need to set up the data file to be used as the baseline for the next iteration
+                // We then also need to set up the data to be used as the baseline for the next iteration
                 if (bestFeatures != null) {
-                    String newFileName = dataDirectory + File.separator + "ImproveModel_Iter_" + iteration + ".txt";
-                    bestFeatures.processData(false, newFileName, maxRecords, rawData);
-                    // then remove excluded features from the bestFeatures (these are always in the file so it always contains the original raw data)
+                    data = bestFeatures.processData(false, data);
+                    if (debug)
+                        data.write(dataDirectory + File.separator + "ImproveModel_Iter_" + iteration + ".txt");
+                    // then remove excluded features from the bestFeatures (these are always in the data so it always contains the original raw data)
                     removeExcludedFeatures(excludedFeatures, bestFeatures);
                     iteration++;
-                    rawData = new String[]{newFileName};
                 }
 
                 // We then update to the single best change (provided it improved on the BIC)
@@ -328,6 +353,11 @@ public class LearnFromData {
                 }
             } while (bestFeatures != null);
 
+            // the learner's features are those of the final model
+            if (learner.getActionFeatureVector() != null)
+                learner.setActionFeatureVector(asf);
+            else
+                learner.setStateFeatureVector(asf);
         } else {
             throw new RuntimeException("Invalid starting Model " + startingHeuristic.getClass());
         }
@@ -361,28 +391,76 @@ public class LearnFromData {
         maxRecords = i;
     }
 
+    /**
+     * Sets the number of threads used to evaluate candidate feature changes (1, the default, evaluates them
+     * one at a time)
+     */
+    public void setNThreads(int n) {
+        nThreads = Math.max(1, n);
+    }
+
     private record FeatureAnalysisResult(
             AutomatedFeatures adjustedASF,
             GLMHeuristic newHeuristic,
             double newBIC) {
     }
 
-    FeatureAnalysisResult processNewFeature(AutomatedFeatures asf,
-                                            String outputFile,
-                                            String[] rawData,
+    private enum CandidateType {
+        BUCKETS, INTERACTION, REMOVAL
+    }
+
+    // feature is the name of the feature (or interaction) concerned, and description is how the change is reported
+    private record Candidate(CandidateType type, String feature, String description, AutomatedFeatures features) {
+    }
+
+    /**
+     * Evaluates the candidates, on nThreads threads. The results are in the same order as the candidates.
+     */
+    private List<FeatureAnalysisResult> evaluate(List<Candidate> candidates, FeatureData data,
+                                                 AbstractLearner learner, int n) {
+        if (nThreads <= 1 || candidates.size() <= 1)
+            return candidates.stream().map(c -> processNewFeature(c, data, learner, n)).toList();
+        if (executor == null)
+            executor = Executors.newFixedThreadPool(nThreads, r -> {
+                Thread thread = new Thread(r, "LearnFromData");
+                thread.setDaemon(true);
+                return thread;
+            });
+        List<Future<FeatureAnalysisResult>> futures = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates)
+            futures.add(executor.submit(() -> processNewFeature(candidate, data, learner, n)));
+        List<FeatureAnalysisResult> results = new ArrayList<>(candidates.size());
+        try {
+            for (Future<FeatureAnalysisResult> future : futures)
+                results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during parallel feature search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Parallel feature search failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Fits a model with the candidate's features, using a copy of the learner (so this can be called on any thread).
+     * Removing a feature needs no new columns, so the data is only processed again for the other candidates.
+     */
+    FeatureAnalysisResult processNewFeature(Candidate candidate,
+                                            FeatureData data,
                                             AbstractLearner learner,
                                             int n) {
 
-        AutomatedFeatures localASF = asf.copy();
-        if (rawData != null && rawData.length > 0)
-            localASF.processData(false, outputFile, maxRecords, rawData);
+        AutomatedFeatures localASF = candidate.features.copy();
+        FeatureData localData = candidate.type == CandidateType.REMOVAL ? data : localASF.processData(false, data);
 
-        if (learner.actionFeatureVector != null)
-            learner.setActionFeatureVector(localASF);
+        AbstractLearner localLearner = learner.copy();
+        if (localLearner.actionFeatureVector != null)
+            localLearner.setActionFeatureVector(localASF);
         else
-            learner.setStateFeatureVector(localASF);
+            localLearner.setStateFeatureVector(localASF);
 
-        GLMHeuristic newHeuristic = (GLMHeuristic) learner.learnFrom(outputFile);
+        GLMHeuristic newHeuristic = (GLMHeuristic) localLearner.learnFrom(localData);
         double newBIC = bicFromAic(newHeuristic.getModel().summary().aic(), localASF.names().length, n);
         return new FeatureAnalysisResult(localASF, newHeuristic, newBIC);
     }
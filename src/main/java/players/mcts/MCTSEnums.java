@@ -3,7 +3,8 @@ package players.mcts;
 public class MCTSEnums {
 
     public enum Strategies {
-        RANDOM, MAST, CLASS, PARAMS, DEFAULT
+        RANDOM, MAST, CLASS, PARAMS, DEFAULT,
+        BATCH  // random rollouts, rolloutBatchSize at a time, if the forward model is an IBatchRolloutModel (else RANDOM)
     }
 
     public enum Information {
@@ -61,7 +61,8 @@ public class MCTSExpertIterationListener extends ActionFeatureListener {
         // we also need to set the logger for the state recorder
         FileStatsLogger fileLogger = (FileStatsLogger) logger;
         String loggerName = fileLogger.getFileName().replace("Action", "State");
-        FileStatsLogger stateLogger = new FileStatsLogger(loggerName, fileLogger.getDelimiter(), fileLogger.isAppend());
+        FileStatsLogger stateLogger = new FileStatsLogger(loggerName, fileLogger.getDelimiter(), fileLogger.isAppend(),
+                fileLogger.isAsynchronous());
         if (stateRecorder != null)
             stateRecorder.setLogger(stateLogger);
     }
@@ -90,6 +91,14 @@ public class MCTSExpertIterationListener extends ActionFeatureListener {
             stateRecorder.writeDataWithStandardHeaders(state);
     }
 
+    @Override
+    public void report() {
+        super.report();
+        // the state recorder has its own file, which also needs to be finished
+        if (stateRecorder != null)
+            stateRecorder.report();
+    }
+
     public void recordData(SingleTreeNode root) {
 
         if (root instanceof MultiTreeNode) {
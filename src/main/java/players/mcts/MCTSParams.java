@@ -41,6 +41,7 @@ public class MCTSParams extends PlayerParameters {
     public boolean paranoid = false;
     public MCTSEnums.RolloutIncrement rolloutIncrementType = TICK;
     public MCTSEnums.Strategies rolloutType = RANDOM;
+    public int rolloutBatchSize = 8;  // rollouts played (and averaged) per iteration with rolloutType BATCH
     public MCTSEnums.Strategies oppModelType = MCTSEnums.Strategies.DEFAULT;  // Default is to use the same as rolloutType
     public String rolloutClass, oppModelClass = "";
     public AbstractPlayer rolloutPolicy;
@@ -54,6 +55,7 @@ public class MCTSParams extends PlayerParameters {
     // It also means that at the end of the game (when rewards are possibly closer to each other, they are still scaled to [0, 1]
     public boolean maintainMasterState = false;
     public boolean discardStateAfterEachIteration = true;  // default will remove reference to OpenLoopState in backup(). Saves memory!
+    public boolean useCheckpoints = false;  // if the forward model is an IUndoableForwardModel, revert states instead of copying them where possible
     public MCTSEnums.RolloutTermination rolloutTermination = EXACT;
     public IStateHeuristic heuristic = AbstractGameState::getHeuristicScore;
     public IActionKey MASTActionKey;
@@ -84,6 +86,7 @@ public class MCTSParams extends PlayerParameters {
         addTunableParameter("maxTreeDepth", 1000, Arrays.asList(1, 3, 10, 30, 100, 1000));
         addTunableParameter("rolloutIncrementType", TICK, Arrays.asList(MCTSEnums.RolloutIncrement.values()));
         addTunableParameter("rolloutType", RANDOM, Arrays.asList(MCTSEnums.Strategies.values()));
+        addTunableParameter("rolloutBatchSize", 8, Arrays.asList(1, 2, 4, 8, 16, 32));
         addTunableParameter("oppModelType", DEFAULT, Arrays.asList(MCTSEnums.Strategies.values()));
         addTunableParameter("rolloutClass", "");
         addTunableParameter("oppModelClass", "");
@@ -105,6 +108,7 @@ public class MCTSParams extends PlayerParameters {
         addTunableParameter("normaliseRewards", true);
         addTunableParameter("maintainMasterState", false);
         addTunableParameter("discardStateAfterEachIteration", true);
+        addTunableParameter("useCheckpoints", false);
         addTunableParameter("omaVisits", 30);
         addTunableParameter("paranoid", false);
         addTunableParameter("MASTActionKey", IActionKey.class);
@@ -134,6 +138,7 @@ public class MCTSParams extends PlayerParameters {
         maxTreeDepth = (int) getParameterValue("maxTreeDepth");
         rolloutIncrementType = (MCTSEnums.RolloutIncrement) getParameterValue("rolloutIncrementType");
         rolloutType = (MCTSEnums.Strategies) getParameterValue("rolloutType");
+        rolloutBatchSize = (int) getParameterValue("rolloutBatchSize");
         rolloutTermination = (MCTSEnums.RolloutTermination) getParameterValue("rolloutTermination");
         oppModelType = (MCTSEnums.Strategies) getParameterValue("oppModelType");
         information = (MCTSEnums.Information) getParameterValue("information");
@@ -156,6 +161,7 @@ public class MCTSParams extends PlayerParameters {
         maintainMasterState = (boolean) getParameterValue("maintainMasterState");
         paranoid = (boolean) getParameterValue("paranoid");
         discardStateAfterEachIteration = (boolean) getParameterValue("discardStateAfterEachIteration");
+        useCheckpoints = (boolean) getParameterValue("useCheckpoints");
         pUCT = (boolean) getParameterValue("pUCT");
         pUCTTemperature = (double) getParameterValue("pUCTTemperature");
         if (information == Closed_Loop)
@@ -235,7 +241,7 @@ public class MCTSParams extends PlayerParameters {
 
     private AbstractPlayer constructStrategy(MCTSEnums.Strategies type, String details) {
         return switch (type) {
-            case RANDOM -> new RandomPlayer(new Random(getRandomSeed()));
+            case RANDOM, BATCH -> new RandomPlayer(new Random(getRandomSeed()));
             case MAST -> new MASTPlayer(MASTActionKey, MASTBoltzmann, 0.0, getRandomSeed(), MASTDefaultValue);
             case CLASS ->
                 // we have a bespoke Class to instantiate (for anything other than an AbstractPlayer we could just rely on the core JSON loading)
@@ -3,6 +3,8 @@ package players.mcts;
 import core.*;
 import core.actions.AbstractAction;
 import core.interfaces.IActionHeuristic;
+import core.interfaces.IBatchRolloutModel;
+import core.interfaces.IUndoableForwardModel;
 import players.PlayerConstants;
 import utilities.*;
 
@@ -77,6 +79,12 @@ public class SingleTreeNode {
     protected List<SingleTreeNode> currentNodeTrajectory;
     protected List<Pair<Integer, AbstractAction>> actionsInTree;
     List<Pair<Integer, AbstractAction>> actionsInRollout;
+    // Reused for Closed_Loop rollouts when params.useCheckpoints is set (only on the root)
+    IUndoableForwardModel.Checkpoint rolloutCheckpoint;
+    // Results of batch rollouts (only on the root)
+    double[] batchRolloutValues;
+    // Reused for the actions in rollouts when params.leanSimulation is set (only on the root; null if not used)
+    List<AbstractAction> simulationActions;
 
     protected SingleTreeNode() {
     }
@@ -88,6 +96,9 @@ public class SingleTreeNode {
         retValue.decisionPlayer = state.getCurrentPlayer();
         retValue.params = player.getParameters();
         retValue.forwardModel = player.getForwardModel();
+        // the lean simulation API ignores player decorators, so can only be used without them
+        if (retValue.params.leanSimulation && !retValue.forwardModel.hasPlayerDecorators())
+            retValue.simulationActions = new ArrayList<>();
         retValue.rnd = rnd;
         // only root node maintains MAST statistics
         retValue.MASTStatistics = new ArrayList<>();
@@ -157,6 +168,7 @@ public class SingleTreeNode {
         highReward = template.highReward;
         lowReward = template.lowReward;
         inheritedVisits = nVisits;
+        simulationActions = template.simulationActions;
         MASTStatistics = new ArrayList<>();
         for (int i = 0; i < template.MASTStatistics.size(); i++)
             MASTStatistics.add(new HashMap<>());
@@ -321,6 +333,16 @@ public class SingleTreeNode {
             elapsedTimer.setMaxTimeMillis(params.budget - initialisationTime);
         }
 
+        // With checkpoints, Open_Loop search copies the root state once, and reverts the copy before each iteration
+        AbstractGameState openLoopCopy = null;
+        IUndoableForwardModel.Checkpoint openLoopCheckpoint = null;
+        if (params.information == MCTSEnums.Information.Open_Loop && params.useCheckpoints
+                && forwardModel instanceof IUndoableForwardModel) {
+            openLoopCopy = state.copy();
+            copyCount++;
+            openLoopCheckpoint = checkpoint(openLoopCopy, null);
+        }
+
         // Tracking number of iterations for iteration budget
         int numIters = 0;
         boolean stop = false;
@@ -330,8 +352,13 @@ public class SingleTreeNode {
                     setActionsFromOpenLoopState(state);
                     break;
                 case Open_Loop:
-                    setActionsFromOpenLoopState(state.copy());
-                    copyCount++;
+                    if (openLoopCheckpoint != null) {
+                        ((IUndoableForwardModel) forwardModel).revert(openLoopCopy, openLoopCheckpoint);
+                        setActionsFromOpenLoopState(openLoopCopy);
+                    } else {
+                        setActionsFromOpenLoopState(state.copy());
+                        copyCount++;
+                    }
                     break;
                 case Information_Set:
                     if (redeterminisationPlayer == -1)
@@ -559,7 +586,7 @@ public class SingleTreeNode {
         } else {
             root.actionsInTree.add(new Pair<>(gs.getCurrentPlayer(), act));
         }
-        forwardModel.next(gs, act.copy());
+        applyAction(gs, act.copy());
         root.fmCallsCount++;
         if (params.opponentTreePolicy != MultiTree &&
                 params.opponentTreePolicy.selfOnlyTree &&
@@ -579,7 +606,7 @@ public class SingleTreeNode {
         while (gs.getCurrentPlayer() != id && gs.isNotTerminalForPlayer(id) && !(inRollout && finishRollout(gs))) {
             //       AbstractGameState preGS = gs.copy();
             AbstractPlayer oppModel = params.getOpponentModel();
-            List<AbstractAction> availableActions = forwardModel.computeAvailableActions(gs, params.actionSpace);
+            List<AbstractAction> availableActions = rolloutActions(gs);
             if (availableActions.isEmpty())
                 throw new AssertionError("Should always have at least one action possible..." + (action != null ? " Last action: " + action : ""));
             action = oppModel.getAction(gs, availableActions);
@@ -589,11 +616,32 @@ public class SingleTreeNode {
                 lastRoundInRollout = gs.getRoundCounter();
                 lastTurnInRollout = gs.getTurnCounter();
             }
-            forwardModel.next(gs, action);
+            applyAction(gs, action);
             root.fmCallsCount++;
         }
     }
 
+    /**
+     * Applies the action to a state owned by the search: with AbstractForwardModel.simulate() if
+     * params.leanSimulation is set (and can be used), and next() otherwise.
+     */
+    protected void applyAction(AbstractGameState gs, AbstractAction act) {
+        if (root.simulationActions != null)
+            forwardModel.simulate(gs, act);
+        else
+            forwardModel.next(gs, act);
+    }
+
+    /**
+     * The actions available in a rollout (or when moving other players), which with params.leanSimulation are
+     * computed into a list shared by the whole search, so are only valid until the next call.
+     */
+    protected List<AbstractAction> rolloutActions(AbstractGameState gs) {
+        if (root.simulationActions != null)
+            return forwardModel.legalActionsInto(gs, params.actionSpace, root.simulationActions);
+        return forwardModel.computeAvailableActions(gs, params.actionSpace);
+    }
+
     /**
      * Apply relevant policy to choose a child.
      *
@@ -882,6 +930,9 @@ public class SingleTreeNode {
      * @return - value of rollout.
      */
     protected double[] rollout(int lastActor) {
+        if (params.rolloutType == MCTSEnums.Strategies.BATCH && params.rolloutLength > 0
+                && forwardModel instanceof IBatchRolloutModel batchModel)
+            return batchRollout(batchModel, params.information == Closed_Loop ? state : openLoopState);
         lastActorInRollout = lastActor;
         roundAtStartOfRollout = openLoopState.getRoundCounter();
         turnAtStartOfRollout = openLoopState.getTurnCounter();
@@ -890,19 +941,27 @@ public class SingleTreeNode {
 
         // If rollouts are enabled, select actions for the rollout in line with the rollout policy
         AbstractGameState rolloutState = openLoopState;
+        IUndoableForwardModel.Checkpoint checkpoint = null;
         if (params.rolloutLength > 0 || params.rolloutTermination != EXACT) {
             // even if rollout length is zero, we may rollout a few actions to reach the end of our turn, or the start of our next turn
             if (params.information == Closed_Loop) {
                 // the thinking here is that in openLoop we copy the state right at the root, and then use the forward
                 // model at each action. Hence the current state on the node is the one we have been using up to now.
                 /// Hence we do not need to copy it.
-                rolloutState = state.copy();
-                root.copyCount++;
+                // With checkpoints we roll out on the node's state, and revert it afterwards.
+                checkpoint = checkpoint(state, root.rolloutCheckpoint);
+                if (checkpoint != null) {
+                    root.rolloutCheckpoint = checkpoint;
+                    rolloutState = state;
+                } else {
+                    rolloutState = state.copy();
+                    root.copyCount++;
+                }
             }
 
             AbstractAction next = null;
             while (!finishRollout(rolloutState)) {
-                List<AbstractAction> availableActions = forwardModel.computeAvailableActions(rolloutState, params.actionSpace);
+                List<AbstractAction> availableActions = rolloutActions(rolloutState);
                 if (availableActions.isEmpty()) {
                     throw new AssertionError("No actions available in rollout!" + (next != null ? " Last action: " + next : ""));
                 }
@@ -919,9 +978,58 @@ public class SingleTreeNode {
             if (Double.isNaN(retValue[i]) || Double.isInfinite(retValue[i]))
                 throw new AssertionError("Illegal heuristic value - should be a number - " + params.heuristic.toString());
         }
+        if (checkpoint != null)
+            ((IUndoableForwardModel) forwardModel).revert(state, checkpoint);
         return retValue;
     }
 
+    /**
+     * Plays params.rolloutBatchSize random rollouts at once with the forward model, and averages their values.
+     * Rollouts are rolloutLength actions long (times the number of players if rolloutLengthPerPlayer is set),
+     * whatever the rolloutIncrementType and rolloutTermination; actions played in them are not recorded for MAST.
+     * The state is not changed, so it does not need to be copied.
+     *
+     * @return - mean value of the rollouts for each player
+     */
+    protected double[] batchRollout(IBatchRolloutModel batchModel, AbstractGameState rolloutState) {
+        int nPlayers = rolloutState.getNPlayers();
+        int nRollouts = Math.max(1, params.rolloutBatchSize);
+        if (root.batchRolloutValues == null || root.batchRolloutValues.length < nRollouts * nPlayers)
+            root.batchRolloutValues = new double[nRollouts * nPlayers];
+        double[] values = root.batchRolloutValues;
+        int maxActions = params.rolloutLengthPerPlayer ? params.rolloutLength * nPlayers : params.rolloutLength;
+        root.fmCallsCount += batchModel.batchRollout(rolloutState, nRollouts, maxActions, params.heuristic, rnd, values);
+
+        double[] retValue = new double[nPlayers];
+        for (int r = 0; r < nRollouts; r++) {
+            for (int i = 0; i < nPlayers; i++) {
+                double value = values[r * nPlayers + i];
+                if (Double.isNaN(value) || Double.isInfinite(value))
+                    throw new AssertionError("Illegal heuristic value - should be a number - " + params.heuristic.toString());
+                retValue[i] += value;
+            }
+        }
+        for (int i = 0; i < nPlayers; i++)
+            retValue[i] /= nRollouts;
+        return retValue;
+    }
+
+    /**
+     * Saves the state in a checkpoint, if params.useCheckpoints is set and the forward model supports them.
+     *
+     * @param reuse - a checkpoint to overwrite, or null
+     * @return - the checkpoint, or null if the state could not be saved
+     */
+    protected IUndoableForwardModel.Checkpoint checkpoint(AbstractGameState gs, IUndoableForwardModel.Checkpoint reuse) {
+        if (!params.useCheckpoints || !(forwardModel instanceof IUndoableForwardModel undo))
+            return null;
+        try {
+            return undo.checkpoint(gs, reuse);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
     /**
      * Checks if rollout is finished. Rollouts end on maximum length, or if game ended.
      *
@@ -22,12 +22,16 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
     IStateHeuristic heuristic;
     AbstractPlayer rolloutPolicy;
     private Random gen;               // Random generator
+    // If not null, states are advanced with fm.simulate() and the opponent moves computed into this list
+    // (shared by the population, see PlayerParameters.leanSimulation)
+    List<AbstractAction> simulationActions;
 
     RHEAIndividual(int L, double discountFactor, AbstractForwardModel fm, AbstractGameState gs,
                    int playerID, Random gen, IStateHeuristic heuristic,
-                   AbstractPlayer rolloutPolicy) {
+                   AbstractPlayer rolloutPolicy, List<AbstractAction> simulationActions) {
         // Initialize
         this.gen = gen;
+        this.simulationActions = simulationActions;
         this.discountFactor = discountFactor;
         actions = new AbstractAction[L];
         gameStates = new AbstractGameState[L + 1];
@@ -55,6 +59,7 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
 
         value = I.value;
         gen = I.gen;
+        simulationActions = I.simulationActions;
     }
 
     /**
@@ -145,18 +150,19 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                 }
                 // TODO: Add a closed loop option to not copy the state (expensively) if the action is valid, but jump to the next state stored
                 // TODO: When implemented, this will also need to take account of shiftLeft
-                fm.next(gsCopy, action.copy());
+                advance(fm, gsCopy, action.copy());
                 fmCalls++;
 
                 // If it's my turn, store this in the individual
                 while (gsCopy.isNotTerminal() && !(gsCopy.getCurrentPlayer() == playerID)) {
                     // now we fast forward through any opponent moves with a random OM
                     // TODO: Add in other opponent model options, and record other player moves for MAST
-                    List<AbstractAction> moves = fm.computeAvailableActions(gsCopy);
+                    List<AbstractAction> moves = simulationActions != null ?
+                            fm.legalActionsInto(gsCopy, simulationActions) : fm.computeAvailableActions(gsCopy);
                     if (moves.isEmpty()) {
                         throw new AssertionError("No moves found in state " + gsCopy);
                     }
-                    fm.next(gsCopy, moves.get(gen.nextInt(moves.size())));
+                    advance(fm, gsCopy, moves.get(gen.nextInt(moves.size())));
                     fmCalls++;
                 }
                 oldGameStates[i+1] = gameStates[i+1];
@@ -209,4 +215,11 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         for (AbstractAction action : actions) s.append(action).append(" ");
         return s.toString();
     }
+
+    private void advance(AbstractForwardModel fm, AbstractGameState gs, AbstractAction action) {
+        if (simulationActions != null)
+            fm.simulate(gs, action);
+        else
+            fm.next(gs, action);
+    }
 }
@@ -83,11 +83,14 @@ public class RHEAPlayer extends AbstractPlayer implements IAnyTimePlayer {
                 copyCalls += calls.b;
             }
         } else {
+            // the lean simulation API ignores player decorators, so can only be used without them
+            List<AbstractAction> simulationActions = params.leanSimulation && !getForwardModel().hasPlayerDecorators() ?
+                    new ArrayList<>() : null;
             population = new ArrayList<>();
             for (int i = 0; i < params.populationSize; ++i) {
                 if (!budgetLeft(timer)) break;
                 population.add(new RHEAIndividual(params.horizon, params.discountFactor, getForwardModel(), stateObs,
-                        getPlayerID(), rnd, params.heuristic, params.useMAST ? mastPlayer : randomPlayer));
+                        getPlayerID(), rnd, params.heuristic, params.useMAST ? mastPlayer : randomPlayer, simulationActions));
                 fmCalls += population.get(i).length;
                 copyCalls += population.get(i).length;
             }
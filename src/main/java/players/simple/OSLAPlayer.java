@@ -40,11 +40,16 @@ public class OSLAPlayer extends AbstractPlayer {
         AbstractAction bestAction = null;
         double[] valState = new double[actions.size()];
         int playerID = gs.getCurrentPlayer();
+        // the lean simulation API ignores player decorators, so can only be used without them
+        boolean simulate = getParameters().leanSimulation && !getForwardModel().hasPlayerDecorators();
 
         for (int actionIndex = 0; actionIndex < actions.size(); actionIndex++) {
             AbstractAction action = actions.get(actionIndex);
             AbstractGameState gsCopy = gs.copy();
-            getForwardModel().next(gsCopy, action);
+            if (simulate)
+                getForwardModel().simulate(gsCopy, action);
+            else
+                getForwardModel().next(gsCopy, action);
 
             if (heuristic != null) {
                 valState[actionIndex] = heuristic.evaluateState(gsCopy, playerID);
@@ -0,0 +1,112 @@
+package utilities;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to objects, with open addressing (linear probing) in flat arrays, so that neither keys nor
+ * entries are boxed. Null values cannot be stored, as a null value marks an empty slot. Entries cannot be removed,
+ * only cleared all at once.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <V> - type of the values
+ */
+public class IntObjectMap<V> {
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public IntObjectMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize - number of entries the map should hold without growing
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return - the value for the key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            Object v = values[i];
+            if (v == null)
+                return null;
+            if (keys[i] == key)
+                return (V) v;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores the value for the key, replacing any value it already has.
+     *
+     * @return - the value replaced, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null values cannot be stored");
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > values.length)
+            grow();
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = values.length - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == null)
+                continue;
+            int i = slot(oldKeys[j]);
+            while (values[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private int slot(int key) {
+        // component IDs (the main use) are consecutive, which the multiplication spreads over the table
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,172 @@
+package utilities;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An append-only list whose copies share their contents, so that copy() takes constant time however long the
+ * list is. Used for the game history, which every copy of a game state carries.
+ * <p>
+ * Entries are held in chunks of CHUNK entries. Full chunks are never changed once written, and are shared by all
+ * copies; only the last, partly filled chunk (the tail) is written to. After a copy, both the copy and the original
+ * copy the tail (and, when they next fill a chunk, the array of chunks) before they write to them, so neither ever
+ * sees the other's later changes. Appending is therefore constant time, apart from one copy of at most CHUNK
+ * entries, and of the array of chunks, after each copy(); get() is always constant time.
+ * <p>
+ * A log is not thread-safe, but any number of threads may copy() the same log at once (as parallel searches
+ * copy a shared root state), provided none of them writes to it.
+ *
+ * @param <T> - type of the entries
+ */
+public class PersistentLog<T> {
+
+    static final int CHUNK = 32;
+    private static final int SHIFT = 5;
+
+    private Object[][] chunks;
+    private int nChunks;
+    private Object[] tail;
+    private int tailSize;
+    // false if the array may be shared with another log, and must be copied before it is written to
+    private boolean chunksOwned, tailOwned;
+
+    public PersistentLog() {
+        chunks = new Object[4][];
+        tail = new Object[CHUNK];
+        chunksOwned = tailOwned = true;
+    }
+
+    private PersistentLog(PersistentLog<T> other) {
+        chunks = other.chunks;
+        nChunks = other.nChunks;
+        tail = other.tail;
+        tailSize = other.tailSize;
+    }
+
+    /**
+     * @return - a copy of this log, in constant time. The copy and this log can then be changed independently.
+     */
+    public PersistentLog<T> copy() {
+        chunksOwned = false;
+        tailOwned = false;
+        return new PersistentLog<>(this);
+    }
+
+    public int size() {
+        return (nChunks << SHIFT) + tailSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        int chunk = index >> SHIFT;
+        return (T) (chunk < nChunks ? chunks[chunk][index & (CHUNK - 1)] : tail[index & (CHUNK - 1)]);
+    }
+
+    /**
+     * @return - the last entry, or null if the log is empty
+     */
+    public T last() {
+        return isEmpty() ? null : get(size() - 1);
+    }
+
+    public void add(T entry) {
+        if (!tailOwned) {
+            tail = Arrays.copyOf(tail, CHUNK);
+            tailOwned = true;
+        }
+        tail[tailSize++] = entry;
+        if (tailSize == CHUNK) {
+            // the tail is full: it becomes a shared chunk, and is never written to again
+            if (!chunksOwned || nChunks == chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(4, nChunks * 2));
+                chunksOwned = true;
+            }
+            chunks[nChunks++] = tail;
+            tail = new Object[CHUNK];
+            tailSize = 0;
+        }
+    }
+
+    /**
+     * Replaces an entry. This copies the chunk it is in (unless it is in the tail), so it is intended for rare use.
+     */
+    public void set(int index, T entry) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        int chunk = index >> SHIFT;
+        if (chunk == nChunks) {
+            if (!tailOwned) {
+                tail = Arrays.copyOf(tail, CHUNK);
+                tailOwned = true;
+            }
+            tail[index & (CHUNK - 1)] = entry;
+        } else {
+            if (!chunksOwned) {
+                chunks = Arrays.copyOf(chunks, chunks.length);
+                chunksOwned = true;
+            }
+            Object[] copy = chunks[chunk].clone();
+            copy[index & (CHUNK - 1)] = entry;
+            chunks[chunk] = copy;
+        }
+    }
+
+    /**
+     * Removes all entries from the given index onwards.
+     *
+     * @param newSize - the number of entries to keep
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0)
+            throw new IllegalArgumentException("Size cannot be negative: " + newSize);
+        if (newSize >= size())
+            return;
+        int chunk = newSize >> SHIFT;
+        if (chunk < nChunks) {
+            // the new tail is the start of a shared chunk
+            tail = Arrays.copyOf(chunks[chunk], CHUNK);
+            nChunks = chunk;
+            tailOwned = true;
+        } else if (!tailOwned) {
+            tail = Arrays.copyOf(tail, CHUNK);
+            tailOwned = true;
+        }
+        tailSize = newSize & (CHUNK - 1);
+        Arrays.fill(tail, tailSize, CHUNK, null);
+    }
+
+    /**
+     * @return - an unmodifiable list of the entries in the log now, which later changes to the log do not affect.
+     * This takes constant time, and so does get() on the list.
+     */
+    public List<T> snapshot() {
+        PersistentLog<T> copy = copy();
+        return new Snapshot<>(copy);
+    }
+
+    private static class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final PersistentLog<T> log;
+
+        Snapshot(PersistentLog<T> log) {
+            this.log = log;
+        }
+
+        @Override
+        public T get(int index) {
+            return log.get(index);
+        }
+
+        @Override
+        public int size() {
+            return log.size();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package utilities;
+
+import java.util.*;
+
+/**
+ * A list held in a circular array, so that elements are added and removed at either end in constant time, and found
+ * by index in constant time. Elements added or removed elsewhere move whichever of the elements before or after them
+ * are fewer. This suits Decks, which add to and draw from index 0 (the top), and also look up their components by index.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <E> - type of the elements
+ */
+public class RingList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final Object[] EMPTY = {};  // shared by all lists that have never held anything
+
+    private Object[] elements;  // length always a power of 2 (or 0)
+    private int head;  // array index of element 0
+    private int size;
+
+    public RingList() {
+        elements = EMPTY;
+    }
+
+    /**
+     * @param capacity - number of elements the list should hold without growing
+     */
+    public RingList(int capacity) {
+        elements = capacity == 0 ? EMPTY : new Object[capacityFor(capacity)];
+    }
+
+    public RingList(Collection<? extends E> c) {
+        this(c.size());
+        addAll(c);
+    }
+
+    /**
+     * Copies the other list. The elements themselves are shared, not copied.
+     */
+    public RingList(RingList<? extends E> other) {
+        elements = other.size == 0 ? EMPTY : new Object[capacityFor(other.size)];
+        other.copyInto(elements, 0, other.size);
+        size = other.size;
+    }
+
+    private static int capacityFor(int n) {
+        return n == 0 ? 0 : Integer.highestOneBit(n * 2 - 1);
+    }
+
+    private int mask() {
+        return elements.length - 1;
+    }
+
+    private int slot(int index) {
+        return (head + index) & mask();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) elements[slot(index)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        Objects.checkIndex(index, size);
+        int i = slot(index);
+        E old = (E) elements[i];
+        elements[i] = element;
+        return old;
+    }
+
+    @Override
+    public boolean add(E element) {
+        add(size, element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        Objects.checkIndex(index, size + 1);
+        openGap(index, 1);
+        elements[slot(index)] = element;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(size, c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        Objects.checkIndex(index, size + 1);
+        Object[] added = c.toArray();
+        if (added.length == 0)
+            return false;
+        openGap(index, added.length);
+        for (int j = 0; j < added.length; j++)
+            elements[slot(index + j)] = added[j];
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        E old = (E) elements[slot(index)];
+        closeGap(index, 1);
+        return old;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < toIndex)
+            closeGap(fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        if (size == 0)
+            return;
+        for (int j = 0; j < size; j++)
+            elements[slot(j)] = null;
+        head = 0;
+        size = 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        for (int j = 0; j < size; j++)
+            if (Objects.equals(o, elements[slot(j)]))
+                return j;
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        for (int j = size - 1; j >= 0; j--)
+            if (Objects.equals(o, elements[slot(j)]))
+                return j;
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        copyInto(result, 0, size);
+        return result;
+    }
+
+    // Copies the first n elements, in order, into the array from the given position
+    private void copyInto(Object[] dest, int destPos, int n) {
+        int firstPart = Math.min(n, elements.length - head);
+        System.arraycopy(elements, head, dest, destPos, firstPart);
+        System.arraycopy(elements, 0, dest, destPos + firstPart, n - firstPart);
+    }
+
+    // Makes room for n elements at the index, moving those before it back or those after it on
+    private void openGap(int index, int n) {
+        modCount++;
+        if (size + n > elements.length) {
+            // unwrap into a larger array, leaving the gap
+            Object[] grown = new Object[capacityFor(Math.max(size + n, elements.length * 2))];
+            copyInto(grown, 0, index);
+            for (int j = index; j < size; j++)
+                grown[j + n] = elements[slot(j)];
+            elements = grown;
+            head = 0;
+        } else if (index < size - index) {
+            head = (head - n) & mask();
+            for (int j = 0; j < index; j++)
+                elements[slot(j)] = elements[slot(j + n)];
+        } else {
+            for (int j = size - 1; j >= index; j--)
+                elements[slot(j + n)] = elements[slot(j)];
+        }
+        size += n;
+    }
+
+    // Removes the n elements from the index, moving those before it on or those after it back
+    private void closeGap(int index, int n) {
+        modCount++;
+        if (index < size - index - n) {
+            for (int j = index - 1; j >= 0; j--)
+                elements[slot(j + n)] = elements[slot(j)];
+            for (int j = 0; j < n; j++)
+                elements[slot(j)] = null;
+            head = (head + n) & mask();
+        } else {
+            for (int j = index + n; j < size; j++)
+                elements[slot(j - n)] = elements[slot(j)];
+            for (int j = size - n; j < size; j++)
+                elements[slot(j)] = null;
+        }
+        size -= n;
+    }
+}
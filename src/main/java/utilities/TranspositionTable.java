@@ -0,0 +1,148 @@
+package utilities;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded transposition table from 64-bit state hashes (e.g. SGGameState.getZobristHash()) to values, safe for use
+ * by several search threads without locks.
+ * <p>
+ * The table has a fixed number of buckets of two slots each. The first slot of a bucket keeps the entry with the
+ * highest priority (e.g. the shallowest or most visited node), the second always takes the newest entry, so new
+ * positions always get in while valuable ones are not pushed out by a flood of new ones. Entries are stamped with
+ * the generation they were stored in; call nextGeneration() at the start of each search, and entries from earlier
+ * generations can then be replaced whatever their priority. Over a long tournament the table therefore holds the
+ * positions of recent searches, and never needs clearing.
+ * <p>
+ * Each bucket is an immutable pair of entries, read and replaced atomically, so a reader never sees the key of one
+ * entry with the value of another, and a key is never in both slots of its bucket. A write that races with another
+ * write to the same bucket is retried against the new contents of the bucket. Keys are compared in full, but there
+ * is no check beyond the 64-bit hash.
+ *
+ * @param <V> - type of the values stored
+ */
+public class TranspositionTable<V> {
+
+    private record Entry<V>(long key, V value, int priority, int generation) {
+    }
+
+    private record Bucket<V>(Entry<V> preferred, Entry<V> recent) {
+    }
+
+    private final AtomicReferenceArray<Bucket<V>> buckets;
+    private final int bucketMask;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * @param capacity - maximum number of entries, rounded up to a power of two (at least 2)
+     */
+    public TranspositionTable(int capacity) {
+        int size = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        buckets = new AtomicReferenceArray<>(size / 2);
+        bucketMask = size / 2 - 1;
+    }
+
+    public int capacity() {
+        return buckets.length() * 2;
+    }
+
+    /**
+     * Starts a new generation: entries stored before this can be replaced by any new entry.
+     *
+     * @return - the new generation
+     */
+    public int nextGeneration() {
+        return generation.incrementAndGet();
+    }
+
+    public int getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @return - the value stored for the key, or null if there is none
+     */
+    public V get(long key) {
+        Bucket<V> b = buckets.get(bucket(key));
+        if (b == null)
+            return null;
+        if (b.preferred != null && b.preferred.key == key)
+            return b.preferred.value;
+        return b.recent != null && b.recent.key == key ? b.recent.value : null;
+    }
+
+    /**
+     * Stores the value for the key, replacing any value already stored for it.
+     *
+     * @param priority - how valuable the entry is; a higher priority entry is not replaced in the first slot of its
+     *                 bucket by a lower priority one of the same generation
+     */
+    public void put(long key, V value, int priority) {
+        store(key, value, priority, false);
+    }
+
+    /**
+     * Returns the value already stored for the key if there is one, or else stores the given value and returns it.
+     * When two threads race to store values for the same key, both get the value that won (unless it has been
+     * replaced by another entry in the meantime).
+     */
+    public V putIfAbsent(long key, V value, int priority) {
+        return store(key, value, priority, true);
+    }
+
+    private V store(long key, V value, int priority, boolean ifAbsent) {
+        int index = bucket(key);
+        int gen = generation.get();
+        Entry<V> entry = new Entry<>(key, value, priority, gen);
+        // retried until the bucket has not been changed by another thread in the meantime
+        while (true) {
+            Bucket<V> old = buckets.get(index);
+            Entry<V> preferred = old == null ? null : old.preferred, recent = old == null ? null : old.recent;
+            Bucket<V> updated;
+            if (preferred != null && preferred.key == key) {
+                if (ifAbsent) return preferred.value;
+                updated = new Bucket<>(entry, recent);
+            } else if (recent != null && recent.key == key) {
+                if (ifAbsent) return recent.value;
+                updated = new Bucket<>(preferred, entry);
+            } else if (preferred == null || preferred.generation != gen || preferred.priority <= priority) {
+                // the entry in the first slot is demoted to the second, rather than lost (unless it is older than
+                // the entry there)
+                boolean demote = preferred != null
+                        && (preferred.generation == gen || recent == null || recent.generation != gen);
+                updated = new Bucket<>(entry, demote ? preferred : recent);
+            } else {
+                updated = new Bucket<>(preferred, entry);
+            }
+            if (buckets.compareAndSet(index, old, updated))
+                return value;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        for (int i = 0; i < buckets.length(); i++)
+            buckets.set(i, null);
+    }
+
+    /**
+     * @return - the number of entries stored (a snapshot, which may be out of date if other threads are writing)
+     */
+    public int size() {
+        int n = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket<V> b = buckets.get(i);
+            if (b != null) {
+                if (b.preferred != null) n++;
+                if (b.recent != null) n++;
+            }
+        }
+        return n;
+    }
+
+    private int bucket(long key) {
+        return (int) (key ^ (key >>> 32)) & bucketMask;
+    }
+}
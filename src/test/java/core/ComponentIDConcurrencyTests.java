@@ -0,0 +1,139 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.components.Component;
+import core.components.Token;
+import games.GameType;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stress tests of component ID allocation with games set up and played on several threads at once.
+ */
+public class ComponentIDConcurrencyTests {
+
+    static final int nThreads = 8;
+    static final int maxActions = 100;
+    static final long[] seeds = {1, 2, 3};
+
+    @Test
+    public void idsAreUniqueAcrossThreads() throws Exception {
+        int perThread = 50000;
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int t = 0; t < nThreads; t++)
+                futures.add(pool.submit(() -> {
+                    int[] ids = new int[perThread];
+                    for (int i = 0; i < perThread; i++)
+                        ids[i] = new Token("t").getComponentID();
+                    return ids;
+                }));
+            Set<Integer> all = new HashSet<>();
+            for (Future<int[]> f : futures)
+                for (int id : f.get())
+                    assertTrue("Duplicate ID " + id, all.add(id));
+            assertEquals(nThreads * perThread, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Games whose play depends on the iteration order of hashed collections (of components, so on the values of
+     * their IDs, or else on identity hashes), so that two sequential runs of the same seed can differ whenever
+     * other objects were created in between. These are still played concurrently (checking lookups by ID), but
+     * cannot be compared with a reference run. Any other game that turns out to be like this fails the test, so
+     * this list has to be kept up to date deliberately.
+     */
+    static final Map<GameType, String> idDependentGames = Map.of(
+            GameType.Pandemic, "actions are generated from the neighbours of a city, a HashMap keyed by BoardNode",
+            GameType.Descent2e, "the board is built using a HashMap keyed by BoardNode",
+            GameType.Root, "RootGraphBoard holds its clearings in a HashMap keyed by component ID",
+            GameType.Saboteur, "the path card deck is built from a HashMap keyed by Pairs holding arrays (identity hashes)"
+    );
+
+    @Test
+    public void concurrentGamesMatchSequentialGames() throws Exception {
+        // The sequential runs are the reference. Moving the ID counter on between two of them finds the games
+        // that depend on ID values, and these must be exactly those in idDependentGames
+        Map<String, List<String>> expected = new LinkedHashMap<>();
+        List<String> games = new ArrayList<>();
+        Set<GameType> found = EnumSet.noneOf(GameType.class);
+        for (GameType gt : GameType.values()) {
+            if (gt == GameType.GameTemplate)
+                continue;
+            for (long seed : seeds) {
+                games.add(gt.name() + "/" + seed);
+                List<String> trace = play(gt, seed);
+                for (int i = 0; i < 1000; i++)
+                    new Token("moves the IDs on");
+                if (trace.equals(play(gt, seed)))
+                    expected.put(gt.name() + "/" + seed, trace);
+                else
+                    found.add(gt);
+            }
+            if (idDependentGames.containsKey(gt))
+                expected.keySet().removeIf(k -> k.startsWith(gt.name() + "/"));
+        }
+        assertEquals(idDependentGames.keySet(), found);
+
+        // then all of them at once, each several times, in a shuffled order
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            keys.addAll(games);
+        Collections.shuffle(keys, new Random(42));
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (String key : keys) {
+                String[] parts = key.split("/");
+                futures.add(pool.submit(() -> play(GameType.valueOf(parts[0]), Long.parseLong(parts[1]))));
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                List<String> trace = futures.get(i).get();
+                if (expected.containsKey(keys.get(i)))
+                    assertEquals(keys.get(i), expected.get(keys.get(i)), trace);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays the game with random actions, checking that every component can be found by its ID as it goes.
+     *
+     * @return - the number of actions available at each step, and the action chosen, then the final scores
+     */
+    private static List<String> play(GameType gt, long seed) {
+        Game game = gt.createGameInstance(gt.getMinPlayers(), seed);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        Random rnd = new Random(seed);
+        List<String> trace = new ArrayList<>();
+        for (int i = 0; i < maxActions && state.isNotTerminal(); i++) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            int choice = rnd.nextInt(actions.size());
+            trace.add(actions.size() + ":" + choice);
+            fm.next(state, actions.get(choice));
+            if (i % 20 == 0)
+                checkLookups(state);
+        }
+        for (int p = 0; p < state.getNPlayers(); p++)
+            trace.add(String.valueOf(state.getGameScore(p)));
+        return trace;
+    }
+
+    // every component is found by its ID, and any others with the same ID are copies of it
+    private static void checkLookups(AbstractGameState state) {
+        for (Component c : state.getAllComponents().getComponents()) {
+            Component found = state.getComponentById(c.getComponentID());
+            assertNotNull(found);
+            assertEquals(c, found);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.components.Component;
+import core.components.Deck;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import games.sushigo.cards.SGCard;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ComponentIndexTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    Random rnd = new Random(7);
+
+    private SGGameState newGame() {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(7);
+        SGGameState state = new SGGameState(params, 3);
+        fm.setup(state);
+        for (int i = 0; i < 6; i++) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+        return state;
+    }
+
+    @Test
+    public void copiesFindTheirOwnComponents() {
+        SGGameState state = newGame();
+        SGGameState copy = (SGGameState) state.copy();
+        for (Deck<SGCard> hand : copy.getPlayerHands()) {
+            assertSame(hand, copy.getComponentById(hand.getComponentID()));
+            for (SGCard card : hand.getComponents()) {
+                Component found = copy.getComponentById(card.getComponentID());
+                assertSame(card, found);
+                assertEquals(found, state.getComponentById(card.getComponentID()));
+            }
+        }
+        assertNull(copy.getComponentById(-42));
+    }
+
+    @Test
+    public void componentsAreFoundAfterMoves() {
+        SGGameState state = newGame();
+        SGGameState copy = (SGGameState) state.copy();
+        Deck<SGCard> from = copy.getPlayerHands().get(0);
+        Deck<SGCard> to = copy.getPlayerHands().get(1);
+        SGCard card = from.peek();
+        assertSame(card, copy.getComponentById(card.getComponentID()));  // the index is built now
+        from.remove(card);
+        to.add(card);
+        assertSame(card, copy.getComponentById(card.getComponentID()));
+        assertSame(to, copy.getComponentById(to.getComponentID()));
+    }
+
+    @Test
+    public void componentsAddedAfterTheIndexIsBuiltAreFound() {
+        SGGameState state = newGame();
+        SGGameState copy = (SGGameState) state.copy();
+        Deck<SGCard> hand = copy.getPlayerHands().get(2);
+        assertSame(hand, copy.getComponentById(hand.getComponentID()));
+        SGCard added = new SGCard(SGCard.SGCardType.Tempura, 1);
+        hand.add(added);
+        assertSame(added, copy.getComponentById(added.getComponentID()));
+    }
+}
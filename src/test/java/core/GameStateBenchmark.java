@@ -0,0 +1,81 @@
+package core;
+
+import core.actions.AbstractAction;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the cost of copy() and next() in each game: the time to copy a state (after some random moves),
+ * and to copy it and then play one random action on the copy (so the cost of next() is the difference); and the
+ * time to set up a new game. Only the public API is used, so the same benchmark can be run against older versions
+ * of the framework.
+ * <p>
+ * Run with: java -cp target/test-classes:target/classes:[dependencies] org.openjdk.jmh.Main GameStateBenchmark
+ * (adding -prof gc for the memory allocated by each)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+    @Param({"SushiGo", "Uno", "LoveLetter", "ExplodingKittens", "Poker", "Blackjack", "Hearts", "Dominion",
+            "Virus", "Hanabi", "MonopolyDeal", "ColtExpress", "Catan", "Pandemic"})
+    String game;
+
+    @Param({"3"})
+    int nPlayers;
+
+    @Param({"40"})
+    int moves;
+
+    GameType gameType;
+    AbstractGameState state;
+    AbstractForwardModel fm;
+    Random rnd;
+
+    @Setup
+    public void setup() {
+        gameType = GameType.valueOf(game);
+        nPlayers = Math.max(gameType.getMinPlayers(), Math.min(gameType.getMaxPlayers(), nPlayers));
+        Game g = gameType.createGameInstance(nPlayers, 1);
+        state = g.getGameState();
+        fm = g.getForwardModel();
+        rnd = new Random(1);
+        // games that end sooner are measured one move before their end
+        for (int i = 0; i < moves; i++) {
+            AbstractGameState next = state.copy();
+            List<AbstractAction> actions = fm.computeAvailableActions(next);
+            fm.next(next, actions.get(rnd.nextInt(actions.size())));
+            if (!next.isNotTerminal())
+                break;
+            state = next;
+        }
+    }
+
+    @Benchmark
+    public AbstractGameState copy() {
+        return state.copy();
+    }
+
+    @Benchmark
+    public AbstractGameState copyAndNext() {
+        AbstractGameState copy = state.copy();
+        List<AbstractAction> actions = fm.computeAvailableActions(copy);
+        fm.next(copy, actions.get(rnd.nextInt(actions.size())));
+        return copy;
+    }
+
+    @Benchmark
+    public AbstractGameState newGame() {
+        AbstractGameState newState = gameType.createGameState(state.getGameParameters(), nPlayers);
+        fm.setup(newState);
+        return newState;
+    }
+}
@@ -0,0 +1,54 @@
+package core;
+
+import core.actions.AbstractAction;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of AbstractGameState.copy() as the history grows: copies per second of an Uno state (random
+ * play, which runs to well over a thousand ticks) at the given game tick. Only the public API is used, so the
+ * same benchmark can be run against older versions of the framework.
+ * <p>
+ * Run with: java -cp target/test-classes:target/classes:[dependencies] org.openjdk.jmh.Main HistoryCopyBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryCopyBenchmark {
+
+    @Param({"0", "500", "1000"})
+    int tick;
+
+    AbstractGameState state;
+
+    @Setup
+    public void setup() {
+        Game game = GameType.Uno.createGameInstance(3, 1);
+        state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        Random rnd = new Random(1);
+        while (state.getGameTick() < tick && state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+        if (state.getGameTick() < tick)
+            throw new AssertionError("Game ended at tick " + state.getGameTick());
+    }
+
+    @Benchmark
+    public AbstractGameState copy() {
+        return state.copy();
+    }
+
+    @Benchmark
+    public AbstractGameState playerCopy() {
+        return state.copy(0);
+    }
+}
@@ -0,0 +1,111 @@
+package core;
+
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.junit.Test;
+import utilities.Pair;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistoryTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    Random rnd = new Random(3);
+
+    private SGGameState newGame() {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(3);
+        SGGameState state = new SGGameState(params, 3);
+        fm.setup(state);
+        return state;
+    }
+
+    private void play(AbstractGameState state, int nActions) {
+        for (int i = 0; i < nActions && state.isNotTerminal(); i++) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+    }
+
+    @Test
+    public void copiesShareHistoryButNotLaterActions() {
+        SGGameState state = newGame();
+        play(state, 20);
+        List<Pair<Integer, AbstractAction>> before = state.getHistory();
+        List<String> textBefore = state.getHistoryAsText();
+        assertEquals(20, before.size());
+
+        AbstractGameState copy = state.copy();
+        assertEquals(before, copy.getHistory());
+        assertEquals(textBefore, copy.getHistoryAsText());
+
+        play(copy, 5);
+        assertEquals(25, copy.getHistory().size());
+        assertEquals(before, state.getHistory());
+        assertEquals(before, copy.getHistory().subList(0, 20));
+
+        play(state, 3);
+        assertEquals(23, state.getHistory().size());
+        assertEquals(25, copy.getHistory().size());
+        assertEquals(20, before.size());  // earlier results are not changed either
+    }
+
+    @Test
+    public void copiesDescribeTheirActionsWhenTaken() {
+        SGGameState state = newGame();
+        play(state, 4);
+        List<String> text = state.getHistoryAsText();
+
+        AbstractGameState copy = state.copy();
+        AbstractAction action = fm.computeAvailableActions(copy).get(0);
+        String description = "Player " + copy.getCurrentPlayer() + " : " + action.getString(copy);
+        fm.next(copy, action);
+        List<String> copyText = copy.getHistoryAsText();
+        // what was recorded before the copy is as it was, and the new action is described as it was when taken
+        assertEquals(text, copyText.subList(0, text.size()));
+        assertTrue(copyText.contains(description));
+        // ChooseCard describes the card at its index in the hand, which later actions change
+        play(copy, 6);
+        assertEquals(copyText, copy.getHistoryAsText().subList(0, copyText.size()));
+    }
+
+    @Test
+    public void simulationModeRecordsNothing() {
+        SGGameState state = newGame();
+        play(state, 10);
+        List<String> text = state.getHistoryAsText();
+
+        AbstractGameState copy = state.copy();
+        copy.setSimulationMode(true);
+        play(copy, 10);
+        assertEquals(10, copy.getHistory().size());
+        assertEquals(text, copy.getHistoryAsText());
+
+        // copies of a state in simulation mode are in simulation mode too
+        AbstractGameState copyOfCopy = copy.copy();
+        assertTrue(copyOfCopy.isSimulationMode());
+        play(copyOfCopy, 10);
+        assertEquals(10, copyOfCopy.getHistory().size());
+
+        // and the state copied from is not
+        assertFalse(state.isSimulationMode());
+        play(state, 1);
+        assertEquals(11, state.getHistory().size());
+    }
+
+    @Test
+    public void competitionModeCopiesHaveNoHistory() {
+        SGGameState state = newGame();
+        state.getCoreGameParameters().competitionMode = true;
+        play(state, 10);
+        assertEquals(10, state.getHistory().size());
+        AbstractGameState copy = state.copy(1);
+        assertTrue(copy.getHistory().isEmpty());
+        assertTrue(copy.getHistoryAsText().isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+package core;
+
+import games.GameType;
+import games.sushigo.SGFeatures;
+import org.junit.Test;
+import players.python.PythonAgent;
+import players.simple.RandomPlayer;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PyTAGVecTests {
+
+    private PyTAGVec newEnv(int nEnvs, int nThreads) throws Exception {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new PythonAgent());
+        players.add(new RandomPlayer(new Random(3)));
+        players.add(new RandomPlayer(new Random(4)));
+        return new PyTAGVec(GameType.SushiGo, null, players, nEnvs, 42, nThreads, true);
+    }
+
+    private int[] legalActions(PyTAGVec env, Random rnd) {
+        int n = env.getActionSpace();
+        int[] actions = new int[env.getNumEnvs()];
+        for (int i = 0; i < actions.length; i++) {
+            int[] mask = Arrays.copyOfRange(env.getActionMasks(), i * n, (i + 1) * n);
+            assertTrue(Arrays.stream(mask).sum() > 0);
+            actions[i] = env.getEnv(i).sampleRNDAction(mask, rnd);
+        }
+        return actions;
+    }
+
+    @Test
+    public void batchHasFixedShape() throws Exception {
+        PyTAGVec env = newEnv(4, 2);
+        env.reset();
+        assertEquals(new SGFeatures().names().length, env.getObservationSpace());
+        assertEquals(4 * env.getObservationSpace(), env.getObservations().length);
+        assertEquals(4 * env.getActionSpace(), env.getActionMasks().length);
+        for (int id : env.getPlayerIDs())
+            assertEquals(0, id);
+        env.shutdown();
+    }
+
+    @Test
+    public void episodesAreResetWhenDone() throws Exception {
+        PyTAGVec env = newEnv(3, 3);
+        env.reset();
+        Random rnd = new Random(9);
+        int episodes = 0;
+        for (int step = 0; step < 100; step++) {
+            env.step(legalActions(env, rnd));
+            for (int i = 0; i < env.getNumEnvs(); i++) {
+                if (env.getDones()[i]) {
+                    episodes++;
+                    assertTrue(Math.abs(env.getResults()[i]) <= 1);
+                    assertTrue(env.getEnv(i).getGameState().isNotTerminal());
+                } else {
+                    assertEquals(0.0, env.getResults()[i], 0.0);
+                }
+            }
+        }
+        assertTrue(episodes > 0);
+        env.shutdown();
+    }
+
+    @Test
+    public void threadsDoNotChangeResults() throws Exception {
+        PyTAGVec sequential = newEnv(5, 1);
+        PyTAGVec parallel = newEnv(5, 4);
+        sequential.reset();
+        parallel.reset();
+        Random rnd = new Random(1);
+        for (int step = 0; step < 50; step++) {
+            int[] actions = legalActions(sequential, rnd);
+            sequential.step(actions);
+            parallel.step(actions);
+            assertArrayEquals(sequential.getObservations(), parallel.getObservations(), 0.0);
+            assertArrayEquals(sequential.getActionMasks(), parallel.getActionMasks());
+            assertArrayEquals(sequential.getRewards(), parallel.getRewards(), 0.0);
+        }
+        parallel.shutdown();
+    }
+
+    @Test
+    public void pyTagBuffersFollowSteps() throws Exception {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new PythonAgent());
+        players.add(new RandomPlayer(new Random(3)));
+        PyTAG env = new PyTAG(GameType.SushiGo, null, players, 11, true);
+        env.reset();
+        DoubleBuffer observation = env.getObservationBuffer().asDoubleBuffer();
+        IntBuffer mask = env.getActionMaskBuffer().asIntBuffer();
+        Random rnd = new Random(2);
+        while (!env.isDone()) {
+            double[] expectedObservation = env.getObservationVector();
+            int[] expectedMask = env.getActionMask();
+            for (int i = 0; i < expectedObservation.length; i++)
+                assertEquals(expectedObservation[i], observation.get(i), 0.0);
+            for (int i = 0; i < expectedMask.length; i++)
+                assertEquals(expectedMask[i], mask.get(i));
+            env.step(env.sampleRNDAction(expectedMask, rnd));
+        }
+    }
+}
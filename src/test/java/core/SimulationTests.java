@@ -0,0 +1,121 @@
+package core;
+
+import core.actions.AbstractAction;
+import evaluation.listeners.IGameListener;
+import evaluation.metrics.Event;
+import games.GameType;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SimulationTests {
+
+    SGForwardModel fm = new SGForwardModel();
+
+    private SGGameState newGame() {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(7);
+        SGGameState state = new SGGameState(params, 3);
+        fm.setup(state);
+        return state;
+    }
+
+    @Test
+    public void simulateReachesTheSameStatesAsNext() {
+        SGGameState played = newGame();
+        SGGameState simulated = newGame();
+        Random rnd = new Random(11);
+        List<AbstractAction> buffer = new ArrayList<>();
+        while (played.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(played);
+            assertEquals(actions, fm.legalActionsInto(simulated, buffer));
+            int choice = rnd.nextInt(actions.size());
+            fm.next(played, actions.get(choice));
+            fm.simulate(simulated, buffer.get(choice));
+
+            assertEquals(played.getGameTick(), simulated.getGameTick());
+            assertEquals(played.getCurrentPlayer(), simulated.getCurrentPlayer());
+            assertEquals(played.getRoundCounter(), simulated.getRoundCounter());
+            assertEquals(played.getTurnCounter(), simulated.getTurnCounter());
+            assertEquals(played.getZobristHash(), simulated.getZobristHash());
+        }
+        assertFalse(simulated.isNotTerminal());
+        for (int p = 0; p < 3; p++)
+            assertEquals(played.getGameScore(p), simulated.getGameScore(p), 0.0);
+    }
+
+    @Test
+    public void simulateSkipsHistoryAndTimers() {
+        SGGameState state = newGame();
+        AbstractGameState copy = state.copy();
+        List<AbstractAction> buffer = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            fm.simulate(copy, fm.legalActionsInto(copy, buffer).get(0));
+
+        assertTrue(copy.isSimulationMode());
+        assertTrue(copy.getHistory().isEmpty());
+        assertEquals(10, copy.getGameTick());
+        // copies of a state in simulation mode share its timers, until simulation mode is turned off
+        AbstractGameState copyOfCopy = copy.copy();
+        assertSame(copy.getPlayerTimer(), copyOfCopy.getPlayerTimer());
+        copyOfCopy.setSimulationMode(false);
+        assertNotSame(copy.getPlayerTimer(), copyOfCopy.getPlayerTimer());
+
+        assertFalse(state.isSimulationMode());
+        assertEquals(0, state.getGameTick());
+    }
+
+    @Test
+    public void turnOrderListenersAreNotInformedInSimulationMode() {
+        // Colt Express uses a TurnOrder, which informs listeners itself
+        Game game = GameType.ColtExpress.createGameInstance(3, 5);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int[] events = new int[1];
+        state.addListener(new IGameListener() {
+            @Override
+            public void onEvent(Event event) {
+                events[0]++;
+            }
+
+            @Override
+            public void report() {
+            }
+
+            @Override
+            public void setGame(Game game) {
+            }
+
+            @Override
+            public Game getGame() {
+                return game;
+            }
+        });
+
+        state.setSimulationMode(true);
+        for (int i = 0; i < 20 && state.isNotTerminal(); i++)
+            fm.next(state, fm.computeAvailableActions(state).get(0));
+        assertEquals(0, events[0]);
+
+        state.setSimulationMode(false);
+        for (int i = 0; i < 20 && state.isNotTerminal(); i++)
+            fm.next(state, fm.computeAvailableActions(state).get(0));
+        assertTrue(events[0] > 0);
+    }
+
+    @Test
+    public void legalActionsIntoClearsTheBuffer() {
+        SGGameState state = newGame();
+        List<AbstractAction> buffer = new ArrayList<>(fm.computeAvailableActions(state));
+        buffer.addAll(fm.computeAvailableActions(state));
+        assertSame(buffer, fm.legalActionsInto(state, buffer));
+        assertEquals(fm.computeAvailableActions(state), buffer);
+    }
+}
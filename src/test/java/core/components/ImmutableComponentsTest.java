@@ -0,0 +1,142 @@
+package core.components;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.CoreConstants.VisibilityMode;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import games.sushigo.cards.SGCard;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that components which declare themselves immutable are: that nothing changes them as every game is played,
+ * that copies of the state share them, and that their own fields are final.
+ */
+public class ImmutableComponentsTest {
+
+    static final int maxActions = 200;
+
+    // Everything about an immutable component, as seen when it was first found
+    Map<Component, String> fingerprints = new IdentityHashMap<>();
+    List<String> notShared = new ArrayList<>();
+    boolean sawImmutables;
+
+    @Test
+    public void immutableComponentsAreNeverChanged() {
+        Set<String> gamesWithImmutables = new TreeSet<>();
+        for (GameType gt : GameType.values()) {
+            if (gt == GameType.GameTemplate)
+                continue;
+            sawImmutables = false;
+            try {
+                play(gt);
+            } catch (UnsupportedOperationException e) {
+                throw new AssertionError(gt.name() + " changed an immutable component", e);
+            } catch (RuntimeException | AssertionError e) {
+                // games that fail with random play are not the concern here, but what they did until then is checked
+            }
+            if (sawImmutables)
+                gamesWithImmutables.add(gt.name());
+        }
+        assertTrue(gamesWithImmutables.toString(), gamesWithImmutables.containsAll(List.of("SushiGo", "Uno",
+                "LoveLetter", "ExplodingKittens", "Poker", "Blackjack", "Hearts")));
+        assertEquals(List.of(), notShared);
+        for (Map.Entry<Component, String> e : fingerprints.entrySet())
+            assertEquals(e.getValue(), fingerprint(e.getKey()));
+    }
+
+    @Test
+    public void immutableComponentsHaveFinalFields() {
+        Set<Class<?>> classes = new HashSet<>();
+        for (GameType gt : List.of(GameType.SushiGo, GameType.Uno, GameType.LoveLetter, GameType.ExplodingKittens, GameType.Poker)) {
+            Game game = gt.createGameInstance(gt.getMinPlayers(), 1);
+            for (Component c : game.getGameState().getAllComponents().getComponents())
+                if (c.isImmutable())
+                    classes.add(c.getClass());
+        }
+        assertTrue(classes.size() >= 5);
+        for (Class<?> clazz : classes)
+            for (Class<?> k = clazz; k != Card.class && k != Component.class; k = k.getSuperclass())
+                for (Field f : k.getDeclaredFields())
+                    if (!Modifier.isStatic(f.getModifiers()))
+                        assertTrue(k.getSimpleName() + "." + f.getName() + " is not final", Modifier.isFinal(f.getModifiers()));
+    }
+
+    @Test
+    public void immutableComponentsAreShared() {
+        SGCard card = new SGCard(SGCard.SGCardType.Tempura);
+        assertSame(card, card.copy());
+        try {
+            card.setOwnerId(1);
+            fail("Immutable components should not have an owner set");
+        } catch (UnsupportedOperationException expected) {
+            // as it should be
+        }
+        Deck<SGCard> deck = new Deck<>("Test", 0, VisibilityMode.VISIBLE_TO_ALL);
+        deck.add(card);
+        deck.add(card);
+        assertEquals(-1, card.getOwnerId());
+        assertSame(card, deck.copy().get(1));
+        deck.remove(0);
+        assertEquals(1, deck.getSize());
+    }
+
+    private void play(GameType gt) {
+        Game game = gt.createGameInstance(Math.max(gt.getMinPlayers(), Math.min(gt.getMaxPlayers(), 3)), 1);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        Random rnd = new Random(1);
+        record(state);
+        for (int i = 0; i < maxActions && state.isNotTerminal(); i++) {
+            if (i % 10 == 0) {
+                // copies share the immutable components, and playing on from them changes none of them
+                AbstractGameState copy = state.copy();
+                for (Component c : copy.getAllComponents().getComponents())
+                    if (c.isImmutable() && !fingerprints.containsKey(c))
+                        notShared.add(gt.name() + ": " + c);
+                AbstractGameState playerCopy = state.copy(state.getCurrentPlayer());
+                for (int j = 0; j < 5 && playerCopy.isNotTerminal(); j++) {
+                    List<AbstractAction> actions = fm.computeAvailableActions(playerCopy);
+                    fm.next(playerCopy, actions.get(rnd.nextInt(actions.size())));
+                }
+                record(playerCopy);
+            }
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+            record(state);
+        }
+    }
+
+    private void record(AbstractGameState state) {
+        for (Component c : state.getAllComponents().getComponents())
+            if (c.isImmutable()) {
+                fingerprints.putIfAbsent(c, fingerprint(c));
+                sawImmutables = true;
+            }
+    }
+
+    private static String fingerprint(Component c) {
+        StringBuilder sb = new StringBuilder(c.getClass().getName());
+        for (Class<?> k = c.getClass(); k != Object.class; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()))
+                    continue;
+                try {
+                    f.setAccessible(true);
+                    Object value = f.get(c);
+                    sb.append(';').append(f.getName()).append('=').append(Arrays.deepToString(new Object[]{value}));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    sb.append(';').append(f.getName()).append("=?");
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
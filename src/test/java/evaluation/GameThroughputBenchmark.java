@@ -0,0 +1,149 @@
+package evaluation;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the core operations of every game, in operations per second:
+ * <ul>
+ *     <li>setupGame - creating and setting up a new game state</li>
+ *     <li>copy - a full copy of a state part way through a game</li>
+ *     <li>copyForPlayer - copy(playerId) for the current player, which redeterminises hidden information</li>
+ *     <li>computeActions - computeAvailableActions() on that state</li>
+ *     <li>copyAndNext - a copy, followed by next() with a random action (so next() is the difference from copy)</li>
+ *     <li>randomGame - a full game from setup to the end (or maxTicks) with uniformly random actions</li>
+ * </ul>
+ * With no values given for the game parameter, JMH runs every GameType. players is the number of players,
+ * clamped to the range of each game, or 'min' / 'max' for the smallest / largest number the game supports.
+ * <p>
+ * The main method runs the benchmark with the GC profiler (which adds the allocation rate of each operation)
+ * and writes the results as JSON to target/jmh/GameThroughputBenchmark.json. Any JMH command line options
+ * can be given, for example to run a subset:
+ * <p>
+ * mvn -Pbenchmark -DskipTests test -Dbenchmark.args="GameThroughputBenchmark.copy -p game=SushiGo,Uno"
+ * <p>
+ * Two result files can be compared with {@link JMHResultDiff}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameThroughputBenchmark {
+
+    @Param
+    GameType game;
+
+    @Param({"min", "max"})
+    String players;
+
+    // random moves made before measuring the operations on a state part way through a game
+    @Param({"40"})
+    int moves;
+
+    @Param({"10000"})
+    int maxTicks;
+
+    int nPlayers;
+    Game gameInstance;
+    AbstractGameState state;
+    AbstractForwardModel fm;
+    Random rnd;
+
+    @Setup
+    public void setup() {
+        nPlayers = switch (players) {
+            case "min" -> game.getMinPlayers();
+            case "max" -> game.getMaxPlayers();
+            default -> Math.max(game.getMinPlayers(), Math.min(game.getMaxPlayers(), Integer.parseInt(players)));
+        };
+        gameInstance = game.createGameInstance(nPlayers, 1);
+        state = gameInstance.getGameState();
+        fm = gameInstance.getForwardModel();
+        rnd = new Random(1);
+        // games that end sooner are measured one move before their end
+        for (int i = 0; i < moves; i++) {
+            AbstractGameState next = state.copy();
+            List<AbstractAction> actions = fm.computeAvailableActions(next);
+            fm.next(next, actions.get(rnd.nextInt(actions.size())));
+            if (!next.isNotTerminal())
+                break;
+            state = next;
+        }
+    }
+
+    @Benchmark
+    public AbstractGameState setupGame() {
+        AbstractGameState newState = game.createGameState(state.getGameParameters(), nPlayers);
+        fm.setup(newState);
+        return newState;
+    }
+
+    @Benchmark
+    public AbstractGameState copy() {
+        return state.copy();
+    }
+
+    @Benchmark
+    public AbstractGameState copyForPlayer() {
+        return state.copy(state.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public List<AbstractAction> computeActions() {
+        return fm.computeAvailableActions(state);
+    }
+
+    @Benchmark
+    public AbstractGameState copyAndNext() {
+        AbstractGameState copy = state.copy();
+        List<AbstractAction> actions = fm.computeAvailableActions(copy);
+        fm.next(copy, actions.get(rnd.nextInt(actions.size())));
+        return copy;
+    }
+
+    @Benchmark
+    public int randomGame() {
+        AbstractGameState newState = game.createGameState(state.getGameParameters(), nPlayers);
+        fm.setup(newState);
+        while (newState.isNotTerminal() && newState.getGameTick() < maxTicks) {
+            List<AbstractAction> actions = fm.computeAvailableActions(newState);
+            fm.next(newState, actions.get(rnd.nextInt(actions.size())));
+        }
+        return newState.getGameTick();
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty())
+            options.include(GameThroughputBenchmark.class.getSimpleName());
+        if (commandLine.getProfilers().isEmpty())
+            options.addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            File dir = new File("target" + File.separator + "jmh");
+            dir.mkdirs();
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(dir, GameThroughputBenchmark.class.getSimpleName() + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
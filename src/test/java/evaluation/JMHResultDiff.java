@@ -0,0 +1,97 @@
+package evaluation;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files (for example two runs of {@link GameThroughputBenchmark} on different commits).
+ * For each benchmark and set of parameters found in both files this prints the score in each, the ratio of the
+ * second to the first, and the change in bytes allocated per operation if the GC profiler was used.
+ * <p>
+ * Usage: JMHResultDiff before.json after.json [threshold]
+ * <p>
+ * If a threshold is given (e.g. 0.05) only the rows where the score changed by more than that fraction are printed.
+ */
+public class JMHResultDiff {
+
+    record Result(double score, double allocPerOp) {
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        if (args.length < 2) {
+            System.out.println("Usage: JMHResultDiff before.json after.json [threshold]");
+            return;
+        }
+        Map<String, Result> before = load(args[0]);
+        Map<String, Result> after = load(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+
+        System.out.printf("%-70s %14s %14s %8s %12s %12s%n", "Benchmark", "Before", "After", "Ratio", "B/op before", "B/op after");
+        for (String key : before.keySet()) {
+            Result b = before.get(key);
+            Result a = after.get(key);
+            if (a == null) {
+                System.out.printf("%-70s %14.2f %14s%n", key, b.score, "missing");
+                continue;
+            }
+            double ratio = a.score / b.score;
+            if (Math.abs(ratio - 1.0) < threshold)
+                continue;
+            System.out.printf("%-70s %14.2f %14.2f %8.3f %12.1f %12.1f%n", key, b.score, a.score, ratio, b.allocPerOp, a.allocPerOp);
+        }
+        for (String key : after.keySet()) {
+            if (!before.containsKey(key))
+                System.out.printf("%-70s %14s %14.2f%n", key, "missing", after.get(key).score);
+        }
+    }
+
+    /**
+     * @return the results in a JMH JSON file, keyed on the benchmark name and its parameters
+     */
+    static Map<String, Result> load(String file) throws IOException, ParseException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        try (FileReader reader = new FileReader(file)) {
+            JSONArray data = (JSONArray) new JSONParser().parse(reader);
+            for (Object o : data) {
+                JSONObject run = (JSONObject) o;
+                String name = (String) run.get("benchmark");
+                StringBuilder key = new StringBuilder(name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1));
+                JSONObject params = (JSONObject) run.get("params");
+                if (params != null) {
+                    // sorted so that the key does not depend on the order in the file
+                    Map<String, Object> sorted = new TreeMap<>();
+                    for (Object p : params.keySet())
+                        sorted.put((String) p, params.get(p));
+                    key.append(" ").append(sorted);
+                }
+                JSONObject primary = (JSONObject) run.get("primaryMetric");
+                double allocPerOp = Double.NaN;
+                JSONObject secondary = (JSONObject) run.get("secondaryMetrics");
+                if (secondary != null) {
+                    for (Object m : secondary.keySet()) {
+                        // older versions of JMH prefix the profiler metrics with a dot
+                        if (((String) m).endsWith("gc.alloc.rate.norm"))
+                            allocPerOp = toDouble(((JSONObject) secondary.get(m)).get("score"));
+                    }
+                }
+                results.put(key.toString(), new Result(toDouble(primary.get("score")), allocPerOp));
+            }
+        }
+        return results;
+    }
+
+    // JMH writes "NaN" as a string when a value is undefined
+    private static double toDouble(Object value) {
+        if (value instanceof Number n)
+            return n.doubleValue();
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,58 @@
+package evaluation.features;
+
+import core.AbstractGameState;
+import core.interfaces.IStateFeatureVector;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AutomatedFeaturesTest {
+
+    // A flag and a count, of which only the types and names are used here
+    private final IStateFeatureVector underlying = new IStateFeatureVector() {
+        @Override
+        public double[] doubleVector(AbstractGameState state, int playerID) {
+            return new double[2];
+        }
+
+        @Override
+        public String[] names() {
+            return new String[]{"Flag", "Count"};
+        }
+
+        @Override
+        public Class<?>[] types() {
+            return new Class<?>[]{Boolean.class, Integer.class};
+        }
+    };
+
+    private FeatureData data(String... flags) {
+        double[] counts = new double[flags.length];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = i;
+        return new FeatureData(List.of(FeatureData.Column.ofText("Flag", flags),
+                FeatureData.Column.ofInts("Count", counts)));
+    }
+
+    @Test
+    public void booleanColumnsBecomeZeroAndOne() {
+        AutomatedFeatures features = new AutomatedFeatures(underlying);
+        FeatureData processed = features.processData(true, data("true", "FALSE", "1", "0"));
+        FeatureData.Column flag = processed.column(processed.columnIndex("Flag"));
+        for (int row = 0; row < 4; row++)
+            assertEquals(row % 2 == 0 ? 1.0 : 0.0, flag.value(row), 0.0);
+        assertTrue(Arrays.asList(features.names()).contains("Flag"));
+    }
+
+    @Test
+    public void nonBooleanColumnIsSkipped() {
+        AutomatedFeatures features = new AutomatedFeatures(underlying);
+        FeatureData processed = features.processData(true, data("true", "maybe", "2", "0"));
+        assertEquals(-1, processed.columnIndex("Flag"));
+        assertFalse(Arrays.asList(features.names()).contains("Flag"));
+        assertTrue(Arrays.asList(features.names()).contains("Count"));
+    }
+}
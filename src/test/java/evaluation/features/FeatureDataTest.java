@@ -0,0 +1,85 @@
+package evaluation.features;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FeatureDataTest {
+
+    private String file(String... lines) throws IOException {
+        File file = File.createTempFile("FeatureData", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), List.of(lines));
+        return file.getPath();
+    }
+
+    @Test
+    public void columnTypesAreInferred() throws IOException {
+        FeatureData data = FeatureData.read(0, file(
+                "Turn\tScore\tName\tFlag",
+                "1\t0.5\tA\ttrue",
+                "2\tNA\tB\tfalse",
+                "3\t7\tNA\ttrue"));
+        assertEquals(3, data.rows());
+        assertEquals(List.of("Turn", "Score", "Name", "Flag"), data.names());
+        assertEquals(FeatureData.ColumnType.INT, data.column(0).type());
+        assertEquals(FeatureData.ColumnType.DOUBLE, data.column(1).type());
+        assertEquals(FeatureData.ColumnType.TEXT, data.column(2).type());
+        assertEquals(FeatureData.ColumnType.TEXT, data.column(3).type());
+        assertEquals(3.0, data.column(0).value(2), 0.0);
+        assertTrue(Double.isNaN(data.column(1).value(1)));
+        assertEquals("NA", data.column(1).text(1));
+        assertEquals("B", data.column(2).text(1));
+        assertEquals(2, data.columnIndex("Name"));
+        assertEquals(-1, data.columnIndex("Missing"));
+    }
+
+    @Test
+    public void numericColumnBecomesTextWhenNeeded() throws IOException {
+        FeatureData data = FeatureData.read(0, file("Value", "1", "NA", "2.5", "x"));
+        FeatureData.Column column = data.column(0);
+        assertEquals(FeatureData.ColumnType.TEXT, column.type());
+        assertEquals("1", column.text(0));
+        assertEquals("NA", column.text(1));
+        assertEquals("2.5", column.text(2));
+        assertEquals("x", column.text(3));
+    }
+
+    @Test
+    public void filesAreReadInOrderUpToMaxRecords() throws IOException {
+        String first = file("A\tB", "1\t2", "3\t4");
+        String second = file("A\tB", "5\t6", "7", "9\t10");
+        FeatureData all = FeatureData.read(0, first, second);
+        // the row with a missing value is skipped
+        assertEquals(4, all.rows());
+        assertEquals(9.0, all.column(0).value(3), 0.0);
+        FeatureData limited = FeatureData.read(3, first, second);
+        assertEquals(3, limited.rows());
+        assertEquals(6.0, limited.column(1).value(2), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void filesMustHaveTheSameColumns() throws IOException {
+        FeatureData.read(0, file("A\tB", "1\t2"), file("A\tC", "1\t2"));
+    }
+
+    @Test
+    public void writtenDataCanBeReadBack() throws IOException {
+        String original = file("Turn\tScore\tName", "1\t0.25\tA", "2\tNA\tB", "3\t-1.0E-7\tA");
+        FeatureData data = FeatureData.read(0, original);
+        File copy = File.createTempFile("FeatureData", ".txt");
+        copy.deleteOnExit();
+        data.write(copy.getPath());
+        assertEquals(Files.readAllLines(new File(original).toPath()), Files.readAllLines(copy.toPath()));
+        FeatureData reread = FeatureData.read(0, copy.getPath());
+        assertEquals(data.names(), reread.names());
+        for (int c = 0; c < data.columns().size(); c++)
+            for (int row = 0; row < data.rows(); row++)
+                assertEquals(data.column(c).text(row), reread.column(c).text(row));
+    }
+}
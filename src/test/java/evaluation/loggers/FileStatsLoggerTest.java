@@ -0,0 +1,139 @@
+package evaluation.loggers;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class FileStatsLoggerTest {
+
+    private List<Map<String, Object>> records(int n, long seed) {
+        Random rnd = new Random(seed);
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("GameID", i);
+            data.put("Score", rnd.nextGaussian() * Math.pow(10, rnd.nextInt(12) - 6));
+            data.put("Name", "P" + rnd.nextInt(4));
+            data.put("Flag", rnd.nextBoolean());
+            data.put("Missing", i % 3 == 0 ? null : -i);
+            data.put("Nested", Collections.singletonMap("Inner", 0.5 * i));
+            records.add(data);
+        }
+        return records;
+    }
+
+    private List<String> write(boolean asynchronous, List<Map<String, Object>> records) throws IOException {
+        File file = File.createTempFile("FileStatsLogger", ".txt");
+        file.deleteOnExit();
+        FileStatsLogger logger = new FileStatsLogger(file.getPath(), "\t", false, asynchronous);
+        for (Map<String, Object> record : records) {
+            logger.record(record);
+            if (record.get("GameID").equals(500))
+                logger.processDataAndNotFinish();
+        }
+        logger.processDataAndFinish();
+        return Files.readAllLines(file.toPath());
+    }
+
+    @Test
+    public void asynchronousOutputMatchesSynchronous() throws IOException {
+        List<Map<String, Object>> records = records(10000, 42);
+        List<String> sync = write(false, records);
+        List<String> async = write(true, records);
+        assertEquals(10001, sync.size());
+        assertEquals("GameID\tScore\tName\tFlag\tMissing\tInner", sync.get(0));
+        assertEquals(sync, async);
+    }
+
+    @Test
+    public void rowsAreFormattedAsByStringFormat() throws IOException {
+        List<Map<String, Object>> records = records(200, 7);
+        List<String> lines = write(true, records);
+        for (int i = 0; i < records.size(); i++) {
+            Map<String, Object> data = records.get(i);
+            Object missing = data.get("Missing");
+            String expected = String.join("\t", String.format("%d", data.get("GameID")),
+                    String.format("%.3g", data.get("Score")), data.get("Name").toString(),
+                    data.get("Flag").toString(), missing == null ? "NA" : String.format("%d", missing),
+                    String.format("%.3g", 0.5 * i));
+            assertEquals(expected, lines.get(i + 1));
+        }
+    }
+
+    @Test
+    public void generalFormatMatchesStringFormat() {
+        Random rnd = new Random(1);
+        double[] special = {0.0, -0.0, 9.995, 0.00009999, 0.000099995, 999.5, 1e23, 5e-324, Double.MAX_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int precision : new int[]{1, 3, 6, 12}) {
+            String format = "%." + precision + "g";
+            assertEquals(precision, RowFormat.generalPrecision(format));
+            for (int i = 0; i < 20000 + special.length; i++) {
+                double value = i < special.length ? special[i] :
+                        i % 2 == 0 ? Double.longBitsToDouble(rnd.nextLong()) :
+                                Math.round(rnd.nextGaussian() * 1e6) / Math.pow(10, rnd.nextInt(10));
+                StringBuilder sb = new StringBuilder();
+                RowFormat.appendGeneral(sb, value, precision);
+                assertEquals(String.format(format, value), sb.toString());
+            }
+        }
+        assertEquals(-1, RowFormat.generalPrecision("%.3f"));
+        assertEquals(-1, RowFormat.generalPrecision("%8.3g"));
+    }
+
+    @Test
+    public void sharedLoggerKeepsAllRows() throws Exception {
+        File file = File.createTempFile("FileStatsLogger", ".txt");
+        file.deleteOnExit();
+        FileStatsLogger logger = new FileStatsLogger(file.getPath(), "\t", false, true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            List<Map<String, Object>> records = records(2500, t);
+            futures.add(executor.submit(() -> records.forEach(logger::record)));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+        logger.processDataAndFinish();
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(10001, lines.size());
+        for (String line : lines)
+            assertEquals(6, line.split("\t").length);
+    }
+
+    @Test
+    public void processDataAndNotFinishWritesEverythingRecorded() throws IOException {
+        File file = File.createTempFile("FileStatsLogger", ".txt");
+        file.deleteOnExit();
+        FileStatsLogger logger = new FileStatsLogger(file.getPath(), "\t", false, true);
+        List<Map<String, Object>> records = records(5000, 3);
+        for (int i = 0; i < records.size(); i++) {
+            logger.record(records.get(i));
+            if (i % 1000 == 999) {
+                logger.processDataAndNotFinish();
+                assertEquals(i + 2, Files.readAllLines(file.toPath()).size());
+            }
+        }
+        logger.processDataAndFinish();
+        assertEquals(5001, Files.readAllLines(file.toPath()).size());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void recordAfterCloseFails() throws IOException {
+        File file = File.createTempFile("FileStatsLogger", ".txt");
+        file.deleteOnExit();
+        FileStatsLogger logger = new FileStatsLogger(file.getPath(), "\t", false, true);
+        logger.record(records(1, 1).get(0));
+        logger.processDataAndFinish();
+        logger.record(records(1, 1).get(0));
+    }
+}
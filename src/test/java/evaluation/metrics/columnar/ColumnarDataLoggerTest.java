@@ -0,0 +1,144 @@
+package evaluation.metrics.columnar;
+
+import core.interfaces.IGameEvent;
+import evaluation.listeners.MetricsGameListener;
+import evaluation.metrics.AbstractMetric;
+import evaluation.metrics.Event;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ColumnarDataLoggerTest {
+
+    public static class TestMetric extends AbstractMetric {
+        @Override
+        protected boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
+            return true;
+        }
+
+        @Override
+        public Set<IGameEvent> getDefaultEventTypes() {
+            return Collections.singleton(Event.GameEvent.GAME_OVER);
+        }
+
+        @Override
+        public Map<String, Class<?>> getColumns(int nPlayersPerGame, Set<String> playerNames) {
+            Map<String, Class<?>> columns = new LinkedHashMap<>();
+            columns.put("Score", Double.class);
+            columns.put("Winner", String.class);
+            columns.put("Won", Boolean.class);
+            return columns;
+        }
+    }
+
+    private ColumnarDataLogger newLogger(int rowGroupSize) {
+        TestMetric metric = new TestMetric();
+        ColumnarDataLogger logger = new ColumnarDataLogger(metric, rowGroupSize);
+        metric.setDataLogger(logger);
+        logger.init(null, 2, Collections.emptySet());
+        return logger;
+    }
+
+    private void addRow(ColumnarDataLogger logger, int game, Double score, String winner, boolean won) {
+        for (String column : new TestMetric().getDefaultColumns().keySet())
+            logger.addData(column, column.equals("Tick") || column.equals("Turn") || column.equals("Round") ? game : String.valueOf(game));
+        logger.addData("Score", score);
+        logger.addData("Winner", winner);
+        logger.addData("Won", won);
+    }
+
+    private List<Object[]> readRows(ColumnarDataLogger logger, String... columns) {
+        List<Object[]> rows = new ArrayList<>();
+        File file = logger.finishRowGroup();
+        if (file == null) return rows;
+        RowGroup.read(file, group -> {
+            Map<String, Integer> index = new HashMap<>();
+            for (int c = 0; c < group.getColumnCount(); c++)
+                index.put(group.getColumnName(c), c);
+            for (int r = 0; r < group.getRowCount(); r++) {
+                Object[] row = new Object[columns.length];
+                for (int c = 0; c < columns.length; c++)
+                    row[c] = group.get(index.get(columns[c]), r);
+                rows.add(row);
+            }
+        });
+        return rows;
+    }
+
+    @Test
+    public void dataIsWrittenInRowGroups() {
+        ColumnarDataLogger logger = newLogger(4);
+        for (int i = 0; i < 10; i++)
+            addRow(logger, i, i % 3 == 0 ? null : (double) i, "P" + (i % 2), i % 2 == 0);
+        assertEquals(10, logger.getRowCount());
+
+        List<Integer> groupSizes = new ArrayList<>();
+        RowGroup.read(logger.finishRowGroup(), group -> groupSizes.add(group.getRowCount()));
+        assertEquals(Arrays.asList(4, 4, 2), groupSizes);
+
+        List<Object[]> rows = readRows(logger, "Tick", "Score", "Winner", "Won");
+        assertEquals(10, rows.size());
+        for (int i = 0; i < 10; i++) {
+            Object[] row = rows.get(i);
+            assertEquals(i, row[0]);
+            assertEquals(i % 3 == 0 ? null : (double) i, row[1]);
+            assertEquals("P" + (i % 2), row[2]);
+            assertEquals(i % 2 == 0, row[3]);
+        }
+    }
+
+    @Test
+    public void summariesAreIncremental() {
+        ColumnarDataLogger logger = newLogger(3);
+        addRow(logger, 0, 1.0, "A", true);
+        addRow(logger, 1, 2.0, "B", false);
+        addRow(logger, 2, null, "A", true);
+        addRow(logger, 3, 6.0, "A", false);
+
+        ColumnSummary score = logger.summaries.get("Score");
+        assertEquals(3, score.n);
+        assertEquals(1, score.missing);
+        assertEquals(3.0, score.mean, 1e-9);
+        assertEquals(Math.sqrt(7.0), score.sd(), 1e-9);
+        assertEquals(1.0, score.min, 0.0);
+        assertEquals(6.0, score.max, 0.0);
+        assertEquals(Long.valueOf(3), logger.summaries.get("Winner").counts.get("A"));
+        assertEquals(0.5, logger.summaries.get("Won").mean, 1e-9);
+        // default columns are not summarised
+        assertFalse(logger.summaries.containsKey("GameID"));
+    }
+
+    @Test
+    public void mergeAppendsData() {
+        ColumnarDataLogger first = newLogger(2);
+        ColumnarDataLogger second = (ColumnarDataLogger) first.emptyCopy();
+        for (int i = 0; i < 3; i++)
+            addRow(first, i, (double) i, "A", true);
+        for (int i = 3; i < 8; i++)
+            addRow(second, i, (double) i, "B", false);
+        first.merge(second);
+
+        assertEquals(8, first.getRowCount());
+        List<Object[]> rows = readRows(first, "Tick");
+        for (int i = 0; i < 8; i++)
+            assertEquals(i, rows.get(i)[0]);
+        assertEquals(8, first.summaries.get("Score").n);
+        assertEquals(3.5, first.summaries.get("Score").mean, 1e-9);
+    }
+
+    @Test
+    public void flushDiscardsData() {
+        ColumnarDataLogger logger = newLogger(2);
+        for (int i = 0; i < 5; i++)
+            addRow(logger, i, (double) i, "A", true);
+        logger.flush();
+        assertEquals(0, logger.getRowCount());
+        assertNull(logger.finishRowGroup());
+        assertEquals(0, logger.summaries.get("Score").n);
+        addRow(logger, 9, 1.0, "A", true);
+        assertEquals(9, readRows(logger, "Tick").get(0)[0]);
+    }
+}
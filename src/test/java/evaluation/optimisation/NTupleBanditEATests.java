@@ -0,0 +1,124 @@
+package evaluation.optimisation;
+
+import evaluation.optimisation.ntbea.NTupleBanditEA;
+import evaluation.optimisation.ntbea.NTupleSystem;
+import evaluation.optimisation.ntbea.SearchSpace;
+import evaluation.optimisation.ntbea.SolutionEvaluator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NTupleBanditEATests {
+
+    static final SearchSpace space = new SearchSpace() {
+        @Override
+        public int nDims() {
+            return 3;
+        }
+
+        @Override
+        public int nValues(int i) {
+            return 5;
+        }
+
+        @Override
+        public String name(int i) {
+            return "d" + i;
+        }
+
+        @Override
+        public Object value(int dim, int i) {
+            return i;
+        }
+    };
+
+    /**
+     * Scores points by their distance from (3, 1, 4), and records everything it is asked to evaluate.
+     */
+    static class RecordingEvaluator implements SolutionEvaluator {
+        List<String> evaluated = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public double evaluate(int[] solution) {
+            evaluated.add(Arrays.toString(solution));
+            int[] target = {3, 1, 4};
+            double distance = 0.0;
+            for (int i = 0; i < target.length; i++)
+                distance += Math.abs(solution[i] - target[i]);
+            return -distance;
+        }
+
+        @Override
+        public double[] evaluateAll(List<int[]> solutions) {
+            batchSizes.add(solutions.size());
+            return SolutionEvaluator.super.evaluateAll(solutions);
+        }
+
+        @Override
+        public SearchSpace searchSpace() {
+            return space;
+        }
+
+        @Override
+        public int nEvals() {
+            return evaluated.size();
+        }
+    }
+
+    private NTBEAParameters createParams(int nThreads, int evalsPerTrial) {
+        NTBEAParameters params = new NTBEAParameters();
+        params.searchSpace = space;
+        params.seed = 42;
+        params.kExplore = 1.0;
+        params.neighbourhoodSize = 50;
+        params.useTwoTuples = true;
+        params.noiseMeanType = 1.0;
+        params.evaluationsPerTrial = evalsPerTrial;
+        params.nThreads = nThreads;
+        return params;
+    }
+
+    private RecordingEvaluator runTrial(NTBEAParameters params, int nEvals) {
+        NTupleSystem model = new NTupleSystem(params);
+        NTupleBanditEA ea = new NTupleBanditEA(model, params);
+        RecordingEvaluator evaluator = new RecordingEvaluator();
+        ea.runTrial(evaluator, nEvals);
+        return evaluator;
+    }
+
+    @Test
+    public void sameSeedGivesSameTrial() {
+        for (int nThreads : new int[]{1, 4}) {
+            RecordingEvaluator first = runTrial(createParams(nThreads, 1), 30);
+            RecordingEvaluator second = runTrial(createParams(nThreads, 1), 30);
+            assertEquals(first.evaluated, second.evaluated);
+        }
+    }
+
+    @Test
+    public void sequentialTrialEvaluatesOnePointAtATime() {
+        RecordingEvaluator evaluator = runTrial(createParams(1, 1), 20);
+        assertEquals(20, evaluator.evaluated.size());
+        assertTrue(evaluator.batchSizes.stream().allMatch(size -> size == 1));
+    }
+
+    @Test
+    public void batchesKeepTheBudgetAndRepeatEachPoint() {
+        RecordingEvaluator evaluator = runTrial(createParams(4, 2), 10);
+        // 10 points, each evaluated twice, in batches of at most 4 points
+        assertEquals(20, evaluator.evaluated.size());
+        assertTrue(evaluator.batchSizes.stream().allMatch(size -> size <= 8 && size % 2 == 0));
+        assertTrue(evaluator.batchSizes.stream().anyMatch(size -> size > 2));
+        for (int i = 0; i < evaluator.evaluated.size(); i += 2)
+            assertEquals(evaluator.evaluated.get(i), evaluator.evaluated.get(i + 1));
+    }
+}
@@ -0,0 +1,126 @@
+package evaluation.tournaments;
+
+import core.AbstractPlayer;
+import core.Game;
+import evaluation.RunArg;
+import evaluation.listeners.IGameListener;
+import evaluation.metrics.Event;
+import evaluation.tournamentSeeds.SeedListener;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ParallelTournamentTests {
+
+    /**
+     * Records the seed, game ID and player names of each game, and can be copied and merged.
+     */
+    static class GameRecordListener implements IGameListener {
+        List<Long> seeds = new ArrayList<>();
+        List<Integer> gameIDs = new ArrayList<>();
+        List<String> playerNames = new ArrayList<>();
+        private Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            if (event.type == Event.GameEvent.GAME_OVER) {
+                seeds.add(event.state.getGameParameters().getRandomSeed());
+                gameIDs.add(event.state.getGameID());
+                playerNames.add(game.getPlayers().toString());
+            }
+        }
+
+        @Override
+        public IGameListener emptyCopy() {
+            return new GameRecordListener();
+        }
+
+        @Override
+        public void merge(IGameListener other) {
+            GameRecordListener otherListener = (GameRecordListener) other;
+            seeds.addAll(otherListener.seeds);
+            gameIDs.addAll(otherListener.gameIDs);
+            playerNames.addAll(otherListener.playerNames);
+        }
+
+        @Override
+        public void report() {
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+
+        // game IDs come from a global counter, so we compare them relative to the first game of the tournament
+        List<Integer> relativeGameIDs() {
+            return gameIDs.stream().map(id -> id - gameIDs.get(0)).toList();
+        }
+    }
+
+    private RoundRobinTournament createTournament(String mode, int nThreads) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            players.add(new RandomPlayer(new Random(i)));
+            players.get(i).setName("p" + i);
+        }
+        String[] args = new String[]{
+                "mode=" + mode, "matchups=48", "seed=35830953", "nThreads=" + nThreads, "listener=\"\""
+        };
+        Map<RunArg, Object> config = RunArg.parseConfig(args, Collections.singletonList(RunArg.Usage.RunGames));
+        RoundRobinTournament tournament = new RoundRobinTournament(players, GameType.DotsAndBoxes, 3, null, config);
+        tournament.setResultsFile("");
+        return tournament;
+    }
+
+    private void checkSameResults(String mode) {
+        RoundRobinTournament sequential = createTournament(mode, 1);
+        GameRecordListener sequentialGames = new GameRecordListener();
+        sequential.addListener(sequentialGames);
+        sequential.run();
+
+        RoundRobinTournament parallel = createTournament(mode, 4);
+        GameRecordListener parallelGames = new GameRecordListener();
+        parallel.addListener(parallelGames);
+        parallel.run();
+
+        assertArrayEquals(sequential.getNGamesPlayed(), parallel.getNGamesPlayed());
+        for (int i = 0; i < sequential.getNumberOfAgents(); i++) {
+            assertEquals(sequential.getWinRate(i), parallel.getWinRate(i), 0.0);
+            assertEquals(sequential.getOrdinalRank(i), parallel.getOrdinalRank(i), 0.0);
+            assertEquals(sequential.getWinRateAlphaRank(i), parallel.getWinRateAlphaRank(i), 0.0);
+        }
+        assertEquals(sequentialGames.seeds, parallelGames.seeds);
+        assertEquals(sequentialGames.playerNames, parallelGames.playerNames);
+        assertEquals(sequentialGames.relativeGameIDs(), parallelGames.relativeGameIDs());
+    }
+
+    @Test
+    public void exhaustiveParallelMatchesSequential() {
+        checkSameResults("exhaustive");
+    }
+
+    @Test
+    public void randomParallelMatchesSequential() {
+        checkSameResults("random");
+    }
+
+    @Test
+    public void listenerThatCannotBeCopiedRunsSequentially() {
+        RoundRobinTournament tournament = createTournament("random", 4);
+        SeedListener seedListener = new SeedListener();
+        tournament.addListener(seedListener);
+        tournament.run();
+        assertEquals(48, seedListener.seeds.size());
+    }
+}
@@ -0,0 +1,188 @@
+package games.sushigo;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import core.interfaces.IStateHeuristic;
+import groupAA.AMAF_Params;
+import groupAA.GroupAAHeuristic;
+import groupAA.SushiGoAgentGroupAA;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BatchRolloutTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    GroupAAHeuristic heuristic = new GroupAAHeuristic();
+
+    private SGGameState midGame(int nPlayers, long seed) {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(seed);
+        SGGameState state = new SGGameState(params, nPlayers);
+        fm.setup(state);
+        Random rnd = new Random(seed);
+        for (int i = 0; i < 3 * nPlayers + 1; i++) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+        return state;
+    }
+
+    @Test
+    public void batchMatchesOneRolloutAtATime() {
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            SGGameState state = midGame(nPlayers, nPlayers);
+            SGBatchRollout engine = new SGBatchRollout(fm);
+            double[] values = engine.rollout(state, 5, 1000, SGBatchRollout.RANDOM, heuristic, 0, new Random(3)).clone();
+            int actionsPlayed = engine.getActionsPlayed();
+
+            // the same rollouts, played one after the other: all of them draw from one generator in lockstep, so
+            // the choices of each rollout are every fifth number
+            Random rnd = new Random(3);
+            rnd.nextLong();  // reshuffle seed
+            SGPackedState[] states = new SGPackedState[5];
+            for (int i = 0; i < 5; i++)
+                states[i] = SGPackedState.fromGameState(state);
+            int[] buffer = new int[states[0].maxActions()];
+            int played = 0;
+            boolean active = true;
+            while (active) {
+                active = false;
+                for (SGPackedState s : states) {
+                    if (!s.isNotTerminal()) continue;
+                    int n = fm.computeAvailableActions(s, buffer);
+                    fm.next(s, buffer[rnd.nextInt(n)]);
+                    played++;
+                    active = true;
+                }
+            }
+            assertEquals(played, actionsPlayed);
+            for (int i = 0; i < 5; i++)
+                assertEquals(heuristic.evaluateState(states[i], 0), values[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void stateIsNotChanged() {
+        SGGameState state = midGame(3, 1);
+        long hash = state.getZobristHash();
+        int historySize = state.getHistory().size();
+        new SGBatchRollout(fm).rollout(state, 10, 1000, SGBatchRollout.RANDOM, heuristic, 1, new Random(1));
+        assertEquals(hash, state.getZobristHash());
+        assertEquals(historySize, state.getHistory().size());
+    }
+
+    @Test
+    public void rolloutsStopAfterMaxActions() {
+        SGGameState state = midGame(4, 2);
+        SGBatchRollout engine = new SGBatchRollout(fm);
+        engine.rollout(state, 8, 3, SGBatchRollout.RANDOM, heuristic, 0, new Random(2));
+        assertEquals(24, engine.getActionsPlayed());
+        engine.rollout(state, 8, 0, SGBatchRollout.RANDOM, heuristic, 0, new Random(2));
+        assertEquals(0, engine.getActionsPlayed());
+    }
+
+    @Test
+    public void packedAndFullHeuristicsAgree() {
+        // the heuristic gets the final states written into an SGGameState, or reads the states returned by play()
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            SGGameState state = midGame(nPlayers, 10 + nPlayers);
+            SGBatchRollout engine = new SGBatchRollout(fm);
+            double[] unpacked = engine.rolloutAllPlayers(state, 6, 1000, SGBatchRollout.RANDOM, heuristic, new Random(5)).clone();
+            SGPackedState[] finalStates = engine.play(state, 6, 1000, SGBatchRollout.RANDOM, new Random(5));
+            for (int i = 0; i < 6; i++)
+                for (int p = 0; p < nPlayers; p++)
+                    assertEquals(heuristic.evaluateState(finalStates[i], p), unpacked[i * nPlayers + p], 1e-9);
+        }
+    }
+
+    @Test
+    public void forwardModelPlaysRolloutsToTheEnd() {
+        SGGameState state = midGame(3, 4);
+        double[] values = new double[10 * 3];
+        int played = fm.batchRollout(state, 10, 1000, AbstractGameState::getHeuristicScore, new Random(4), values);
+        assertTrue(played > 0);
+        for (int r = 0; r < 10; r++) {
+            // results of finished games: one or more winners, everyone else lost
+            boolean winner = false;
+            for (int p = 0; p < 3; p++) {
+                double v = values[r * 3 + p];
+                assertTrue(v == 1.0 || v == 0.0 || v == -1.0);
+                winner |= v >= 0;
+            }
+            assertTrue(winner);
+        }
+    }
+
+    @Test
+    public void engineAdaptsToNewGames() {
+        SGBatchRollout engine = new SGBatchRollout(fm);
+        for (int nPlayers : new int[]{2, 5, 3}) {
+            SGGameState state = midGame(nPlayers, 20 + nPlayers);
+            double[] values = engine.rolloutAllPlayers(state, 4, 1000, SGBatchRollout.RANDOM, heuristic, new Random(0));
+            for (int i = 0; i < 4 * nPlayers; i++)
+                assertTrue(values[i] >= -1 && values[i] <= 1);
+        }
+    }
+
+    @Test
+    public void mctsUsesBatchRollouts() {
+        AtomicInteger evaluations = new AtomicInteger();
+        MCTSParams params = new MCTSParams();
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 100);
+        params.setParameterValue("rolloutType", MCTSEnums.Strategies.BATCH);
+        params.setParameterValue("rolloutBatchSize", 4);
+        params.setParameterValue("rolloutLength", 10);
+        params.setParameterValue("heuristic", (IStateHeuristic) (gs, p) -> {
+            evaluations.incrementAndGet();
+            return gs.getHeuristicScore(p);
+        });
+        params.setRandomSeed(7);
+        MCTSPlayer player = new MCTSPlayer(params);
+        player.setForwardModel(fm);
+
+        SGGameState state = midGame(3, 7);
+        AbstractGameState observation = state.copy(state.getCurrentPlayer());
+        AbstractAction action = player.getAction(observation, fm.computeAvailableActions(observation));
+        assertTrue(fm.computeAvailableActions(state).contains(action));
+        // every iteration evaluates the final states of 4 rollouts for each of the 3 players
+        assertEquals(0, evaluations.get() % 12);
+        assertTrue(evaluations.get() >= 100 * 12);
+    }
+
+    private int groupAAForwardModelCalls(int rolloutBatchSize) {
+        AMAF_Params params = new AMAF_Params();
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 100);
+        params.setParameterValue("rolloutBatchSize", rolloutBatchSize);
+        params.setRandomSeed(7);
+        SushiGoAgentGroupAA agent = new SushiGoAgentGroupAA(params);
+        agent.setForwardModel(fm);
+
+        SGGameState state = midGame(2, 7);
+        Random rnd = new Random(7);
+        while (state.getCurrentPlayer() != 0) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+        AbstractGameState observation = state.copy(0);
+        AbstractAction action = agent.getAction(observation, fm.computeAvailableActions(observation));
+        assertTrue(fm.computeAvailableActions(state).contains(action));
+        return agent.getLastSearchStats().fmCalls;
+    }
+
+    @Test
+    public void groupAAUsesBatchRollouts() {
+        // the rollouts of each iteration are played rolloutBatchSize times
+        assertTrue(groupAAForwardModelCalls(4) > 3 * groupAAForwardModelCalls(1));
+    }
+}
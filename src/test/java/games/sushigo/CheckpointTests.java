@@ -0,0 +1,113 @@
+package games.sushigo;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import core.interfaces.IUndoableForwardModel;
+import org.junit.Test;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CheckpointTests {
+
+    SGForwardModel fm = new SGForwardModel();
+
+    private SGGameState newGame(int nPlayers, long seed) {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(seed);
+        SGGameState state = new SGGameState(params, nPlayers);
+        fm.setup(state);
+        return state;
+    }
+
+    private void assertSameState(SGGameState expected, SGGameState actual) {
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(SGPackedState.fromGameState(expected), SGPackedState.fromGameState(actual));
+        assertEquals(expected.getGameTick(), actual.getGameTick());
+        assertEquals(expected.getHistory().size(), actual.getHistory().size());
+        assertEquals(expected.getHistoryAsText(), actual.getHistoryAsText());
+        assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+        assertEquals(expected.isActionInProgress(), actual.isActionInProgress());
+        assertEquals(expected.getGameStatus(), actual.getGameStatus());
+        for (int p = 0; p < expected.getNPlayers(); p++) {
+            assertEquals(expected.getPlayerResults()[p], actual.getPlayerResults()[p]);
+            assertEquals(expected.getPlayerHands().get(p).getComponents(), actual.getPlayerHands().get(p).getComponents());
+            assertEquals(expected.getPlayedCards().get(p).getComponents(), actual.getPlayedCards().get(p).getComponents());
+        }
+        assertEquals(fm.computeAvailableActions(expected), fm.computeAvailableActions(actual));
+    }
+
+    @Test
+    public void revertUndoesRandomPlay() {
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            for (long seed = 0; seed < 5; seed++) {
+                SGGameState state = newGame(nPlayers, seed);
+                Random rnd = new Random(seed);
+                IUndoableForwardModel.Checkpoint checkpoint = null;
+                while (state.isNotTerminal()) {
+                    SGGameState before = (SGGameState) state.copy();
+                    checkpoint = fm.checkpoint(state, checkpoint);
+                    // play far enough ahead to cross the end of a round (or the end of the game)
+                    int steps = 1 + rnd.nextInt(3 * nPlayers * 10);
+                    for (int i = 0; i < steps && state.isNotTerminal(); i++)
+                        playRandom(state, rnd);
+                    fm.revert(state, checkpoint);
+                    assertSameState(before, state);
+
+                    // the same checkpoint can be reverted to again
+                    playRandom(state, rnd);
+                    fm.revert(state, checkpoint);
+                    assertSameState(before, state);
+
+                    playRandom(state, rnd);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkpointIsReusedOnlyWhenCompatible() {
+        SGGameState three = newGame(3, 1);
+        SGGameState four = newGame(4, 1);
+        IUndoableForwardModel.Checkpoint checkpoint = fm.checkpoint(three, null);
+        assertSame(checkpoint, fm.checkpoint(three, checkpoint));
+        IUndoableForwardModel.Checkpoint other = fm.checkpoint(four, checkpoint);
+        assertNotSame(checkpoint, other);
+
+        SGGameState before = (SGGameState) four.copy();
+        playRandom(four, new Random(1));
+        fm.revert(four, other);
+        assertSameState(before, four);
+    }
+
+    @Test
+    public void closedLoopMCTSWithCheckpointsLeavesStateUnchanged() {
+        MCTSParams params = new MCTSParams();
+        params.setParameterValue("information", MCTSEnums.Information.Closed_Loop);
+        params.setParameterValue("useCheckpoints", true);
+        params.setParameterValue("rolloutLength", 10);
+        params.setParameterValue("budget", 200);
+        params.setRandomSeed(3);
+        MCTSPlayer player = new MCTSPlayer(params);
+        player.setForwardModel(fm);
+
+        SGGameState state = newGame(3, 3);
+        Random rnd = new Random(3);
+        for (int i = 0; i < 5; i++)
+            playRandom(state, rnd);
+        SGGameState before = (SGGameState) state.copy();
+        AbstractAction action = player.getAction(state, fm.computeAvailableActions(state));
+        assertNotNull(action);
+        assertSameState(before, state);
+    }
+
+    private void playRandom(AbstractGameState state, Random rnd) {
+        List<AbstractAction> actions = fm.computeAvailableActions(state);
+        fm.next(state, actions.get(rnd.nextInt(actions.size())));
+    }
+}
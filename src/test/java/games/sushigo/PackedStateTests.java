@@ -0,0 +1,100 @@
+package games.sushigo;
+
+import core.actions.AbstractAction;
+import games.sushigo.actions.ChooseCard;
+import groupAA.GroupAAHeuristic;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PackedStateTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    GroupAAHeuristic heuristic = new GroupAAHeuristic();
+
+    private SGGameState newGame(int nPlayers, long seed) {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(seed);
+        SGGameState state = new SGGameState(params, nPlayers);
+        fm.setup(state);
+        return state;
+    }
+
+    @Test
+    public void packedGameMatchesFullGame() {
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            for (long seed = 0; seed < 10; seed++) {
+                playInLockstep(newGame(nPlayers, seed), new Random(seed));
+            }
+        }
+    }
+
+    private void playInLockstep(SGGameState state, Random rnd) {
+        SGPackedState packed = SGPackedState.fromGameState(state);
+        int[] buffer = new int[packed.maxActions()];
+        assertEquals(SGPackedState.fromGameState(state), packed);
+
+        while (state.isNotTerminal()) {
+            assertTrue(packed.isNotTerminal());
+            assertEquals(state.getCurrentPlayer(), packed.getCurrentPlayer());
+
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            int nActions = fm.computeAvailableActions(packed, buffer);
+            assertEquals(actions.size(), nActions);
+            for (int i = 0; i < nActions; i++)
+                assertEquals(SGPackedState.action((ChooseCard) actions.get(i)), buffer[i]);
+
+            int choice = rnd.nextInt(nActions);
+            fm.next(state, actions.get(choice));
+            fm.next(packed, buffer[choice]);
+
+            assertEquals(SGPackedState.fromGameState(state), packed);
+            for (int p = 0; p < state.getNPlayers(); p++)
+                assertEquals(heuristic.evaluateState(state, p), heuristic.evaluateState(packed, p), 0.0);
+        }
+        assertFalse(packed.isNotTerminal());
+        for (int p = 0; p < state.getNPlayers(); p++) {
+            assertEquals(state.getPlayerScore()[p].getValue(), packed.getPlayerScore(p));
+            assertEquals(state.getOrdinalPosition(p), packed.getOrdinalPosition(p));
+        }
+    }
+
+    @Test
+    public void writeToRestoresEquivalentState() {
+        SGGameState state = newGame(4, 42);
+        Random rnd = new Random(42);
+        for (int step = 0; step < 30 && state.isNotTerminal(); step++) {
+            SGPackedState packed = SGPackedState.fromGameState(state);
+            SGGameState target = (SGGameState) state.copy();
+            packed.writeTo(target);
+
+            assertEquals(packed, SGPackedState.fromGameState(target));
+            List<AbstractAction> expected = fm.computeAvailableActions(state);
+            List<AbstractAction> restored = fm.computeAvailableActions(target);
+            assertEquals(expected.size(), restored.size());
+            for (int i = 0; i < expected.size(); i++)
+                assertEquals(SGPackedState.action((ChooseCard) expected.get(i)), SGPackedState.action((ChooseCard) restored.get(i)));
+
+            fm.next(state, expected.get(rnd.nextInt(expected.size())));
+        }
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        SGGameState state = newGame(3, 7);
+        SGPackedState packed = SGPackedState.fromGameState(state);
+        SGPackedState copy = packed.copy();
+        int[] buffer = new int[copy.maxActions()];
+        fm.computeAvailableActions(copy, buffer);
+        fm.next(copy, buffer[0]);
+
+        assertEquals(SGPackedState.fromGameState(state), packed);
+        assertNotEquals(packed, copy);
+
+        packed.copyInto(copy);
+        assertEquals(packed, copy);
+    }
+}
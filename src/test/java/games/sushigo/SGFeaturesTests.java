@@ -0,0 +1,55 @@
+package games.sushigo;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SGFeaturesTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    SGFeatures features = new SGFeatures();
+
+    @Test
+    public void vectorHasTheSameLengthForAllPlayerCounts() {
+        int length = features.names().length;
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            SGParameters params = new SGParameters();
+            params.setRandomSeed(nPlayers);
+            SGGameState state = new SGGameState(params, nPlayers);
+            fm.setup(state);
+            assertEquals(length, features.doubleVector(state, 0).length);
+        }
+    }
+
+    @Test
+    public void filledBufferMatchesPlayerObservation() {
+        int length = features.names().length;
+        DoubleBuffer buffer = ByteBuffer.allocateDirect(2 * length * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(23);
+        SGGameState state = new SGGameState(params, 4);
+        fm.setup(state);
+        Random rnd = new Random(5);
+        while (state.isNotTerminal()) {
+            int player = state.getCurrentPlayer();
+            // the full state gives the same features as the copy the player would see
+            AbstractGameState observation = state.copy(player);
+            features.fill(state, player, buffer, length);
+            double[] expected = features.doubleVector(observation, player);
+            for (int i = 0; i < length; i++)
+                assertEquals(features.names()[i], expected[i], buffer.get(length + i), 0.0);
+            assertEquals(0, buffer.position());
+
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package games.sushigo;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import groupAA.GroupAAHeuristic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of random SushiGo rollouts to the end of the game, evaluated with GroupAAHeuristic: playouts per
+ * second from a fixed set of states, with the generic forward model on copies of the state ("loop"), on one packed
+ * state per playout ("packed"), and with SGBatchRollout ("batch", BATCH playouts per call).
+ * <p>
+ * Run with: java -cp target/test-classes:target/classes:[dependencies] org.openjdk.jmh.Main SGRolloutBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SGRolloutBenchmark {
+
+    static final int BATCH = 32;
+    static final int N_STATES = 20;
+
+    @Param({"2", "5"})
+    int nPlayers;
+
+    SGForwardModel fm = new SGForwardModel();
+    GroupAAHeuristic heuristic = new GroupAAHeuristic();
+    SGBatchRollout engine = new SGBatchRollout(fm);
+    List<SGGameState> states;
+    Random rnd = new Random(1);
+    int[] buffer;
+    int next;
+
+    @Setup
+    public void setup() {
+        states = new ArrayList<>();
+        for (int seed = 0; seed < N_STATES; seed++) {
+            SGParameters params = new SGParameters();
+            params.setRandomSeed(seed);
+            SGGameState state = new SGGameState(params, nPlayers);
+            fm.setup(state);
+            Random r = new Random(seed);
+            int steps = r.nextInt(3 * nPlayers);
+            for (int i = 0; i < steps; i++) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(r.nextInt(actions.size())));
+            }
+            states.add(state);
+        }
+        buffer = new int[SGPackedState.fromGameState(states.get(0)).maxActions() + 1];
+    }
+
+    private SGGameState nextState() {
+        SGGameState state = states.get(next);
+        next = (next + 1) % states.size();
+        return state;
+    }
+
+    @Benchmark
+    public double loop() {
+        AbstractGameState state = nextState().copy();
+        while (state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+        return heuristic.evaluateState(state, 0);
+    }
+
+    @Benchmark
+    public double packed() {
+        SGPackedState state = SGPackedState.fromGameState(nextState());
+        while (state.isNotTerminal()) {
+            int n = fm.computeAvailableActions(state, buffer);
+            fm.next(state, buffer[rnd.nextInt(n)]);
+        }
+        return heuristic.evaluateState(state, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double batch() {
+        SGPackedState[] finalStates = engine.play(nextState(), BATCH, Integer.MAX_VALUE, SGBatchRollout.RANDOM, rnd);
+        double value = 0;
+        for (int i = 0; i < BATCH; i++)
+            value += heuristic.evaluateState(finalStates[i], 0);
+        return value;
+    }
+}
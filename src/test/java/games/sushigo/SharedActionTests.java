@@ -0,0 +1,82 @@
+package games.sushigo;
+
+import core.actions.AbstractAction;
+import core.actions.ActionTable;
+import games.sushigo.actions.ChooseCard;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SharedActionTests {
+
+    SGForwardModel fm = new SGForwardModel();
+
+    private SGGameState newGame(int nPlayers, long seed) {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(seed);
+        SGGameState state = new SGGameState(params, nPlayers);
+        fm.setup(state);
+        return state;
+    }
+
+    @Test
+    public void actionsAreShared() {
+        ChooseCard action = ChooseCard.of(2, 5, true);
+        assertSame(action, ChooseCard.of(2, 5, true));
+        assertSame(action, action.copy());
+        assertNotSame(action, ChooseCard.of(2, 5, false));
+
+        int index = ChooseCard.index(2, 5, true);
+        assertSame(action, ChooseCard.TABLE.get(index));
+        assertEquals(index, ChooseCard.TABLE.indexOf(new ChooseCard(2, 5, true)));
+        assertEquals(index, ChooseCard.TABLE.hash(new ChooseCard(2, 5, true)));
+        assertEquals(2, action.playerId);
+        assertEquals(5, action.cardIdx);
+        assertTrue(action.useChopsticks);
+    }
+
+    @Test
+    public void computedActionsAreShared() {
+        SGGameState state = newGame(3, 5);
+        List<AbstractAction> actions = fm.computeAvailableActions(state);
+        List<AbstractAction> again = fm.computeAvailableActions(state);
+        for (int i = 0; i < actions.size(); i++)
+            assertSame(actions.get(i), again.get(i));
+    }
+
+    @Test
+    public void sharedActionsPlayTheSameGamesAsNewOnes() {
+        int chopsticks = 0;
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            SGGameState shared = newGame(nPlayers, 17 + nPlayers);
+            SGGameState separate = newGame(nPlayers, 17 + nPlayers);
+            Random rnd = new Random(nPlayers);
+            while (shared.isNotTerminal()) {
+                List<AbstractAction> actions = fm.computeAvailableActions(shared);
+                ChooseCard chosen = (ChooseCard) actions.get(rnd.nextInt(actions.size()));
+                if (chosen.useChopsticks)
+                    chopsticks++;
+                fm.next(shared, chosen);
+                fm.next(separate, new ChooseCard(chosen.playerId, chosen.cardIdx, chosen.useChopsticks));
+                assertEquals(separate.getZobristHash(), shared.getZobristHash());
+                assertEquals(separate.isActionInProgress(), shared.isActionInProgress());
+            }
+            for (int p = 0; p < nPlayers; p++)
+                assertEquals(separate.getGameScore(p), shared.getGameScore(p), 0.0);
+        }
+        assertTrue(chopsticks > 0);
+        // playing chopsticks never changes the shared actions
+        for (int p = 0; p < 5; p++)
+            for (int i = 0; i < 10; i++)
+                assertEquals(new ChooseCard(p, i, true), ChooseCard.of(p, i, true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mutableActionsCannotBeShared() {
+        ActionTable<ChooseCard> table = new ActionTable<>(i -> new ChooseCard(0, i, true).startChopsticks());
+        table.get(0);
+    }
+}
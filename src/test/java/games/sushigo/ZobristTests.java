@@ -0,0 +1,120 @@
+package games.sushigo;
+
+import core.actions.AbstractAction;
+import games.sushigo.actions.ChooseCard;
+import games.sushigo.cards.SGCard;
+import games.sushigo.metrics.SGZobristKey;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ZobristTests {
+
+    SGForwardModel fm = new SGForwardModel();
+
+    private SGGameState newGame(int nPlayers, long seed) {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(seed);
+        SGGameState state = new SGGameState(params, nPlayers);
+        fm.setup(state);
+        return state;
+    }
+
+    @Test
+    public void sameStateSameHash() {
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            SGGameState state = newGame(nPlayers, nPlayers);
+            Random rnd = new Random(nPlayers);
+            Map<SGPackedState, Long> seen = new HashMap<>();
+            Map<Long, SGPackedState> byHash = new HashMap<>();
+            while (state.isNotTerminal()) {
+                long hash = state.getZobristHash();
+                assertEquals(hash, ((SGGameState) state.copy()).getZobristHash());
+                SGPackedState packed = SGPackedState.fromGameState(state);
+                Long previous = seen.putIfAbsent(packed, hash);
+                if (previous != null)
+                    assertEquals(previous.longValue(), hash);
+                SGPackedState other = byHash.putIfAbsent(hash, packed);
+                if (other != null)
+                    assertEquals(other, packed);
+
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(rnd.nextInt(actions.size())));
+                assertNotEquals(hash, state.getZobristHash());
+            }
+        }
+    }
+
+    @Test
+    public void playerViewIsTheSameForAllRedeterminisations() {
+        SGGameState state = newGame(4, 11);
+        Random rnd = new Random(11);
+        while (state.isNotTerminal()) {
+            int player = state.getCurrentPlayer();
+            long view = state.getZobristHash(player);
+            for (int i = 0; i < 5; i++)
+                assertEquals(view, ((SGGameState) state.copy(player)).getZobristHash(player));
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+    }
+
+    @Test
+    public void identicalCardsTranspose() {
+        int found = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            SGGameState state = newGame(3, seed);
+            List<SGCard> hand = state.getPlayerHands().get(state.getCurrentPlayer()).getComponents();
+            for (int i = 0; i < hand.size(); i++) {
+                for (int j = i + 1; j < hand.size(); j++) {
+                    SGGameState a = (SGGameState) state.copy(), b = (SGGameState) state.copy();
+                    fm.next(a, new ChooseCard(state.getCurrentPlayer(), i, false));
+                    fm.next(b, new ChooseCard(state.getCurrentPlayer(), j, false));
+                    SGCard ci = hand.get(i), cj = hand.get(j);
+                    if (ci.type == cj.type && ci.count == cj.count) {
+                        assertEquals(a.getZobristHash(), b.getZobristHash());
+                        found++;
+                    } else {
+                        assertNotEquals(a.getZobristHash(), b.getZobristHash());
+                    }
+                }
+            }
+        }
+        assertTrue(found > 0);
+    }
+
+    @Test
+    public void graphSearchWithZobristKey() {
+        MCTSParams params = new MCTSParams();
+        params.setParameterValue("opponentTreePolicy", MCTSEnums.OpponentTreePolicy.MCGS);
+        params.setParameterValue("MCGSStateKey", new SGZobristKey());
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 200);
+        params.setRandomSeed(5);
+        MCTSPlayer player = new MCTSPlayer(params);
+        player.setForwardModel(fm);
+
+        SGGameState state = newGame(3, 5);
+        Random rnd = new Random(5);
+        while (state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractAction action;
+            if (state.getCurrentPlayer() == 0) {
+                action = player.getAction(state.copy(0), fm.computeAvailableActions(state));
+                assertTrue(actions.contains(action));
+            } else {
+                action = actions.get(rnd.nextInt(actions.size()));
+            }
+            fm.next(state, action);
+        }
+    }
+}
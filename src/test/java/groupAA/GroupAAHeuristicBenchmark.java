@@ -0,0 +1,83 @@
+package groupAA;
+
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGPackedState;
+import games.sushigo.SGParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of GroupAAHeuristic evaluations/sec on states from random SushiGo games: the original map-based
+ * evaluation, the flat-count evaluation of SGGameState, and the evaluation of the equivalent SGPackedState.
+ * <p>
+ * Run with: java -cp target/test-classes:target/classes:[dependencies] org.openjdk.jmh.Main GroupAAHeuristicBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupAAHeuristicBenchmark {
+
+    static final int N_STATES = 256;
+
+    @Param({"4"})
+    int nPlayers;
+
+    GroupAAHeuristic heuristic = new GroupAAHeuristic();
+    SGGameState[] states;
+    SGPackedState[] packedStates;
+    int next;
+
+    @Setup
+    public void setup() {
+        SGForwardModel fm = new SGForwardModel();
+        List<SGGameState> sampled = new ArrayList<>();
+        Random rnd = new Random(42);
+        for (int seed = 0; sampled.size() < N_STATES; seed++) {
+            SGParameters params = new SGParameters();
+            params.setRandomSeed(seed);
+            SGGameState state = new SGGameState(params, nPlayers);
+            fm.setup(state);
+            while (state.isNotTerminal() && sampled.size() < N_STATES) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(rnd.nextInt(actions.size())));
+                sampled.add((SGGameState) state.copy());
+            }
+        }
+        states = sampled.toArray(new SGGameState[0]);
+        packedStates = new SGPackedState[N_STATES];
+        for (int i = 0; i < N_STATES; i++)
+            packedStates[i] = SGPackedState.fromGameState(states[i]);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (N_STATES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public double maps() {
+        int i = nextIndex();
+        return MapBasedHeuristic.evaluate(states[i], i % nPlayers);
+    }
+
+    @Benchmark
+    public double flat() {
+        int i = nextIndex();
+        return heuristic.evaluateState(states[i], i % nPlayers);
+    }
+
+    @Benchmark
+    public double packed() {
+        int i = nextIndex();
+        return heuristic.evaluateState(packedStates[i], i % nPlayers);
+    }
+}
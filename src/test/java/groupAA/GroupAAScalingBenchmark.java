@@ -0,0 +1,97 @@
+package groupAA;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import players.PlayerConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how the GroupAA search scales with the number of threads: for each thread count and parallel mode it
+ * runs one timed decision on each of a fixed set of SushiGo states, and reports search iterations per second of
+ * wall-clock time.
+ * <p>
+ * Arguments (all optional): maxThreads (default: available processors), budget in ms (default 40),
+ * number of states (default 20), number of players (default 4). Run with:
+ * <p>
+ * mvn -Pbenchmark -DskipTests test -Dbenchmark.main=groupAA.GroupAAScalingBenchmark -Dbenchmark.args="8 40"
+ */
+public class GroupAAScalingBenchmark {
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int budget = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int nStates = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int nPlayers = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        List<SGGameState> states = sampleStates(nStates, nPlayers);
+        // warm up the JIT so that the single-threaded baseline is not penalised
+        run(states, AMAF_Params.ParallelMode.ROOT, 1, budget);
+        System.out.printf("%-6s %8s %12s %10s%n", "Mode", "Threads", "Iters/sec", "Speedup");
+        for (AMAF_Params.ParallelMode mode : AMAF_Params.ParallelMode.values()) {
+            double baseline = 0;
+            for (int nThreads = 1; nThreads <= maxThreads; nThreads *= 2) {
+                double itersPerSec = run(states, mode, nThreads, budget);
+                if (nThreads == 1) baseline = itersPerSec;
+                System.out.printf("%-6s %8d %12.0f %10.2f%n", mode, nThreads, itersPerSec, itersPerSec / baseline);
+            }
+        }
+    }
+
+    // States part-way through random games, from fixed seeds, with player 0 to move
+    private static List<SGGameState> sampleStates(int nStates, int nPlayers) {
+        SGForwardModel fm = new SGForwardModel();
+        List<SGGameState> states = new ArrayList<>();
+        for (int seed = 0; seed < nStates; seed++) {
+            SGParameters params = new SGParameters();
+            params.setRandomSeed(seed);
+            SGGameState state = new SGGameState(params, nPlayers);
+            fm.setup(state);
+            Random rnd = new Random(seed);
+            int steps = rnd.nextInt(3 * nPlayers);
+            // the agent is always player 0, so stop on one of its decisions
+            for (int i = 0; (i < steps || state.getCurrentPlayer() != 0) && state.isNotTerminal(); i++) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(rnd.nextInt(actions.size())));
+            }
+            states.add(state);
+        }
+        return states;
+    }
+
+    private static double run(List<SGGameState> states, AMAF_Params.ParallelMode mode, int nThreads, int budget) {
+        AMAF_Params params = new AMAF_Params();
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_TIME);
+        params.setParameterValue("budget", budget);
+        params.setParameterValue("parallelMode", mode);
+        params.setParameterValue("nThreads", nThreads);
+        params.setRandomSeed(42);
+        SushiGoAgentGroupAA agent = new SushiGoAgentGroupAA(params);
+        agent.setForwardModel(new SGForwardModel());
+        GroupAAParallelSearch search = nThreads > 1 ? new GroupAAParallelSearch(agent, nThreads) : null;
+
+        long iterations = 0;
+        long start = System.nanoTime();
+        for (SGGameState state : states) {
+            AbstractGameState observation = state.copy(0);
+            if (search != null) {
+                search.search(observation);
+                iterations += search.getLastIterations();
+            } else {
+                AtomicInteger count = new AtomicInteger();
+                GroupAATreeNode root = new GroupAATreeNode(agent, null, observation, agent.getRnd());
+                root.mctsSearch(new GroupAATreeNode.Worker(agent, agent.getRnd()), count, 0);
+                iterations += count.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (search != null) search.shutdown();
+        return iterations / seconds;
+    }
+}
@@ -0,0 +1,78 @@
+package groupAA;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.openjdk.jmh.annotations.*;
+import players.PlayerConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the GroupAA search loop: search iterations per second over a fixed set of SushiGo states.
+ * Only the public agent API is used, so the same benchmark can be run against older versions of the agent.
+ * <p>
+ * Run with: java -cp target/test-classes:target/classes:[dependencies] org.openjdk.jmh.Main GroupAASearchBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupAASearchBenchmark {
+
+    static final int ITERATIONS = 200;
+    static final int N_STATES = 20;
+
+    @Param({"2", "4"})
+    int nPlayers;
+
+    @Param({"true", "false"})
+    boolean packedRollouts;
+
+    List<AbstractGameState> observations;
+    SushiGoAgentGroupAA agent;
+    int next;
+
+    @Setup
+    public void setup() {
+        SGForwardModel fm = new SGForwardModel();
+        observations = new ArrayList<>();
+        for (int seed = 0; seed < N_STATES; seed++) {
+            SGParameters params = new SGParameters();
+            params.setRandomSeed(seed);
+            SGGameState state = new SGGameState(params, nPlayers);
+            fm.setup(state);
+            Random rnd = new Random(seed);
+            int steps = rnd.nextInt(3 * nPlayers);
+            // the agent is player 0
+            for (int i = 0; (i < steps || state.getCurrentPlayer() != 0) && state.isNotTerminal(); i++) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(rnd.nextInt(actions.size())));
+            }
+            observations.add(state.copy(0));
+        }
+
+        AMAF_Params params = new AMAF_Params();
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", ITERATIONS);
+        params.setParameterValue("packedRollouts", packedRollouts);
+        params.setRandomSeed(42);
+        agent = new SushiGoAgentGroupAA(params);
+        agent.setForwardModel(fm);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public AbstractAction search() {
+        AbstractGameState observation = observations.get(next);
+        next = (next + 1) % observations.size();
+        return agent._getAction(observation, null);
+    }
+}
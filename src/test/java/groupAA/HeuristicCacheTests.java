@@ -0,0 +1,73 @@
+package groupAA;
+
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HeuristicCacheTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    GroupAAHeuristic heuristic = new GroupAAHeuristic();
+    SGGameState state;
+
+    @Before
+    public void setup() {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(4902);
+        state = new SGGameState(params, 4);
+        fm.setup(state);
+    }
+
+    @Test
+    public void keyDependsOnlyOnWhatTheHeuristicReads() {
+        Random rnd = new Random(1);
+        GroupAAHeuristicCache cache = new GroupAAHeuristicCache(1 << 12);
+        while (state.isNotTerminal()) {
+            for (int p = 0; p < state.getNPlayers(); p++) {
+                long key = GroupAAHeuristicCache.key(state, p);
+                // a copy (including a redeterminised one) has the same key, as hands are not part of it
+                assertEquals(key, GroupAAHeuristicCache.key((SGGameState) state.copy(), p));
+                assertEquals(key, GroupAAHeuristicCache.key((SGGameState) state.copy(state.getCurrentPlayer()), p));
+                double cached = cache.get(key);
+                double value = heuristic.evaluateState(state, p);
+                if (!Double.isNaN(cached))
+                    assertEquals(value, cached, 0.0);
+                cache.put(key, value);
+                assertEquals(value, cache.get(key), 0.0);
+            }
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+    }
+
+    @Test
+    public void searchReportsHeuristicStats() {
+        AMAF_Params params = new AMAF_Params();
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 300);
+        params.setParameterValue("heuristicCacheSize", 1 << 12);
+        params.setRandomSeed(123);
+        SushiGoAgentGroupAA agent = new SushiGoAgentGroupAA(params);
+        agent.setForwardModel(fm);
+
+        agent._getAction(state.copy(0), null);
+        GroupAASearchStats first = agent.getLastSearchStats();
+        assertEquals(300, first.iterations);
+        assertTrue(first.heuristicCalls > 0);
+        assertTrue(first.storedValueReads > 0);
+        assertTrue(first.heuristicTimeFraction() > 0.0 && first.heuristicTimeFraction() <= 1.0);
+
+        // the same decision again finds the expanded states in the global cache
+        agent._getAction(state.copy(0), null);
+        assertTrue(agent.getLastSearchStats().globalCacheHits > 0);
+    }
+}
@@ -0,0 +1,65 @@
+package groupAA;
+
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HeuristicEquivalenceTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    GroupAAHeuristic heuristic = new GroupAAHeuristic();
+
+    @Test
+    public void flatCountsScoreExactlyAsMaps() {
+        int nStates = 0;
+        for (int nPlayers = 2; nPlayers <= 5; nPlayers++) {
+            for (long seed = 0; seed < 25; seed++) {
+                SGParameters params = new SGParameters();
+                params.setRandomSeed(seed);
+                SGGameState state = new SGGameState(params, nPlayers);
+                fm.setup(state);
+                Random rnd = new Random(seed);
+                // every state of the game, including the terminal one
+                while (true) {
+                    for (int p = 0; p < nPlayers; p++)
+                        assertEquals(MapBasedHeuristic.evaluate(state, p), heuristic.evaluateState(state, p), 0.0);
+                    nStates++;
+                    if (!state.isNotTerminal()) break;
+                    List<AbstractAction> actions = fm.computeAvailableActions(state);
+                    fm.next(state, actions.get(rnd.nextInt(actions.size())));
+                }
+            }
+        }
+        assertTrue(nStates > 5000);
+    }
+
+    @Test
+    public void flatCountsMatchCounters() {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(7);
+        SGGameState state = new SGGameState(params, 3);
+        fm.setup(state);
+        Random rnd = new Random(7);
+        int[] counts = new int[3 * SGGameState.N_CARD_TYPES];
+        while (state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+            state.getPlayedCardTypeCounts(counts);
+            int[] allGame = state.getPlayedCardTypeCountsAllGame(null);
+            for (int p = 0; p < 3; p++) {
+                for (var type : games.sushigo.cards.SGCard.SGCardType.values()) {
+                    assertEquals(state.getPlayedCardTypes()[p].get(type).getValue(), counts[p * SGGameState.N_CARD_TYPES + type.ordinal()]);
+                    assertEquals(state.getPlayedCardTypesAllGame()[p].get(type).getValue(), allGame[p * SGGameState.N_CARD_TYPES + type.ordinal()]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package groupAA;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelSearchTests {
+
+    SGForwardModel fm = new SGForwardModel();
+    SGGameState state;
+    GroupAAParallelSearch search;
+
+    @Before
+    public void setup() {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(4902);
+        state = new SGGameState(params, 3);
+        fm.setup(state);
+    }
+
+    @After
+    public void tearDown() {
+        if (search != null) search.shutdown();
+    }
+
+    private SushiGoAgentGroupAA agent(AMAF_Params.ParallelMode mode, PlayerConstants budgetType, int budget) {
+        return agent(mode, budgetType, budget, 4, 1);
+    }
+
+    private SushiGoAgentGroupAA agent(AMAF_Params.ParallelMode mode, PlayerConstants budgetType, int budget,
+                                      int nThreads, int determinisations) {
+        AMAF_Params params = new AMAF_Params();
+        params.setParameterValue("budgetType", budgetType);
+        params.setParameterValue("budget", budget);
+        params.setParameterValue("parallelMode", mode);
+        params.setParameterValue("nThreads", nThreads);
+        params.setParameterValue("determinisations", determinisations);
+        params.setRandomSeed(123);
+        SushiGoAgentGroupAA agent = new SushiGoAgentGroupAA(params);
+        agent.setForwardModel(fm);
+        return agent;
+    }
+
+    private void checkIterationBudget(AMAF_Params.ParallelMode mode) {
+        search = new GroupAAParallelSearch(agent(mode, PlayerConstants.BUDGET_ITERATIONS, 200), 4);
+        AbstractGameState observation = state.copy(0);
+        AbstractAction action = search.search(observation);
+
+        List<AbstractAction> legal = fm.computeAvailableActions(observation);
+        assertTrue(legal.contains(action));
+        // each thread stops after the iteration that uses up the budget, so at most one extra iteration per thread
+        assertTrue(search.getLastIterations() >= 200);
+        assertTrue(search.getLastIterations() < 200 + 4);
+    }
+
+    @Test
+    public void rootParallelRespectsIterationBudget() {
+        checkIterationBudget(AMAF_Params.ParallelMode.ROOT);
+    }
+
+    @Test
+    public void treeParallelRespectsIterationBudget() {
+        checkIterationBudget(AMAF_Params.ParallelMode.TREE);
+    }
+
+    @Test
+    public void parallelSearchRespectsFmCallBudget() {
+        for (AMAF_Params.ParallelMode mode : AMAF_Params.ParallelMode.values()) {
+            search = new GroupAAParallelSearch(agent(mode, PlayerConstants.BUDGET_FM_CALLS, 2000), 4);
+            search.search(state.copy(0));
+            assertTrue(search.getLastFmCalls() > 2000);
+            search.shutdown();
+            search = null;
+        }
+    }
+
+    @Test
+    public void ensembleSpreadsTreesOverThreads() {
+        // more trees than threads, and a single thread searching several trees
+        int[][] configs = {{4, 10}, {1, 6}};
+        for (int[] config : configs) {
+            SushiGoAgentGroupAA agent = agent(AMAF_Params.ParallelMode.ROOT, PlayerConstants.BUDGET_ITERATIONS, 200, config[0], config[1]);
+            search = new GroupAAParallelSearch(agent, config[0]);
+            AbstractGameState observation = state.copy(0);
+            AbstractAction action = search.search(observation);
+            assertTrue(fm.computeAvailableActions(observation).contains(action));
+            GroupAASearchStats stats = search.getLastStats();
+            assertEquals(config[1], stats.determinisations);
+            assertTrue(stats.determinisationNanos > 0);
+            assertTrue(stats.iterations >= 200);
+            assertTrue(stats.iterations < 200 + config[0]);
+            search.shutdown();
+            search = null;
+        }
+    }
+
+    @Test
+    public void seededEnsembleIsReproducible() {
+        AbstractGameState observation = state.copy(0);
+        AbstractAction[] actions = new AbstractAction[2];
+        int[] fmCalls = new int[2];
+        for (int i = 0; i < 2; i++) {
+            SushiGoAgentGroupAA agent = agent(AMAF_Params.ParallelMode.ROOT, PlayerConstants.BUDGET_ITERATIONS, 300, 1, 8);
+            // the agent gets its own copy of the observation, with the same hidden hands
+            actions[i] = agent.getAction(observation.copy(), fm.computeAvailableActions(observation));
+            fmCalls[i] = agent.getLastSearchStats().fmCalls;
+            assertEquals(8, agent.getLastSearchStats().determinisations);
+            agent.finalizePlayer(observation);
+        }
+        assertEquals(actions[0], actions[1]);
+        assertEquals(fmCalls[0], fmCalls[1]);
+    }
+}
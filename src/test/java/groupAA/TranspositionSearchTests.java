@@ -0,0 +1,79 @@
+package groupAA;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.junit.Test;
+import players.PlayerConstants;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TranspositionSearchTests {
+
+    SGForwardModel fm = new SGForwardModel();
+
+    private SushiGoAgentGroupAA newAgent(int nThreads, AMAF_Params.ParallelMode mode, boolean reuseTree) {
+        AMAF_Params params = new AMAF_Params();
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 400);
+        params.setParameterValue("transpositionTableSize", 1 << 12);
+        params.setParameterValue("nThreads", nThreads);
+        params.setParameterValue("parallelMode", mode);
+        params.setParameterValue("reuseTree", reuseTree);
+        params.setRandomSeed(31);
+        SushiGoAgentGroupAA agent = new SushiGoAgentGroupAA(params);
+        agent.setForwardModel(fm);
+        return agent;
+    }
+
+    // Plays a 4-player game with the agent as player 0, and returns the number of transpositions found
+    private int playGame(SushiGoAgentGroupAA agent) {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(8);
+        SGGameState state = new SGGameState(params, 4);
+        fm.setup(state);
+        Random rnd = new Random(8);
+        int transpositions = 0;
+        while (state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractAction action;
+            if (state.getCurrentPlayer() == 0) {
+                AbstractGameState observation = state.copy(0);
+                action = agent.getAction(observation, fm.computeAvailableActions(observation));
+                assertTrue(actions.contains(action));
+                GroupAASearchStats stats = agent.getLastSearchStats();
+                assertTrue(stats.iterations >= 400);
+                transpositions += stats.transpositions;
+            } else {
+                action = actions.get(rnd.nextInt(actions.size()));
+            }
+            fm.next(state, action);
+        }
+        agent.finalizePlayer(state);
+        assertEquals(0, agent.getTranspositionTable().size());
+        return transpositions;
+    }
+
+    @Test
+    public void searchFindsTranspositions() {
+        assertTrue(playGame(newAgent(1, AMAF_Params.ParallelMode.ROOT, false)) > 0);
+    }
+
+    @Test
+    public void transpositionsWithTreeReuse() {
+        assertTrue(playGame(newAgent(1, AMAF_Params.ParallelMode.ROOT, true)) > 0);
+    }
+
+    @Test
+    public void transpositionsInParallelSearch() {
+        for (AMAF_Params.ParallelMode mode : AMAF_Params.ParallelMode.values()) {
+            SushiGoAgentGroupAA agent = newAgent(3, mode, false);
+            assertTrue(playGame(agent) > 0);
+        }
+    }
+}
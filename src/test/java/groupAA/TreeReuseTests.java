@@ -0,0 +1,93 @@
+package groupAA;
+
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import games.sushigo.SGForwardModel;
+import games.sushigo.SGGameState;
+import games.sushigo.SGParameters;
+import org.junit.Test;
+import players.PlayerConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TreeReuseTests {
+
+    SGForwardModel fm = new SGForwardModel();
+
+    private SushiGoAgentGroupAA newAgent(boolean reuseTree, int reuseDepth, int reuseMaxNodes) {
+        AMAF_Params params = new AMAF_Params();
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 300);
+        params.setParameterValue("maxTreeDepth", 8);
+        params.setParameterValue("reuseTree", reuseTree);
+        params.setParameterValue("reuseDepth", reuseDepth);
+        params.setParameterValue("reuseMaxNodes", reuseMaxNodes);
+        params.setRandomSeed(77);
+        SushiGoAgentGroupAA agent = new SushiGoAgentGroupAA(params);
+        agent.setForwardModel(fm);
+        return agent;
+    }
+
+    // Plays a game with the agent as player 0 against random opponents, and returns the stats of each decision
+    private List<GroupAASearchStats> playGame(SushiGoAgentGroupAA agent, int nPlayers, long seed) {
+        SGParameters params = new SGParameters();
+        params.setRandomSeed(seed);
+        SGGameState state = new SGGameState(params, nPlayers);
+        fm.setup(state);
+        Random rnd = new Random(seed);
+        List<GroupAASearchStats> stats = new ArrayList<>();
+        while (state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractAction action;
+            if (state.getCurrentPlayer() == 0) {
+                AbstractGameState observation = state.copy(0);
+                action = agent.getAction(observation, fm.computeAvailableActions(observation));
+                stats.add(agent.getLastSearchStats());
+                assertTrue(actions.contains(action));
+            } else {
+                action = actions.get(rnd.nextInt(actions.size()));
+            }
+            fm.next(state, action);
+        }
+        agent.finalizePlayer(state);
+        return stats;
+    }
+
+    @Test
+    public void treeIsReusedOnceHandsAreKnown() {
+        // With two players both hands are known after the first turn of each round. The tree is then reused when
+        // the agent chooses first in a turn; when it chooses last, the choice the opponent already made was hidden
+        // from it, so the tree has the opponent choosing again and the position does not match.
+        List<GroupAASearchStats> stats = playGame(newAgent(true, 10, 1000000), 2, 5);
+        int reused = 0;
+        for (GroupAASearchStats s : stats) {
+            assertTrue(s.reusedVisits >= 0 && s.reusedNodes >= 0);
+            if (s.reusedVisits > 0) {
+                reused++;
+                assertTrue(s.reusedNodes > 0);
+            }
+        }
+        assertTrue("Tree reused on only " + reused + " of " + stats.size() + " decisions", reused >= stats.size() / 4);
+    }
+
+    @Test
+    public void noReuseWhenSwitchedOff() {
+        for (GroupAASearchStats s : playGame(newAgent(false, 10, 1000000), 2, 5)) {
+            assertEquals(0, s.reusedVisits);
+            assertEquals(0, s.reusedNodes);
+        }
+    }
+
+    @Test
+    public void reusedTreeIsLimited() {
+        for (GroupAASearchStats s : playGame(newAgent(true, 10, 50), 3, 8))
+            assertTrue(s.reusedNodes <= 50);
+        // with a reuse depth of 0 only the new root is kept, with its visits
+        for (GroupAASearchStats s : playGame(newAgent(true, 0, 1000000), 2, 5))
+            assertTrue(s.reusedNodes <= 1);
+    }
+}
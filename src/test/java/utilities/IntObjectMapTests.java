@@ -0,0 +1,52 @@
+package utilities;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntObjectMapTests {
+
+    @Test
+    public void putGetAndReplace() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(7));
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.get(7));
+        assertTrue(map.containsKey(7));
+        assertFalse(map.containsKey(8));
+        map.put(-1, "minus one");
+        map.put(0, "zero");
+        assertEquals("minus one", map.get(-1));
+        assertEquals("zero", map.get(0));
+        assertEquals(3, map.size());
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(7));
+    }
+
+    @Test
+    public void growsAndMatchesAHashMap() {
+        Random rnd = new Random(5);
+        IntObjectMap<Integer> map = new IntObjectMap<>(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            // consecutive keys, as component IDs are, with some random ones
+            int key = i % 3 == 0 ? rnd.nextInt() : i / 2;
+            assertEquals(expected.put(key, i), map.put(key, i));
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> e : expected.entrySet())
+            assertEquals(e.getValue(), map.get(e.getKey()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullValuesAreRejected() {
+        new IntObjectMap<String>().put(1, null);
+    }
+}
@@ -0,0 +1,118 @@
+package utilities;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PersistentLogTests {
+
+    private static void assertContents(List<Integer> expected, PersistentLog<Integer> log) {
+        assertEquals(expected.size(), log.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertEquals(expected.get(i), log.get(i));
+        assertEquals(expected, log.snapshot());
+    }
+
+    @Test
+    public void addsAcrossChunks() {
+        PersistentLog<Integer> log = new PersistentLog<>();
+        List<Integer> expected = new ArrayList<>();
+        assertNull(log.last());
+        for (int i = 0; i < 10 * PersistentLog.CHUNK + 3; i++) {
+            log.add(i);
+            expected.add(i);
+            assertEquals(Integer.valueOf(i), log.last());
+        }
+        assertContents(expected, log);
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        PersistentLog<Integer> log = new PersistentLog<>();
+        for (int i = 0; i < 100; i++)
+            log.add(i);
+        PersistentLog<Integer> copy = log.copy();
+        List<Integer> snapshot = log.snapshot();
+        for (int i = 0; i < 50; i++) {
+            log.add(-i);
+            copy.add(1000 + i);
+        }
+        copy.set(3, -3);
+        log.set(99, 0);
+        assertEquals(150, log.size());
+        assertEquals(150, copy.size());
+        assertEquals(Integer.valueOf(3), log.get(3));
+        assertEquals(Integer.valueOf(-3), copy.get(3));
+        assertEquals(Integer.valueOf(0), log.get(99));
+        assertEquals(Integer.valueOf(99), copy.get(99));
+        assertEquals(Integer.valueOf(-49), log.get(149));
+        assertEquals(Integer.valueOf(1049), copy.get(149));
+        // the snapshot was taken before either changed
+        assertEquals(100, snapshot.size());
+        assertEquals(Integer.valueOf(99), snapshot.get(99));
+    }
+
+    @Test
+    public void truncateThenAddDoesNotChangeCopies() {
+        PersistentLog<Integer> log = new PersistentLog<>();
+        for (int i = 0; i < 70; i++)
+            log.add(i);
+        PersistentLog<Integer> copy = log.copy();
+        log.truncate(40);
+        assertEquals(40, log.size());
+        for (int i = 0; i < 40; i++)
+            log.add(-i);
+        assertEquals(80, log.size());
+        assertEquals(Integer.valueOf(-1), log.get(41));
+        for (int i = 0; i < 70; i++)
+            assertEquals(Integer.valueOf(i), copy.get(i));
+    }
+
+    @Test
+    public void randomOperationsMatchAList() {
+        Random rnd = new Random(1);
+        List<PersistentLog<Integer>> logs = new ArrayList<>();
+        List<List<Integer>> expected = new ArrayList<>();
+        logs.add(new PersistentLog<>());
+        expected.add(new ArrayList<>());
+        for (int step = 0; step < 20000; step++) {
+            int i = rnd.nextInt(logs.size());
+            PersistentLog<Integer> log = logs.get(i);
+            List<Integer> list = expected.get(i);
+            int op = rnd.nextInt(100);
+            if (op < 80) {
+                log.add(step);
+                list.add(step);
+            } else if (op < 88 && logs.size() < 20) {
+                logs.add(log.copy());
+                expected.add(new ArrayList<>(list));
+            } else if (op < 94) {
+                int n = list.isEmpty() ? 0 : rnd.nextInt(list.size() + 1);
+                log.truncate(n);
+                list.subList(n, list.size()).clear();
+            } else if (!list.isEmpty()) {
+                int idx = rnd.nextInt(list.size());
+                log.set(idx, -step);
+                list.set(idx, -step);
+            }
+        }
+        for (int i = 0; i < logs.size(); i++)
+            assertContents(expected.get(i), logs.get(i));
+    }
+
+    @Test
+    public void snapshotIsUnmodifiable() {
+        PersistentLog<Integer> log = new PersistentLog<>();
+        log.add(1);
+        try {
+            log.snapshot().add(2);
+            fail("Snapshot should be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
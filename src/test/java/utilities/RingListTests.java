@@ -0,0 +1,87 @@
+package utilities;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RingListTests {
+
+    @Test
+    public void addsAndRemovesAtTheTop() {
+        RingList<Integer> list = new RingList<>(2);
+        for (int i = 0; i < 100; i++)
+            list.add(0, i);
+        assertEquals(100, list.size());
+        assertEquals(Integer.valueOf(99), list.get(0));
+        assertEquals(Integer.valueOf(0), list.get(99));
+        for (int i = 99; i >= 50; i--)
+            assertEquals(Integer.valueOf(i), list.remove(0));
+        assertEquals(50, list.size());
+        assertEquals(Integer.valueOf(49), list.get(0));
+    }
+
+    @Test
+    public void randomOperationsMatchAnArrayList() {
+        Random rnd = new Random(11);
+        RingList<Integer> list = new RingList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int step = 0; step < 50000; step++) {
+            int op = rnd.nextInt(100);
+            if (op < 40) {
+                int idx = rnd.nextInt(expected.size() + 1);
+                list.add(idx, step);
+                expected.add(idx, step);
+            } else if (op < 75 && !expected.isEmpty()) {
+                int idx = rnd.nextInt(expected.size());
+                assertEquals(expected.remove(idx), list.remove(idx));
+            } else if (op < 82) {
+                List<Integer> added = List.of(step, -step, step + 1);
+                int idx = rnd.nextInt(expected.size() + 1);
+                list.addAll(idx, added);
+                expected.addAll(idx, added);
+            } else if (op < 86 && !expected.isEmpty()) {
+                int from = rnd.nextInt(expected.size());
+                int to = from + rnd.nextInt(Math.min(5, expected.size() - from) + 1);
+                list.subList(from, to).clear();
+                expected.subList(from, to).clear();
+            } else if (op < 95 && !expected.isEmpty()) {
+                int idx = rnd.nextInt(expected.size());
+                assertEquals(expected.set(idx, -step), list.set(idx, -step));
+            } else if (op < 96) {
+                list.clear();
+                expected.clear();
+            } else {
+                Collections.shuffle(list, new Random(step));
+                Collections.shuffle(expected, new Random(step));
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, list);
+        assertEquals(expected, new RingList<>(list));
+        assertArrayEquals(expected.toArray(), list.toArray());
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        RingList<String> list = new RingList<>();
+        list.add("a");
+        list.add("b");
+        list.add(0, "c");
+        RingList<String> copy = new RingList<>(list);
+        copy.remove(0);
+        list.add("d");
+        assertEquals(List.of("c", "a", "b", "d"), list);
+        assertEquals(List.of("a", "b"), copy);
+        assertEquals(1, list.indexOf("a"));
+        assertEquals(-1, copy.indexOf("c"));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorsFailFast() {
+        RingList<Integer> list = new RingList<>(List.of(1, 2, 3));
+        for (Integer i : list)
+            list.add(0, i);
+    }
+}
@@ -0,0 +1,110 @@
+package utilities;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTests {
+
+    @Test
+    public void storesAndReplaces() {
+        TranspositionTable<String> table = new TranspositionTable<>(100);
+        assertEquals(128, table.capacity());
+        assertNull(table.get(42));
+        table.put(42, "a", 0);
+        assertEquals("a", table.get(42));
+        table.put(42, "b", 0);
+        assertEquals("b", table.get(42));
+        assertEquals("b", table.putIfAbsent(42, "c", 0));
+        assertEquals("d", table.putIfAbsent(43, "d", 0));
+        assertEquals(2, table.size());
+        table.clear();
+        assertNull(table.get(42));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void highPriorityEntriesSurviveUntilTheNextGeneration() {
+        // a table of one bucket: the first slot keeps the highest priority, the second the newest entry
+        TranspositionTable<Integer> table = new TranspositionTable<>(2);
+        table.put(1, 1, 10);
+        for (int key = 2; key < 20; key++) {
+            table.put(key, key, 0);
+            assertEquals(Integer.valueOf(1), table.get(1));
+            assertEquals(Integer.valueOf(key), table.get(key));
+        }
+        table.nextGeneration();
+        table.put(100, 100, 0);
+        table.put(101, 101, 0);
+        assertNull(table.get(1));
+        assertEquals(Integer.valueOf(100), table.get(100));
+        assertEquals(Integer.valueOf(101), table.get(101));
+    }
+
+    @Test
+    public void concurrentAccessNeverMixesEntries() throws InterruptedException {
+        TranspositionTable<Long> table = new TranspositionTable<>(1 << 10);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom rnd = new SplittableRandom(seed);
+                for (int i = 0; i < 200000; i++) {
+                    // far more keys than slots, so entries are replaced all the time
+                    long key = rnd.nextLong(1 << 14);
+                    Long value = rnd.nextBoolean() ? table.get(key) : table.putIfAbsent(key, ~key, rnd.nextInt(3));
+                    if (value != null && value != ~key)
+                        failed.set(true);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertFalse(failed.get());
+        assertTrue(table.size() <= table.capacity());
+    }
+
+    @Test
+    public void racingThreadsGetTheSameValue() throws InterruptedException {
+        // two keys per bucket, so every key fits and none is ever replaced
+        final int nKeys = 256, nThreads = 4;
+        TranspositionTable<Integer> table = new TranspositionTable<>(nKeys);
+        for (int round = 0; round < 200; round++) {
+            table.clear();
+            int[][] results = new int[nThreads][nKeys];
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < nThreads; t++) {
+                final int id = t;
+                Thread thread = new Thread(() -> {
+                    SplittableRandom rnd = new SplittableRandom(id);
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int key = 0; key < nKeys; key++)
+                        results[id][key] = table.putIfAbsent(key, id, rnd.nextInt(3));
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : threads)
+                thread.join();
+            assertEquals(nKeys, table.size());
+            for (int key = 0; key < nKeys; key++)
+                for (int t = 0; t < nThreads; t++)
+                    assertEquals(table.get(key).intValue(), results[t][key]);
+        }
+    }
+}